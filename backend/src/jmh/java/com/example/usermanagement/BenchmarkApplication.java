@@ -0,0 +1,39 @@
+package com.example.usermanagement;
+
+import java.util.stream.Stream;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the application for benchmarks that need the real JPA stack.
+ *
+ * Uses a private in-memory H2 database, disables SQL logging and password cost
+ * calibration, and binds the servlet stack (required by Spring Security) to a
+ * random plain-HTTP port.
+ */
+public final class BenchmarkApplication {
+    private BenchmarkApplication() { }
+
+    /**
+     * Starts a new application context.
+     *
+     * @param extraProperties Additional {@code key=value} properties for the benchmark
+     * @return The running context; close it in the benchmark's tear-down
+     */
+    public static ConfigurableApplicationContext start(String... extraProperties) {
+        // passed as command-line arguments so they override application.yml
+        Stream<String> defaults = Stream.of(
+                "server.port=0",
+                "server.ssl.enabled=false",
+                "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN",
+                "app.security.password.calibrate=false");
+        String[] args = Stream.concat(defaults, Stream.of(extraProperties)).map(p -> "--" + p).toArray(String[]::new);
+        return new SpringApplicationBuilder(UserManagementApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run(args);
+    }
+}
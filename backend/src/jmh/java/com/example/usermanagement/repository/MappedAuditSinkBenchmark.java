@@ -0,0 +1,79 @@
+package com.example.usermanagement.repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.usermanagement.model.LoginAudit;
+
+/**
+ * Append and per-user page cost of {@link MappedAuditSink}, in records per
+ * second. Compare with {@code audit.writer.written} under the default JDBC sink.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappedAuditSinkBenchmark {
+    private static final int BATCH = 500;
+    private static final OffsetDateTime FAR = OffsetDateTime.parse("9999-01-01T00:00:00Z");
+
+    private Path dir;
+    private MappedAuditSink sink;
+    private final List<LoginAudit> batch = new ArrayList<>(BATCH);
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("audit-bench");
+        sink = new MappedAuditSink(dir.toString(), 1 << 20, 256, 90);
+        sink.open();
+        OffsetDateTime now = OffsetDateTime.now();
+        for (int i = 0; i < BATCH; i++) {
+            LoginAudit a = new LoginAudit();
+            a.setUsername("user" + (i % 1000));
+            a.setIp("10.0." + (i / 256) + "." + (i % 256));
+            a.setTimestamp(now);
+            batch.add(a);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        sink.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void append() {
+        sink.append(batch);
+    }
+
+    @Benchmark
+    public List<LoginAudit> findPage() {
+        return sink.findPage("user42", OffsetDateTime.parse("1970-01-01T00:00:00Z"), FAR, Long.MAX_VALUE, 50);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.usermanagement.security;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+/**
+ * Per-request cost of {@link JwtAuthenticationFilter} for an authenticated request.
+ *
+ * Calls {@code doFilterInternal} directly (this class shares the filter's package)
+ * so the measurement covers token extraction, verification and security context
+ * setup, without the servlet container. {@code cacheEntries = 0} disables the
+ * verified-token cache, so every call pays for full verification.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+    @Param({"0", "10000"})
+    public int cacheEntries;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private final FilterChain chain = (req, res) -> { };
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil(new JwtKeyRing(new InMemoryJwtKeyStore(), 86400000, 300000, 60000), 300000);
+        filter = new JwtAuthenticationFilter(jwtUtil, new VerifiedTokenCache(cacheEntries), new AccessTokenRevocationList(300000));
+        request = new MockHttpServletRequest("GET", "/api/auth/me/last-login");
+        request.addHeader("Authorization", "Bearer " + jwtUtil.generateToken("alice", "USER"));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Object authenticatedRequest() throws ServletException, IOException {
+        filter.doFilterInternal(request, response, chain);
+        Object auth = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return auth;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.usermanagement.security;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of PBKDF2 hashing and verification at increasing thread counts.
+ *
+ * The per-thread variants show how verification scales with cores, which is what
+ * sizes {@link PasswordHashingExecutor}. Use {@code -p iterations=...} to measure
+ * other costs than the default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class Pbkdf2PasswordBenchmark {
+    @Param({"310000"})
+    int iterations;
+
+    private final char[] password = "correct horse battery staple".toCharArray();
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        encoded = Pbkdf2Password.encode(password, iterations);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String encode() {
+        return Pbkdf2Password.encode(password, iterations);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean verify1Thread() {
+        return Pbkdf2Password.matches(password, encoded, null);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean verify4Threads() {
+        return Pbkdf2Password.matches(password, encoded, null);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean verifyMaxThreads() {
+        return Pbkdf2Password.matches(password, encoded, null);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.usermanagement.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.usermanagement.BenchmarkApplication;
+
+/**
+ * Refresh-token rotation against the real JPA stack on an in-memory H2 database.
+ * {@code preloadedTokens} fills the table with other users' tokens first, to
+ * show that neither the selector lookup nor the per-user bulk revocation slows
+ * down as the table grows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RefreshTokenServiceBenchmark {
+
+    /** Shared application context, started once per fork. */
+    @State(Scope.Benchmark)
+    public static class App {
+        @Param({"0", "100000"})
+        int preloadedTokens;
+
+        @Param({"jpa", "off-heap"})
+        String store;
+
+        ConfigurableApplicationContext context;
+        RefreshTokenService service;
+
+        @Setup
+        public void start() {
+            context = BenchmarkApplication.start("app.refresh-tokens.store=" + store);
+            service = context.getBean(RefreshTokenService.class);
+            for (int i = 0; i < preloadedTokens; i++) {
+                service.createRefreshToken("other-" + (i % 1000));
+            }
+        }
+
+        @TearDown
+        public void stop() {
+            context.close();
+        }
+    }
+
+    /** Each benchmark thread rotates its own token chain. */
+    @State(Scope.Thread)
+    public static class Session {
+        String username;
+        String token;
+
+        @Setup
+        public void login(App app) {
+            username = "bench-" + Thread.currentThread().getId();
+            token = app.service.createRefreshToken(username);
+        }
+    }
+
+    @Benchmark
+    public String rotateRefreshToken(App app, Session session) {
+        session.token = app.service.rotateRefreshToken(session.token).token();
+        return session.token;
+    }
+
+    /** "Log out everywhere" for a user with one active session. */
+    @Benchmark
+    public int revokeAllForUser(App app, Session session) {
+        app.service.createRefreshToken(session.username);
+        return app.service.revokeAllForUser(session.username);
+    }
+}
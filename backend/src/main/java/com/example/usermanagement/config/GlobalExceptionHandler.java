@@ -3,12 +3,17 @@ package com.example.usermanagement.config;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import com.example.usermanagement.security.HashingCapacityExceededException;
+import com.example.usermanagement.security.IntrospectionCapacityExceededException;
+import com.example.usermanagement.security.LoginThrottledException;
+
 /**
  * Global exception handler that converts common exceptions into HTTP responses.
  * 
@@ -40,6 +45,54 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errors);
     }
 
+    /**
+     * Handles load shedding by the password hashing executor.
+     * 
+     * Returns 503 Service Unavailable with a {@code Retry-After} header so clients
+     * back off instead of retrying immediately while the hashing pool is saturated.
+     * 
+     * @param ex The exception carrying the suggested retry delay
+     * @return ResponseEntity with status 503 Service Unavailable and a Retry-After header
+     */
+    @ExceptionHandler(HashingCapacityExceededException.class)
+    public ResponseEntity<?> handleHashingCapacity(HashingCapacityExceededException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
+
+    /**
+     * Handles load shedding by the token introspection executor.
+     * 
+     * Returns 503 Service Unavailable with a {@code Retry-After} header so gateways
+     * back off instead of resubmitting their batch while the pool is saturated.
+     * 
+     * @param ex The exception carrying the suggested retry delay
+     * @return ResponseEntity with status 503 Service Unavailable and a Retry-After header
+     */
+    @ExceptionHandler(IntrospectionCapacityExceededException.class)
+    public ResponseEntity<?> handleIntrospectionCapacity(IntrospectionCapacityExceededException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
+
+    /**
+     * Handles login attempts rejected by the login throttle.
+     * 
+     * Returns 429 Too Many Requests with a {@code Retry-After} header telling the
+     * client when the username or IP address may try again.
+     * 
+     * @param ex The exception carrying the remaining block time
+     * @return ResponseEntity with status 429 Too Many Requests and a Retry-After header
+     */
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<?> handleLoginThrottled(LoginThrottledException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
+
     /**
      * Handles all other exceptions that are not specifically handled.
      * 
@@ -0,0 +1,35 @@
+package com.example.usermanagement.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables Spring's {@code @Scheduled} support for background housekeeping.
+ *
+ * Scheduled tasks in the application:
+ *
+ *   {@link com.example.usermanagement.security.AccessTokenRevocationList#purgeExpired()} -
+ *   drops revocation entries once the tokens they refer to have expired
+ *   {@link com.example.usermanagement.service.RefreshTokenReaper#reap()} -
+ *   deletes expired refresh tokens in bounded batches
+ *   {@link com.example.usermanagement.repository.OffHeapRefreshTokenStore#flushJournal()} -
+ *   writes pending refresh token changes to the database (off-heap store only)
+ *   {@link com.example.usermanagement.service.AuditRetentionService#run()} -
+ *   rolls up login audit detail past its retention period and removes it
+ *   {@link com.example.usermanagement.service.AuditStatsService#evictExpired()} -
+ *   evicts in-memory login statistics without logins in the last 30 days
+ *   {@link com.example.usermanagement.service.LastLoginRecorder#flush()} -
+ *   writes buffered last login timestamps (coalesce mode only)
+ *
+ * The scheduler pool ({@code spring.task.scheduling.pool.size}) has a thread per
+ * task, so a long reaper or retention run never delays the revocation-list
+ * purge or the refresh token journal flush.
+ *
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
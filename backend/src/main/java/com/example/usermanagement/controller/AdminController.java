@@ -17,7 +17,9 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import com.example.usermanagement.config.SseEmitterRegistry;
 import com.example.usermanagement.model.User;
 import com.example.usermanagement.repository.UserRepository;
-import com.example.usermanagement.security.Pbkdf2Password;
+import com.example.usermanagement.security.PasswordHashingExecutor;
+import com.example.usermanagement.service.RefreshTokenService;
+import com.example.usermanagement.service.UserCredentialCache;
 
 /**
  * REST controller for administrative operations.
@@ -55,16 +57,26 @@ import com.example.usermanagement.security.Pbkdf2Password;
 public class AdminController {
     private final UserRepository userRepository;
     private final SseEmitterRegistry emitterRegistry;
+    private final PasswordHashingExecutor hashingExecutor;
+    private final RefreshTokenService refreshTokenService;
+    private final UserCredentialCache credentials;
 
     /**
      * Constructs a new AdminController.
      * 
      * @param userRepository The repository for user data access
      * @param emitterRegistry The registry for managing SSE connections
+     * @param hashingExecutor The bounded executor that runs PBKDF2 off the request threads
+     * @param refreshTokenService The service used to revoke a deleted user's sessions
+     * @param credentials The credentials cache, invalidated when a user is deleted or reset
      */
-    public AdminController(UserRepository userRepository, SseEmitterRegistry emitterRegistry) {
+    public AdminController(UserRepository userRepository, SseEmitterRegistry emitterRegistry, PasswordHashingExecutor hashingExecutor,
+                           RefreshTokenService refreshTokenService, UserCredentialCache credentials) {
         this.userRepository = userRepository;
         this.emitterRegistry = emitterRegistry;
+        this.hashingExecutor = hashingExecutor;
+        this.refreshTokenService = refreshTokenService;
+        this.credentials = credentials;
     }
 
     /**
@@ -112,20 +124,23 @@ public class AdminController {
      * This operation:
      * <ol>
      *   Checks if the user exists
-     *   Deletes the user from the database
+     *   Deletes the user from the database and drops their cached credentials
+     *   Revokes the user's refresh tokens and outstanding access tokens
      *   Notifies all connected admin clients via SSE to refresh their user lists
      * </ol>
      * 
-     * Note: This is a permanent operation. Associated refresh tokens and audit logs
-     * may remain in the database depending on cascade settings.
+     * Note: This is a permanent operation. Audit logs remain in the database.
      * 
      * @param id The ID of the user to delete
      * @return ResponseEntity with status 200 OK and deleted user ID, or 404 if user not found
      */
     @DeleteMapping("/users/{id}")
     public ResponseEntity<?> deleteUser(@PathVariable("id") Long id) {
-        if (!userRepository.existsById(id)) return ResponseEntity.notFound().build();
+        User user = userRepository.findById(id).orElse(null);
+        if (user == null) return ResponseEntity.notFound().build();
         userRepository.deleteById(id);
+        credentials.invalidate(user.getUsername());
+        refreshTokenService.revokeAllForUser(user.getUsername());
         notifyEmitters();
         return ResponseEntity.ok().body(java.util.Collections.singletonMap("deleted", id));
     }
@@ -136,10 +151,9 @@ public class AdminController {
      * This operation:
      * <ol>
      *   Generates a secure, readable temporary password (12 characters)
-     *   Creates a new salt for the user
-     *   Hashes the temporary password with PBKDF2
+     *   Hashes the temporary password with PBKDF2 and a fresh salt
      *   Sets the forcePasswordReset flag to true
-     *   Updates the user in the database
+     *   Updates the user in the database and drops their cached credentials
      *   Notifies all connected admin clients via SSE
      * </ol>
      * 
@@ -154,11 +168,11 @@ public class AdminController {
     public ResponseEntity<?> resetPassword(@PathVariable("id") Long id) {
     User u = userRepository.findById(id).orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
         String temp = com.example.usermanagement.security.SecurityUtil.generateReadablePassword(12);
-        String salt = Pbkdf2Password.generateSalt();
-        u.setSalt(salt);
-        u.setPasswordHash(Pbkdf2Password.hash(temp.toCharArray(), salt));
+        u.setPasswordHash(hashingExecutor.encode(temp.toCharArray()));
+        u.setSalt(null);
         u.setForcePasswordReset(true);
         userRepository.save(u);
+        credentials.invalidate(u.getUsername());
         notifyEmitters();
         return ResponseEntity.ok().body(java.util.Collections.singletonMap("tempPassword", temp));
     }
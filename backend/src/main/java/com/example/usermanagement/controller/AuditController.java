@@ -1,16 +1,38 @@
 package com.example.usermanagement.controller;
 
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
 import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.usermanagement.dto.AuditIpUser;
+import com.example.usermanagement.dto.AuditPage;
 import com.example.usermanagement.model.LoginAudit;
-import com.example.usermanagement.repository.LoginAuditRepository;
+import com.example.usermanagement.model.LoginAuditDaily;
+import com.example.usermanagement.repository.LoginAuditDailyRepository;
+import com.example.usermanagement.repository.AuditSink;
+import com.example.usermanagement.security.IpRange;
+import com.example.usermanagement.security.SecurityUtil;
+import com.example.usermanagement.service.AuditExportService;
+import com.example.usermanagement.service.AuditStatsService;
 
 /**
  * REST controller for audit log operations.
@@ -20,7 +42,11 @@ import com.example.usermanagement.repository.LoginAuditRepository;
  * 
  * Available operations:
  * 
- *   Retrieve login audit records for a specific user
+ *   Retrieve login audit records for a specific user, a page at a time
+ *   Export login audit records as NDJSON or CSV, streamed
+ *   Retrieve a user's daily login counts, also beyond the detail retention period
+ *   Retrieve login statistics of a user or an IP address over the last hour, day and 30 days
+ *   Find which users logged in from an IP address or CIDR block, and when
  * 
  * 
  * Audit records contain:
@@ -43,34 +69,242 @@ import com.example.usermanagement.repository.LoginAuditRepository;
 @RequestMapping("/api/admin")
 @PreAuthorize("hasAuthority('ADMIN')")
 public class AuditController {
-    private final LoginAuditRepository auditRepo;
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 500;
+    /** Bounds used when the request gives no time range */
+    private static final OffsetDateTime MIN_TIME = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime MAX_TIME = OffsetDateTime.of(9999, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final AuditSink auditSink;
+    private final AuditExportService exportService;
+    private final LoginAuditDailyRepository dailyRepo;
+    private final AuditStatsService statsService;
 
     /**
      * Constructs a new AuditController.
      * 
-     * @param auditRepo The repository for login audit data access
+     * @param auditSink The storage holding the login audit records
+     * @param exportService The service that streams audit exports
+     * @param dailyRepo The repository for daily login rollups
+     * @param statsService The in-memory login statistics
      */
-    public AuditController(LoginAuditRepository auditRepo) {
-        this.auditRepo = auditRepo;
+    public AuditController(AuditSink auditSink, AuditExportService exportService, LoginAuditDailyRepository dailyRepo,
+                           AuditStatsService statsService) {
+        this.auditSink = auditSink;
+        this.exportService = exportService;
+        this.dailyRepo = dailyRepo;
+        this.statsService = statsService;
     }
 
     /**
-     * Retrieves login audit records for a specific user.
-     * 
-     * This endpoint queries all login audit records and filters them by username.
-     * The results are returned in chronological order (oldest first).
+     * Retrieves a page of login audit records for a specific user.
      * 
-     * Note: The current implementation loads all audit records and filters in memory.
-     * For production with large datasets, consider adding a repository method with
-     * a WHERE clause for better performance.
+     * Records are returned newest first. The first request gives the username
+     * and optionally a time range; each following page is requested with the
+     * {@code nextCursor} of the previous response as {@code before}. With the
+     * default sink each page is one range scan on the
+     * {@code (username, timestamp, id)} index, so the latency does not depend on
+     * the total number of logins recorded.
      * 
      * @param username The username to filter audit records by
-     * @return ResponseEntity containing a list of LoginAudit records for the specified user
+     * @param from Optional inclusive lower bound (ISO-8601 date-time)
+     * @param to Optional exclusive upper bound (ISO-8601 date-time)
+     * @param before Optional cursor returned by the previous page
+     * @param limit Maximum records per page (1 to {@value #MAX_LIMIT}, default {@value #DEFAULT_LIMIT})
+     * @return ResponseEntity containing the page and the cursor of the next one,
+     *         or 400 Bad Request if the cursor is malformed
      */
     @GetMapping("/audit")
-    public ResponseEntity<List<LoginAudit>> getAudit(@RequestParam("username") String username) {
-        List<LoginAudit> entries = auditRepo.findAll();
-        entries.removeIf(e -> !e.getUsername().equals(username));
-        return ResponseEntity.ok(entries);
+    public ResponseEntity<?> getAudit(@RequestParam("username") String username,
+                                      @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+                                      @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+                                      @RequestParam(value = "before", required = false) String before,
+                                      @RequestParam(value = "limit", defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        // without a cursor, start right before the upper bound: (to, Long.MIN_VALUE) excludes "to" itself
+        OffsetDateTime beforeTimestamp = to != null ? to : MAX_TIME;
+        long beforeId = Long.MIN_VALUE;
+        if (before != null && !before.isEmpty()) {
+            try {
+                Cursor cursor = Cursor.decode(before);
+                beforeTimestamp = cursor.timestamp();
+                beforeId = cursor.id();
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body("Cursor de auditoría inválido");
+            }
+        }
+        // one extra row tells whether there is a next page
+        List<LoginAudit> entries = auditSink.findPage(username, from != null ? from : MIN_TIME,
+                beforeTimestamp, beforeId, size + 1);
+        String nextCursor = null;
+        if (entries.size() > size) {
+            entries = entries.subList(0, size);
+            nextCursor = Cursor.of(entries.get(size - 1)).encode();
+        }
+        return ResponseEntity.ok(new AuditPage(entries, nextCursor));
+    }
+
+    /**
+     * Exports login audit records, oldest first, as a streamed download.
+     * 
+     * Rows are written as they are read from a database cursor, so memory use
+     * does not depend on the size of the export. The body is gzip-compressed
+     * when the client sends {@code Accept-Encoding: gzip}.
+     * 
+     * @param format {@code ndjson} (default) or {@code csv}
+     * @param username Optional; only export this user's records
+     * @param from Optional inclusive lower bound (ISO-8601 date-time)
+     * @param to Optional exclusive upper bound (ISO-8601 date-time)
+     * @param acceptEncoding The client's {@code Accept-Encoding} header
+     * @return ResponseEntity streaming the export, or 400 Bad Request for an unknown format
+     */
+    @GetMapping("/audit/export")
+    public ResponseEntity<?> export(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                    @RequestParam(value = "username", required = false) String username,
+                                    @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+                                    @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+                                    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        AuditExportService.Format f;
+        try {
+            f = AuditExportService.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        String user = username == null || username.isBlank() ? null : username;
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream zip = new GZIPOutputStream(out, 8192);
+                exportService.export(user, from, to, f, zip);
+                zip.finish();
+            } else {
+                exportService.export(user, from, to, f, out);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(f.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"login-audit." + f.extension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Retrieves a user's daily login counts.
+     * 
+     * Rollups exist for the days whose detail has been removed by the retention
+     * policy; recent days are still served by {@code /audit} and {@code /audit/export}.
+     * 
+     * @param username The user
+     * @param from Optional first day, inclusive (ISO-8601 date, UTC)
+     * @param to Optional last day, inclusive (ISO-8601 date, UTC; default today)
+     * @return ResponseEntity containing the rollups, oldest first
+     */
+    @GetMapping("/audit/daily")
+    public ResponseEntity<List<LoginAuditDaily>> getDaily(@RequestParam("username") String username,
+                                                          @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                          @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate last = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate first = from != null ? from : MIN_TIME.toLocalDate();
+        return ResponseEntity.ok(dailyRepo.findByUsernameAndLoginDayBetweenOrderByLoginDayAsc(username, first, last));
+    }
+
+    /**
+     * Retrieves the login statistics of a user or of an IP address.
+     * 
+     * For each window ({@code 1h}, {@code 24h}, {@code 30d}): number of logins,
+     * approximate number of distinct IP addresses (for a user) or users (for an
+     * address), and first and last login. Answered from memory, see
+     * {@link AuditStatsService}.
+     * 
+     * @param username The user (exactly one of {@code username} and {@code ip})
+     * @param ip The IP address, in any notation (exactly one of {@code username} and {@code ip})
+     * @return ResponseEntity containing the statistics, or 400 Bad Request if
+     *         neither or both parameters are given or the address is invalid
+     */
+    @GetMapping("/audit/stats")
+    public ResponseEntity<?> getStats(@RequestParam(value = "username", required = false) String username,
+                                      @RequestParam(value = "ip", required = false) String ip) {
+        boolean byUser = username != null && !username.isBlank();
+        boolean byIp = ip != null && !ip.isBlank();
+        if (byUser == byIp) {
+            return ResponseEntity.badRequest().body("Indique username o ip");
+        }
+        if (byUser) {
+            return ResponseEntity.ok(statsService.userStats(username));
+        }
+        // statistics are keyed by the canonical form the audit records use
+        String address = SecurityUtil.normalizeIp(ip);
+        if (address == null) {
+            return ResponseEntity.badRequest().body("Dirección IP inválida");
+        }
+        return ResponseEntity.ok(statsService.ipStats(address));
+    }
+
+    /**
+     * Finds which users logged in from an IP address or CIDR block, and when.
+     * 
+     * Addresses are stored in binary, so a CIDR block is a range of the
+     * {@code (ip, timestamp)} index with the default sink.
+     * 
+     * @param ip An address ({@code 203.0.113.7}) or CIDR block ({@code 203.0.113.0/24}, {@code 2001:db8::/32})
+     * @param from Optional inclusive lower bound (ISO-8601 date-time)
+     * @param to Optional exclusive upper bound (ISO-8601 date-time)
+     * @param limit Maximum rows (1 to {@value #MAX_LIMIT}, default {@value #DEFAULT_LIMIT})
+     * @return ResponseEntity containing one row per user and address, most recent
+     *         login first, or 400 Bad Request if {@code ip} is not an address or CIDR block
+     */
+    @GetMapping("/audit/ip")
+    public ResponseEntity<?> getByAddress(@RequestParam("ip") String ip,
+                                          @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+                                          @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+                                          @RequestParam(value = "limit", defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        IpRange range;
+        try {
+            range = IpRange.parse(ip);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Dirección IP o rango CIDR inválido");
+        }
+        List<AuditIpUser> rows = auditSink.findByAddress(range, from != null ? from : MIN_TIME, to != null ? to : MAX_TIME,
+                Math.max(1, Math.min(limit, MAX_LIMIT)));
+        return ResponseEntity.ok(rows);
+    }
+
+    /**
+     * Position of the last record of a page, exchanged with the client as an
+     * opaque, URL-safe string: Base64 of {@code epochSecond:nano:id}.
+     * 
+     * @param timestamp The record's timestamp
+     * @param id The record's id, which orders records with the same timestamp
+     */
+    record Cursor(OffsetDateTime timestamp, long id) {
+
+        static Cursor of(LoginAudit last) {
+            return new Cursor(last.getTimestamp(), last.getId());
+        }
+
+        String encode() {
+            Instant t = timestamp.toInstant();
+            String position = t.getEpochSecond() + ":" + t.getNano() + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        /**
+         * @throws IllegalArgumentException If the value is not a cursor produced by {@link #encode()}
+         */
+        static Cursor decode(String value) {
+            String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.US_ASCII).split(":", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Malformed audit cursor");
+            }
+            try {
+                Instant t = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+                return new Cursor(OffsetDateTime.ofInstant(t, ZoneOffset.UTC), Long.parseLong(parts[2]));
+            } catch (DateTimeException | ArithmeticException e) {
+                throw new IllegalArgumentException("Malformed audit cursor", e);
+            }
+        }
     }
 }
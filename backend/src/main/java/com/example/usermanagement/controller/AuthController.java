@@ -18,8 +18,11 @@ import com.example.usermanagement.dto.ChangePasswordRequest;
 import com.example.usermanagement.dto.RegisterRequest;
 import com.example.usermanagement.model.User;
 import com.example.usermanagement.repository.UserRepository;
-import com.example.usermanagement.security.Pbkdf2Password;
+import com.example.usermanagement.security.PasswordHashingExecutor;
 import com.example.usermanagement.service.AuthService;
+import com.example.usermanagement.service.LastLoginRecorder;
+import com.example.usermanagement.service.TokenRefreshService;
+import com.example.usermanagement.service.UserCredentialCache;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -61,6 +64,10 @@ public class AuthController {
     private final AuthService authService;
     private final UserRepository userRepository;
     private final com.example.usermanagement.service.RefreshTokenService refreshTokenService;
+    private final TokenRefreshService tokenRefreshService;
+    private final PasswordHashingExecutor hashingExecutor;
+    private final LastLoginRecorder lastLogins;
+    private final UserCredentialCache credentials;
     private final boolean secureCookies;
 
     /**
@@ -69,13 +76,22 @@ public class AuthController {
      * @param authService The authentication service for login/registration operations
      * @param userRepository The repository for user data access
      * @param refreshTokenService The service for managing refresh tokens
+     * @param tokenRefreshService The service that rotates refresh tokens, coalescing concurrent refreshes
+     * @param hashingExecutor The bounded executor that runs PBKDF2 off the request threads
+     * @param lastLogins The recorder of last login timestamps, possibly holding unwritten ones
+     * @param credentials The credentials cache, invalidated when a user changes their password
      * @param secureCookies Whether to use secure cookies (HTTPS only), configured via application.yml
      */
     public AuthController(AuthService authService, UserRepository userRepository, com.example.usermanagement.service.RefreshTokenService refreshTokenService,
-                          @Value("${app.security.secure-cookies:true}") boolean secureCookies) {
+                          TokenRefreshService tokenRefreshService, PasswordHashingExecutor hashingExecutor,
+                          LastLoginRecorder lastLogins, UserCredentialCache credentials, @Value("${app.security.secure-cookies:true}") boolean secureCookies) {
         this.authService = authService;
         this.userRepository = userRepository;
         this.refreshTokenService = refreshTokenService;
+        this.tokenRefreshService = tokenRefreshService;
+        this.hashingExecutor = hashingExecutor;
+        this.lastLogins = lastLogins;
+        this.credentials = credentials;
         this.secureCookies = secureCookies;
     }
 
@@ -95,6 +111,10 @@ public class AuthController {
      * If the user has the {@code forcePasswordReset} flag set, the response includes
      * this flag so the frontend can prompt for password change.
      * 
+     * Too many attempts for the username from the same IP address, or from the IP
+     * address overall, are rejected with 429 Too Many Requests and a
+     * {@code Retry-After} header, before any hashing.
+     * 
      * @param req The authentication request containing username and password
      * @param request The HTTP request (used to extract IP address for audit)
      * @param response The HTTP response (used to set cookies)
@@ -103,10 +123,10 @@ public class AuthController {
      */
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest req, HttpServletRequest request, HttpServletResponse response) {
-        // Prefer X-Forwarded-For if present (behind proxies); fall back to remoteAddr
-        String ip = request.getHeader("X-Forwarded-For");
-        if (ip == null || ip.isEmpty()) ip = request.getRemoteAddr();
-        ip = com.example.usermanagement.security.SecurityUtil.normalizeIp(ip);
+        // The remote address only: behind a trusted proxy the container has already resolved it from
+        // X-Forwarded-For (server.forward-headers-strategy); the raw header is set by the client and
+        // would let anyone pick the address its attempts are throttled and audited under
+        String ip = com.example.usermanagement.security.SecurityUtil.normalizeIp(request.getRemoteAddr());
         AuthResponse auth = authService.login(req, ip);
     // always issue refresh token cookie on login
     ResponseCookie accessCookie = ResponseCookie.from("REMEMBER", auth.getToken())
@@ -136,8 +156,7 @@ public class AuthController {
      * This endpoint:
      * <ol>
      *   Validates that the username is not already taken
-     *   Generates a unique salt for the password
-     *   Hashes the password using PBKDF2 with the generated salt
+     *   Hashes the password using PBKDF2 with a fresh salt
      *   Creates a new user with the USER role
      * </ol>
      * 
@@ -159,9 +178,9 @@ public class AuthController {
      * This endpoint implements token rotation for enhanced security:
      * <ol>
      *   Extracts the refresh token from the REFRESH cookie
-     *   Validates the refresh token (checks existence and expiration)
-     *   Deletes the old refresh token (rotation)
-     *   Generates a new refresh token and access token
+     *   Rotates the refresh token in one transaction (checks existence, reuse and expiration)
+     *   Generates a new access token for the token's owner
+     *   Concurrent refreshes with the same token (several browser tabs) share one rotation
      *   Sets the new refresh token as a cookie
      *   Returns the new access token in the response body
      * </ol>
@@ -182,11 +201,10 @@ public class AuthController {
         }
         if (refreshToken == null) return ResponseEntity.status(401).build();
         try {
-            String username = refreshTokenService.validate(refreshToken).orElseThrow(() -> new IllegalArgumentException("Token de refresco inválido"));
-            // rotate
-            String newRefresh = refreshTokenService.rotateRefreshToken(refreshToken);
-            // generate new access token
-            String newAccess = authService.createAccessTokenForUser(username);
+            // rotate and generate new access token (shared with concurrent refreshes of the same token)
+            TokenRefreshService.TokenRefresh refreshed = tokenRefreshService.refresh(refreshToken);
+            String newRefresh = refreshed.refreshToken();
+            String newAccess = refreshed.accessToken();
 
         ResponseCookie refreshCookie = ResponseCookie.from("REFRESH", newRefresh)
             .httpOnly(true)
@@ -211,13 +229,11 @@ public class AuthController {
      * <ol>
      *   Extracts the refresh token from the REFRESH cookie
      *   Revokes the refresh token in the database (deletes it)
+     *   Revokes the bearer access token, if one is sent, until it expires
      *   Clears both REFRESH and REMEMBER cookies by setting maxAge to 0
      * </ol>
      * 
-     * Note: Access tokens are stateless JWTs and cannot be revoked individually.
-     * They will expire naturally after their short lifetime (5 minutes).
-     * 
-     * @param request The HTTP request (used to extract cookies)
+     * @param request The HTTP request (used to extract cookies and the Authorization header)
      * @param response The HTTP response (used to clear cookies)
      * @return ResponseEntity with status 200 OK
      */
@@ -231,6 +247,10 @@ public class AuthController {
                 }
             }
         }
+        String authorization = request.getHeader("Authorization");
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            authService.revokeAccessToken(authorization.substring(7));
+        }
         // clear cookies
     ResponseCookie clearRefresh = ResponseCookie.from("REFRESH", "")
         .httpOnly(true)
@@ -257,6 +277,9 @@ public class AuthController {
      * 
      * This endpoint requires authentication (JWT token in Authorization header).
      * The username is extracted from the Spring Security Authentication object.
+     * The user's id comes from the cached credentials and only the last login
+     * column is read, through {@link LastLoginRecorder}, so a login not yet
+     * written to the database is already reported.
      * 
      * @param authentication The Spring Security authentication object (injected automatically)
      * @return ResponseEntity containing the last login timestamp, or null if never logged in
@@ -264,9 +287,11 @@ public class AuthController {
      */
     @GetMapping("/me/last-login")
     public ResponseEntity<OffsetDateTime> lastLogin(Authentication authentication) {
-        String username = authentication.getName();
-    User user = userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        return ResponseEntity.ok(user.getLastLogin());
+        UserCredentialCache.Credentials user = credentials.get(authentication.getName());
+        if (user == null) {
+            throw new RuntimeException("Usuario no encontrado");
+        }
+        return ResponseEntity.ok(lastLogins.lastLogin(user.id()));
     }
 
     /**
@@ -275,10 +300,10 @@ public class AuthController {
      * This endpoint:
      * <ol>
      *   Verifies the current password using PBKDF2
-     *   Generates a new salt for the user
-     *   Hashes the new password with the new salt
-     *   Updates the user's password hash and salt in the database
+     *   Hashes the new password with a fresh salt in the encoded format
+     *   Updates the user's password hash in the database (clearing the legacy salt column)
      *   Clears the forcePasswordReset flag
+     *   Drops the user's cached credentials, so the old password stops working at once
      * </ol>
      * 
      * This endpoint requires authentication (JWT token in Authorization header).
@@ -291,15 +316,15 @@ public class AuthController {
     public ResponseEntity<?> changePassword(Authentication authentication, @Valid @RequestBody ChangePasswordRequest req) {
         String username = authentication.getName();
     User user = userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        if (!Pbkdf2Password.verify(req.getOldPassword().toCharArray(), user.getSalt(), user.getPasswordHash())) {
+        if (!hashingExecutor.matches(req.getOldPassword().toCharArray(), user.getPasswordHash(), user.getSalt())) {
             return ResponseEntity.status(403).body("Contraseña actual incorrecta");
         }
-        String salt = Pbkdf2Password.generateSalt();
-        user.setSalt(salt);
-        user.setPasswordHash(Pbkdf2Password.hash(req.getNewPassword().toCharArray(), salt));
+        user.setPasswordHash(hashingExecutor.encode(req.getNewPassword().toCharArray()));
+        user.setSalt(null);
         // Clear the forcePasswordReset flag once the user changes their password
         user.setForcePasswordReset(false);
         userRepository.save(user);
+        credentials.invalidate(username);
         return ResponseEntity.ok().build();
     }
 }
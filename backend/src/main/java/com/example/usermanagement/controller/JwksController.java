@@ -0,0 +1,89 @@
+package com.example.usermanagement.controller;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.usermanagement.security.JwtKeyRing;
+
+/**
+ * Publishes the public access-token signing keys as a JSON Web Key Set (RFC 7517).
+ *
+ * Other services fetch {@code /.well-known/jwks.json} once, cache it, and verify
+ * access tokens locally by matching the token's {@code kid} header against the
+ * {@code kid} of a published key. The document lists the active key, the next
+ * key (published before it signs anything) and retired keys whose tokens may
+ * still be valid.
+ *
+ * The response is public and cacheable for {@code app.jwt.keys.jwks-max-age-seconds};
+ * keep that well below {@code app.jwt.keys.rotation-interval-ms} so verifiers
+ * always refresh before a pre-published key becomes active.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@RestController
+public class JwksController {
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+    /** Size in bytes of a P-256 field element */
+    private static final int P256_COORDINATE_BYTES = 32;
+
+    private final JwtKeyRing keyRing;
+    private final long maxAgeSeconds;
+
+    /**
+     * Constructs a new JwksController.
+     *
+     * @param keyRing The signing key ring to publish
+     * @param maxAgeSeconds How long clients may cache the document
+     */
+    public JwksController(JwtKeyRing keyRing,
+                          @Value("${app.jwt.keys.jwks-max-age-seconds:300}") long maxAgeSeconds) {
+        this.keyRing = keyRing;
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    /**
+     * Returns the JSON Web Key Set.
+     *
+     * @return The key set with public {@code Cache-Control} headers
+     */
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> jwks() {
+        List<Map<String, String>> keys = new ArrayList<>();
+        for (JwtKeyRing.SigningKey key : keyRing.publishedKeys()) {
+            Map<String, String> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("use", "sig");
+            jwk.put("alg", "ES256");
+            jwk.put("kid", key.kid());
+            jwk.put("x", coordinate(key.publicKey().getW().getAffineX()));
+            jwk.put("y", coordinate(key.publicKey().getW().getAffineY()));
+            keys.add(jwk);
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic())
+                .body(Map.of("keys", keys));
+    }
+
+    /** Encodes a curve coordinate as the fixed-length, unsigned base64url string JWK requires. */
+    private static String coordinate(BigInteger value) {
+        byte[] raw = value.toByteArray();
+        byte[] fixed = new byte[P256_COORDINATE_BYTES];
+        int copy = Math.min(raw.length, P256_COORDINATE_BYTES);
+        System.arraycopy(raw, raw.length - copy, fixed, P256_COORDINATE_BYTES - copy, copy);
+        return BASE64URL.encodeToString(fixed);
+    }
+}
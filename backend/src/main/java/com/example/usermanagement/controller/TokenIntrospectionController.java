@@ -0,0 +1,61 @@
+package com.example.usermanagement.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.usermanagement.dto.IntrospectionRequest;
+import com.example.usermanagement.dto.IntrospectionResponse;
+import com.example.usermanagement.service.TokenIntrospectionService;
+
+import jakarta.validation.Valid;
+
+/**
+ * REST controller for batch access-token introspection.
+ *
+ * API gateways that cache sessions can revalidate thousands of access tokens
+ * with one request instead of one HTTP round trip per token, for example after
+ * a gateway restart.
+ *
+ * Unlike the rest of {@code /api/auth/**} the endpoint is not public: every
+ * token costs a signature verification, so callers must send a gateway key
+ * (see {@link com.example.usermanagement.security.GatewayKeyAuthenticationFilter})
+ * or be authenticated as ADMIN.
+ *
+ * Error handling:
+ *
+ *   Empty or oversized batches are rejected with 400 Bad Request by
+ *   {@link com.example.usermanagement.config.GlobalExceptionHandler}
+ *   A saturated introspection pool answers 503 Service Unavailable with {@code Retry-After}
+ *
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/api/auth")
+public class TokenIntrospectionController {
+    private final TokenIntrospectionService introspectionService;
+
+    /**
+     * Constructs a new TokenIntrospectionController.
+     *
+     * @param introspectionService The service that verifies the tokens
+     */
+    public TokenIntrospectionController(TokenIntrospectionService introspectionService) {
+        this.introspectionService = introspectionService;
+    }
+
+    /**
+     * Introspects a batch of access tokens.
+     *
+     * @param req The tokens to check (at most {@value IntrospectionRequest#MAX_TOKENS})
+     * @return ResponseEntity containing one status per token, in request order
+     */
+    @PostMapping("/introspect")
+    public ResponseEntity<IntrospectionResponse> introspect(@Valid @RequestBody IntrospectionRequest req) {
+        return ResponseEntity.ok(new IntrospectionResponse(introspectionService.introspect(req.getTokens())));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.usermanagement.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Data Transfer Object for the logins of one user from one IP address.
+ *
+ * Contains:
+ *
+ *   {@code username} - The user
+ *   {@code ip} - The IP address the user logged in from
+ *   {@code logins} - Number of logins from that address in the requested period
+ *   {@code firstLogin} - First of those logins
+ *   {@code lastLogin} - Last of those logins
+ *
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+public class AuditIpUser {
+    private String username;
+    private String ip;
+    private long logins;
+    private OffsetDateTime firstLogin;
+    private OffsetDateTime lastLogin;
+
+    public AuditIpUser() {}
+    public AuditIpUser(String username, String ip, long logins, OffsetDateTime firstLogin, OffsetDateTime lastLogin) {
+        this.username = username;
+        this.ip = ip;
+        this.logins = logins;
+        this.firstLogin = firstLogin;
+        this.lastLogin = lastLogin;
+    }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getIp() { return ip; }
+    public void setIp(String ip) { this.ip = ip; }
+    public long getLogins() { return logins; }
+    public void setLogins(long logins) { this.logins = logins; }
+    public OffsetDateTime getFirstLogin() { return firstLogin; }
+    public void setFirstLogin(OffsetDateTime firstLogin) { this.firstLogin = firstLogin; }
+    public OffsetDateTime getLastLogin() { return lastLogin; }
+    public void setLastLogin(OffsetDateTime lastLogin) { this.lastLogin = lastLogin; }
+}
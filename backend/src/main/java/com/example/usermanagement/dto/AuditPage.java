@@ -0,0 +1,33 @@
+package com.example.usermanagement.dto;
+
+import java.util.List;
+
+import com.example.usermanagement.model.LoginAudit;
+
+/**
+ * Data Transfer Object for one page of login audit records.
+ * 
+ * Contains:
+ * 
+ *   {@code entries} - The records of the page, newest first
+ *   {@code nextCursor} - Opaque cursor to pass as {@code before} to get the
+ *   next (older) page, or {@code null} on the last page
+ * 
+ * 
+ * @author User Management System
+ * @version 1.0
+ */
+public class AuditPage {
+    private List<LoginAudit> entries;
+    private String nextCursor;
+
+    public AuditPage() {}
+    public AuditPage(List<LoginAudit> entries, String nextCursor) {
+        this.entries = entries;
+        this.nextCursor = nextCursor;
+    }
+    public List<LoginAudit> getEntries() { return entries; }
+    public void setEntries(List<LoginAudit> entries) { this.entries = entries; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,77 @@
+package com.example.usermanagement.dto;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+/**
+ * Data Transfer Object for the login statistics of one user or one IP address.
+ *
+ * Contains:
+ *
+ *   {@code username} or {@code ip} - Who the statistics are about (the other is {@code null})
+ *   {@code tracked} - Whether statistics are kept in memory for it; if not, the
+ *   windows are all zero because it has no login in 30 days or its statistics
+ *   were evicted at the {@code app.audit.stats.max-keys} limit
+ *   {@code windows} - Statistics per window ({@code 1h}, {@code 24h}, {@code 30d}), see {@link Window}
+ *
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+public class AuditStats {
+    private String username;
+    private String ip;
+    private boolean tracked;
+    private Map<String, Window> windows;
+
+    public AuditStats() {}
+    public AuditStats(String username, String ip, boolean tracked, Map<String, Window> windows) {
+        this.username = username;
+        this.ip = ip;
+        this.tracked = tracked;
+        this.windows = windows;
+    }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getIp() { return ip; }
+    public void setIp(String ip) { this.ip = ip; }
+    public boolean isTracked() { return tracked; }
+    public void setTracked(boolean tracked) { this.tracked = tracked; }
+    public Map<String, Window> getWindows() { return windows; }
+    public void setWindows(Map<String, Window> windows) { this.windows = windows; }
+
+    /**
+     * Login statistics over one window ending now.
+     *
+     * Contains:
+     *
+     *   {@code logins} - Number of successful logins
+     *   {@code distinct} - Approximate number of distinct IP addresses (for a
+     *   user) or distinct users (for an IP address)
+     *   {@code firstSeen} - First login in the window, or {@code null} if none
+     *   {@code lastSeen} - Last login in the window, or {@code null} if none
+     *
+     */
+    public static class Window {
+        private long logins;
+        private long distinct;
+        private OffsetDateTime firstSeen;
+        private OffsetDateTime lastSeen;
+
+        public Window() {}
+        public Window(long logins, long distinct, OffsetDateTime firstSeen, OffsetDateTime lastSeen) {
+            this.logins = logins;
+            this.distinct = distinct;
+            this.firstSeen = firstSeen;
+            this.lastSeen = lastSeen;
+        }
+        public long getLogins() { return logins; }
+        public void setLogins(long logins) { this.logins = logins; }
+        public long getDistinct() { return distinct; }
+        public void setDistinct(long distinct) { this.distinct = distinct; }
+        public OffsetDateTime getFirstSeen() { return firstSeen; }
+        public void setFirstSeen(OffsetDateTime firstSeen) { this.firstSeen = firstSeen; }
+        public OffsetDateTime getLastSeen() { return lastSeen; }
+        public void setLastSeen(OffsetDateTime lastSeen) { this.lastSeen = lastSeen; }
+    }
+}
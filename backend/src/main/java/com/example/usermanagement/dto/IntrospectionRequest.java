@@ -0,0 +1,32 @@
+package com.example.usermanagement.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Data Transfer Object for batch token introspection requests.
+ * 
+ * API gateways send the access tokens they hold in a single request instead of
+ * validating them one call at a time.
+ * 
+ * Validation constraints:
+ * 
+ *   {@code tokens} - Must contain between 1 and {@value #MAX_TOKENS} access tokens
+ * 
+ * 
+ * @author User Management System
+ * @version 1.0
+ */
+public class IntrospectionRequest {
+    /** Upper bound on the batch size, so one request cannot monopolize the verification threads */
+    public static final int MAX_TOKENS = 1000;
+
+    @NotEmpty
+    @Size(max = MAX_TOKENS)
+    private List<String> tokens;
+
+    public List<String> getTokens() { return tokens; }
+    public void setTokens(List<String> tokens) { this.tokens = tokens; }
+}
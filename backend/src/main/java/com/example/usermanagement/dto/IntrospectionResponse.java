@@ -0,0 +1,57 @@
+package com.example.usermanagement.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Data Transfer Object for batch token introspection responses.
+ * 
+ * {@code results} has one entry per requested token, in request order:
+ * 
+ *   {@code active} - Whether the token is correctly signed, unexpired and not revoked
+ *   {@code sub} - The username (only for active tokens)
+ *   {@code role} - The user's role (only for active tokens)
+ *   {@code exp} - Expiration time in epoch seconds (only for active tokens)
+ * 
+ * 
+ * Inactive tokens are reported as {@code {"active":false}} without saying why,
+ * following the token introspection convention (RFC 7662).
+ * 
+ * @author User Management System
+ * @version 1.0
+ */
+public class IntrospectionResponse {
+    private List<TokenStatus> results;
+
+    public IntrospectionResponse() {}
+    public IntrospectionResponse(List<TokenStatus> results) { this.results = results; }
+    public List<TokenStatus> getResults() { return results; }
+    public void setResults(List<TokenStatus> results) { this.results = results; }
+
+    /**
+     * Introspection result for a single token.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class TokenStatus {
+        /** Shared result for every rejected token */
+        public static final TokenStatus INACTIVE = new TokenStatus(false, null, null, null);
+
+        private boolean active;
+        private String sub;
+        private String role;
+        private Long exp;
+
+        public TokenStatus() {}
+        public TokenStatus(boolean active, String sub, String role, Long exp) {
+            this.active = active;
+            this.sub = sub;
+            this.role = role;
+            this.exp = exp;
+        }
+        public boolean isActive() { return active; }
+        public String getSub() { return sub; }
+        public String getRole() { return role; }
+        public Long getExp() { return exp; }
+    }
+}
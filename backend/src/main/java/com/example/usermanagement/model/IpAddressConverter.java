@@ -0,0 +1,31 @@
+package com.example.usermanagement.model;
+
+import com.example.usermanagement.security.SecurityUtil;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores IP addresses as 4-byte (IPv4) or 16-byte (IPv6) binary values.
+ *
+ * The entity keeps the canonical text form ({@link SecurityUtil#normalizeIp(String)});
+ * the column holds {@link SecurityUtil#parseIp(String)}, which is a quarter of
+ * the size of the text for IPv4 and sorts in address order, so a CIDR block is
+ * a range of the column. A value that is not an IP address is stored as
+ * {@code NULL}.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Converter
+public class IpAddressConverter implements AttributeConverter<String, byte[]> {
+    @Override
+    public byte[] convertToDatabaseColumn(String ip) {
+        return SecurityUtil.parseIp(ip);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] address) {
+        return address == null || (address.length != 4 && address.length != 16) ? null : SecurityUtil.formatIp(address);
+    }
+}
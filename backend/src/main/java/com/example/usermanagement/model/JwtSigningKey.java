@@ -0,0 +1,50 @@
+package com.example.usermanagement.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Entity class representing one ES256 key pair of the access token signing ring.
+ *
+ * Keys are shared by every instance through this table, so tokens signed by one
+ * instance verify on the others and survive restarts. {@code notBefore} is
+ * unique: it is the instant the key starts signing, and the constraint decides
+ * which instance creates the next key when several rotate at once.
+ *
+ * The private key is stored as PKCS#8, encrypted with AES-GCM when
+ * {@code app.jwt.keys.encryption-key} is set (see
+ * {@link com.example.usermanagement.repository.JpaJwtKeyStore}).
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Entity
+@Table(name = "jwt_signing_keys", indexes = {
+        @Index(name = "ux_jwt_signing_keys_not_before", columnList = "not_before", unique = true)
+})
+public class JwtSigningKey {
+    @Id
+    @Column(length = 16)
+    private String kid;
+
+    @Column(name = "not_before", nullable = false)
+    private long notBefore;
+
+    @Column(name = "public_key", nullable = false, length = 128)
+    private byte[] publicKey;
+
+    @Column(name = "private_key", nullable = false, length = 256)
+    private byte[] privateKey;
+
+    public String getKid() { return kid; }
+    public void setKid(String kid) { this.kid = kid; }
+    public long getNotBefore() { return notBefore; }
+    public void setNotBefore(long notBefore) { this.notBefore = notBefore; }
+    public byte[] getPublicKey() { return publicKey; }
+    public void setPublicKey(byte[] publicKey) { this.publicKey = publicKey; }
+    public byte[] getPrivateKey() { return privateKey; }
+    public void setPrivateKey(byte[] privateKey) { this.privateKey = privateKey; }
+}
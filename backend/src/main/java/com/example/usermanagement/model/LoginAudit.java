@@ -2,10 +2,13 @@ package com.example.usermanagement.model;
 
 import java.time.OffsetDateTime;
 
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 /**
@@ -14,28 +17,42 @@ import jakarta.persistence.Table;
  * This class stores audit information for each successful login attempt, including:
  * 
  *   The username of the user who logged in
- *   The IP address from which the login originated (normalized for IPv6 compatibility)
+ *   The IP address from which the login originated, stored as 4 or 16 bytes
+ *   (see {@link IpAddressConverter})
  *   The timestamp of the login event
  * 
  * 
  * Audit records are created automatically by the {@link com.example.usermanagement.service.AuthService}
  * during the login process and can be queried by administrators through the audit endpoint.
  * 
+ * The {@code (username, timestamp, id)} index serves the audit endpoint: a page
+ * of one user's logins is a single range scan on it, whatever the table size.
+ * The {@code timestamp} index serves time-range exports across all users.
+ * The {@code (ip, timestamp)} index serves lookups by address or CIDR block,
+ * which are ranges of the binary address.
+ * 
  * @author User Management System
  * @version 1.0
  */
 @Entity
-@Table(name = "login_audit")
+@Table(name = "login_audit", indexes = {
+        @Index(name = "ix_login_audit_username_timestamp", columnList = "username, timestamp, id"),
+        @Index(name = "ix_login_audit_timestamp", columnList = "timestamp"),
+        @Index(name = "ix_login_audit_ip_timestamp", columnList = "ip, timestamp")
+})
 public class LoginAudit {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String username;
+    @Convert(converter = IpAddressConverter.class)
+    @Column(length = 16)
     private String ip;
     private OffsetDateTime timestamp;
 
     public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
     public String getUsername() { return username; }
     public void setUsername(String username) { this.username = username; }
     public String getIp() { return ip; }
@@ -0,0 +1,66 @@
+package com.example.usermanagement.model;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Entity class representing the login activity of one user on one day (UTC).
+ * 
+ * Login audit detail is only kept for the retention period; before it is
+ * dropped, the {@link com.example.usermanagement.service.AuditRetentionService}
+ * compacts it into one row per user and day:
+ * 
+ *   The number of logins
+ *   The number of distinct IP addresses
+ *   The first and last login of the day
+ * 
+ * 
+ * so historical counts stay queryable at a fraction of the size of the detail.
+ * 
+ * @author User Management System
+ * @version 1.0
+ */
+@Entity
+@Table(name = "login_audit_daily", indexes = {
+        @Index(name = "ux_login_audit_daily_username_day", columnList = "username, login_day", unique = true)
+})
+public class LoginAuditDaily {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String username;
+    @Column(name = "login_day", nullable = false)
+    private LocalDate loginDay;
+    @Column(nullable = false)
+    private long logins;
+    @Column(name = "distinct_ips", nullable = false)
+    private long distinctIps;
+    @Column(name = "first_login")
+    private OffsetDateTime firstLogin;
+    @Column(name = "last_login")
+    private OffsetDateTime lastLogin;
+
+    public Long getId() { return id; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public LocalDate getLoginDay() { return loginDay; }
+    public void setLoginDay(LocalDate loginDay) { this.loginDay = loginDay; }
+    public long getLogins() { return logins; }
+    public void setLogins(long logins) { this.logins = logins; }
+    public long getDistinctIps() { return distinctIps; }
+    public void setDistinctIps(long distinctIps) { this.distinctIps = distinctIps; }
+    public OffsetDateTime getFirstLogin() { return firstLogin; }
+    public void setFirstLogin(OffsetDateTime firstLogin) { this.firstLogin = firstLogin; }
+    public OffsetDateTime getLastLogin() { return lastLogin; }
+    public void setLastLogin(OffsetDateTime lastLogin) { this.lastLogin = lastLogin; }
+}
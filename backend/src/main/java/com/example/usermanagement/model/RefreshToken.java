@@ -2,10 +2,12 @@ package com.example.usermanagement.model;
 
 import java.time.OffsetDateTime;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 /**
@@ -17,10 +19,14 @@ import jakarta.persistence.Table;
  * 
  * Key characteristics:
  * 
- *   Tokens are cryptographically secure random strings (64 bytes, Base64 URL-encoded)
+ *   Tokens are split into a public selector and a secret verifier ({@code selector.verifier})
+ *   The selector is stored as-is under a unique index, so lookups are a single index probe
+ *   Only the SHA-256 hash of the verifier is stored, never the token itself
  *   Each token is associated with a username
  *   Tokens have an expiration date (30 days from creation)
- *   Tokens are rotated (deleted and recreated) on each refresh to prevent reuse
+ *   Tokens are rotated on each refresh: the old token is marked as rotated and a new
+ *   token joins the same family ({@code familyId}), which starts at login
+ *   Presenting a token that was already rotated revokes its whole family
  * 
  * 
  * This entity is managed by the {@link com.example.usermanagement.service.RefreshTokenService}.
@@ -29,21 +35,42 @@ import jakarta.persistence.Table;
  * @version 1.0
  */
 @Entity
-@Table(name = "refresh_tokens")
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "ux_refresh_tokens_selector", columnList = "selector", unique = true),
+        @Index(name = "ix_refresh_tokens_username", columnList = "username"),
+        @Index(name = "ix_refresh_tokens_expires_at", columnList = "expires_at"),
+        @Index(name = "ix_refresh_tokens_family_id", columnList = "family_id")
+})
 public class RefreshToken {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    private String token;
+    @Column(nullable = false, length = 16)
+    private String selector;
+
+    @Column(name = "verifier_hash", nullable = false, length = 32)
+    private byte[] verifierHash;
+
     private String username;
+    @Column(name = "family_id", nullable = false, length = 16)
+    private String familyId;
+    @Column(name = "expires_at")
     private OffsetDateTime expiresAt;
+    @Column(name = "rotated_at")
+    private OffsetDateTime rotatedAt;
 
     public Long getId() { return id; }
-    public String getToken() { return token; }
-    public void setToken(String token) { this.token = token; }
+    public String getSelector() { return selector; }
+    public void setSelector(String selector) { this.selector = selector; }
+    public byte[] getVerifierHash() { return verifierHash; }
+    public void setVerifierHash(byte[] verifierHash) { this.verifierHash = verifierHash; }
     public String getUsername() { return username; }
     public void setUsername(String username) { this.username = username; }
+    public String getFamilyId() { return familyId; }
+    public void setFamilyId(String familyId) { this.familyId = familyId; }
     public OffsetDateTime getExpiresAt() { return expiresAt; }
     public void setExpiresAt(OffsetDateTime expiresAt) { this.expiresAt = expiresAt; }
+    public OffsetDateTime getRotatedAt() { return rotatedAt; }
+    public void setRotatedAt(OffsetDateTime rotatedAt) { this.rotatedAt = rotatedAt; }
 }
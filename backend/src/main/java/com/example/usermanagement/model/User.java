@@ -2,6 +2,8 @@ package com.example.usermanagement.model;
 
 import java.time.OffsetDateTime;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -17,14 +19,19 @@ import jakarta.persistence.Table;
  * This class maps to the "users" table in the database and contains:
  * 
  *   User identification (id, username)
- *   Password security data (passwordHash, salt) - stored separately for PBKDF2 hashing
+ *   Password security data (passwordHash, plus the legacy salt column)
  *   Role-based access control (ADMIN or USER)
  *   Login tracking (lastLogin timestamp)
  *   Password reset enforcement flag (forcePasswordReset)
+ *   Credentials version (credentialsVersion), bumped by every change to the password hash,
+ *   salt, role or reset flag made through this entity
  * 
  * 
  * The password is never stored in plain text. Instead, it's hashed using PBKDF2
- * with a unique salt per user, stored in the {@code passwordHash} and {@code salt} fields.
+ * with a unique salt per user. {@code passwordHash} holds a self-describing encoded
+ * hash ({@code $pbkdf2-sha256$v=1$i=...$salt$hash}) that includes the salt and cost.
+ * The {@code salt} column is only populated for legacy hashes created before that
+ * format existed; those are upgraded on the user's next successful login.
  * 
  * @author User Management System
  * @version 1.0
@@ -55,6 +62,10 @@ public class User {
     @Column(name = "force_password_reset")
     private boolean forcePasswordReset = false;
 
+    @Column(name = "credentials_version", nullable = false)
+    @ColumnDefault("0")
+    private long credentialsVersion;
+
     /**
      * Enumeration of user roles in the system.
      * 
@@ -70,13 +81,14 @@ public class User {
     public String getUsername() { return username; }
     public void setUsername(String username) { this.username = username; }
     public String getPasswordHash() { return passwordHash; }
-    public void setPasswordHash(String passwordHash) { this.passwordHash = passwordHash; }
+    public void setPasswordHash(String passwordHash) { this.passwordHash = passwordHash; credentialsVersion++; }
     public String getSalt() { return salt; }
-    public void setSalt(String salt) { this.salt = salt; }
+    public void setSalt(String salt) { this.salt = salt; credentialsVersion++; }
     public Role getRole() { return role; }
-    public void setRole(Role role) { this.role = role; }
+    public void setRole(Role role) { this.role = role; credentialsVersion++; }
     public OffsetDateTime getLastLogin() { return lastLogin; }
     public void setLastLogin(OffsetDateTime lastLogin) { this.lastLogin = lastLogin; }
     public boolean isForcePasswordReset() { return forcePasswordReset; }
-    public void setForcePasswordReset(boolean forcePasswordReset) { this.forcePasswordReset = forcePasswordReset; }
+    public void setForcePasswordReset(boolean forcePasswordReset) { this.forcePasswordReset = forcePasswordReset; credentialsVersion++; }
+    public long getCredentialsVersion() { return credentialsVersion; }
 }
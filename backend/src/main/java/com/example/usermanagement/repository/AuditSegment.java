@@ -0,0 +1,375 @@
+package com.example.usermanagement.repository;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import com.example.usermanagement.security.IpRange;
+import com.example.usermanagement.security.SecurityUtil;
+
+/**
+ * One append-only segment file of login audit records, memory-mapped.
+ *
+ * File layout:
+ *
+ *   header (64 bytes): magic | version | capacity | records per block |
+ *   committed record count | id of the first record | filter bits | filter hashes
+ *   sparse index: one entry per block of records (16 bytes + filter): minimum and
+ *   maximum timestamp, and a Bloom filter of the username hashes in the block
+ *   records, fixed 128-byte layout: id (long) | timestamp, epoch micros (long) |
+ *   username hash (long) | username length (short) | ip length (byte: 0, 4 or 16) |
+ *   reserved (byte) | ip, binary (16) | username, UTF-8 (84)
+ *
+ *
+ * Usernames longer than 84 bytes are stored truncated; the hash covers the
+ * whole name, so per-user lookups stay exact. Readers work on the mapped
+ * buffer directly: the index lets them skip every block whose time range or
+ * username filter cannot match, and within a block only the hash of a record
+ * is read until it matches.
+ *
+ * The filter gets about {@value #FILTER_BITS_PER_RECORD} bits per record of a
+ * block (rounded up to a power of two) and the number of hash functions that
+ * suits that size, so a lookup for a user absent from a block reads it in
+ * well under 1% of cases (with 256 records per block: 4096 bits, 11 hashes).
+ *
+ * A single thread appends. A record and its index entry are written before
+ * the committed count is published (in the header for recovery, and in a
+ * volatile field for concurrent readers), so readers never see a partial
+ * record.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+final class AuditSegment {
+    static final int MAGIC = 0x4C415544; // "LAUD"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int FILTER_BITS_PER_RECORD = 10;
+    static final int RECORD_SIZE = 128;
+    static final int USER_BYTES = 84;
+    static final int IP_BYTES = 16;
+
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_CAPACITY = 8;
+    private static final int H_BLOCK = 12;
+    private static final int H_COUNT = 16;
+    private static final int H_FIRST_ID = 24;
+    private static final int H_FILTER_BITS = 32;
+    private static final int H_FILTER_HASHES = 36;
+
+    private static final int I_MIN = 0;
+    private static final int I_MAX = 8;
+    private static final int I_FILTER = 16;
+
+    private static final int R_ID = 0;
+    private static final int R_TS = 8;
+    private static final int R_HASH = 16;
+    private static final int R_USER_LEN = 24;
+    private static final int R_IP_LEN = 26;
+    private static final int R_IP = 28;
+    private static final int R_USER = 44;
+
+    private final Path file;
+    private final MappedByteBuffer buf;
+    private final int capacity;
+    private final int blockRecords;
+    private final int filterBits;
+    private final int filterHashes;
+    private final int indexEntrySize;
+    private final int recordsOffset;
+    private final long firstId;
+
+    private volatile int count;
+    private volatile long minMicros = Long.MAX_VALUE;
+    private volatile long maxMicros = Long.MIN_VALUE;
+
+    private AuditSegment(Path file, MappedByteBuffer buf, int capacity, int blockRecords,
+                         int filterBits, int filterHashes, long firstId, int count) {
+        this.file = file;
+        this.buf = buf;
+        this.capacity = capacity;
+        this.blockRecords = blockRecords;
+        this.filterBits = filterBits;
+        this.filterHashes = filterHashes;
+        this.indexEntrySize = indexEntrySize(filterBits);
+        this.recordsOffset = recordsOffset(capacity, blockRecords, indexEntrySize);
+        this.firstId = firstId;
+        this.count = count;
+    }
+
+    private static int indexEntrySize(int filterBits) {
+        return I_FILTER + filterBits / 8;
+    }
+
+    private static int recordsOffset(int capacity, int blockRecords, int indexEntrySize) {
+        long blocks = (capacity + (long) blockRecords - 1) / blockRecords;
+        long end = HEADER_SIZE + blocks * indexEntrySize;
+        return (int) Math.min(Integer.MAX_VALUE, (end + 63) & ~63L);
+    }
+
+    /** @return Filter size for a block: {@value #FILTER_BITS_PER_RECORD} bits per record, a power of two of at least 64 */
+    static int filterBits(int blockRecords) {
+        long bits = Math.max(64L, (long) blockRecords * FILTER_BITS_PER_RECORD);
+        return (int) Math.min(1 << 20, Long.highestOneBit(bits - 1) << 1);
+    }
+
+    /** @return Hash functions that minimize false positives: bits per record times ln 2 */
+    static int filterHashes(int filterBits, int blockRecords) {
+        return (int) Math.max(1, Math.min(16, Math.round((double) filterBits / blockRecords * Math.log(2))));
+    }
+
+    /**
+     * Creates and maps a new, empty segment file.
+     *
+     * @param file The file to create; it must not exist
+     * @param firstId Id of the first record of the segment
+     * @param capacity Maximum records in the segment
+     * @param blockRecords Records per sparse index entry
+     * @return The segment
+     * @throws IOException If the file cannot be created or mapped
+     */
+    static AuditSegment create(Path file, long firstId, int capacity, int blockRecords) throws IOException {
+        int filterBits = filterBits(blockRecords);
+        int filterHashes = filterHashes(filterBits, blockRecords);
+        long size = (long) recordsOffset(capacity, blockRecords, indexEntrySize(filterBits)) + (long) capacity * RECORD_SIZE;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Audit segment too large: " + capacity + " records");
+        }
+        MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(H_MAGIC, MAGIC);
+        buf.putInt(H_VERSION, VERSION);
+        buf.putInt(H_CAPACITY, capacity);
+        buf.putInt(H_BLOCK, blockRecords);
+        buf.putLong(H_COUNT, 0);
+        buf.putLong(H_FIRST_ID, firstId);
+        buf.putInt(H_FILTER_BITS, filterBits);
+        buf.putInt(H_FILTER_HASHES, filterHashes);
+        AuditSegment segment = new AuditSegment(file, buf, capacity, blockRecords, filterBits, filterHashes, firstId, 0);
+        int blocks = (capacity + blockRecords - 1) / blockRecords;
+        for (int b = 0; b < blocks; b++) {
+            buf.putLong(segment.indexOffset(b) + I_MIN, Long.MAX_VALUE);
+            buf.putLong(segment.indexOffset(b) + I_MAX, Long.MIN_VALUE);
+        }
+        return segment;
+    }
+
+    /**
+     * Maps an existing segment file, e.g. after a restart.
+     *
+     * @param file The segment file
+     * @return The segment, with the records committed before the restart
+     * @throws IOException If the file cannot be mapped or is not a segment
+     */
+    static AuditSegment open(Path file) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, ch.size());
+        }
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.getInt(H_MAGIC) != MAGIC || buf.getInt(H_VERSION) != VERSION) {
+            throw new IOException("Not an audit segment: " + file);
+        }
+        int filterBits = buf.getInt(H_FILTER_BITS);
+        int filterHashes = buf.getInt(H_FILTER_HASHES);
+        if (filterBits < 64 || Integer.bitCount(filterBits) != 1 || filterHashes <= 0) {
+            throw new IOException("Damaged audit segment header: " + file);
+        }
+        AuditSegment segment = new AuditSegment(file, buf, buf.getInt(H_CAPACITY), buf.getInt(H_BLOCK),
+                filterBits, filterHashes, buf.getLong(H_FIRST_ID), (int) buf.getLong(H_COUNT));
+        for (int b = 0; b < segment.blocks(); b++) {
+            segment.minMicros = Math.min(segment.minMicros, segment.blockMin(b));
+            segment.maxMicros = Math.max(segment.maxMicros, segment.blockMax(b));
+        }
+        return segment;
+    }
+
+    /**
+     * Appends a record. Only one thread may append.
+     *
+     * @param userHash Hash of the full username (see {@link #hash(byte[])})
+     * @param user The username, UTF-8
+     * @param ip The IP address, 4 or 16 bytes, or empty if unknown
+     * @param micros The timestamp in epoch microseconds
+     * @return The id of the record
+     */
+    long append(long userHash, byte[] user, byte[] ip, long micros) {
+        int i = count;
+        if (i >= capacity) {
+            throw new IllegalStateException("Audit segment is full: " + file);
+        }
+        long id = firstId + i;
+        int at = recordOffset(i);
+        buf.putLong(at + R_ID, id);
+        buf.putLong(at + R_TS, micros);
+        buf.putLong(at + R_HASH, userHash);
+        buf.putShort(at + R_USER_LEN, (short) Math.min(user.length, Short.MAX_VALUE));
+        buf.put(at + R_IP_LEN, (byte) Math.min(ip.length, IP_BYTES));
+        buf.put(at + R_USER, user, 0, Math.min(user.length, USER_BYTES));
+        buf.put(at + R_IP, ip, 0, Math.min(ip.length, IP_BYTES));
+
+        int entry = indexOffset(i / blockRecords);
+        buf.putLong(entry + I_MIN, Math.min(buf.getLong(entry + I_MIN), micros));
+        buf.putLong(entry + I_MAX, Math.max(buf.getLong(entry + I_MAX), micros));
+        for (int k = 0; k < filterHashes; k++) {
+            int bit = filterBit(userHash, k);
+            int word = entry + I_FILTER + (bit >>> 6) * 8;
+            buf.putLong(word, buf.getLong(word) | (1L << bit));
+        }
+
+        minMicros = Math.min(minMicros, micros);
+        maxMicros = Math.max(maxMicros, micros);
+        buf.putLong(H_COUNT, i + 1);
+        count = i + 1;
+        return id;
+    }
+
+    /** Writes the mapped pages to the file. */
+    void force() {
+        buf.force();
+    }
+
+    Path file() { return file; }
+    long firstId() { return firstId; }
+    int count() { return count; }
+    boolean isFull() { return count >= capacity; }
+    long minMicros() { return minMicros; }
+    long maxMicros() { return maxMicros; }
+    long sizeBytes() { return buf.capacity(); }
+    int blockRecords() { return blockRecords; }
+    int filterBits() { return filterBits; }
+    int filterHashes() { return filterHashes; }
+
+    /** @return Number of blocks holding committed records */
+    int blocks() {
+        return (count + blockRecords - 1) / blockRecords;
+    }
+
+    long blockMin(int block) { return buf.getLong(indexOffset(block) + I_MIN); }
+    long blockMax(int block) { return buf.getLong(indexOffset(block) + I_MAX); }
+
+    /**
+     * @return {@code false} if no record of the block has this username hash;
+     *         {@code true} if one may have it
+     */
+    boolean blockMayContain(int block, long userHash) {
+        int entry = indexOffset(block) + I_FILTER;
+        for (int k = 0; k < filterHashes; k++) {
+            int bit = filterBit(userHash, k);
+            if ((buf.getLong(entry + (bit >>> 6) * 8) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Position of the k-th filter bit of a username hash: double hashing on the
+     * two halves of the hash.
+     */
+    private int filterBit(long userHash, int k) {
+        int h1 = (int) userHash;
+        int h2 = (int) (userHash >>> 32) | 1;
+        return (h1 + k * h2) & (filterBits - 1);
+    }
+
+    long id(int i) { return buf.getLong(recordOffset(i) + R_ID); }
+    long micros(int i) { return buf.getLong(recordOffset(i) + R_TS); }
+    long userHash(int i) { return buf.getLong(recordOffset(i) + R_HASH); }
+
+    /**
+     * Compares the username of a record with a full username.
+     *
+     * @param i The record
+     * @param user The full username, UTF-8
+     * @return {@code true} if the record's (possibly truncated) username matches
+     */
+    boolean userEquals(int i, byte[] user) {
+        int at = recordOffset(i);
+        if (buf.getShort(at + R_USER_LEN) != (short) Math.min(user.length, Short.MAX_VALUE)) {
+            return false;
+        }
+        int n = Math.min(user.length, USER_BYTES);
+        for (int k = 0; k < n; k++) {
+            if (buf.get(at + R_USER + k) != user[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return The username of a record, truncated to 84 bytes if it was longer */
+    String username(int i) {
+        int at = recordOffset(i);
+        byte[] b = new byte[Math.min(buf.getShort(at + R_USER_LEN), USER_BYTES)];
+        buf.get(at + R_USER, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    String ip(int i) {
+        byte[] b = ipBytes(i);
+        return b != null ? SecurityUtil.formatIp(b) : null;
+    }
+
+    /** @return Whether the IP address of a record belongs to the range */
+    boolean ipIn(int i, IpRange range) {
+        byte[] b = ipBytes(i);
+        return b != null && b.length == range.low().length && range.contains(b);
+    }
+
+    /** @return The binary IP address of a record, or {@code null} if unknown */
+    private byte[] ipBytes(int i) {
+        int at = recordOffset(i);
+        int len = buf.get(at + R_IP_LEN) & 0xff;
+        if (len == 0) {
+            return null;
+        }
+        byte[] b = new byte[Math.min(len, IP_BYTES)];
+        buf.get(at + R_IP, b);
+        return b;
+    }
+
+    private int indexOffset(int block) {
+        return HEADER_SIZE + block * indexEntrySize;
+    }
+
+    private int recordOffset(int i) {
+        return recordsOffset + i * RECORD_SIZE;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a username, stable across restarts.
+     *
+     * @param user The username, UTF-8
+     * @return The hash
+     */
+    static long hash(byte[] user) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : user) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        // spread the low bits used by the block filter
+        return h ^ (h >>> 29);
+    }
+
+    static long toMicros(OffsetDateTime t) {
+        return Math.addExact(Math.multiplyExact(t.toEpochSecond(), 1_000_000L), t.getNano() / 1000);
+    }
+
+    static OffsetDateTime fromMicros(long micros) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                Math.floorMod(micros, 1_000_000L) * 1000L), ZoneOffset.UTC);
+    }
+}
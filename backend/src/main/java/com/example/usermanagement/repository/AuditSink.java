@@ -0,0 +1,78 @@
+package com.example.usermanagement.repository;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import com.example.usermanagement.dto.AuditIpUser;
+import com.example.usermanagement.model.LoginAudit;
+import com.example.usermanagement.security.IpRange;
+
+/**
+ * Storage for login audit records.
+ *
+ * Records reach a sink in batches from the
+ * {@link com.example.usermanagement.service.LoginAuditWriter} and are read
+ * back by the audit endpoints. Implementations, chosen with
+ * {@code app.audit.sink}:
+ *
+ *   {@link JdbcAuditSink} ({@code jdbc}, default) - the {@code login_audit}
+ *   table, with retention and daily rollups
+ *   {@link MappedAuditSink} ({@code mapped}) - append-only, memory-mapped
+ *   segment files; no database access at all
+ *
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+public interface AuditSink {
+    /**
+     * Stores a batch of records. Called by a single writer thread.
+     *
+     * @param batch The records, in submission order
+     */
+    void append(List<LoginAudit> batch);
+
+    /**
+     * Finds a page of a user's records, newest first (timestamp, then id,
+     * descending), starting right after the position
+     * {@code (beforeTimestamp, beforeId)}.
+     *
+     * @param username The user whose records are returned
+     * @param from Inclusive lower bound on the timestamp
+     * @param beforeTimestamp Timestamp of the position the page starts after
+     * @param beforeId Id of the position the page starts after
+     * @param limit Maximum records returned
+     * @return The matching records
+     */
+    List<LoginAudit> findPage(String username, OffsetDateTime from, OffsetDateTime beforeTimestamp, long beforeId, int limit);
+
+    /**
+     * Finds which users logged in from an address range, and when.
+     *
+     * @param range The addresses (a single address or a CIDR block)
+     * @param from Inclusive lower bound on the timestamp
+     * @param to Exclusive upper bound on the timestamp
+     * @param limit Maximum rows returned
+     * @return One row per user and address, most recent last login first
+     */
+    List<AuditIpUser> findByAddress(IpRange range, OffsetDateTime from, OffsetDateTime to, int limit);
+
+    /**
+     * Visits the matching records one at a time, oldest first, without
+     * holding the result in memory.
+     *
+     * @param username Only visit this user's records, or {@code null} for all users
+     * @param from Inclusive lower bound on the timestamp, or {@code null}
+     * @param to Exclusive upper bound on the timestamp, or {@code null}
+     * @param visitor Receives each record
+     * @throws IOException If the visitor fails to write a record
+     */
+    void scan(String username, OffsetDateTime from, OffsetDateTime to, RecordVisitor visitor) throws IOException;
+
+    /** Receives records from {@link #scan}. */
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(long id, String username, String ip, OffsetDateTime timestamp) throws IOException;
+    }
+}
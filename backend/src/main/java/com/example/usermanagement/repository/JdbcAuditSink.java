@@ -0,0 +1,123 @@
+package com.example.usermanagement.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.usermanagement.dto.AuditIpUser;
+import com.example.usermanagement.model.LoginAudit;
+import com.example.usermanagement.security.IpRange;
+import com.example.usermanagement.security.SecurityUtil;
+
+/**
+ * Default {@link AuditSink}: records are rows of the {@code login_audit} table.
+ *
+ * Batches are inserted with one JDBC batch ({@code INSERT ... VALUES (?, ?, ?)};
+ * Hibernate cannot batch inserts into a table with an IDENTITY key). Pages are
+ * keyset queries on the {@code (username, timestamp, id)} index through
+ * {@link LoginAuditRepository#findPage}. IP addresses are stored as 4 or 16
+ * bytes, so an address or CIDR block is one range scan on the
+ * {@code (ip, timestamp)} index. Scans read rows with a forward-only
+ * cursor ({@code fetch-size} rows per round trip, in a read-only transaction
+ * so drivers such as PostgreSQL actually stream).
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "app.audit.sink", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcAuditSink implements AuditSink {
+    static final String INSERT_SQL = "INSERT INTO login_audit (username, ip, timestamp) VALUES (?, ?, ?)";
+
+    private final LoginAuditRepository auditRepo;
+    private final JdbcTemplate jdbc;
+    private final JdbcTemplate cursor;
+    private final TransactionTemplate readOnlyTx;
+
+    /**
+     * Constructs a new JdbcAuditSink.
+     *
+     * @param auditRepo The repository used for paginated queries
+     * @param dataSource The data source holding {@code login_audit}
+     * @param transactionManager The transaction manager for the read-only scan transaction
+     * @param fetchSize Rows fetched per round trip by scans
+     */
+    public JdbcAuditSink(LoginAuditRepository auditRepo, DataSource dataSource, PlatformTransactionManager transactionManager,
+                         @Value("${app.audit.export.fetch-size:1000}") int fetchSize) {
+        this.auditRepo = auditRepo;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.cursor = new JdbcTemplate(dataSource);
+        this.cursor.setFetchSize(fetchSize);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    @Override
+    public void append(List<LoginAudit> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (LoginAudit a : batch) {
+            rows.add(new Object[] { a.getUsername(), SecurityUtil.parseIp(a.getIp()), a.getTimestamp() });
+        }
+        jdbc.batchUpdate(INSERT_SQL, rows);
+    }
+
+    @Override
+    public List<LoginAudit> findPage(String username, OffsetDateTime from, OffsetDateTime beforeTimestamp, long beforeId, int limit) {
+        return auditRepo.findPage(username, from, beforeTimestamp, beforeId, Pageable.ofSize(limit));
+    }
+
+    @Override
+    public List<AuditIpUser> findByAddress(IpRange range, OffsetDateTime from, OffsetDateTime to, int limit) {
+        // the length check keeps IPv6 addresses that share a prefix with an IPv4 range out of it
+        return jdbc.query("SELECT username, ip, COUNT(*), MIN(timestamp), MAX(timestamp) FROM login_audit"
+                        + " WHERE ip BETWEEN ? AND ? AND OCTET_LENGTH(ip) = ? AND timestamp >= ? AND timestamp < ?"
+                        + " GROUP BY username, ip ORDER BY MAX(timestamp) DESC LIMIT ?",
+                (rs, i) -> new AuditIpUser(rs.getString(1), SecurityUtil.formatIp(rs.getBytes(2)), rs.getLong(3),
+                        rs.getObject(4, OffsetDateTime.class), rs.getObject(5, OffsetDateTime.class)),
+                range.low(), range.high(), range.low().length, from, to, limit);
+    }
+
+    @Override
+    public void scan(String username, OffsetDateTime from, OffsetDateTime to, RecordVisitor visitor) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT id, username, ip, timestamp FROM login_audit WHERE 1 = 1");
+        List<Object> args = new ArrayList<>(3);
+        if (username != null) {
+            sql.append(" AND username = ?");
+            args.add(username);
+        }
+        if (from != null) {
+            sql.append(" AND timestamp >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND timestamp < ?");
+            args.add(to);
+        }
+        sql.append(" ORDER BY timestamp, id");
+        try {
+            readOnlyTx.executeWithoutResult(status -> cursor.query(sql.toString(), rs -> {
+                try {
+                    byte[] ip = rs.getBytes(3);
+                    visitor.visit(rs.getLong(1), rs.getString(2), ip != null ? SecurityUtil.formatIp(ip) : null,
+                            rs.getObject(4, OffsetDateTime.class));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args.toArray()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.usermanagement.repository;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import com.example.usermanagement.model.JwtSigningKey;
+import com.example.usermanagement.security.JwtKeyStore;
+
+/**
+ * Default {@link JwtKeyStore}: keys are rows of the {@code jwt_signing_keys} table.
+ *
+ * Every instance connected to the database signs and verifies with the same
+ * keys, and a restart keeps outstanding access tokens valid. Public keys are
+ * stored as X.509 {@code SubjectPublicKeyInfo} and private keys as PKCS#8.
+ *
+ * With {@code app.jwt.keys.encryption-key} (a Base64 AES key of 16, 24 or 32
+ * bytes) private keys are encrypted with AES-GCM before they are written:
+ * {@code 0x01 || iv (12) || ciphertext+tag}. Without it they are stored in the
+ * clear (a warning is logged), so anyone who can read the table can sign tokens.
+ * Unencrypted rows stay readable after a key is configured; PKCS#8 starts with
+ * {@code 0x30}, so the two forms are told apart by their first byte.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "app.jwt.keys.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaJwtKeyStore implements JwtKeyStore {
+    private static final Logger log = LoggerFactory.getLogger(JpaJwtKeyStore.class);
+    private static final byte ENCRYPTED = 0x01;
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private final JwtSigningKeyRepository repository;
+    private final SecretKey encryptionKey;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Constructs a new JpaJwtKeyStore.
+     *
+     * @param repository The repository for the {@code jwt_signing_keys} table
+     * @param encryptionKey Base64 AES key used to encrypt private keys; blank stores them unencrypted
+     */
+    public JpaJwtKeyStore(JwtSigningKeyRepository repository,
+                          @Value("${app.jwt.keys.encryption-key:}") String encryptionKey) {
+        this.repository = repository;
+        if (encryptionKey == null || encryptionKey.isBlank()) {
+            log.warn("app.jwt.keys.encryption-key is not set: JWT signing keys are stored unencrypted");
+            this.encryptionKey = null;
+        } else {
+            byte[] raw = Base64.getDecoder().decode(encryptionKey.trim());
+            if (raw.length != 16 && raw.length != 24 && raw.length != 32) {
+                throw new IllegalArgumentException("app.jwt.keys.encryption-key must be 16, 24 or 32 bytes (Base64)");
+            }
+            this.encryptionKey = new SecretKeySpec(raw, "AES");
+        }
+    }
+
+    @Override
+    public List<StoredKey> load() {
+        List<StoredKey> keys = new ArrayList<>();
+        for (JwtSigningKey row : repository.findAll()) {
+            try {
+                KeyFactory ec = KeyFactory.getInstance("EC");
+                KeyPair pair = new KeyPair(ec.generatePublic(new X509EncodedKeySpec(row.getPublicKey())),
+                        ec.generatePrivate(new PKCS8EncodedKeySpec(decrypt(row.getPrivateKey()))));
+                keys.add(new StoredKey(row.getKid(), row.getNotBefore(), pair));
+            } catch (GeneralSecurityException ex) {
+                // wrong encryption key or a damaged row: the key can neither sign nor be trusted
+                log.error("Skipping JWT signing key {}: {}", row.getKid(), ex.getMessage());
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public boolean insert(StoredKey key) {
+        if (repository.existsWithNotBefore(key.notBefore())) {
+            return false;
+        }
+        JwtSigningKey row = new JwtSigningKey();
+        row.setKid(key.kid());
+        row.setNotBefore(key.notBefore());
+        row.setPublicKey(key.keyPair().getPublic().getEncoded());
+        row.setPrivateKey(encrypt(key.keyPair().getPrivate().getEncoded()));
+        try {
+            repository.saveAndFlush(row);
+            return true;
+        } catch (DataIntegrityViolationException ex) {
+            // another instance scheduled a key for the same instant first
+            return false;
+        }
+    }
+
+    @Override
+    public void delete(String kid) {
+        repository.deleteById(kid);
+    }
+
+    private byte[] encrypt(byte[] pkcs8) {
+        if (encryptionKey == null) {
+            return pkcs8;
+        }
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_BITS, iv));
+            byte[] sealed = cipher.doFinal(pkcs8);
+            return ByteBuffer.allocate(1 + IV_BYTES + sealed.length).put(ENCRYPTED).put(iv).put(sealed).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encrypt a JWT signing key", e);
+        }
+    }
+
+    private byte[] decrypt(byte[] stored) throws GeneralSecurityException {
+        if (stored.length == 0 || stored[0] != ENCRYPTED) {
+            return stored;
+        }
+        if (encryptionKey == null) {
+            throw new GeneralSecurityException("encrypted, but app.jwt.keys.encryption-key is not set");
+        }
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_BITS, stored, 1, IV_BYTES));
+        return cipher.doFinal(stored, 1 + IV_BYTES, stored.length - 1 - IV_BYTES);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.usermanagement.repository;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.usermanagement.model.RefreshToken;
+
+/**
+ * Default {@link RefreshTokenStore}: every operation runs against the
+ * {@code refresh_tokens} table through {@link RefreshTokenRepository}.
+ *
+ * Rotation is a conditional update of the current row plus the insert of its
+ * successor in one transaction. Rotation and {@link #deleteByUsername} both
+ * lock the owner's {@code users} row first, so they never interleave: under
+ * READ COMMITTED a bulk delete running next to a rotation would otherwise miss
+ * the successor the rotation commits meanwhile, and that token would outlive
+ * the revocation. A revocation that goes first leaves nothing to rotate; one
+ * that goes second deletes the successor too. A token whose user no longer
+ * exists is not rotated.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "app.refresh-tokens.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+    private final RefreshTokenRepository repo;
+    private final UserRepository users;
+
+    /**
+     * Constructs a new JpaRefreshTokenStore.
+     *
+     * @param repo The repository for refresh token data access
+     * @param users The repository whose rows serialize rotation and revocation per user
+     */
+    public JpaRefreshTokenStore(RefreshTokenRepository repo, UserRepository users) {
+        this.repo = repo;
+        this.users = users;
+    }
+
+    @Override
+    public void insert(RefreshToken token) {
+        repo.save(token);
+    }
+
+    @Override
+    public Optional<RefreshToken> findBySelector(String selector) {
+        return repo.findBySelector(selector);
+    }
+
+    @Override
+    @Transactional
+    public boolean rotate(RefreshToken current, RefreshToken successor, OffsetDateTime now, OffsetDateTime retainUntil) {
+        if (users.lockByUsername(current.getUsername()).isEmpty()
+                || repo.markRotated(current.getSelector(), now, retainUntil) == 0) {
+            return false;
+        }
+        repo.save(successor);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public void delete(RefreshToken token) {
+        repo.consume(token.getSelector());
+    }
+
+    @Override
+    @Transactional
+    public int deleteFamily(RefreshToken member) {
+        return repo.deleteByFamilyId(member.getFamilyId());
+    }
+
+    @Override
+    @Transactional
+    public int deleteByUsername(String username) {
+        // waits for a rotation in progress, so its successor is visible to the delete
+        users.lockByUsername(username);
+        return repo.deleteByUsername(username);
+    }
+
+    @Override
+    public long countExpired(OffsetDateTime now) {
+        return repo.countByExpiresAtBefore(now);
+    }
+
+    @Override
+    public int deleteExpired(OffsetDateTime now, int limit) {
+        return repo.deleteExpiredBatch(now, limit);
+    }
+}
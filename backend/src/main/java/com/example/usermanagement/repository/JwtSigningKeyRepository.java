@@ -0,0 +1,19 @@
+package com.example.usermanagement.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.usermanagement.model.JwtSigningKey;
+
+/**
+ * Spring Data JPA repository for JwtSigningKey entities, used by {@link JpaJwtKeyStore}.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, String> {
+    // explicit query: as a derived query name, "NotBefore" would be read as "not < ?"
+    @Query("select count(k) > 0 from JwtSigningKey k where k.notBefore = :notBefore")
+    boolean existsWithNotBefore(@Param("notBefore") long notBefore);
+}
@@ -0,0 +1,36 @@
+package com.example.usermanagement.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.example.usermanagement.model.LoginAuditDaily;
+
+/**
+ * Spring Data JPA repository for LoginAuditDaily entities.
+ * 
+ * Rows are written in bulk by the
+ * {@link com.example.usermanagement.service.AuditRetentionService}; this
+ * repository only reads them.
+ * 
+ * Custom query methods:
+ * 
+ *   {@link #findByUsernameAndLoginDayBetweenOrderByLoginDayAsc} - A user's
+ *   daily login counts over a range of days (unique {@code (username, login_day)} index)
+ * 
+ * 
+ * @author User Management System
+ * @version 1.0
+ */
+public interface LoginAuditDailyRepository extends JpaRepository<LoginAuditDaily, Long> {
+    /**
+     * Finds a user's daily rollups between two days, inclusive.
+     * 
+     * @param username The user
+     * @param from First day (UTC)
+     * @param to Last day (UTC)
+     * @return The rollups, oldest first
+     */
+    List<LoginAuditDaily> findByUsernameAndLoginDayBetweenOrderByLoginDayAsc(String username, LocalDate from, LocalDate to);
+}
@@ -1,6 +1,12 @@
 package com.example.usermanagement.repository;
 
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.usermanagement.model.LoginAudit;
 
@@ -13,16 +19,44 @@ import com.example.usermanagement.model.LoginAudit;
  * Standard JPA methods (inherited from {@link JpaRepository}):
  * 
  *   {@code save(LoginAudit)} - Save a new audit record
- *   {@code findAll()} - Get all audit records
  *   {@code findById(Long)} - Find an audit record by ID
  *   {@code deleteById(Long)} - Delete an audit record by ID
  * 
  * 
- * Note: Audit records are typically queried by username in the service layer
- * using {@code findAll()} and filtering, rather than through a repository method.
+ * Custom query methods:
+ * 
+ *   {@link #findPage} - One page of a user's logins, newest first (keyset pagination)
+ * 
+ * 
+ * Note: Audit records are read through {@link #findPage}, never with
+ * {@code findAll()}: the table grows with every login.
  * 
  * @author User Management System
  * @version 1.0
  */
 public interface LoginAuditRepository extends JpaRepository<LoginAudit, Long> {
+    /**
+     * Finds a page of a user's login records, newest first.
+     * 
+     * Keyset pagination: the page starts right after the position
+     * {@code (beforeTimestamp, beforeId)}, i.e. at the first record that is
+     * older, or equally old with a smaller id. The query is a range scan on the
+     * {@code (username, timestamp, id)} index that stops after the page size,
+     * so its cost does not depend on the size of the table or on how deep
+     * the page is.
+     * 
+     * @param username The user whose records are returned
+     * @param from Inclusive lower bound on the timestamp
+     * @param beforeTimestamp Timestamp of the position the page starts after
+     * @param beforeId Id of the position the page starts after
+     * @param page Page size ({@code Pageable.ofSize(n)}); only the first page is meaningful
+     * @return The matching records ordered by timestamp and id, descending
+     */
+    @Query("SELECT a FROM LoginAudit a WHERE a.username = :username AND a.timestamp >= :from"
+            + " AND a.timestamp <= :beforeTimestamp"
+            + " AND (a.timestamp < :beforeTimestamp OR a.id < :beforeId)"
+            + " ORDER BY a.timestamp DESC, a.id DESC")
+    List<LoginAudit> findPage(@Param("username") String username, @Param("from") OffsetDateTime from,
+                              @Param("beforeTimestamp") OffsetDateTime beforeTimestamp,
+                              @Param("beforeId") long beforeId, Pageable page);
 }
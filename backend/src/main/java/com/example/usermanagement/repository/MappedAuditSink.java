@@ -0,0 +1,339 @@
+package com.example.usermanagement.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.usermanagement.dto.AuditIpUser;
+import com.example.usermanagement.model.LoginAudit;
+import com.example.usermanagement.security.IpRange;
+import com.example.usermanagement.security.SecurityUtil;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * {@link AuditSink} that appends records to memory-mapped segment files and
+ * never touches the database.
+ *
+ * Records are appended to the active {@link AuditSegment} of
+ * {@code directory}; when it is full a new segment is started. Appending is a
+ * handful of stores into the mapped buffer, with no system call and no
+ * allocation besides the encoded strings. Records get ids in append order.
+ *
+ * Queries read the mapped segments in place:
+ *
+ *   {@link #findPage} walks the segments and their blocks newest first and
+ *   skips each one whose time range or username filter cannot match; once a
+ *   full page is collected, it stops at the first block entirely older than
+ *   the page
+ *   {@link #scan} visits the matching records in append order, which for
+ *   audit records is timestamp order up to the writer's batching delay
+ *   {@link #findByAddress} has no address index to use: it compares the
+ *   binary address of every record in the blocks of the time range
+ *
+ *
+ * Trade-offs:
+ *
+ *   The mapped pages are written back by the operating system, so records
+ *   survive a crash of the process but not of the machine; pages are forced
+ *   to disk when a segment is completed and at shutdown
+ *   Segments are local to this instance
+ *   Retention drops whole segments whose newest record is older than
+ *   {@code app.audit.retention.retention-days}; there are no daily rollups
+ *
+ *
+ * Enabled with {@code app.audit.sink=mapped}.
+ *
+ * Metrics exposed through Micrometer: {@code audit.sink.mapped.appended},
+ * {@code audit.sink.mapped.segments} and {@code audit.sink.mapped.bytes}.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "app.audit.sink", havingValue = "mapped")
+public class MappedAuditSink implements AuditSink, MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(MappedAuditSink.class);
+    private static final String SUFFIX = ".seg";
+
+    /** Orders page candidates oldest first, so the head of a full page is the record to evict. */
+    private static final Comparator<LoginAudit> PAGE_ORDER = Comparator
+            .comparing(LoginAudit::getTimestamp)
+            .thenComparing(LoginAudit::getId);
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final int blockRecords;
+    private final Duration retention;
+
+    /** Oldest first; replaced copy-on-write so readers iterate a stable snapshot */
+    private final List<AuditSegment> segments = new CopyOnWriteArrayList<>();
+    private AuditSegment active;
+    private final LongAdder appended = new LongAdder();
+
+    /**
+     * Constructs a new MappedAuditSink.
+     *
+     * @param directory Directory holding the segment files
+     * @param segmentRecords Records per segment file
+     * @param blockRecords Records per sparse index entry
+     * @param retentionDays Days after which a segment is deleted
+     */
+    public MappedAuditSink(@Value("${app.audit.mapped.directory:data/audit}") String directory,
+                           @Value("${app.audit.mapped.segment-records:1048576}") int segmentRecords,
+                           @Value("${app.audit.mapped.block-records:256}") int blockRecords,
+                           @Value("${app.audit.retention.retention-days:90}") int retentionDays) {
+        if (segmentRecords <= 0 || blockRecords <= 0) {
+            throw new IllegalArgumentException("Audit segment and block sizes must be positive");
+        }
+        this.directory = Paths.get(directory);
+        this.segmentRecords = segmentRecords;
+        this.blockRecords = blockRecords;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    /**
+     * Maps the existing segments, oldest first, and continues appending to the
+     * last one if it has room and the current layout.
+     *
+     * @throws IOException If the directory or a segment cannot be opened
+     */
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            dir.forEach(files::add);
+        }
+        // names embed the zero-padded first id, so name order is append order
+        files.sort(Comparator.comparing(Path::toString));
+        for (Path f : files) {
+            segments.add(AuditSegment.open(f));
+        }
+        active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (active == null || active.isFull()) {
+            roll();
+        }
+        dropExpired();
+        log.info("Login audit segments in {}: {}, next id {}", directory, segments.size(), active.firstId() + active.count());
+    }
+
+    @Override
+    public synchronized void append(List<LoginAudit> batch) {
+        for (LoginAudit a : batch) {
+            if (active.isFull()) {
+                roll();
+            }
+            byte[] user = a.getUsername() != null ? a.getUsername().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            byte[] ip = a.getIp() != null ? SecurityUtil.parseIp(a.getIp()) : null;
+            if (ip == null) {
+                ip = new byte[0];
+            }
+            active.append(AuditSegment.hash(user), user, ip, AuditSegment.toMicros(a.getTimestamp()));
+        }
+        appended.add(batch.size());
+    }
+
+    private void roll() {
+        long nextId = active == null ? 1 : active.firstId() + active.count();
+        if (active != null) {
+            active.force();
+        }
+        try {
+            active = AuditSegment.create(directory.resolve(String.format("audit-%020d%s", nextId, SUFFIX)),
+                    nextId, segmentRecords, blockRecords);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.add(active);
+        dropExpired();
+    }
+
+    /** Deletes completed segments whose newest record is past retention. */
+    private void dropExpired() {
+        long cutoff = AuditSegment.toMicros(OffsetDateTime.now().minus(retention));
+        for (AuditSegment s : segments) {
+            if (s != active && s.maxMicros() < cutoff) {
+                segments.remove(s);
+                try {
+                    // readers still scanning it keep their mapping until they are done
+                    Files.deleteIfExists(s.file());
+                    log.info("Deleted expired login audit segment {}", s.file());
+                } catch (IOException e) {
+                    log.warn("Could not delete expired login audit segment {}: {}", s.file(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<LoginAudit> findPage(String username, OffsetDateTime from, OffsetDateTime beforeTimestamp, long beforeId, int limit) {
+        byte[] user = username.getBytes(StandardCharsets.UTF_8);
+        long hash = AuditSegment.hash(user);
+        long fromMicros = AuditSegment.toMicros(from);
+        long beforeMicros = AuditSegment.toMicros(beforeTimestamp);
+        PriorityQueue<LoginAudit> page = new PriorityQueue<>(limit + 1, PAGE_ORDER);
+        List<AuditSegment> snapshot = List.copyOf(segments);
+        for (int s = snapshot.size() - 1; s >= 0; s--) {
+            AuditSegment seg = snapshot.get(s);
+            if (seg.minMicros() > beforeMicros || seg.maxMicros() < fromMicros || isOlderThanPage(seg.maxMicros(), page, limit)) {
+                continue;
+            }
+            int count = seg.count();
+            for (int b = (count + seg.blockRecords() - 1) / seg.blockRecords() - 1; b >= 0; b--) {
+                long blockMax = seg.blockMax(b);
+                if (seg.blockMin(b) > beforeMicros || blockMax < fromMicros
+                        || isOlderThanPage(blockMax, page, limit) || !seg.blockMayContain(b, hash)) {
+                    continue;
+                }
+                int end = Math.min(count, (b + 1) * seg.blockRecords());
+                for (int i = end - 1; i >= b * seg.blockRecords(); i--) {
+                    if (seg.userHash(i) != hash) {
+                        continue;
+                    }
+                    long micros = seg.micros(i);
+                    long id = seg.id(i);
+                    if (micros < fromMicros || micros > beforeMicros || (micros == beforeMicros && id >= beforeId)
+                            || !seg.userEquals(i, user)) {
+                        continue;
+                    }
+                    LoginAudit a = new LoginAudit();
+                    a.setId(id);
+                    a.setUsername(username);
+                    a.setIp(seg.ip(i));
+                    a.setTimestamp(AuditSegment.fromMicros(micros));
+                    page.add(a);
+                    if (page.size() > limit) {
+                        page.poll();
+                    }
+                }
+            }
+        }
+        List<LoginAudit> result = new ArrayList<>(page);
+        result.sort(PAGE_ORDER.reversed());
+        return result;
+    }
+
+    /** A full page only changes for records at least as new as its oldest one. */
+    private static boolean isOlderThanPage(long maxMicros, PriorityQueue<LoginAudit> page, int limit) {
+        return page.size() >= limit && maxMicros < AuditSegment.toMicros(page.peek().getTimestamp());
+    }
+
+    @Override
+    public List<AuditIpUser> findByAddress(IpRange range, OffsetDateTime from, OffsetDateTime to, int limit) {
+        long fromMicros = AuditSegment.toMicros(from);
+        long toMicros = AuditSegment.toMicros(to);
+        Map<String, AuditIpUser> rows = new HashMap<>();
+        for (AuditSegment seg : List.copyOf(segments)) {
+            if (seg.maxMicros() < fromMicros || seg.minMicros() >= toMicros) {
+                continue;
+            }
+            int count = seg.count();
+            for (int b = 0; b * seg.blockRecords() < count; b++) {
+                if (seg.blockMax(b) < fromMicros || seg.blockMin(b) >= toMicros) {
+                    continue;
+                }
+                int end = Math.min(count, (b + 1) * seg.blockRecords());
+                for (int i = b * seg.blockRecords(); i < end; i++) {
+                    long micros = seg.micros(i);
+                    if (micros < fromMicros || micros >= toMicros || !seg.ipIn(i, range)) {
+                        continue;
+                    }
+                    String username = seg.username(i);
+                    String ip = seg.ip(i);
+                    OffsetDateTime t = AuditSegment.fromMicros(micros);
+                    AuditIpUser row = rows.computeIfAbsent(username + '\n' + ip, k -> new AuditIpUser(username, ip, 0, t, t));
+                    row.setLogins(row.getLogins() + 1);
+                    if (t.isBefore(row.getFirstLogin())) {
+                        row.setFirstLogin(t);
+                    }
+                    if (t.isAfter(row.getLastLogin())) {
+                        row.setLastLogin(t);
+                    }
+                }
+            }
+        }
+        return rows.values().stream()
+                .sorted(Comparator.comparing(AuditIpUser::getLastLogin).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public void scan(String username, OffsetDateTime from, OffsetDateTime to, RecordVisitor visitor) throws IOException {
+        byte[] user = username != null ? username.getBytes(StandardCharsets.UTF_8) : null;
+        long hash = user != null ? AuditSegment.hash(user) : 0;
+        long fromMicros = from != null ? AuditSegment.toMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? AuditSegment.toMicros(to) : Long.MAX_VALUE;
+        for (AuditSegment seg : segments) {
+            if (seg.maxMicros() < fromMicros || seg.minMicros() >= toMicros) {
+                continue;
+            }
+            int count = seg.count();
+            for (int b = 0; b * seg.blockRecords() < count; b++) {
+                if (seg.blockMax(b) < fromMicros || seg.blockMin(b) >= toMicros
+                        || (user != null && !seg.blockMayContain(b, hash))) {
+                    continue;
+                }
+                int end = Math.min(count, (b + 1) * seg.blockRecords());
+                for (int i = b * seg.blockRecords(); i < end; i++) {
+                    long micros = seg.micros(i);
+                    if (micros < fromMicros || micros >= toMicros
+                            || (user != null && (seg.userHash(i) != hash || !seg.userEquals(i, user)))) {
+                        continue;
+                    }
+                    visitor.visit(seg.id(i), user != null ? username : seg.username(i), seg.ip(i), AuditSegment.fromMicros(micros));
+                }
+            }
+        }
+    }
+
+    /**
+     * Forces the active segment to disk before shutdown.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (active != null) {
+            active.force();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("audit.sink.mapped.appended", appended, LongAdder::sum)
+                .description("Login audit records appended to mapped segments")
+                .register(registry);
+        Gauge.builder("audit.sink.mapped.segments", segments, List::size)
+                .description("Login audit segment files")
+                .register(registry);
+        Gauge.builder("audit.sink.mapped.bytes", segments, l -> l.stream().mapToLong(AuditSegment::sizeBytes).sum())
+                .description("Size of the login audit segment files")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
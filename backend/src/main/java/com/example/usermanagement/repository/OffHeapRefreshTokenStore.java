@@ -0,0 +1,393 @@
+package com.example.usermanagement.repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.usermanagement.model.RefreshToken;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * {@link RefreshTokenStore} that serves refresh traffic from off-heap memory
+ * and writes changes behind to the database. This store is not durable.
+ *
+ * Live tokens are held in an {@link OffHeapTokenTable}, so lookups and
+ * rotations never wait for the database and the tokens add no pressure on the
+ * garbage collector. Every mutation is appended to a write-behind journal that
+ * {@link #flushJournal()} applies to {@code refresh_tokens} in batches, one
+ * transaction per batch. The journal is an in-memory queue, not a log on disk:
+ * a change is durable only once its batch has committed. At startup the table is loaded from the database;
+ * rows that have already expired are not loaded, so {@link #deleteExpired}
+ * also deletes expired rows in the database directly.
+ *
+ * Trade-offs:
+ *
+ *   Changes not yet flushed are lost if the process dies; at most one flush
+ *   interval (more while the database is unreachable) of logins, rotations and
+ *   revocations. Lost logins and rotations make users log in again, but a lost
+ *   rotation or revocation brings the token it retired back at the next start,
+ *   so do not use this store where a revocation must survive a crash
+ *   The table is local to this instance: run a single instance, or route
+ *   sessions so a given token always reaches the same one
+ *   When the journal backlog exceeds {@code journal-limit} (database slow), the
+ *   requests that add to it flush synchronously to apply backpressure; not while
+ *   the last flush failed (database down), so request threads never wait on it
+ *   A batch that fails {@code flush-max-attempts} times in a row is dropped and
+ *   logged with its size; only its inserts are lost. Its rotations and
+ *   deletions are queued again, so a rotated or revoked token cannot come back
+ *   from the database at the next start
+ *
+ *
+ * Enabled with {@code app.refresh-tokens.store=off-heap}. Direct memory use is
+ * {@value OffHeapTokenTable#SLOT_SIZE} bytes per slot; size
+ * {@code -XX:MaxDirectMemorySize} accordingly.
+ *
+ * Metrics exposed through Micrometer: {@code auth.refresh.store.tokens},
+ * {@code auth.refresh.store.memory}, {@code auth.refresh.store.journal.pending},
+ * {@code auth.refresh.store.journal.flushed} and
+ * {@code auth.refresh.store.journal.dropped}.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "app.refresh-tokens.store", havingValue = "off-heap")
+public class OffHeapRefreshTokenStore implements RefreshTokenStore, MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(OffHeapRefreshTokenStore.class);
+    private static final int LOAD_PAGE_SIZE = 10_000;
+
+    private final RefreshTokenRepository repo;
+    private final TransactionTemplate tx;
+    private final OffHeapTokenTable table;
+    private final int flushBatchSize;
+    private final long journalLimit;
+    private final int flushMaxAttempts;
+
+    private final Queue<JournalEntry> journal = new ConcurrentLinkedQueue<>();
+    private final AtomicLong journalSize = new AtomicLong();
+    /** Entries taken from the journal whose flush has not committed yet; guarded by this */
+    private final List<JournalEntry> inFlight = new ArrayList<>();
+    /** Consecutive failed attempts at the in-flight batch; guarded by this */
+    private int inFlightAttempts;
+    /** Whether the last flush failed; writers then skip the synchronous flush */
+    private volatile boolean failing;
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Constructs a new OffHeapRefreshTokenStore.
+     *
+     * @param repo The repository used to load and persist tokens
+     * @param transactionManager The transaction manager used for journal flushes
+     * @param segments Number of independently locked table segments
+     * @param initialCapacity Initial slots per segment
+     * @param flushBatchSize Maximum journal entries applied per transaction
+     * @param journalLimit Journal backlog above which writers flush synchronously
+     * @param flushMaxAttempts Failed attempts after which a batch is dropped
+     */
+    public OffHeapRefreshTokenStore(RefreshTokenRepository repo, PlatformTransactionManager transactionManager,
+                                    @Value("${app.refresh-tokens.off-heap.segments:16}") int segments,
+                                    @Value("${app.refresh-tokens.off-heap.initial-capacity:4096}") int initialCapacity,
+                                    @Value("${app.refresh-tokens.off-heap.flush-batch-size:1000}") int flushBatchSize,
+                                    @Value("${app.refresh-tokens.off-heap.journal-limit:100000}") long journalLimit,
+                                    @Value("${app.refresh-tokens.off-heap.flush-max-attempts:5}") int flushMaxAttempts) {
+        if (flushMaxAttempts <= 0) {
+            throw new IllegalArgumentException("Refresh token flush attempts must be positive");
+        }
+        this.repo = repo;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.flushBatchSize = flushBatchSize;
+        this.journalLimit = journalLimit;
+        this.flushMaxAttempts = flushMaxAttempts;
+        this.table = new OffHeapTokenTable(segments, initialCapacity, new OffHeapTokenTable.Journal() {
+            @Override
+            public void inserted(RefreshToken token) {
+                append(new Insert(token.getSelector(), token.getVerifierHash().clone(), token.getUsername(),
+                        token.getFamilyId(), token.getExpiresAt()));
+            }
+
+            @Override
+            public void rotated(String selector, long atMillis, long expiresAtMillis) {
+                append(new Rotate(selector, toTime(atMillis), toTime(expiresAtMillis)));
+            }
+
+            @Override
+            public void removed(String selector) {
+                append(new Delete(selector));
+            }
+        });
+    }
+
+    /**
+     * Loads the unexpired tokens from the database, in insertion order so the
+     * tokens of each family are chained from oldest to newest.
+     */
+    @PostConstruct
+    void load() {
+        long now = System.currentTimeMillis();
+        Map<String, String> lastOfFamily = new HashMap<>();
+        long lastId = 0;
+        int loaded = 0;
+        List<RefreshToken> page;
+        do {
+            page = repo.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, LOAD_PAGE_SIZE));
+            for (RefreshToken t : page) {
+                lastId = t.getId();
+                if (t.getExpiresAt() != null && t.getExpiresAt().toInstant().toEpochMilli() > now) {
+                    table.restore(t, lastOfFamily.put(t.getFamilyId(), t.getSelector()));
+                    loaded++;
+                }
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+        log.info("Loaded {} refresh tokens into the off-heap store", loaded);
+    }
+
+    @Override
+    public void insert(RefreshToken token) {
+        table.insert(token, null);
+        applyBackpressure();
+    }
+
+    @Override
+    public Optional<RefreshToken> findBySelector(String selector) {
+        return Optional.ofNullable(table.find(selector));
+    }
+
+    @Override
+    public boolean rotate(RefreshToken current, RefreshToken successor, OffsetDateTime now, OffsetDateTime retainUntil) {
+        long seq = table.markRotated(current.getSelector(), now.toInstant().toEpochMilli(),
+                retainUntil.toInstant().toEpochMilli());
+        if (seq < 0) {
+            return false;
+        }
+        table.insert(successor, current.getSelector());
+        // a family or user revocation may have run between the two steps
+        if (!table.contains(current.getSelector())) {
+            table.remove(successor.getSelector());
+            return false;
+        }
+        applyBackpressure();
+        return true;
+    }
+
+    @Override
+    public void delete(RefreshToken token) {
+        table.remove(token.getSelector());
+    }
+
+    @Override
+    public int deleteFamily(RefreshToken member) {
+        return table.removeFamily(member.getSelector());
+    }
+
+    @Override
+    public int deleteByUsername(String username) {
+        return table.removeUser(username);
+    }
+
+    @Override
+    public long countExpired(OffsetDateTime now) {
+        // tokens expired in memory are usually also rows; rows expired before the last start are only rows
+        return Math.max(table.countExpired(now.toInstant().toEpochMilli()), repo.countByExpiresAtBefore(now));
+    }
+
+    /**
+     * Removes expired tokens from memory (journaling their deletion) and then,
+     * within the same limit, deletes expired rows that were never loaded.
+     */
+    @Override
+    public int deleteExpired(OffsetDateTime now, int limit) {
+        int removed = table.removeExpired(now.toInstant().toEpochMilli(), limit);
+        if (removed < limit) {
+            removed += repo.deleteExpiredBatch(now, limit - removed);
+        }
+        return removed;
+    }
+
+    private static OffsetDateTime toTime(long millis) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    private void append(JournalEntry entry) {
+        journal.add(entry);
+        journalSize.incrementAndGet();
+    }
+
+    private void applyBackpressure() {
+        if (journalSize.get() > journalLimit && !failing) {
+            flushJournal();
+        }
+    }
+
+    /**
+     * Applies the pending journal entries to the database.
+     */
+    @Scheduled(fixedDelayString = "${app.refresh-tokens.off-heap.flush-interval-ms:1000}")
+    public void flushJournal() {
+        try {
+            while (flushBatch() == flushBatchSize) {
+                // keep going while full batches are available
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Refresh token journal flush failed, {} entries pending: {}", journalSize.get(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Applies one batch in one transaction. A failed batch is retried as a
+     * whole by the next flush, up to {@code flush-max-attempts} times; then its
+     * inserts are dropped and its rotations and deletions go back to the journal.
+     *
+     * @return The number of entries applied
+     */
+    synchronized int flushBatch() {
+        if (inFlight.isEmpty()) {
+            JournalEntry entry;
+            while (inFlight.size() < flushBatchSize && (entry = journal.poll()) != null) {
+                inFlight.add(entry);
+            }
+        }
+        if (inFlight.isEmpty()) {
+            failing = false;
+            return 0;
+        }
+        try {
+            tx.executeWithoutResult(status -> apply(inFlight));
+        } catch (RuntimeException ex) {
+            failing = true;
+            if (++inFlightAttempts >= flushMaxAttempts) {
+                dropInFlight(ex);
+            }
+            throw ex;
+        }
+        int applied = inFlight.size();
+        inFlight.clear();
+        inFlightAttempts = 0;
+        failing = false;
+        journalSize.addAndGet(-applied);
+        flushed.add(applied);
+        return applied;
+    }
+
+    /**
+     * Gives up on the in-flight batch; its rotations and deletions are requeued,
+     * since losing one would revive a rotated or revoked token at the next start.
+     */
+    private void dropInFlight(RuntimeException cause) {
+        int requeued = 0;
+        for (JournalEntry e : inFlight) {
+            if (e instanceof Delete || e instanceof Rotate) {
+                journal.add(e);
+                requeued++;
+            }
+        }
+        int lost = inFlight.size() - requeued;
+        log.error("Dropping {} refresh token inserts after {} failed flushes ({} rotations and deletions requeued): {}",
+                lost, inFlightAttempts, requeued, cause.getMessage());
+        inFlight.clear();
+        inFlightAttempts = 0;
+        journalSize.addAndGet(-lost);
+        dropped.add(lost);
+    }
+
+    /** Applies entries in order, grouping consecutive entries of the same kind into one statement. */
+    private void apply(List<JournalEntry> entries) {
+        int i = 0;
+        while (i < entries.size()) {
+            Class<?> kind = entries.get(i).getClass();
+            int end = i;
+            while (end < entries.size() && entries.get(end).getClass() == kind) {
+                end++;
+            }
+            List<JournalEntry> run = entries.subList(i, end);
+            if (kind == Insert.class) {
+                repo.saveAll(run.stream().map(e -> ((Insert) e).toEntity()).toList());
+                repo.flush();
+            } else if (kind == Delete.class) {
+                repo.deleteBySelectorIn(run.stream().map(e -> ((Delete) e).selector()).toList());
+            } else {
+                for (JournalEntry e : run) {
+                    Rotate r = (Rotate) e;
+                    repo.markRotated(r.selector(), r.at(), r.expiresAt());
+                }
+            }
+            i = end;
+        }
+    }
+
+    /**
+     * Flushes the whole journal before shutdown.
+     */
+    @PreDestroy
+    void shutdown() {
+        flushJournal();
+        if (journalSize.get() > 0) {
+            log.warn("{} refresh token changes could not be persisted before shutdown", journalSize.get());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.refresh.store.tokens", table, OffHeapTokenTable::size)
+                .description("Refresh tokens held in the off-heap store")
+                .register(registry);
+        Gauge.builder("auth.refresh.store.memory", table, OffHeapTokenTable::memoryBytes)
+                .description("Direct memory allocated by the off-heap refresh token store")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("auth.refresh.store.journal.pending", journalSize, AtomicLong::get)
+                .description("Refresh token changes not yet written to the database")
+                .register(registry);
+        FunctionCounter.builder("auth.refresh.store.journal.flushed", flushed, LongAdder::sum)
+                .description("Refresh token changes written to the database")
+                .register(registry);
+        FunctionCounter.builder("auth.refresh.store.journal.dropped", dropped, LongAdder::sum)
+                .description("Refresh token changes dropped after repeated flush failures")
+                .register(registry);
+    }
+
+    /** A change to replay against the database. */
+    private sealed interface JournalEntry permits Insert, Rotate, Delete { }
+
+    private record Insert(String selector, byte[] verifierHash, String username, String familyId,
+                          OffsetDateTime expiresAt) implements JournalEntry {
+        RefreshToken toEntity() {
+            RefreshToken t = new RefreshToken();
+            t.setSelector(selector);
+            t.setVerifierHash(verifierHash);
+            t.setUsername(username);
+            t.setFamilyId(familyId);
+            t.setExpiresAt(expiresAt);
+            return t;
+        }
+    }
+
+    private record Rotate(String selector, OffsetDateTime at, OffsetDateTime expiresAt) implements JournalEntry { }
+
+    private record Delete(String selector) implements JournalEntry { }
+}
@@ -0,0 +1,577 @@
+package com.example.usermanagement.repository;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.usermanagement.model.RefreshToken;
+
+/**
+ * Open-addressing hash table of refresh tokens kept in direct (off-heap) memory.
+ *
+ * Each token occupies one fixed-size slot. The table is keyed by the 12 bytes
+ * of the selector, whose first 8 bytes (already random) serve as the primitive
+ * hash key; lookups probe linearly and compare the full selector. The table is
+ * split into independently locked segments that grow by rehashing when they
+ * are three quarters full; deleted slots are tombstones until the next rehash.
+ *
+ * Slot layout (112 bytes):
+ *
+ *   state (1) | user id (int) | sequence (long) | expires-at millis (long) |
+ *   rotated-at millis (long) | selector (12) | family id (12) |
+ *   previous selector (12) | next selector (12) | verifier hash (32)
+ *
+ *
+ * Usernames are interned into a small on-heap dictionary and stored as ints.
+ * Tokens of a family are chained through the previous/next selectors, so a
+ * family can be deleted by walking the chain. Revoking a user records a
+ * sequence watermark on the user entry first: every token inserted before it
+ * is treated as absent even while the scan that removes it is still running,
+ * and an insert that reaches a segment after the scan is dropped under that
+ * segment's lock, so it is neither stored nor journaled.
+ *
+ * Mutations are reported to a {@link Journal} while the segment lock is held,
+ * so the journal sees the operations on a given token in the order they were
+ * applied.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+final class OffHeapTokenTable {
+    /** Bytes of a decoded selector or family id (16 Base64 URL characters) */
+    static final int ID_BYTES = 12;
+    static final int HASH_BYTES = 32;
+
+    private static final byte EMPTY = 0;
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 2;
+
+    private static final int STATE = 0;
+    private static final int USER = 4;
+    private static final int SEQ = 8;
+    private static final int EXPIRES = 16;
+    private static final int ROTATED = 24;
+    private static final int SELECTOR = 32;
+    private static final int FAMILY = 44;
+    private static final int PREV = 56;
+    private static final int NEXT = 68;
+    private static final int HASH = 80;
+    static final int SLOT_SIZE = 112;
+
+    private static final long NOT_ROTATED = Long.MIN_VALUE;
+    private static final byte[] NO_LINK = new byte[ID_BYTES];
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /** Receives every mutation, under the lock of the affected segment. */
+    interface Journal {
+        void inserted(RefreshToken token);
+
+        void rotated(String selector, long atMillis, long expiresAtMillis);
+
+        void removed(String selector);
+    }
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final Journal journal;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ConcurrentHashMap<String, User> usersByName = new ConcurrentHashMap<>();
+    private volatile User[] usersById = new User[64];
+    private int userCount;
+
+    /**
+     * Constructs a new OffHeapTokenTable.
+     *
+     * @param segmentCount Number of independently locked segments (rounded up to a power of two)
+     * @param initialCapacity Initial slots per segment (rounded up to a power of two)
+     * @param journal Receiver of all mutations
+     */
+    OffHeapTokenTable(int segmentCount, int initialCapacity, Journal journal) {
+        int count = powerOfTwo(segmentCount);
+        this.segments = new Segment[count];
+        this.segmentMask = count - 1;
+        int capacity = powerOfTwo(Math.max(initialCapacity, 16));
+        this.journal = journal;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    /**
+     * Inserts a new token.
+     *
+     * @param token The token; selector and family id must be 16-character Base64 URL strings
+     * @param prevSelector The selector of the token it replaces in its family, or null
+     */
+    void insert(RefreshToken token, String prevSelector) {
+        put(token, prevSelector, true);
+    }
+
+    /**
+     * Inserts a token loaded from the database, without reporting it to the journal.
+     *
+     * @param token The stored token
+     * @param prevSelector The selector of the previous token of its family, or null
+     */
+    void restore(RefreshToken token, String prevSelector) {
+        put(token, prevSelector, false);
+    }
+
+    private void put(RefreshToken token, String prevSelector, boolean notify) {
+        byte[] id = decode(token.getSelector());
+        byte[] family = decode(token.getFamilyId());
+        if (token.getVerifierHash() == null || token.getVerifierHash().length != HASH_BYTES) {
+            throw new IllegalArgumentException("Verifier hash must have " + HASH_BYTES + " bytes");
+        }
+        byte[] prev = prevSelector == null ? NO_LINK : decode(prevSelector);
+        User user = intern(token.getUsername());
+        long seq = sequence.incrementAndGet();
+        long key = key(id);
+        Segment s = segment(key);
+        synchronized (s) {
+            if (seq <= user.watermark) {
+                // the user was revoked after the sequence was taken and this segment has
+                // already been scanned: storing (and journaling) the token would outlive the revocation
+                return;
+            }
+            s.ensureRoom();
+            int base = s.freeSlot(key);
+            ByteBuffer b = s.slots;
+            b.put(base + STATE, LIVE);
+            b.putInt(base + USER, user.id);
+            b.putLong(base + SEQ, seq);
+            b.putLong(base + EXPIRES, toMillis(token.getExpiresAt()));
+            b.putLong(base + ROTATED, token.getRotatedAt() == null ? NOT_ROTATED : toMillis(token.getRotatedAt()));
+            b.put(base + SELECTOR, id);
+            b.put(base + FAMILY, family);
+            b.put(base + PREV, prev);
+            b.put(base + NEXT, NO_LINK);
+            b.put(base + HASH, token.getVerifierHash());
+            s.live++;
+            if (notify) {
+                journal.inserted(token);
+            }
+        }
+        if (prevSelector != null) {
+            link(prev, id);
+        }
+    }
+
+    private void link(byte[] prev, byte[] next) {
+        long key = key(prev);
+        Segment s = segment(key);
+        synchronized (s) {
+            int base = s.find(key, prev);
+            if (base >= 0) {
+                s.slots.put(base + NEXT, next);
+            }
+        }
+    }
+
+    /**
+     * Finds a token by selector.
+     *
+     * @param selector The selector
+     * @return A copy of the stored token, or null if absent or revoked by a user watermark
+     */
+    RefreshToken find(String selector) {
+        byte[] id = decodeOrNull(selector);
+        if (id == null) {
+            return null;
+        }
+        long key = key(id);
+        Segment s = segment(key);
+        synchronized (s) {
+            int base = s.find(key, id);
+            return base < 0 || revokedByWatermark(s.slots, base) ? null : read(s.slots, base);
+        }
+    }
+
+    /**
+     * Marks a live, unrotated and unexpired token as rotated (compare-and-set)
+     * and brings its expiry forward to {@code retainUntilMillis} if that is earlier.
+     *
+     * @param selector The selector
+     * @param nowMillis The rotation time
+     * @param retainUntilMillis The latest expiry of the rotated token
+     * @return The token's sequence number, or -1 if it could not be rotated
+     */
+    long markRotated(String selector, long nowMillis, long retainUntilMillis) {
+        byte[] id = decodeOrNull(selector);
+        if (id == null) {
+            return -1;
+        }
+        long key = key(id);
+        Segment s = segment(key);
+        synchronized (s) {
+            int base = s.find(key, id);
+            ByteBuffer b = s.slots;
+            if (base < 0 || revokedByWatermark(b, base)
+                    || b.getLong(base + ROTATED) != NOT_ROTATED || b.getLong(base + EXPIRES) <= nowMillis) {
+                return -1;
+            }
+            long expires = Math.min(b.getLong(base + EXPIRES), retainUntilMillis);
+            b.putLong(base + ROTATED, nowMillis);
+            b.putLong(base + EXPIRES, expires);
+            journal.rotated(selector, nowMillis, expires);
+            return b.getLong(base + SEQ);
+        }
+    }
+
+    /**
+     * Checks that a token has been neither deleted nor revoked by a user watermark.
+     *
+     * @param selector The selector
+     * @return True if the token is still stored
+     */
+    boolean contains(String selector) {
+        return find(selector) != null;
+    }
+
+    /**
+     * Removes a token.
+     *
+     * @param selector The selector
+     * @return True if the token was present
+     */
+    boolean remove(String selector) {
+        byte[] id = decodeOrNull(selector);
+        return id != null && removeReturningLinks(id) != null;
+    }
+
+    /**
+     * Removes a token and all tokens chained to it in its family.
+     *
+     * @param selector The selector of any member of the family
+     * @return The number of tokens removed
+     */
+    int removeFamily(String selector) {
+        byte[] id = decodeOrNull(selector);
+        byte[][] links = id == null ? null : removeReturningLinks(id);
+        if (links == null) {
+            return 0;
+        }
+        int removed = 1;
+        for (int direction = 0; direction < 2; direction++) {
+            byte[] cursor = links[direction];
+            while (cursor != null) {
+                byte[][] next = removeReturningLinks(cursor);
+                if (next == null) {
+                    break;
+                }
+                removed++;
+                cursor = next[direction];
+            }
+        }
+        return removed;
+    }
+
+    /** Removes a token; returns its {previous, next} links (null entries when absent), or null if not found. */
+    private byte[][] removeReturningLinks(byte[] id) {
+        long key = key(id);
+        Segment s = segment(key);
+        synchronized (s) {
+            int base = s.find(key, id);
+            if (base < 0) {
+                return null;
+            }
+            byte[][] links = { readLink(s.slots, base + PREV), readLink(s.slots, base + NEXT) };
+            s.delete(base);
+            journal.removed(ENCODER.encodeToString(id));
+            return links;
+        }
+    }
+
+    /**
+     * Revokes every token of a user: tokens inserted so far are hidden at once
+     * and then removed.
+     *
+     * @param username The owner of the tokens
+     * @return The number of tokens removed
+     */
+    int removeUser(String username) {
+        User user = usersByName.get(username);
+        if (user == null) {
+            return 0;
+        }
+        long watermark = sequence.get();
+        synchronized (user) {
+            user.watermark = Math.max(user.watermark, watermark);
+        }
+        int removed = 0;
+        for (Segment s : segments) {
+            synchronized (s) {
+                ByteBuffer b = s.slots;
+                for (int base = 0; base < s.capacity * SLOT_SIZE; base += SLOT_SIZE) {
+                    if (b.get(base + STATE) == LIVE && b.getInt(base + USER) == user.id && b.getLong(base + SEQ) <= watermark) {
+                        journal.removed(readId(b, base + SELECTOR));
+                        s.delete(base);
+                        removed++;
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Counts tokens that expired before the given time.
+     *
+     * @param nowMillis The reference time
+     * @return The number of expired tokens
+     */
+    long countExpired(long nowMillis) {
+        long count = 0;
+        for (Segment s : segments) {
+            synchronized (s) {
+                ByteBuffer b = s.slots;
+                for (int base = 0; base < s.capacity * SLOT_SIZE; base += SLOT_SIZE) {
+                    if (b.get(base + STATE) == LIVE && b.getLong(base + EXPIRES) < nowMillis) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes up to {@code limit} tokens that expired before the given time.
+     *
+     * @param nowMillis The reference time
+     * @param limit Maximum number of tokens to remove
+     * @return The number of tokens removed
+     */
+    int removeExpired(long nowMillis, int limit) {
+        int removed = 0;
+        for (Segment s : segments) {
+            synchronized (s) {
+                ByteBuffer b = s.slots;
+                for (int base = 0; base < s.capacity * SLOT_SIZE && removed < limit; base += SLOT_SIZE) {
+                    if (b.get(base + STATE) == LIVE && b.getLong(base + EXPIRES) < nowMillis) {
+                        journal.removed(readId(b, base + SELECTOR));
+                        s.delete(base);
+                        removed++;
+                    }
+                }
+            }
+            if (removed >= limit) {
+                break;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Number of stored tokens.
+     *
+     * @return The number of live slots
+     */
+    int size() {
+        int size = 0;
+        for (Segment s : segments) {
+            synchronized (s) {
+                size += s.live;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Off-heap memory allocated for slots.
+     *
+     * @return The size of all segment buffers in bytes
+     */
+    long memoryBytes() {
+        long bytes = 0;
+        for (Segment s : segments) {
+            synchronized (s) {
+                bytes += (long) s.capacity * SLOT_SIZE;
+            }
+        }
+        return bytes;
+    }
+
+    private boolean revokedByWatermark(ByteBuffer b, int base) {
+        return b.getLong(base + SEQ) <= usersById[b.getInt(base + USER)].watermark;
+    }
+
+    private RefreshToken read(ByteBuffer b, int base) {
+        RefreshToken t = new RefreshToken();
+        t.setSelector(readId(b, base + SELECTOR));
+        byte[] hash = new byte[HASH_BYTES];
+        b.get(base + HASH, hash);
+        t.setVerifierHash(hash);
+        t.setUsername(usersById[b.getInt(base + USER)].name);
+        t.setFamilyId(readId(b, base + FAMILY));
+        t.setExpiresAt(toTime(b.getLong(base + EXPIRES)));
+        long rotated = b.getLong(base + ROTATED);
+        t.setRotatedAt(rotated == NOT_ROTATED ? null : toTime(rotated));
+        return t;
+    }
+
+    private User intern(String username) {
+        User user = usersByName.get(username);
+        if (user != null) {
+            return user;
+        }
+        synchronized (usersByName) {
+            user = usersByName.get(username);
+            if (user == null) {
+                User[] ids = usersById;
+                if (userCount == ids.length) {
+                    ids = Arrays.copyOf(ids, ids.length * 2);
+                }
+                user = new User(userCount, username);
+                ids[userCount++] = user;
+                usersById = ids;
+                usersByName.put(username, user);
+            }
+            return user;
+        }
+    }
+
+    private Segment segment(long key) {
+        return segments[(int) (key >>> 40) & segmentMask];
+    }
+
+    private static long key(byte[] id) {
+        return ByteBuffer.wrap(id).getLong();
+    }
+
+    private static byte[] decode(String id) {
+        byte[] bytes = id == null ? null : DECODER.decode(id);
+        if (bytes == null || bytes.length != ID_BYTES) {
+            throw new IllegalArgumentException("Expected a 16-character Base64 URL id");
+        }
+        return bytes;
+    }
+
+    private static byte[] decodeOrNull(String id) {
+        try {
+            return decode(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String readId(ByteBuffer b, int offset) {
+        byte[] id = new byte[ID_BYTES];
+        b.get(offset, id);
+        return ENCODER.encodeToString(id);
+    }
+
+    private static byte[] readLink(ByteBuffer b, int offset) {
+        byte[] id = new byte[ID_BYTES];
+        b.get(offset, id);
+        return Arrays.equals(id, NO_LINK) ? null : id;
+    }
+
+    private static long toMillis(OffsetDateTime time) {
+        return time == null ? Long.MIN_VALUE + 1 : time.toInstant().toEpochMilli();
+    }
+
+    private static OffsetDateTime toTime(long millis) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    private static int powerOfTwo(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /** Interned username with its revocation watermark. */
+    private static final class User {
+        final int id;
+        final String name;
+        /** Tokens with a sequence number at or below this are revoked */
+        volatile long watermark;
+
+        User(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    /** A power-of-two array of slots; guarded by its own monitor. */
+    private static final class Segment {
+        ByteBuffer slots;
+        int capacity;
+        int live;
+        /** Live slots plus tombstones */
+        int used;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+        }
+
+        int find(long key, byte[] id) {
+            int mask = capacity - 1;
+            for (int i = (int) key & mask; ; i = (i + 1) & mask) {
+                int base = i * SLOT_SIZE;
+                byte state = slots.get(base + STATE);
+                if (state == EMPTY) {
+                    return -1;
+                }
+                if (state == LIVE && slots.getLong(base + SELECTOR) == key && sameId(base + SELECTOR, id)) {
+                    return base;
+                }
+            }
+        }
+
+        private boolean sameId(int offset, byte[] id) {
+            for (int i = 8; i < ID_BYTES; i++) {
+                if (slots.get(offset + i) != id[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** Returns the first slot that is empty or a tombstone; the caller fills it. */
+        int freeSlot(long key) {
+            int mask = capacity - 1;
+            for (int i = (int) key & mask; ; i = (i + 1) & mask) {
+                int base = i * SLOT_SIZE;
+                byte state = slots.get(base + STATE);
+                if (state != LIVE) {
+                    if (state == EMPTY) {
+                        used++;
+                    }
+                    return base;
+                }
+            }
+        }
+
+        void delete(int base) {
+            slots.put(base + STATE, DELETED);
+            live--;
+        }
+
+        /** Rehashes when one more slot would exceed a 3/4 load: doubles if half is live, else only drops tombstones. */
+        void ensureRoom() {
+            if ((used + 1) * 4L <= capacity * 3L) {
+                return;
+            }
+            int newCapacity = (live + 1) * 2 > capacity ? capacity * 2 : capacity;
+            ByteBuffer old = slots;
+            int oldCapacity = capacity;
+            slots = ByteBuffer.allocateDirect(newCapacity * SLOT_SIZE);
+            capacity = newCapacity;
+            used = 0;
+            for (int base = 0; base < oldCapacity * SLOT_SIZE; base += SLOT_SIZE) {
+                if (old.get(base + STATE) == LIVE) {
+                    int target = freeSlot(old.getLong(base + SELECTOR));
+                    slots.put(target, old, base, SLOT_SIZE);
+                }
+            }
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package com.example.usermanagement.repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.usermanagement.model.RefreshToken;
 
 /**
  * Spring Data JPA repository for RefreshToken entities.
  * 
+ * Application code goes through {@link RefreshTokenStore}; this repository is
+ * used by its implementations.
+ * 
  * This interface provides CRUD operations and custom query methods for refresh token management.
  * Spring Data JPA automatically implements this interface at runtime.
  * 
@@ -22,12 +34,61 @@ import com.example.usermanagement.model.RefreshToken;
  * 
  * Custom query methods:
  * 
- *   {@code findByToken(String)} - Find a refresh token by its token string (used for validation)
+ *   {@code findBySelector(String)} - Find a refresh token by its selector (unique index probe);
+ *       the caller must still check the verifier hash
+ *   {@code findByIdGreaterThanOrderByIdAsc(Long, Pageable)} - Keyset scan of the table in
+ *       insertion order (used to load {@link OffHeapRefreshTokenStore} at startup)
+ *   {@code consume(String)} - Delete one token if it still exists; returns 0 if another
+ *       request already consumed or revoked it
+ *   {@code markRotated(String, OffsetDateTime, OffsetDateTime)} - Compare-and-set that marks a
+ *       live token as rotated and brings its expiry forward to the end of the reuse detection
+ *       window; returns 0 if it was already rotated, revoked or expired
+ *   {@code deleteBySelectorIn(Collection)} - Delete a batch of tokens by selector
+ *   {@code deleteByFamilyId(String)} - Delete every token descended from the same login
+ *   {@code deleteByUsername(String)} - Delete all tokens of a user with one statement
+ *       over the username index; returns the number of deleted tokens
+ *   {@code countByExpiresAtBefore(OffsetDateTime)} - Count expired tokens (reaper backlog)
+ *   {@code deleteExpiredBatch(OffsetDateTime, int)} - Delete up to {@code limit} expired
+ *       tokens, oldest first, in a transaction of its own
  * 
  * 
  * @author User Management System
  * @version 1.0
  */
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findBySelector(String selector);
+
+    List<RefreshToken> findByIdGreaterThanOrderByIdAsc(Long id, Pageable page);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from RefreshToken r where r.selector = :selector")
+    int consume(@Param("selector") String selector);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update RefreshToken r set r.rotatedAt = :now, "
+            + "r.expiresAt = case when r.expiresAt < :retainUntil then r.expiresAt else :retainUntil end "
+            + "where r.selector = :selector and r.rotatedAt is null and r.expiresAt > :now")
+    int markRotated(@Param("selector") String selector, @Param("now") OffsetDateTime now,
+                    @Param("retainUntil") OffsetDateTime retainUntil);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from RefreshToken r where r.selector in :selectors")
+    int deleteBySelectorIn(@Param("selectors") Collection<String> selectors);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from RefreshToken r where r.familyId = :familyId")
+    int deleteByFamilyId(@Param("familyId") String familyId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from RefreshToken r where r.username = :username")
+    int deleteByUsername(@Param("username") String username);
+
+    long countByExpiresAtBefore(OffsetDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "DELETE FROM refresh_tokens WHERE id IN ("
+            + "SELECT id FROM refresh_tokens WHERE expires_at < :now ORDER BY expires_at LIMIT :limit)",
+            nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") OffsetDateTime now, @Param("limit") int limit);
 }
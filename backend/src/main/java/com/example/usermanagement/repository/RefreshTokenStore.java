@@ -0,0 +1,98 @@
+package com.example.usermanagement.repository;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+import com.example.usermanagement.model.RefreshToken;
+
+/**
+ * Storage SPI for refresh tokens, used by
+ * {@link com.example.usermanagement.service.RefreshTokenService} and
+ * {@link com.example.usermanagement.service.RefreshTokenReaper}.
+ *
+ * Implementations (selected with {@code app.refresh-tokens.store}):
+ *
+ *   {@code jpa} (default) - {@link JpaRefreshTokenStore}, every operation is a
+ *   database statement
+ *   {@code off-heap} - {@link OffHeapRefreshTokenStore}, live tokens are served
+ *   from off-heap memory and persisted to the database in the background
+ *
+ *
+ * Tokens are identified by their selector. Every method is safe to call
+ * concurrently; {@link #rotate} is the only compare-and-set operation and
+ * decides which of several concurrent rotations of a token wins.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+public interface RefreshTokenStore {
+
+    /**
+     * Stores a new refresh token.
+     *
+     * @param token The token to store; its selector must be new
+     */
+    void insert(RefreshToken token);
+
+    /**
+     * Finds a refresh token by selector. The caller checks the verifier hash.
+     *
+     * @param selector The selector part of the token string
+     * @return The stored token, or empty if there is none
+     */
+    Optional<RefreshToken> findBySelector(String selector);
+
+    /**
+     * Marks a live token as rotated and stores its successor, atomically. The
+     * rotated token is kept only for reuse detection: its expiry is brought
+     * forward to {@code retainUntil} if that is earlier.
+     *
+     * @param current The token being rotated, as returned by {@link #findBySelector}
+     * @param successor The new token of the same family
+     * @param now The rotation time; the current token must expire after it
+     * @param retainUntil The latest expiry of the rotated token
+     * @return True if the token was rotated; false if it was already rotated,
+     *         revoked or expired, in which case the successor is not stored
+     */
+    boolean rotate(RefreshToken current, RefreshToken successor, OffsetDateTime now, OffsetDateTime retainUntil);
+
+    /**
+     * Deletes a single token.
+     *
+     * @param token The token to delete
+     */
+    void delete(RefreshToken token);
+
+    /**
+     * Deletes every token of the family of the given token.
+     *
+     * @param member Any token of the family
+     * @return The number of tokens deleted
+     */
+    int deleteFamily(RefreshToken member);
+
+    /**
+     * Deletes every token of a user.
+     *
+     * @param username The owner of the tokens
+     * @return The number of tokens deleted
+     */
+    int deleteByUsername(String username);
+
+    /**
+     * Counts tokens that expired before the given time.
+     *
+     * @param now The reference time
+     * @return The number of expired tokens still stored
+     */
+    long countExpired(OffsetDateTime now);
+
+    /**
+     * Deletes up to {@code limit} tokens that expired before the given time.
+     *
+     * @param now The reference time
+     * @param limit Maximum number of tokens to delete
+     * @return The number of tokens deleted
+     */
+    int deleteExpired(OffsetDateTime now, int limit);
+}
@@ -1,8 +1,13 @@
 package com.example.usermanagement.repository;
 
+import java.time.OffsetDateTime;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.usermanagement.model.User;
 
@@ -25,6 +30,10 @@ import com.example.usermanagement.model.User;
  * 
  *   {@code findByUsername(String)} - Find a user by username (unique)
  *   {@code existsByUsername(String)} - Check if a username is already taken
+ *   {@link #updateLastLogin} - Update only the last login timestamp of a user
+ *   {@link #findLastLoginById} - Read only the last login timestamp of a user
+ *   {@link #findCredentialsVersion} - Read only the credentials version of a user
+ *   {@link #lockByUsername} - Lock a user's row until the end of the transaction
  * 
  * 
  * @author User Management System
@@ -33,4 +42,47 @@ import com.example.usermanagement.model.User;
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
+
+    /**
+     * Sets a user's last login with a single-column update, instead of
+     * rewriting the whole row with {@code save}. The timestamp never moves
+     * backwards, so updates applied out of order are harmless.
+     *
+     * @param id The user's id
+     * @param lastLogin The login time
+     * @return 1 if the row was updated, 0 if the user is gone or has a later login
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.lastLogin = :lastLogin where u.id = :id and (u.lastLogin is null or u.lastLogin < :lastLogin)")
+    int updateLastLogin(@Param("id") Long id, @Param("lastLogin") OffsetDateTime lastLogin);
+
+    /**
+     * Reads a user's last login timestamp, without loading the entity.
+     *
+     * @param id The user's id
+     * @return The last login, or empty if the user never logged in or does not exist
+     */
+    @Query("select u.lastLogin from User u where u.id = :id")
+    Optional<OffsetDateTime> findLastLoginById(@Param("id") Long id);
+
+    /**
+     * Locks a user's row until the current transaction ends. Refresh token
+     * rotation and revocation of all a user's tokens take this lock first, so
+     * they run one after the other for the same user.
+     *
+     * @param username The username
+     * @return The user's id, or empty if there is no such user
+     */
+    @Query(value = "SELECT id FROM users WHERE username = :username FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockByUsername(@Param("username") String username);
+
+    /**
+     * Reads a user's credentials version, without loading the entity.
+     *
+     * @param username The username
+     * @return The user's credentials version, or empty if there is no such user
+     */
+    @Query("select u.credentialsVersion from User u where u.username = :username")
+    Optional<Long> findCredentialsVersion(@Param("username") String username);
 }
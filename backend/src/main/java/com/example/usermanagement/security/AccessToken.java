@@ -0,0 +1,30 @@
+package com.example.usermanagement.security;
+
+/**
+ * Claims of a verified access token, as produced by {@link AccessTokenCodec}.
+ *
+ * Times are epoch seconds, as in the JWT {@code iat}/{@code exp} claims.
+ *
+ * @param subject The {@code sub} claim (username), or {@code null} if absent
+ * @param role The {@code role} claim, or {@code null} if absent
+ * @param id The {@code jti} claim, or {@code null} if absent
+ * @param issuedAt The {@code iat} claim, or {@link #ABSENT}
+ * @param expiresAt The {@code exp} claim, or {@link #ABSENT}
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+public record AccessToken(String subject, String role, String id, long issuedAt, long expiresAt) {
+    /** Marker for a missing numeric date claim */
+    public static final long ABSENT = Long.MIN_VALUE;
+
+    /** @return Whether the token carries an {@code exp} claim */
+    public boolean hasExpiry() {
+        return expiresAt != ABSENT;
+    }
+
+    /** @return The {@code exp} claim in epoch milliseconds; only meaningful if {@link #hasExpiry()} */
+    public long expiresAtMillis() {
+        return expiresAt * 1000L;
+    }
+}
@@ -0,0 +1,831 @@
+package com.example.usermanagement.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Arrays;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+
+/**
+ * Specialized encoder and decoder for the application's access tokens.
+ *
+ * Access tokens always have the same shape: an ES256 JWS whose header holds
+ * {@code alg} and {@code kid} and whose payload holds {@code sub}, {@code role},
+ * {@code jti}, {@code iat} and {@code exp}. A general JWT library handles that by building
+ * claim maps, {@code Date} objects and intermediate Strings for every segment;
+ * this codec instead works on per-thread byte buffers:
+ *
+ *   The token characters are copied once into a reusable byte array, which is
+ *   also the exact signing input passed to {@link Signature#update(byte[], int, int)}
+ *   Base64url segments are decoded in place into reusable buffers
+ *   The JSON header and payload are scanned byte by byte; only the claim values
+ *   that end up in the {@link AccessToken} record become Strings
+ *   {@link Signature} instances are cached per thread
+ *
+ *
+ * Acceptance matches jjwt for tokens of this shape (see {@code AccessTokenCodecTest}):
+ *
+ *   Exactly two {@code .} delimiters and a non-empty signature
+ *   {@code alg} must be {@code ES256} and {@code kid} must name a key known to the {@link JwtKeyRing}
+ *   The signature is the 64-byte JOSE {@code R||S} form (RFC 7518); any other length,
+ *   including an ASN.1 DER signature, is rejected, as jjwt does for ES256
+ *   Header and payload must be syntactically valid JSON objects; unknown members
+ *   are ignored and for duplicate members the last one wins
+ *   Rejected when now is after {@code exp} or before {@code nbf}, with no clock skew
+ *
+ *
+ * It is deliberately stricter than jjwt for encodings this service never issues:
+ * compressed payloads ({@code zip}), non-integer or String-valued date claims,
+ * non-String {@code sub}/{@code role}/{@code jti} values and non-UTF-8 JSON are rejected.
+ *
+ * Failures are reported with the same {@link io.jsonwebtoken.JwtException}
+ * subclasses jjwt uses.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+public final class AccessTokenCodec {
+    /** The only accepted signature algorithm */
+    static final String ALGORITHM = "ES256";
+
+    /** Length of a JOSE ES256 signature (R and S, 32 bytes each) */
+    private static final int SIGNATURE_BYTES = 64;
+
+    /** Nesting limit for skipped JSON values, matching Jackson's default */
+    private static final int MAX_DEPTH = 1000;
+
+    private static final byte[] BASE64URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BASE64URL_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(BASE64URL_VALUES, (byte) -1);
+        for (int i = 0; i < BASE64URL.length; i++) {
+            BASE64URL_VALUES[BASE64URL[i]] = (byte) i;
+        }
+    }
+
+    // header member names
+    private static final char[] ALG = "alg".toCharArray();
+    private static final char[] KID = "kid".toCharArray();
+    private static final char[] ZIP = "zip".toCharArray();
+    // payload member names
+    private static final char[] SUB = "sub".toCharArray();
+    private static final char[] ROLE = "role".toCharArray();
+    private static final char[] JTI = "jti".toCharArray();
+    private static final char[] IAT = "iat".toCharArray();
+    private static final char[] EXP = "exp".toCharArray();
+    private static final char[] NBF = "nbf".toCharArray();
+    private static final char[] ES256 = ALGORITHM.toCharArray();
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final JwtKeyRing keyRing;
+    /** Base64url header of the most recently used signing key */
+    private volatile EncodedHeader header;
+
+    /**
+     * Constructs a new AccessTokenCodec.
+     *
+     * @param keyRing Provides the signing key and resolves {@code kid} headers
+     */
+    public AccessTokenCodec(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    /**
+     * Creates a signed access token with the active key of the key ring.
+     *
+     * @param subject The username
+     * @param role The user's role
+     * @param id Unique token id ({@code jti}), used for revocation
+     * @param issuedAt Issue time in epoch seconds
+     * @param expiresAt Expiration time in epoch seconds
+     * @return The compact serialized token
+     */
+    public String encode(String subject, String role, String id, long issuedAt, long expiresAt) {
+        JwtKeyRing.SigningKey key = keyRing.signingKey();
+        Scratch s = SCRATCH.get();
+
+        Bytes json = s.json.clear();
+        json.ascii("{\"sub\":");
+        json.jsonString(subject);
+        json.ascii(",\"role\":");
+        json.jsonString(role);
+        json.ascii(",\"jti\":");
+        json.jsonString(id);
+        json.ascii(",\"iat\":").ascii(Long.toString(issuedAt));
+        json.ascii(",\"exp\":").ascii(Long.toString(expiresAt));
+        json.put('}');
+
+        Bytes out = s.out.clear();
+        out.put(encodedHeader(key));
+        out.put('.');
+        out.base64url(json.data, 0, json.length);
+        try {
+            Signature signer = s.signer;
+            signer.initSign(key.keyPair().getPrivate());
+            signer.update(out.data, 0, out.length);
+            int n = signer.sign(s.signature, 0, SIGNATURE_BYTES);
+            out.put('.');
+            out.base64url(s.signature, 0, n);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign access token", e);
+        }
+        return new String(out.data, 0, out.length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Verifies a token and extracts its claims.
+     *
+     * @param token The compact serialized token
+     * @return The verified claims
+     * @throws io.jsonwebtoken.JwtException If the token is malformed, unsupported, badly signed,
+     *         expired or not yet valid
+     * @throws IllegalArgumentException If the token is null or empty
+     */
+    public AccessToken decode(String token) {
+        return decode(token, System.currentTimeMillis());
+    }
+
+    AccessToken decode(String token, long nowMillis) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT String argument cannot be null or empty.");
+        }
+        int length = token.length();
+        Scratch s = SCRATCH.get();
+        byte[] in = s.input(length);
+        int firstDot = -1;
+        int secondDot = -1;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                if (firstDot < 0) {
+                    firstDot = i;
+                } else if (secondDot < 0) {
+                    secondDot = i;
+                } else {
+                    throw new MalformedJwtException("JWT strings must contain exactly 2 period characters.");
+                }
+            } else if (c > 0x7F) {
+                throw new MalformedJwtException("Illegal character in JWT string");
+            }
+            in[i] = (byte) c;
+        }
+        if (secondDot < 0) {
+            throw new MalformedJwtException("JWT strings must contain exactly 2 period characters.");
+        }
+        if (firstDot == 0) {
+            throw new MalformedJwtException("JWT string is missing a header.");
+        }
+        if (secondDot == length - 1) {
+            throw new UnsupportedJwtException("Unsigned Claims JWTs are not supported.");
+        }
+
+        PublicKey key = verificationKey(s, in, firstDot);
+        verifySignature(s, key, in, secondDot, length);
+
+        int payloadLength = base64urlDecode(in, firstDot + 1, secondDot, s.decoded(secondDot - firstDot));
+        // like jjwt, only a payload that starts with '{' and ends with '}' is a claims set
+        if (payloadLength < 2 || s.decoded[0] != '{' || s.decoded[payloadLength - 1] != '}') {
+            throw new UnsupportedJwtException("Signed plaintext JWSs are not supported.");
+        }
+        JsonReader reader = s.reader.reset(s.decoded, payloadLength);
+        String subject = null;
+        String role = null;
+        String id = null;
+        long issuedAt = AccessToken.ABSENT;
+        long expiresAt = AccessToken.ABSENT;
+        long notBefore = AccessToken.ABSENT;
+        reader.beginObject();
+        while (reader.nextMember()) {
+            if (reader.nameIs(SUB)) {
+                subject = reader.readNullableString();
+            } else if (reader.nameIs(ROLE)) {
+                role = reader.readNullableString();
+            } else if (reader.nameIs(JTI)) {
+                id = reader.readNullableString();
+            } else if (reader.nameIs(IAT)) {
+                issuedAt = reader.readNullableLong();
+            } else if (reader.nameIs(EXP)) {
+                expiresAt = reader.readNullableLong();
+            } else if (reader.nameIs(NBF)) {
+                notBefore = reader.readNullableLong();
+            } else {
+                reader.skipValue(0);
+            }
+        }
+
+        if (expiresAt != AccessToken.ABSENT && nowMillis > expiresAt * 1000L) {
+            throw new ExpiredJwtException(null, null, "JWT expired");
+        }
+        if (notBefore != AccessToken.ABSENT && nowMillis < notBefore * 1000L) {
+            throw new PrematureJwtException(null, null, "JWT must not be accepted before its nbf time");
+        }
+        return new AccessToken(subject, role, id, issuedAt, expiresAt);
+    }
+
+    /** Reads the header and resolves the {@code kid} to a verification key. */
+    private PublicKey verificationKey(Scratch s, byte[] in, int headerEnd) {
+        int headerLength = base64urlDecode(in, 0, headerEnd, s.decoded(headerEnd));
+        JsonReader reader = s.reader.reset(s.decoded, headerLength);
+        boolean es256 = false;
+        String kid = null;
+        reader.beginObject();
+        while (reader.nextMember()) {
+            if (reader.nameIs(ALG)) {
+                es256 = reader.stringValueIs(ES256);
+            } else if (reader.nameIs(KID)) {
+                kid = reader.readStringOrSkip();
+            } else if (reader.nameIs(ZIP)) {
+                if (!reader.skipNull()) {
+                    throw new UnsupportedJwtException("Compressed access tokens are not supported.");
+                }
+            } else {
+                reader.skipValue(0);
+            }
+        }
+        if (!es256) {
+            throw new UnsupportedJwtException("Unsupported signature algorithm; only " + ALGORITHM + " is accepted.");
+        }
+        PublicKey key = keyRing.verificationKey(kid);
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown signing key: " + kid);
+        }
+        return key;
+    }
+
+    private static void verifySignature(Scratch s, PublicKey key, byte[] in, int signedLength, int length) {
+        byte[] signature = s.signature(length - signedLength);
+        int n = base64urlDecode(in, signedLength + 1, length, signature);
+        if (n != SIGNATURE_BYTES) {
+            throw new SignatureException("Invalid ECDSA signature format");
+        }
+        Signature verifier = s.joseVerifier;
+        boolean valid;
+        try {
+            verifier.initVerify(key);
+            verifier.update(in, 0, signedLength);
+            valid = verifier.verify(signature, 0, n);
+        } catch (GeneralSecurityException e) {
+            throw new SignatureException("Unable to verify ECDSA signature", e);
+        }
+        if (!valid) {
+            throw new SignatureException("JWT signature does not match locally computed signature.");
+        }
+    }
+
+    private byte[] encodedHeader(JwtKeyRing.SigningKey key) {
+        EncodedHeader cached = header;
+        if (cached == null || !cached.kid.equals(key.kid())) {
+            Bytes json = new Bytes(64).ascii("{\"kid\":").jsonString(key.kid()).ascii(",\"alg\":\"" + ALGORITHM + "\"}");
+            Bytes encoded = new Bytes(96).base64url(json.data, 0, json.length);
+            cached = new EncodedHeader(key.kid(), Arrays.copyOf(encoded.data, encoded.length));
+            header = cached;
+        }
+        return cached.base64url;
+    }
+
+    /**
+     * Decodes a base64url range (with or without padding) into {@code out}.
+     *
+     * @return The number of decoded bytes
+     */
+    static int base64urlDecode(byte[] src, int from, int to, byte[] out) {
+        int end = to;
+        if ((end - from) % 4 == 0) {
+            for (int i = 0; i < 2 && end > from && src[end - 1] == '='; i++) {
+                end--;
+            }
+        }
+        int remainder = (end - from) % 4;
+        if (remainder == 1) {
+            throw new MalformedJwtException("Invalid Base64url length");
+        }
+        int o = 0;
+        int i = from;
+        for (int full = end - remainder; i < full; i += 4) {
+            int bits = sextet(src[i]) << 18 | sextet(src[i + 1]) << 12 | sextet(src[i + 2]) << 6 | sextet(src[i + 3]);
+            out[o++] = (byte) (bits >> 16);
+            out[o++] = (byte) (bits >> 8);
+            out[o++] = (byte) bits;
+        }
+        if (remainder >= 2) {
+            int bits = sextet(src[i]) << 18 | sextet(src[i + 1]) << 12;
+            out[o++] = (byte) (bits >> 16);
+            if (remainder == 3) {
+                bits |= sextet(src[i + 2]) << 6;
+                out[o++] = (byte) (bits >> 8);
+            }
+        }
+        return o;
+    }
+
+    private static int sextet(byte b) {
+        int v = b < 0 ? -1 : BASE64URL_VALUES[b];
+        if (v < 0) {
+            throw new MalformedJwtException("Illegal base64url character: '" + (char) b + "'");
+        }
+        return v;
+    }
+
+    private record EncodedHeader(String kid, byte[] base64url) { }
+
+    /** Per-thread buffers and signature engines. */
+    private static final class Scratch {
+        final Bytes json = new Bytes(128);
+        final Bytes out = new Bytes(512);
+        final JsonReader reader = new JsonReader();
+        final Signature signer = newSignature("SHA256withECDSAinP1363Format");
+        final Signature joseVerifier = newSignature("SHA256withECDSAinP1363Format");
+        byte[] input = new byte[512];
+        byte[] decoded = new byte[256];
+        byte[] signature = new byte[SIGNATURE_BYTES + 8];
+
+        byte[] input(int length) {
+            if (input.length < length) {
+                input = new byte[length];
+            }
+            return input;
+        }
+
+        byte[] decoded(int encodedLength) {
+            int needed = encodedLength / 4 * 3 + 3;
+            if (decoded.length < needed) {
+                decoded = new byte[needed];
+            }
+            return decoded;
+        }
+
+        byte[] signature(int encodedLength) {
+            int needed = encodedLength / 4 * 3 + 3;
+            if (signature.length < needed) {
+                signature = new byte[needed];
+            }
+            return signature;
+        }
+
+        private static Signature newSignature(String algorithm) {
+            try {
+                return Signature.getInstance(algorithm);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(algorithm + " is not available", e);
+            }
+        }
+    }
+
+    /** Growable byte buffer used to assemble tokens. */
+    private static final class Bytes {
+        byte[] data;
+        int length;
+
+        Bytes(int capacity) {
+            data = new byte[capacity];
+        }
+
+        Bytes clear() {
+            length = 0;
+            return this;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+            }
+        }
+
+        Bytes put(char c) {
+            ensure(1);
+            data[length++] = (byte) c;
+            return this;
+        }
+
+        Bytes put(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, data, length, bytes.length);
+            length += bytes.length;
+            return this;
+        }
+
+        Bytes ascii(String s) {
+            ensure(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                data[length++] = (byte) s.charAt(i);
+            }
+            return this;
+        }
+
+        /** Appends a JSON string literal, UTF-8 encoded. */
+        Bytes jsonString(String s) {
+            if (s == null) {
+                return ascii("null");
+            }
+            ensure(s.length() * 6 + 2);
+            data[length++] = '"';
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"' || c == '\\') {
+                    data[length++] = '\\';
+                    data[length++] = (byte) c;
+                } else if (c < 0x20) {
+                    data[length++] = '\\';
+                    data[length++] = 'u';
+                    data[length++] = '0';
+                    data[length++] = '0';
+                    data[length++] = hex(c >> 4);
+                    data[length++] = hex(c & 0xF);
+                } else if (c < 0x80) {
+                    data[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    data[length++] = (byte) (0xC0 | c >> 6);
+                    data[length++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    data[length++] = (byte) (0xF0 | cp >> 18);
+                    data[length++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                    data[length++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                    data[length++] = (byte) (0x80 | cp & 0x3F);
+                } else if (Character.isSurrogate(c)) {
+                    data[length++] = '?'; // unpaired surrogate, as String.getBytes(UTF_8) does
+                } else {
+                    data[length++] = (byte) (0xE0 | c >> 12);
+                    data[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    data[length++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+            data[length++] = '"';
+            return this;
+        }
+
+        /** Appends the unpadded base64url encoding of a byte range. */
+        Bytes base64url(byte[] src, int from, int count) {
+            ensure((count + 2) / 3 * 4);
+            int i = from;
+            int end = from + count;
+            for (; i + 3 <= end; i += 3) {
+                int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+                data[length++] = BASE64URL[bits >>> 18];
+                data[length++] = BASE64URL[bits >>> 12 & 0x3F];
+                data[length++] = BASE64URL[bits >>> 6 & 0x3F];
+                data[length++] = BASE64URL[bits & 0x3F];
+            }
+            int rest = end - i;
+            if (rest > 0) {
+                int bits = (src[i] & 0xFF) << 16 | (rest == 2 ? (src[i + 1] & 0xFF) << 8 : 0);
+                data[length++] = BASE64URL[bits >>> 18];
+                data[length++] = BASE64URL[bits >>> 12 & 0x3F];
+                if (rest == 2) {
+                    data[length++] = BASE64URL[bits >>> 6 & 0x3F];
+                }
+            }
+            return this;
+        }
+
+        private static byte hex(int nibble) {
+            return (byte) (nibble < 10 ? '0' + nibble : 'a' + nibble - 10);
+        }
+    }
+
+    /**
+     * Minimal pull reader for a UTF-8 JSON object, following RFC 8259 as Jackson does
+     * by default (no comments, no leading zeros, no unescaped control characters).
+     * Member names and String values are decoded into a reusable char buffer.
+     */
+    private static final class JsonReader {
+        private byte[] buf;
+        private int pos;
+        private int end;
+        private boolean first;
+        private char[] chars = new char[64];
+        private int charCount;
+
+        JsonReader reset(byte[] buf, int end) {
+            this.buf = buf;
+            this.end = end;
+            this.pos = 0;
+            // tolerate a UTF-8 byte order mark, as Jackson does
+            if (end >= 3 && (buf[0] & 0xFF) == 0xEF && (buf[1] & 0xFF) == 0xBB && (buf[2] & 0xFF) == 0xBF) {
+                pos = 3;
+            }
+            return this;
+        }
+
+        void beginObject() {
+            skipWhitespace();
+            expect('{');
+            first = true;
+        }
+
+        /**
+         * Advances to the next member and reads its name, or consumes the closing brace.
+         * Anything after the closing brace is ignored, like Jackson's default
+         * {@code readValue}.
+         *
+         * @return {@code false} at the end of the object
+         */
+        boolean nextMember() {
+            skipWhitespace();
+            if (first) {
+                first = false;
+                if (peek() == '}') {
+                    pos++;
+                    return false;
+                }
+            } else {
+                int c = next();
+                if (c == '}') {
+                    return false;
+                }
+                if (c != ',') {
+                    throw malformed();
+                }
+                skipWhitespace();
+            }
+            expect('"');
+            readStringBody();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            return true;
+        }
+
+        boolean nameIs(char[] name) {
+            return Arrays.equals(chars, 0, charCount, name, 0, name.length);
+        }
+
+        String readNullableString() {
+            if (skipNull()) {
+                return null;
+            }
+            expect('"');
+            readStringBody();
+            return new String(chars, 0, charCount);
+        }
+
+        /** Reads a String value, or skips a value of any other type and returns {@code null}. */
+        String readStringOrSkip() {
+            if (peek() == '"') {
+                pos++;
+                readStringBody();
+                return new String(chars, 0, charCount);
+            }
+            skipValue(0);
+            return null;
+        }
+
+        /** Compares a value with an expected String without materializing it. */
+        boolean stringValueIs(char[] expected) {
+            if (peek() != '"') {
+                skipValue(0);
+                return false;
+            }
+            pos++;
+            readStringBody();
+            return nameIs(expected);
+        }
+
+        long readNullableLong() {
+            if (skipNull()) {
+                return AccessToken.ABSENT;
+            }
+            boolean negative = peek() == '-';
+            if (negative) {
+                pos++;
+            }
+            int digitsStart = pos;
+            long value = 0;
+            while (pos < end && buf[pos] >= '0' && buf[pos] <= '9') {
+                int digit = buf[pos++] - '0';
+                if (value > (Long.MAX_VALUE - digit) / 10) {
+                    throw malformed();
+                }
+                value = value * 10 + digit;
+            }
+            int digits = pos - digitsStart;
+            if (digits == 0 || (digits > 1 && buf[digitsStart] == '0')) {
+                throw malformed();
+            }
+            if (pos < end && (buf[pos] == '.' || buf[pos] == 'e' || buf[pos] == 'E')) {
+                throw new MalformedJwtException("Date claims must be integer seconds");
+            }
+            return negative ? -value : value;
+        }
+
+        /** Consumes a {@code null} literal if one is next. */
+        boolean skipNull() {
+            if (peek() == 'n') {
+                literal("null");
+                return true;
+            }
+            return false;
+        }
+
+        void skipValue(int depth) {
+            if (depth > MAX_DEPTH) {
+                throw malformed();
+            }
+            int c = peek();
+            switch (c) {
+                case '"' -> {
+                    pos++;
+                    readStringBody();
+                }
+                case '{' -> {
+                    pos++;
+                    skipWhitespace();
+                    if (peek() == '}') {
+                        pos++;
+                        return;
+                    }
+                    do {
+                        skipWhitespace();
+                        expect('"');
+                        readStringBody();
+                        skipWhitespace();
+                        expect(':');
+                        skipWhitespace();
+                        skipValue(depth + 1);
+                        skipWhitespace();
+                    } while (nextIs(','));
+                    expect('}');
+                }
+                case '[' -> {
+                    pos++;
+                    skipWhitespace();
+                    if (peek() == ']') {
+                        pos++;
+                        return;
+                    }
+                    do {
+                        skipWhitespace();
+                        skipValue(depth + 1);
+                        skipWhitespace();
+                    } while (nextIs(','));
+                    expect(']');
+                }
+                case 't' -> literal("true");
+                case 'f' -> literal("false");
+                case 'n' -> literal("null");
+                default -> skipNumber();
+            }
+        }
+
+        private void skipNumber() {
+            if (peek() == '-') {
+                pos++;
+            }
+            int digitsStart = pos;
+            skipDigits();
+            int digits = pos - digitsStart;
+            if (digits == 0 || (digits > 1 && buf[digitsStart] == '0')) {
+                throw malformed();
+            }
+            if (pos < end && buf[pos] == '.') {
+                pos++;
+                if (skipDigits() == 0) {
+                    throw malformed();
+                }
+            }
+            if (pos < end && (buf[pos] == 'e' || buf[pos] == 'E')) {
+                pos++;
+                if (pos < end && (buf[pos] == '+' || buf[pos] == '-')) {
+                    pos++;
+                }
+                if (skipDigits() == 0) {
+                    throw malformed();
+                }
+            }
+        }
+
+        private int skipDigits() {
+            int start = pos;
+            while (pos < end && buf[pos] >= '0' && buf[pos] <= '9') {
+                pos++;
+            }
+            return pos - start;
+        }
+
+        /** Decodes a String body (after the opening quote) into {@link #chars}. */
+        private void readStringBody() {
+            charCount = 0;
+            while (true) {
+                int b = next();
+                if (b == '"') {
+                    return;
+                }
+                if (b == '\\') {
+                    int e = next();
+                    switch (e) {
+                        case '"', '\\', '/' -> append((char) e);
+                        case 'b' -> append('\b');
+                        case 'f' -> append('\f');
+                        case 'n' -> append('\n');
+                        case 'r' -> append('\r');
+                        case 't' -> append('\t');
+                        case 'u' -> append((char) (hexDigit() << 12 | hexDigit() << 8 | hexDigit() << 4 | hexDigit()));
+                        default -> throw malformed();
+                    }
+                } else if (b < 0x20) {
+                    throw malformed();
+                } else if (b < 0x80) {
+                    append((char) b);
+                } else if (b >= 0xC2 && b <= 0xDF) {
+                    append((char) ((b & 0x1F) << 6 | continuation()));
+                } else if (b >= 0xE0 && b <= 0xEF) {
+                    int cp = (b & 0x0F) << 12 | continuation() << 6 | continuation();
+                    if (cp < 0x800 || Character.isSurrogate((char) cp)) {
+                        throw malformed();
+                    }
+                    append((char) cp);
+                } else if (b >= 0xF0 && b <= 0xF4) {
+                    int cp = (b & 0x07) << 18 | continuation() << 12 | continuation() << 6 | continuation();
+                    if (cp < 0x10000 || cp > Character.MAX_CODE_POINT) {
+                        throw malformed();
+                    }
+                    append(Character.highSurrogate(cp));
+                    append(Character.lowSurrogate(cp));
+                } else {
+                    throw malformed();
+                }
+            }
+        }
+
+        private int continuation() {
+            int b = next();
+            if ((b & 0xC0) != 0x80) {
+                throw malformed();
+            }
+            return b & 0x3F;
+        }
+
+        private int hexDigit() {
+            int c = next();
+            if (c >= '0' && c <= '9') return c - '0';
+            if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+            if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+            throw malformed();
+        }
+
+        private void append(char c) {
+            if (charCount == chars.length) {
+                chars = Arrays.copyOf(chars, chars.length * 2);
+            }
+            chars[charCount++] = c;
+        }
+
+        private void literal(String word) {
+            for (int i = 0; i < word.length(); i++) {
+                if (next() != word.charAt(i)) {
+                    throw malformed();
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < end) {
+                byte b = buf[pos];
+                if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        private boolean nextIs(char c) {
+            if (pos < end && buf[pos] == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (next() != c) {
+                throw malformed();
+            }
+        }
+
+        private int peek() {
+            if (pos >= end) {
+                throw malformed();
+            }
+            return buf[pos] & 0xFF;
+        }
+
+        private int next() {
+            int b = peek();
+            pos++;
+            return b;
+        }
+
+        private static MalformedJwtException malformed() {
+            return new MalformedJwtException("Unable to read JSON value");
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.usermanagement.security;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * In-memory revocation list for access tokens that must stop working before they expire.
+ *
+ * Access tokens are self-contained, so logging out used to leave the JWT valid
+ * until its {@code exp}. Checking a database table on every request would put a
+ * query on the hottest path of the application; instead this component keeps two
+ * small hash maps that {@link JwtAuthenticationFilter} consults in constant time:
+ *
+ *   <strong>Revoked ids:</strong> {@code jti} of single tokens revoked at logout
+ *   <strong>Per-user watermarks:</strong> every token of a user issued at or before the
+ *   watermark second is revoked (used by "revoke all sessions" and user deletion)
+ *
+ *
+ * Entries are only needed while the tokens they refer to can still be presented.
+ * Each entry is therefore placed on a hashed timing wheel with one-second slots
+ * at the instant it becomes useless (the token's {@code exp}, or the watermark
+ * plus the access-token lifetime), and {@link #purgeExpired()} drains the slots
+ * the clock has passed. The maps only ever hold live entries, so their size is
+ * bounded by the revocation rate times the token lifetime.
+ *
+ * Watermarks have second granularity, like the {@code iat} claim: a token issued
+ * in the same second as the revocation is revoked too.
+ *
+ * The list is local to this instance and starts empty after a restart.
+ *
+ * Metrics exposed through Micrometer: {@code auth.jwt.revoked.tokens},
+ * {@code auth.jwt.revoked.users} and {@code auth.jwt.revoked.rejections}.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+public class AccessTokenRevocationList implements MeterBinder {
+    /** Number of one-second slots; entries further away wait for extra turns of the wheel */
+    private static final int WHEEL_SLOTS = 512;
+
+    private final Map<String, Long> revokedIds = new ConcurrentHashMap<>();
+    private final Map<String, Long> watermarks = new ConcurrentHashMap<>();
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Queue<Expiry>[] wheel = new Queue[WHEEL_SLOTS];
+    private final long tokenLifetimeSeconds;
+    /** Next second whose slot has not been drained yet */
+    private long cursor;
+
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * Constructs a new AccessTokenRevocationList.
+     *
+     * @param tokenLifetimeMs Access-token lifetime, which bounds how long a watermark is needed
+     */
+    public AccessTokenRevocationList(@Value("${app.jwt.expiration-ms}") long tokenLifetimeMs) {
+        this.tokenLifetimeSeconds = (tokenLifetimeMs + 999) / 1000;
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.cursor = nowSeconds();
+    }
+
+    /**
+     * Revokes a single access token until it expires.
+     *
+     * @param token The verified token to revoke; tokens without {@code jti} or {@code exp} are ignored
+     */
+    public void revoke(AccessToken token) {
+        if (token.id() == null || !token.hasExpiry() || token.expiresAt() < nowSeconds()) {
+            return;
+        }
+        revokedIds.put(token.id(), token.expiresAt());
+        schedule(new Expiry(token.id(), false, token.expiresAt()));
+    }
+
+    /**
+     * Revokes every access token of a user issued up to now.
+     *
+     * @param username The user whose outstanding access tokens must stop working
+     */
+    public void revokeAllForUser(String username) {
+        long now = nowSeconds();
+        watermarks.merge(username, now, Math::max);
+        schedule(new Expiry(username, true, now + tokenLifetimeSeconds));
+    }
+
+    /**
+     * Checks a verified token against the revocation list in constant time.
+     *
+     * @param jti The {@code jti} claim, may be {@code null}
+     * @param username The token subject
+     * @param issuedAt The {@code iat} claim in epoch seconds, or {@link AccessToken#ABSENT}
+     * @return {@code true} if the token has been revoked
+     */
+    public boolean isRevoked(String jti, String username, long issuedAt) {
+        if (revokedIds.isEmpty() && watermarks.isEmpty()) {
+            return false;
+        }
+        boolean revoked = (jti != null && revokedIds.containsKey(jti))
+                || (username != null && isBeforeWatermark(username, issuedAt));
+        if (revoked) {
+            rejections.increment();
+        }
+        return revoked;
+    }
+
+    private boolean isBeforeWatermark(String username, long issuedAt) {
+        Long watermark = watermarks.get(username);
+        // a token without iat cannot prove it was issued after the watermark
+        return watermark != null && (issuedAt == AccessToken.ABSENT || issuedAt <= watermark);
+    }
+
+    /**
+     * Advances the timing wheel and drops entries whose tokens can no longer be presented.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public synchronized void purgeExpired() {
+        long now = nowSeconds();
+        // at most one full turn: every slot is visited once even after a long pause
+        long last = Math.min(now, cursor + WHEEL_SLOTS - 1);
+        for (; cursor <= last; cursor++) {
+            Queue<Expiry> slot = wheel[Math.floorMod(cursor, WHEEL_SLOTS)];
+            for (int pending = slot.size(); pending > 0; pending--) {
+                Expiry e = slot.poll();
+                if (e == null) {
+                    break;
+                }
+                if (e.at() > now) {
+                    slot.add(e); // belongs to a later turn of the wheel
+                } else if (e.watermark()) {
+                    // keep a watermark that was raised later; its own expiry is further along the wheel
+                    watermarks.computeIfPresent(e.key(), (k, w) -> w + tokenLifetimeSeconds <= now ? null : w);
+                } else {
+                    revokedIds.remove(e.key(), e.at());
+                }
+            }
+        }
+        cursor = now + 1;
+    }
+
+    /** @return Number of individually revoked tokens still tracked */
+    public int revokedTokenCount() {
+        return revokedIds.size();
+    }
+
+    /** @return Number of users with an active watermark */
+    public int watermarkCount() {
+        return watermarks.size();
+    }
+
+    private void schedule(Expiry expiry) {
+        wheel[Math.floorMod(expiry.at(), WHEEL_SLOTS)].add(expiry);
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.jwt.revoked.tokens", revokedIds, Map::size)
+                .description("Access tokens revoked individually and not yet expired")
+                .register(registry);
+        Gauge.builder("auth.jwt.revoked.users", watermarks, Map::size)
+                .description("Users whose earlier access tokens are all revoked")
+                .register(registry);
+        FunctionCounter.builder("auth.jwt.revoked.rejections", rejections, LongAdder::sum)
+                .description("Requests rejected because their access token was revoked")
+                .register(registry);
+    }
+
+    /** A map entry to drop once {@code at} (epoch seconds) has passed. */
+    private record Expiry(String key, boolean watermark, long at) { }
+}
@@ -0,0 +1,105 @@
+package com.example.usermanagement.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Spring Security filter that authenticates API gateways on the token
+ * introspection endpoint.
+ *
+ * Gateways have no user account; they send one of the shared keys configured in
+ * {@code app.security.introspection.api-keys} in the {@value #HEADER} header. A
+ * matching key grants the {@value #AUTHORITY} authority for that request only,
+ * which {@link SecurityConfig} requires (or ADMIN) on
+ * {@code /api/auth/introspect}. Keys are compared as SHA-256 digests in constant
+ * time, and a wrong key simply leaves the request unauthenticated.
+ *
+ * Without configured keys only administrators can introspect tokens.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+public class GatewayKeyAuthenticationFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(GatewayKeyAuthenticationFilter.class);
+
+    /** Request header carrying the gateway key */
+    public static final String HEADER = "X-Gateway-Key";
+    /** Authority granted to requests with a valid gateway key */
+    public static final String AUTHORITY = "INTROSPECT";
+
+    private static final String PATH = "/api/auth/introspect";
+
+    private final List<byte[]> keyDigests = new ArrayList<>();
+
+    /**
+     * Constructs a new GatewayKeyAuthenticationFilter.
+     *
+     * @param apiKeys Comma-separated gateway keys; blank disables gateway access
+     */
+    public GatewayKeyAuthenticationFilter(@Value("${app.security.introspection.api-keys:}") String apiKeys) {
+        if (apiKeys != null) {
+            for (String key : apiKeys.split(",")) {
+                if (!key.isBlank()) {
+                    keyDigests.add(sha256(key.trim()));
+                }
+            }
+        }
+        if (keyDigests.isEmpty()) {
+            log.info("app.security.introspection.api-keys is not set: only ADMIN can call {}", PATH);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return keyDigests.isEmpty() || !PATH.equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String key = request.getHeader(HEADER);
+        if (key != null && matches(key)) {
+            UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken("gateway", null,
+                    Collections.singletonList(new SimpleGrantedAuthority(AUTHORITY)));
+            SecurityContextHolder.getContext().setAuthentication(auth);
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    boolean matches(String key) {
+        byte[] digest = sha256(key);
+        boolean found = false;
+        for (byte[] candidate : keyDigests) {
+            // no early exit: the time taken does not depend on which key matched
+            found |= MessageDigest.isEqual(candidate, digest);
+        }
+        return found;
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
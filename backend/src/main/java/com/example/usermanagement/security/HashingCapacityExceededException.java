@@ -0,0 +1,30 @@
+package com.example.usermanagement.security;
+
+/**
+ * Thrown when the password hashing executor cannot accept more work.
+ *
+ * This happens when the bounded hashing queue is full or when a queued task
+ * waited longer than the configured maximum. It is translated into a
+ * 503 Service Unavailable response with a {@code Retry-After} header by
+ * {@link com.example.usermanagement.config.GlobalExceptionHandler}.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+public class HashingCapacityExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructs a new HashingCapacityExceededException.
+     *
+     * @param retryAfterSeconds Suggested delay, in seconds, before the client retries
+     */
+    public HashingCapacityExceededException(long retryAfterSeconds) {
+        super("Servicio ocupado, inténtelo de nuevo en unos segundos");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
@@ -0,0 +1,42 @@
+package com.example.usermanagement.security;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link JwtKeyStore} that keeps the keys in memory.
+ *
+ * Only suitable for a single instance that may lose its outstanding access
+ * tokens on restart (clients get new ones through the refresh-token flow),
+ * and for tests.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "app.jwt.keys.store", havingValue = "memory")
+public class InMemoryJwtKeyStore implements JwtKeyStore {
+    private final List<StoredKey> keys = new ArrayList<>();
+
+    @Override
+    public synchronized List<StoredKey> load() {
+        return List.copyOf(keys);
+    }
+
+    @Override
+    public synchronized boolean insert(StoredKey key) {
+        if (keys.stream().anyMatch(k -> k.notBefore() == key.notBefore())) {
+            return false;
+        }
+        keys.add(key);
+        return true;
+    }
+
+    @Override
+    public synchronized void delete(String kid) {
+        keys.removeIf(k -> k.kid().equals(kid));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.usermanagement.security;
+
+import java.util.Arrays;
+
+/**
+ * An inclusive range of IP addresses of one family, as given by a CIDR block.
+ *
+ * Bounds are binary addresses as produced by {@link SecurityUtil#parseIp(String)}
+ * (4 bytes for IPv4, 16 for IPv6). Compared as unsigned bytes, the addresses of
+ * the range are exactly those between {@code low} and {@code high}, so the range
+ * maps onto a range scan of an index on the binary address.
+ *
+ * @param low The first address of the range
+ * @param high The last address of the range, same length as {@code low}
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+public record IpRange(byte[] low, byte[] high) {
+
+    /**
+     * Parses a CIDR block ({@code 10.0.0.0/8}, {@code 2001:db8::/32}) or a
+     * single address. Host bits set in the address are ignored.
+     *
+     * @param cidr The block or address
+     * @return The range
+     * @throws IllegalArgumentException If the input is not an address or CIDR block
+     */
+    public static IpRange parse(String cidr) {
+        if (cidr == null) {
+            throw new IllegalArgumentException("IP address required");
+        }
+        int slash = cidr.indexOf('/');
+        byte[] address = SecurityUtil.parseIp(slash >= 0 ? cidr.substring(0, slash) : cidr);
+        if (address == null || (slash < 0 && cidr.indexOf(',') >= 0)) {
+            throw new IllegalArgumentException("Not an IP address: " + cidr);
+        }
+        int bits = address.length * 8;
+        int prefix = bits;
+        if (slash >= 0) {
+            try {
+                prefix = Integer.parseInt(cidr.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a CIDR prefix length: " + cidr);
+            }
+            // an IPv4-mapped IPv6 block is parsed as IPv4: drop the 96 mapping bits
+            if (address.length == 4 && cidr.indexOf(':') >= 0) {
+                prefix -= 96;
+            }
+            if (prefix < 0 || prefix > bits) {
+                throw new IllegalArgumentException("Not a CIDR prefix length: " + cidr);
+            }
+        }
+        byte[] low = address.clone();
+        byte[] high = address.clone();
+        for (int i = 0; i < address.length; i++) {
+            int keep = Math.max(0, Math.min(8, prefix - i * 8));
+            int mask = keep == 0 ? 0 : (0xff << (8 - keep)) & 0xff;
+            low[i] = (byte) (address[i] & mask);
+            high[i] = (byte) (address[i] | ~mask);
+        }
+        return new IpRange(low, high);
+    }
+
+    /**
+     * @param address A binary address
+     * @return Whether the address belongs to the range
+     */
+    public boolean contains(byte[] address) {
+        return address != null && address.length == low.length
+                && Arrays.compareUnsigned(address, low) >= 0 && Arrays.compareUnsigned(address, high) <= 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof IpRange r && Arrays.equals(low, r.low) && Arrays.equals(high, r.high);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(low) + Arrays.hashCode(high);
+    }
+
+    @Override
+    public String toString() {
+        return SecurityUtil.formatIp(low) + "-" + SecurityUtil.formatIp(high);
+    }
+}
@@ -2,14 +2,13 @@ package com.example.usermanagement.security;
 
 import java.io.IOException;
 
+import com.example.usermanagement.security.VerifiedTokenCache.VerifiedToken;
+
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -31,6 +30,12 @@ import jakarta.servlet.http.HttpServletResponse;
  * context and allows the request to continue. The actual authorization is handled by
  * Spring Security's method security annotations (e.g., {@code @PreAuthorize}).
  * 
+ * Tokens that were already verified are served from {@link VerifiedTokenCache},
+ * so repeated requests with the same access token skip signature verification
+ * and claim parsing until the token expires. Every request, cached or not, is
+ * then checked against the in-memory {@link AccessTokenRevocationList}, so
+ * logout and "revoke all sessions" take effect immediately.
+ * 
  * This filter is registered in {@link SecurityConfig} and runs before
  * {@code UsernamePasswordAuthenticationFilter}.
  * 
@@ -40,14 +45,20 @@ import jakarta.servlet.http.HttpServletResponse;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache tokenCache;
+    private final AccessTokenRevocationList revocationList;
 
     /**
      * Constructs a new JwtAuthenticationFilter.
      * 
      * @param jwtUtil The JWT utility for parsing and validating tokens
+     * @param tokenCache Cache of tokens that already passed verification
+     * @param revocationList Tokens revoked before their expiry
      */
-    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, VerifiedTokenCache tokenCache, AccessTokenRevocationList revocationList) {
         this.jwtUtil = jwtUtil;
+        this.tokenCache = tokenCache;
+        this.revocationList = revocationList;
     }
 
     /**
@@ -68,10 +79,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
             try {
-                Jws<Claims> claims = jwtUtil.parse(token);
-                String username = claims.getBody().getSubject();
-                String role = (String) claims.getBody().get("role");
-                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(username, null, java.util.Collections.singletonList(new SimpleGrantedAuthority(role)));
+                VerifiedToken verified = tokenCache.get(token);
+                if (verified == null) {
+                    verified = verify(token);
+                }
+                if (revocationList.isRevoked(verified.id(), verified.username(), verified.issuedAt())) {
+                    SecurityContextHolder.clearContext();
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+                // a fresh Authentication per request: the cached value is shared between threads
+                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(verified.username(), null, verified.authorities());
                 SecurityContextHolder.getContext().setAuthentication(auth);
             } catch (Exception e) {
                 // invalid token -> clear context
@@ -80,4 +98,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Fully verifies a token and caches the result until the token expires.
+     * 
+     * @param token The raw token
+     * @return The verified principal and authorities
+     * @throws io.jsonwebtoken.JwtException If the token is invalid
+     */
+    private VerifiedToken verify(String token) {
+        AccessToken claims = jwtUtil.parse(token);
+        VerifiedToken verified = VerifiedToken.of(claims);
+        if (claims.hasExpiry()) {
+            tokenCache.put(token, verified);
+        }
+        return verified;
+    }
 }
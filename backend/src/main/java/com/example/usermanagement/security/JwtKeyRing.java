@@ -0,0 +1,291 @@
+package com.example.usermanagement.security;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rotating set of ES256 (ECDSA P-256) key pairs used to sign access tokens.
+ *
+ * Every token carries the {@code kid} of the key that signed it, and the public
+ * halves are published through {@link com.example.usermanagement.controller.JwksController}
+ * so other services can verify tokens locally without calling this service.
+ *
+ * Key lifecycle:
+ *
+ *   <strong>Next:</strong> generated ahead of time and already published, so verifiers
+ *   that cached the JWKS document know it before the first token is signed with it
+ *   <strong>Active:</strong> the key with the latest {@code notBefore} that has passed; it signs
+ *   new tokens until the next key's {@code notBefore}, one {@code app.jwt.keys.rotation-interval-ms} later
+ *   <strong>Retired:</strong> no longer signs, but keeps verifying until every token it signed
+ *   has expired (successor's {@code notBefore} + token lifetime + clock skew), then it is deleted
+ *
+ *
+ * Keys are kept in a {@link JwtKeyStore}, by default the database, so every
+ * instance signs with the same key, verifies the others' tokens and publishes
+ * the same JWKS document, and a restart does not invalidate outstanding tokens.
+ * The ring works on an in-memory snapshot of the store. It reloads it when the
+ * next key becomes due (creating the key after that if no instance has yet),
+ * every {@code app.jwt.keys.reload-interval-ms}, and when a token names an
+ * unknown {@code kid} (at most every few seconds, so made-up ids cannot force a
+ * query per request). The reload interval should be shorter than the rotation
+ * interval minus the JWKS cache lifetime, so every instance publishes a new key
+ * before verifiers could meet it.
+ *
+ * Activation times follow a fixed schedule: each key's {@code notBefore} is
+ * the previous one's plus the rotation interval, and the first key of an empty
+ * store starts on a multiple of the interval. Instances that create the same
+ * key at the same time therefore insert the same {@code notBefore}, the store's
+ * unique constraint keeps one, and every instance loads that one.
+ *
+ * If the store cannot be read, the ring keeps working from its last snapshot and
+ * retries a few seconds later.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+public class JwtKeyRing {
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    /** Tolerance for clock differences between this service and remote verifiers */
+    private static final long CLOCK_SKEW_MS = 60_000;
+    /** Minimum delay between reloads forced by unknown key ids or by a failed reload */
+    private static final long MIN_RELOAD_INTERVAL_MS = 5_000;
+
+    private final SecureRandom random = new SecureRandom();
+    private final JwtKeyStore store;
+    private final long rotationIntervalMs;
+    private final long tokenLifetimeMs;
+    private final long reloadIntervalMs;
+    private final LongSupplier clock;
+
+    private volatile Snapshot snapshot;
+    private volatile long lastForcedReload = Long.MIN_VALUE / 2;
+
+    /**
+     * Constructs a new JwtKeyRing, loading its keys from the store and creating
+     * the first ones if the store is empty.
+     *
+     * @param store Where the keys are kept
+     * @param rotationIntervalMs How long a key signs new tokens before the next one takes over
+     * @param tokenLifetimeMs Access token lifetime; retired keys stay valid this long after rotation
+     * @param reloadIntervalMs How often keys created by other instances are picked up
+     */
+    @Autowired
+    public JwtKeyRing(JwtKeyStore store,
+                      @Value("${app.jwt.keys.rotation-interval-ms:86400000}") long rotationIntervalMs,
+                      @Value("${app.jwt.expiration-ms}") long tokenLifetimeMs,
+                      @Value("${app.jwt.keys.reload-interval-ms:60000}") long reloadIntervalMs) {
+        this(store, rotationIntervalMs, tokenLifetimeMs, reloadIntervalMs, System::currentTimeMillis);
+    }
+
+    JwtKeyRing(JwtKeyStore store, long rotationIntervalMs, long tokenLifetimeMs, long reloadIntervalMs, LongSupplier clock) {
+        if (rotationIntervalMs <= 0 || reloadIntervalMs <= 0) {
+            throw new IllegalArgumentException("JWT key rotation and reload intervals must be positive");
+        }
+        this.store = store;
+        this.rotationIntervalMs = rotationIntervalMs;
+        this.tokenLifetimeMs = tokenLifetimeMs;
+        this.reloadIntervalMs = reloadIntervalMs;
+        this.clock = clock;
+        this.snapshot = load(clock.getAsLong());
+    }
+
+    /**
+     * Returns the key that signs new tokens, rotating first if it is due.
+     *
+     * @return The active signing key
+     */
+    public SigningKey signingKey() {
+        return current(clock.getAsLong()).active();
+    }
+
+    /**
+     * Finds the public key for a {@code kid} header.
+     *
+     * @param kid The key id from the token header
+     * @return The public key, or {@code null} if unknown or past its verification window
+     */
+    public PublicKey verificationKey(String kid) {
+        if (kid == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        SigningKey key = current(now).find(kid);
+        if (key == null && now - lastForcedReload >= MIN_RELOAD_INTERVAL_MS) {
+            // possibly a key another instance created since the last reload
+            lastForcedReload = now;
+            key = reload(null, now).find(kid);
+        }
+        return key != null && now < key.verifyUntil() ? key.keyPair().getPublic() : null;
+    }
+
+    /**
+     * Lists the keys a verifier must know: the pre-published next key, the
+     * active key and retired keys whose tokens may still be in circulation.
+     *
+     * @return The published keys, newest first
+     */
+    public List<SigningKey> publishedKeys() {
+        long now = clock.getAsLong();
+        List<SigningKey> keys = new ArrayList<>();
+        for (SigningKey key : current(now).keys()) {
+            if (now < key.verifyUntil()) {
+                keys.add(0, key);
+            }
+        }
+        return keys;
+    }
+
+    private Snapshot current(long now) {
+        Snapshot s = snapshot;
+        return now < s.reloadAt() ? s : reload(s, now);
+    }
+
+    /**
+     * @param seen The snapshot the caller found stale, or {@code null} to reload regardless
+     */
+    private synchronized Snapshot reload(Snapshot seen, long now) {
+        Snapshot s = snapshot;
+        if (seen != null && s != seen && now < s.reloadAt()) {
+            return s; // another thread reloaded first
+        }
+        try {
+            s = load(now);
+        } catch (RuntimeException ex) {
+            log.warn("Could not reload JWT signing keys, keeping the current ones: {}", ex.getMessage());
+            s = Snapshot.of(s.keys(), now, now + MIN_RELOAD_INTERVAL_MS, rotationIntervalMs);
+        }
+        snapshot = s;
+        return s;
+    }
+
+    /**
+     * Reads the store, schedules missing keys so there is an active and a next
+     * one, and deletes keys that no longer verify anything.
+     */
+    private Snapshot load(long now) {
+        List<JwtKeyStore.StoredKey> stored = sorted(store.load());
+        boolean inserted = false;
+        if (stored.isEmpty() || stored.get(0).notBefore() > now) {
+            // nothing active yet (first start): a key for the current slot of the schedule signs at once
+            long anchor = stored.isEmpty() ? 0 : stored.get(0).notBefore();
+            inserted |= store.insert(generate(anchor + Math.floorDiv(now - anchor, rotationIntervalMs) * rotationIntervalMs));
+            stored = sorted(store.load());
+        }
+        long latest = stored.get(stored.size() - 1).notBefore();
+        while (latest <= now) {
+            long at = latest + rotationIntervalMs;
+            if (at <= now) {
+                // overdue (every instance was down): take over at once, announced or not, in the current slot
+                at = latest + (now - latest) / rotationIntervalMs * rotationIntervalMs;
+            }
+            inserted |= store.insert(generate(at));
+            latest = at;
+        }
+        if (inserted) {
+            stored = sorted(store.load()); // includes keys another instance won the race with
+        }
+
+        List<SigningKey> keys = new ArrayList<>(stored.size());
+        for (int i = 0; i < stored.size(); i++) {
+            JwtKeyStore.StoredKey key = stored.get(i);
+            long verifyUntil = i + 1 < stored.size()
+                    ? stored.get(i + 1).notBefore() + tokenLifetimeMs + CLOCK_SKEW_MS
+                    : Long.MAX_VALUE;
+            if (now >= verifyUntil) {
+                store.delete(key.kid());
+            } else {
+                keys.add(new SigningKey(key.kid(), key.keyPair(), key.notBefore(), verifyUntil));
+            }
+        }
+        return Snapshot.of(keys, now, now + reloadIntervalMs, rotationIntervalMs);
+    }
+
+    private static List<JwtKeyStore.StoredKey> sorted(List<JwtKeyStore.StoredKey> keys) {
+        List<JwtKeyStore.StoredKey> copy = new ArrayList<>(keys);
+        copy.sort(Comparator.comparingLong(JwtKeyStore.StoredKey::notBefore));
+        return copy;
+    }
+
+    private JwtKeyStore.StoredKey generate(long notBefore) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"), random);
+            byte[] id = new byte[9];
+            random.nextBytes(id);
+            String kid = Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+            return new JwtKeyStore.StoredKey(kid, notBefore, generator.generateKeyPair());
+        } catch (NoSuchAlgorithmException | InvalidAlgorithmParameterException e) {
+            throw new IllegalStateException("EC P-256 key generation is not available", e);
+        }
+    }
+
+    /**
+     * The keys as last loaded, oldest first.
+     *
+     * @param keys The keys still verifying
+     * @param active The key that signs until {@code reloadAt}
+     * @param reloadAt When the snapshot must be reloaded: the next key's activation, the reload interval, or a retry
+     */
+    private record Snapshot(List<SigningKey> keys, SigningKey active, long reloadAt) {
+
+        static Snapshot of(List<SigningKey> keys, long now, long reloadAt, long rotationIntervalMs) {
+            SigningKey active = null;
+            for (SigningKey key : keys) {
+                if (key.activatedAt() <= now) {
+                    active = key;
+                } else {
+                    reloadAt = Math.min(reloadAt, key.activatedAt());
+                    break;
+                }
+            }
+            if (active == null) {
+                throw new IllegalStateException("No JWT signing key is active");
+            }
+            return new Snapshot(List.copyOf(keys), active, reloadAt);
+        }
+
+        SigningKey find(String kid) {
+            for (SigningKey key : keys) {
+                if (key.kid().equals(kid)) {
+                    return key;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * One key pair of the ring.
+     *
+     * @param kid Key id written to the token header and the JWKS document
+     * @param keyPair The EC P-256 key pair
+     * @param activatedAt When the key started (or will start) signing, epoch milliseconds
+     * @param verifyUntil When a retired key stops verifying, epoch milliseconds
+     */
+    public record SigningKey(String kid, KeyPair keyPair, long activatedAt, long verifyUntil) {
+
+        /** @return The public key as a curve point, for the JWKS {@code x}/{@code y} members */
+        public ECPublicKey publicKey() {
+            return (ECPublicKey) keyPair.getPublic();
+        }
+    }
+}
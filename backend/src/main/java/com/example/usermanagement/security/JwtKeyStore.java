@@ -0,0 +1,56 @@
+package com.example.usermanagement.security;
+
+import java.security.KeyPair;
+import java.util.List;
+
+/**
+ * Storage SPI for the signing keys of the {@link JwtKeyRing}.
+ *
+ * Implementations (selected with {@code app.jwt.keys.store}):
+ *
+ *   {@code jpa} (default) - {@link com.example.usermanagement.repository.JpaJwtKeyStore},
+ *   keys are rows of the {@code jwt_signing_keys} table, shared by every instance and
+ *   kept across restarts
+ *   {@code memory} - {@link InMemoryJwtKeyStore}, keys live and die with the instance
+ *
+ *
+ * Every key is scheduled to start signing at its {@code notBefore} instant, and
+ * no two keys share one: {@link #insert} is the compare-and-set that decides
+ * which of several instances rotating at the same time creates the next key.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+public interface JwtKeyStore {
+
+    /**
+     * Loads every stored key.
+     *
+     * @return The keys, in any order
+     */
+    List<StoredKey> load();
+
+    /**
+     * Stores a new key.
+     *
+     * @param key The key to store
+     * @return {@code false} if a key with the same {@code notBefore} is already stored
+     */
+    boolean insert(StoredKey key);
+
+    /**
+     * Deletes a key that no longer verifies any token.
+     *
+     * @param kid The key id
+     */
+    void delete(String kid);
+
+    /**
+     * A stored signing key.
+     *
+     * @param kid Key id written to the token header and the JWKS document
+     * @param notBefore When the key starts signing, epoch milliseconds
+     * @param keyPair The EC P-256 key pair
+     */
+    record StoredKey(String kid, long notBefore, KeyPair keyPair) { }
+}
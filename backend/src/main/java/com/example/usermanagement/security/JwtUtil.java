@@ -1,27 +1,30 @@
 package com.example.usermanagement.security;
 
-import java.security.Key;
-import java.util.Date;
+import java.security.SecureRandom;
+import java.util.Base64;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
-
 /**
  * Utility class for JWT (JSON Web Token) operations.
  * 
  * This component handles the creation, parsing, and validation of JWT tokens
- * used for authentication in the application. Tokens are signed using HMAC-SHA
- * with a secret key configured in {@code application.yml}.
+ * used for authentication in the application. Tokens are signed with ES256
+ * using the active key of the {@link JwtKeyRing}; the key id is written to the
+ * {@code kid} header so any service holding the published JWKS document can
+ * verify tokens without contacting this one.
+ * 
+ * Encoding and verification are done by {@link AccessTokenCodec}, which is
+ * specialized for this fixed token shape and avoids the per-request allocations
+ * of a general-purpose JWT library.
  * 
  * Token structure:
  * 
+ *   <strong>Header:</strong> {@code alg=ES256} and the {@code kid} of the signing key
  *   <strong>Subject:</strong> The username of the authenticated user
  *   <strong>Role claim:</strong> The user's role (ADMIN or USER)
+ *   <strong>Token id:</strong> A random {@code jti}, so a single token can be revoked
  *   <strong>Issued at:</strong> Timestamp when the token was created
  *   <strong>Expiration:</strong> Timestamp when the token expires (configurable, default 5 minutes)
  * 
@@ -30,7 +33,7 @@ import io.jsonwebtoken.security.Keys;
  * 
  *   Tokens are short-lived (5 minutes) to minimize exposure if compromised
  *   Refresh tokens are used for obtaining new access tokens without re-authentication
- *   The secret key should be changed in production and kept secure
+ *   Signing keys rotate and private keys never leave this service
  * 
  * 
  * @author User Management System
@@ -38,17 +41,18 @@ import io.jsonwebtoken.security.Keys;
  */
 @Component
 public class JwtUtil {
-    private final Key key;
+    private final AccessTokenCodec codec;
     private final long expirationMs;
+    private final SecureRandom random = new SecureRandom();
 
     /**
      * Constructs a new JwtUtil instance.
      * 
-     * @param secret The secret key used to sign JWT tokens (from application.yml)
+     * @param keyRing The rotating set of signing keys
      * @param expirationMs Token expiration time in milliseconds
      */
-    public JwtUtil(@Value("${app.jwt.secret}") String secret, @Value("${app.jwt.expiration-ms}") long expirationMs) {
-        this.key = Keys.hmacShaKeyFor(secret.getBytes());
+    public JwtUtil(JwtKeyRing keyRing, @Value("${app.jwt.expiration-ms}") long expirationMs) {
+        this.codec = new AccessTokenCodec(keyRing);
         this.expirationMs = expirationMs;
     }
 
@@ -60,26 +64,23 @@ public class JwtUtil {
      * @return A signed JWT token string
      */
     public String generateToken(String username, String role) {
-        Date now = new Date();
-        Date exp = new Date(now.getTime() + expirationMs);
-        return Jwts.builder()
-                .setSubject(username)
-                .claim("role", role)
-                .setIssuedAt(now)
-                .setExpiration(exp)
-                .signWith(key)
-                .compact();
+        long now = System.currentTimeMillis();
+        byte[] id = new byte[16];
+        random.nextBytes(id);
+        String jti = Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+        return codec.encode(username, role, jti, now / 1000, (now + expirationMs) / 1000);
     }
 
     /**
      * Parses and validates a JWT token.
      * 
      * @param token The JWT token string to parse
-     * @return A Jws object containing the token claims if valid
-     * @throws io.jsonwebtoken.JwtException If the token is invalid, expired, or tampered with
+     * @return The verified token claims
+     * @throws io.jsonwebtoken.JwtException If the token is invalid, expired, tampered with,
+     *         or signed with an unknown or retired key
      */
-    public Jws<Claims> parse(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+    public AccessToken parse(String token) {
+        return codec.decode(token);
     }
 
     /**
@@ -90,7 +91,6 @@ public class JwtUtil {
      * @throws io.jsonwebtoken.JwtException If the token is invalid
      */
     public String extractUsername(String token) {
-        Jws<Claims> j = parse(token);
-        return j.getBody().getSubject();
+        return parse(token).subject();
     }
 }
@@ -0,0 +1,311 @@
+package com.example.usermanagement.security;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * In-memory token-bucket limiter for login attempts, per username and IP address, and per IP address.
+ *
+ * Every login attempt costs a full PBKDF2 derivation, so a credential-stuffing
+ * flood turns cheap requests into expensive CPU work. This limiter runs before
+ * the password is hashed and rejects attempts over the limit with a
+ * {@link LoginThrottledException} (429 Too Many Requests):
+ *
+ *   <strong>Buckets:</strong> a strict one per username and IP address, and a wider one per IP
+ *   address (as normalized by {@link SecurityUtil#normalizeIp(String)}); each holds up to
+ *   {@code burst} attempts and regains {@code per-minute} attempts per minute. An attempt takes
+ *   one token from both
+ *   <strong>Backoff:</strong> an attempt that finds a bucket empty blocks the key for one refill
+ *   interval, doubled on each further block, up to {@code max-backoff-seconds}. The doubling
+ *   resets once the key's last block ended long enough ago for the bucket to refill completely
+ *   <strong>Success:</strong> a successful login clears the bucket of its username and IP address,
+ *   but not the IP's
+ *   <strong>Memory:</strong> keys are spread over {@code stripes} access-ordered maps, each guarded
+ *   by its own lock and holding at most {@code max-keys / stripes} keys; the least recently used
+ *   key of a full stripe is evicted
+ *
+ *
+ * The strict bucket is not keyed on the username alone: anyone could then lock
+ * a user out by failing logins with their username. Guessing one account's
+ * password from many addresses is bounded by each address's buckets instead.
+ * The IP address is the request's remote address, so behind a proxy it is only
+ * the client's if the container resolves forwarded headers from trusted
+ * proxies ({@code server.forward-headers-strategy}).
+ *
+ * An evicted key starts again with a full bucket, so the bound trades a little
+ * precision under a flood of distinct keys for constant memory. Buckets are
+ * local to the instance.
+ *
+ * Metrics exposed through Micrometer: {@code auth.login.throttle.rejected} and
+ * {@code auth.login.throttle.keys} (tagged {@code scope=user|ip}, {@code user} being
+ * the username and IP address buckets),
+ * {@code auth.login.throttle.evictions} and
+ * {@code auth.login.throttle.iterations.avoided}, the PBKDF2 iterations not run
+ * because of rejected attempts.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+public class LoginThrottle implements MeterBinder {
+    private static final long MINUTE_NANOS = 60_000_000_000L;
+    /** Longer usernames share a bucket with their prefix; they cannot match an account anyway */
+    private static final int MAX_USERNAME_KEY = 128;
+
+    private final boolean enabled;
+    private final BucketTable users;
+    private final BucketTable ips;
+
+    private final LongAdder userRejected = new LongAdder();
+    private final LongAdder ipRejected = new LongAdder();
+    private final LongAdder iterationsAvoided = new LongAdder();
+
+    /**
+     * Constructs a new LoginThrottle.
+     *
+     * @param enabled Whether login attempts are throttled at all
+     * @param stripes Number of independently locked maps per scope, rounded up to a power of two
+     * @param maxKeys Maximum username and IP address pairs tracked, and maximum IP addresses tracked
+     * @param userBurst Attempts a username can make in a row from one IP address
+     * @param userPerMinute Attempts a username regains per minute from one IP address
+     * @param ipBurst Attempts an IP address can make in a row
+     * @param ipPerMinute Attempts an IP address regains per minute
+     * @param maxBackoffSeconds Longest time a key stays blocked
+     */
+    public LoginThrottle(@Value("${app.security.login-throttle.enabled:true}") boolean enabled,
+                         @Value("${app.security.login-throttle.stripes:64}") int stripes,
+                         @Value("${app.security.login-throttle.max-keys:100000}") int maxKeys,
+                         @Value("${app.security.login-throttle.user.burst:5}") int userBurst,
+                         @Value("${app.security.login-throttle.user.per-minute:5}") int userPerMinute,
+                         @Value("${app.security.login-throttle.ip.burst:30}") int ipBurst,
+                         @Value("${app.security.login-throttle.ip.per-minute:60}") int ipPerMinute,
+                         @Value("${app.security.login-throttle.max-backoff-seconds:900}") long maxBackoffSeconds) {
+        if (stripes <= 0 || maxKeys <= 0 || userBurst <= 0 || userPerMinute <= 0 || ipBurst <= 0 || ipPerMinute <= 0
+                || maxBackoffSeconds <= 0) {
+            throw new IllegalArgumentException("Login throttle settings must be positive");
+        }
+        this.enabled = enabled;
+        long maxBackoffNanos = maxBackoffSeconds * 1_000_000_000L;
+        this.users = new BucketTable(stripes, maxKeys, userBurst, MINUTE_NANOS / userPerMinute, maxBackoffNanos);
+        this.ips = new BucketTable(stripes, maxKeys, ipBurst, MINUTE_NANOS / ipPerMinute, maxBackoffNanos);
+    }
+
+    /**
+     * Takes one attempt from the IP address's bucket and the bucket of the
+     * username from that address. Call it before the password is hashed.
+     *
+     * @param username The username being tried
+     * @param ip The normalized client IP address, or {@code null} if unknown
+     * @throws LoginThrottledException If either bucket is empty or blocked
+     */
+    public void acquire(String username, String ip) {
+        acquire(username, ip, System.nanoTime());
+    }
+
+    void acquire(String username, String ip, long now) {
+        if (!enabled) {
+            return;
+        }
+        // the IP first: a blocked address does not use up its victims' attempts
+        long wait = ip != null ? ips.tryAcquire(ip, now) : 0;
+        if (wait > 0) {
+            ipRejected.increment();
+            reject(wait);
+        }
+        wait = username != null ? users.tryAcquire(userKey(username, ip), now) : 0;
+        if (wait > 0) {
+            userRejected.increment();
+            reject(wait);
+        }
+    }
+
+    /**
+     * Clears the bucket of a username and IP address after a successful login.
+     *
+     * @param username The username that logged in, as given in the attempt
+     * @param ip The normalized client IP address, or {@code null} if unknown
+     */
+    public void succeeded(String username, String ip) {
+        if (enabled && username != null) {
+            users.remove(userKey(username, ip));
+        }
+    }
+
+    /** @return Number of username and IP address pairs currently tracked */
+    public int trackedUsers() {
+        return users.size();
+    }
+
+    /** @return Number of IP addresses currently tracked */
+    public int trackedIps() {
+        return ips.size();
+    }
+
+    private void reject(long waitNanos) {
+        iterationsAvoided.add(Pbkdf2Password.getIterations());
+        throw new LoginThrottledException(Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L));
+    }
+
+    private static String userKey(String username, String ip) {
+        String key = username.length() > MAX_USERNAME_KEY ? username.substring(0, MAX_USERNAME_KEY) : username;
+        // an address never contains a space, so no other username and address make the same key
+        return (ip != null ? ip : "") + " " + key.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.login.throttle.rejected", userRejected, LongAdder::sum)
+                .tag("scope", "user")
+                .description("Login attempts rejected before hashing because of the username and IP address's bucket")
+                .register(registry);
+        FunctionCounter.builder("auth.login.throttle.rejected", ipRejected, LongAdder::sum)
+                .tag("scope", "ip")
+                .description("Login attempts rejected before hashing because of the IP address's bucket")
+                .register(registry);
+        FunctionCounter.builder("auth.login.throttle.iterations.avoided", iterationsAvoided, LongAdder::sum)
+                .description("PBKDF2 iterations not run because login attempts were rejected")
+                .register(registry);
+        Gauge.builder("auth.login.throttle.keys", users, BucketTable::size)
+                .tag("scope", "user")
+                .description("Username and IP address pairs with a login bucket")
+                .register(registry);
+        Gauge.builder("auth.login.throttle.keys", ips, BucketTable::size)
+                .tag("scope", "ip")
+                .description("IP addresses with a login bucket")
+                .register(registry);
+        FunctionCounter.builder("auth.login.throttle.evictions", this, t -> t.users.evictions.sum() + t.ips.evictions.sum())
+                .description("Login buckets evicted to stay within max-keys")
+                .register(registry);
+    }
+
+    /**
+     * Buckets of one scope, spread over lock stripes.
+     */
+    private static final class BucketTable {
+        private final Stripe[] stripes;
+        private final int burst;
+        private final long intervalNanos;
+        private final long maxBackoffNanos;
+        private final LongAdder evictions = new LongAdder();
+
+        BucketTable(int stripes, int maxKeys, int burst, long intervalNanos, long maxBackoffNanos) {
+            int n = 1;
+            while (n < stripes) {
+                n <<= 1;
+            }
+            this.stripes = new Stripe[n];
+            int perStripe = Math.max(1, maxKeys / n);
+            for (int i = 0; i < n; i++) {
+                this.stripes[i] = new Stripe(perStripe, evictions);
+            }
+            this.burst = burst;
+            this.intervalNanos = intervalNanos;
+            this.maxBackoffNanos = maxBackoffNanos;
+        }
+
+        /**
+         * @return 0 if the attempt is accepted, otherwise the nanoseconds until the key can try again
+         */
+        long tryAcquire(String key, long now) {
+            Stripe stripe = stripe(key);
+            synchronized (stripe) {
+                Bucket b = stripe.get(key);
+                if (b == null) {
+                    b = new Bucket(burst, now);
+                    stripe.put(key, b);
+                }
+                if (now - b.blockedUntil < 0) {
+                    return b.blockedUntil - now;
+                }
+                b.refill(now, burst, intervalNanos);
+                if (b.tokens >= 1) {
+                    b.tokens -= 1;
+                    return 0;
+                }
+                long backoff = intervalNanos;
+                for (int i = 0; i < b.strikes && backoff < maxBackoffNanos; i++) {
+                    backoff <<= 1;
+                }
+                backoff = Math.min(backoff, maxBackoffNanos);
+                b.strikes++;
+                b.blockedUntil = now + backoff;
+                return backoff;
+            }
+        }
+
+        void remove(String key) {
+            Stripe stripe = stripe(key);
+            synchronized (stripe) {
+                stripe.remove(key);
+            }
+        }
+
+        int size() {
+            int size = 0;
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    size += stripe.size();
+                }
+            }
+            return size;
+        }
+
+        private Stripe stripe(String key) {
+            int h = key.hashCode();
+            return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+        }
+    }
+
+    /** Access-ordered map of one stripe; always used under its own monitor. */
+    private static final class Stripe extends LinkedHashMap<String, Bucket> {
+        private final int maxKeys;
+        private final LongAdder evictions;
+
+        Stripe(int maxKeys, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.maxKeys = maxKeys;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            if (size() > maxKeys) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /** Token bucket of one key. */
+    private static final class Bucket {
+        double tokens;
+        long updatedAt;
+        long blockedUntil;
+        int strikes;
+
+        Bucket(int burst, long now) {
+            this.tokens = burst;
+            this.updatedAt = now;
+            this.blockedUntil = now;
+        }
+
+        void refill(long now, int burst, long intervalNanos) {
+            tokens = Math.min(burst, tokens + (double) (now - updatedAt) / intervalNanos);
+            updatedAt = now;
+            if (strikes > 0 && now - blockedUntil >= burst * intervalNanos) {
+                strikes = 0;
+            }
+        }
+    }
+}
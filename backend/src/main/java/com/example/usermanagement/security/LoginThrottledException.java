@@ -0,0 +1,29 @@
+package com.example.usermanagement.security;
+
+/**
+ * Thrown when a login attempt is rejected by the {@link LoginThrottle}.
+ *
+ * The attempt is rejected before the password is hashed. It is translated into
+ * a 429 Too Many Requests response with a {@code Retry-After} header by
+ * {@link com.example.usermanagement.config.GlobalExceptionHandler}.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+public class LoginThrottledException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructs a new LoginThrottledException.
+     *
+     * @param retryAfterSeconds Delay, in seconds, before the next attempt can be accepted
+     */
+    public LoginThrottledException(long retryAfterSeconds) {
+        super("Demasiados intentos de inicio de sesión, inténtelo más tarde");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
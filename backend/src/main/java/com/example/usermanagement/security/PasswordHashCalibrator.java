@@ -0,0 +1,97 @@
+package com.example.usermanagement.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Chooses the PBKDF2 iteration count for this deployment at startup.
+ *
+ * Instead of a hard-coded cost, the calibrator measures how long PBKDF2 takes on
+ * the current hardware and picks the largest iteration count whose verification
+ * stays within {@code app.security.password.target-verify-ms}. The result is
+ * installed with {@link Pbkdf2Password#setIterations(int)}, so new hashes use it
+ * and older hashes are upgraded on the next successful login.
+ *
+ * Configuration:
+ *
+ *   {@code app.security.password.iterations} - fixed cost when calibration is disabled, and the floor when enabled
+ *   {@code app.security.password.calibrate} - whether to measure at startup
+ *   {@code app.security.password.target-verify-ms} - target verification latency
+ *   {@code app.security.password.max-iterations} - upper bound for the calibrated cost
+ *
+ *
+ * The calibrated value is rounded down to a multiple of {@value #STEP} so that
+ * small measurement noise between restarts does not trigger needless rehashing.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+public class PasswordHashCalibrator {
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashCalibrator.class);
+
+    /** Iterations used for each timing probe */
+    private static final int PROBE_ITERATIONS = 50_000;
+
+    /** Granularity of the calibrated iteration count */
+    static final int STEP = 50_000;
+
+    private final int floorIterations;
+    private final boolean calibrate;
+    private final long targetVerifyMs;
+    private final int maxIterations;
+
+    /**
+     * Constructs a new PasswordHashCalibrator.
+     *
+     * @param floorIterations Fixed iteration count, or the minimum when calibrating
+     * @param calibrate Whether to measure hashing speed at startup
+     * @param targetVerifyMs Target time for a single password verification
+     * @param maxIterations Upper bound for the calibrated iteration count
+     */
+    public PasswordHashCalibrator(@Value("${app.security.password.iterations:310000}") int floorIterations,
+                                  @Value("${app.security.password.calibrate:true}") boolean calibrate,
+                                  @Value("${app.security.password.target-verify-ms:250}") long targetVerifyMs,
+                                  @Value("${app.security.password.max-iterations:2000000}") int maxIterations) {
+        this.floorIterations = floorIterations;
+        this.calibrate = calibrate;
+        this.targetVerifyMs = targetVerifyMs;
+        this.maxIterations = Math.max(floorIterations, maxIterations);
+    }
+
+    /**
+     * Installs the configured or calibrated iteration count.
+     */
+    @PostConstruct
+    public void init() {
+        int chosen = calibrate ? calibrate() : floorIterations;
+        Pbkdf2Password.setIterations(chosen);
+        log.info("PBKDF2 iterations set to {} (calibrated={}, target={} ms)", chosen, calibrate, targetVerifyMs);
+    }
+
+    /**
+     * Measures PBKDF2 throughput and returns the iteration count that meets the target latency.
+     *
+     * @return The iteration count, clamped to the configured floor and maximum
+     */
+    int calibrate() {
+        char[] probe = "calibration-probe".toCharArray();
+        byte[] salt = new byte[16];
+        byte[] out = new byte[32];
+        Pbkdf2Password.derive(probe, salt, PROBE_ITERATIONS, out); // warm-up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            Pbkdf2Password.derive(probe, salt, PROBE_ITERATIONS, out);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double nanosPerIteration = (double) best / PROBE_ITERATIONS;
+        long target = (long) (targetVerifyMs * 1_000_000L / nanosPerIteration);
+        long rounded = target / STEP * STEP;
+        return (int) Math.max(floorIterations, Math.min(maxIterations, rounded));
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.usermanagement.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Dedicated, size-limited executor for PBKDF2 password hashing.
+ *
+ * PBKDF2 is deliberately CPU-expensive. Running it directly on Tomcat request
+ * threads lets a login storm occupy the whole servlet pool, starving cheap
+ * endpoints such as {@code /api/auth/refresh}. This component confines all
+ * hashing to a fixed number of worker threads fed by a bounded queue:
+ *
+ *   <strong>Concurrency:</strong> {@code app.security.hashing.threads} (0 = number of cores)
+ *   <strong>Queue capacity:</strong> {@code app.security.hashing.queue-capacity}
+ *   <strong>Max wait:</strong> {@code app.security.hashing.max-wait-ms}, after which the caller is answered
+ *   with 503 and the task is abandoned
+ *
+ *
+ * The wait bounds the caller, not the work: an abandoned task that is still
+ * queued is skipped when a worker takes it, but a derivation that has already
+ * started runs to completion (PBKDF2 does not check for interruption), so it
+ * keeps its worker busy for up to one more verification time.
+ *
+ * When the queue is full (or a task waits too long) a
+ * {@link HashingCapacityExceededException} is thrown, which the API turns into
+ * 503 Service Unavailable with a {@code Retry-After} header instead of piling up
+ * request threads.
+ *
+ * Metrics exposed through Micrometer:
+ *
+ *   {@code auth.hashing.queue.depth} - tasks waiting for a worker
+ *   {@code auth.hashing.active} - tasks currently hashing
+ *   {@code auth.hashing.queue.wait} - time spent queued before a worker picked the task up
+ *   {@code auth.hashing.rejected} - tasks shed because of saturation
+ *
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+public class PasswordHashingExecutor implements MeterBinder {
+    private final ThreadPoolExecutor pool;
+    private final long maxWaitMs;
+    private final long retryAfterSeconds;
+
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructs a new PasswordHashingExecutor.
+     *
+     * @param threads Number of hashing threads; values below 1 mean "number of available cores"
+     * @param queueCapacity Maximum number of hashing tasks waiting for a thread
+     * @param maxWaitMs Maximum time a caller waits for its result before the request is shed
+     * @param retryAfterSeconds Value of the {@code Retry-After} header sent when shedding load
+     */
+    public PasswordHashingExecutor(@Value("${app.security.hashing.threads:0}") int threads,
+                                   @Value("${app.security.hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${app.security.hashing.max-wait-ms:5000}") long maxWaitMs,
+                                   @Value("${app.security.hashing.retry-after-seconds:2}") long retryAfterSeconds) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.pool = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxWaitMs = maxWaitMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Hashes a password on the hashing pool using the current encoded format and cost.
+     *
+     * @param password The password to hash
+     * @return The encoded hash (see {@link Pbkdf2Password#encode(char[])})
+     * @throws HashingCapacityExceededException If the pool is saturated
+     */
+    public String encode(char[] password) {
+        return submit(() -> Pbkdf2Password.encode(password));
+    }
+
+    /**
+     * Verifies a password on the hashing pool.
+     *
+     * @param password The password to verify
+     * @param stored The stored hash, encoded or legacy
+     * @param legacySalt The Base64-encoded salt column, only used for legacy hashes
+     * @return {@code true} if the password matches
+     * @throws HashingCapacityExceededException If the pool is saturated
+     */
+    public boolean matches(char[] password, String stored, String legacySalt) {
+        return submit(() -> Pbkdf2Password.matches(password, stored, legacySalt));
+    }
+
+    /**
+     * Verifies a password on the hashing pool against an already-decoded hash.
+     *
+     * @param password The password to verify
+     * @param hash The decoded hash, see {@link Pbkdf2Password#decode(String, String)}
+     * @return {@code true} if the password matches
+     * @throws HashingCapacityExceededException If the pool is saturated
+     */
+    public boolean matches(char[] password, Pbkdf2Password.EncodedHash hash) {
+        return submit(() -> Pbkdf2Password.matches(password, hash.salt(), hash.iterations(), hash.hash()));
+    }
+
+    /**
+     * Runs a hashing task on the pool and waits for its result.
+     *
+     * The calling thread blocks for at most {@code maxWaitMs}. If the task cannot
+     * be queued, or does not complete in time, it is cancelled and the request is shed.
+     * A cancelled task that has not started is taken out of the queue at once, so
+     * abandoned tasks never hold queue slots; one already running finishes and its
+     * result is discarded.
+     *
+     * @param task The CPU-bound task to run
+     * @param <T> The result type
+     * @return The task result
+     * @throws HashingCapacityExceededException If the pool is saturated
+     */
+    public <T> T submit(Callable<T> task) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = pool.submit(() -> {
+                waitNanos.add(System.nanoTime() - enqueuedAt);
+                waitCount.increment();
+                return task.call();
+            });
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new HashingCapacityExceededException(retryAfterSeconds);
+        }
+        try {
+            return future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            abandon(future);
+            rejected.increment();
+            throw new HashingCapacityExceededException(retryAfterSeconds);
+        } catch (InterruptedException ex) {
+            abandon(future);
+            Thread.currentThread().interrupt();
+            throw new HashingCapacityExceededException(retryAfterSeconds);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Cancels a task and frees its queue slot if it has not started; otherwise
+     * the dead task would occupy the slot until a worker dequeued it.
+     */
+    private void abandon(Future<?> future) {
+        future.cancel(true);
+        pool.remove((Runnable) future);
+    }
+
+    /** @return Number of tasks waiting for a worker */
+    int queueDepth() {
+        return pool.getQueue().size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.hashing.queue.depth", this, PasswordHashingExecutor::queueDepth)
+                .description("Password hashing tasks waiting for a worker")
+                .register(registry);
+        Gauge.builder("auth.hashing.active", pool, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing tasks currently running")
+                .register(registry);
+        FunctionTimer.builder("auth.hashing.queue.wait", this, e -> e.waitCount.sum(), e -> e.waitNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Time hashing tasks spent queued before starting")
+                .register(registry);
+        FunctionCounter.builder("auth.hashing.rejected", this, e -> e.rejected.sum())
+                .description("Hashing requests shed because the executor was saturated")
+                .register(registry);
+    }
+
+    /**
+     * Stops the hashing workers when the application context shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** Creates named daemon threads so hashing workers are easy to spot in thread dumps. */
+    private static final class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "pbkdf2-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
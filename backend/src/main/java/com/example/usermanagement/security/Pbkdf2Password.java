@@ -1,109 +1,335 @@
 package com.example.usermanagement.security;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
 import java.util.Base64;
 
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
 
 /**
  * Utility class for password hashing and verification using PBKDF2.
- * 
+ *
  * This class implements password security using the PBKDF2 (Password-Based Key Derivation Function 2)
  * algorithm with HMAC-SHA256. PBKDF2 is a widely recommended algorithm for password hashing
  * that is resistant to brute-force attacks through its iterative hashing process.
- * 
+ *
  * Configuration:
- * 
+ *
  *   <strong>Algorithm:</strong> PBKDF2WithHmacSHA256
- *   <strong>Iterations:</strong> 310,000 (OWASP recommended minimum as of 2021)
+ *   <strong>Iterations:</strong> configurable, 310,000 by default (OWASP recommended minimum as of 2021);
+ *       usually chosen at startup by {@link PasswordHashCalibrator}
  *   <strong>Key Length:</strong> 256 bits (32 bytes)
- *   <strong>Salt Length:</strong> 16 bytes (128 bits), Base64 encoded
- * 
- * 
- * Security features:
- * 
- *   Each password uses a unique, randomly generated salt
- *   High iteration count makes brute-force attacks computationally expensive
- *   Salts are stored separately from hashes to prevent rainbow table attacks
- * 
- * 
+ *   <strong>Salt Length:</strong> 16 bytes (128 bits)
+ *
+ *
+ * Storage format:
+ *
+ * Hashes are stored as a single self-describing, PHC-style string that records every
+ * parameter needed to verify it:
+ * <pre>$pbkdf2-sha256$v=1$i=310000$&lt;salt&gt;$&lt;hash&gt;</pre>
+ * where salt and hash are Base64 without padding. Because the iteration count travels
+ * with the hash, the cost can be raised per deployment without a mass password reset:
+ * {@link #needsRehash(String)} tells the login flow when a stored hash is out of date.
+ *
+ * Legacy hashes (bare Base64 with the salt kept in a separate column and a fixed
+ * 310,000 iterations) are still accepted by {@link #matches(char[], String, String)}
+ * and are always reported as needing a rehash.
+ *
+ * Implementation:
+ *
+ * PBKDF2 is computed directly on a per-thread {@code HmacSHA256} {@link Mac} instead of
+ * going through {@code SecretKeyFactory}: there is no provider lookup, no
+ * {@code PBEKeySpec}/key object per call, and the iteration loop runs into reusable
+ * per-thread buffers. Stored hashes are decoded once and compared as bytes with
+ * {@link MessageDigest#isEqual(byte[], byte[])}, which is constant-time. The output is
+ * identical to {@code PBKDF2WithHmacSHA256} (password encoded as UTF-8).
+ *
  * Usage pattern:
  * <ol>
- *   Generate a salt with {@link #generateSalt()}
- *   Hash the password with {@link #hash(char[], String)} using the salt
- *   Store both the salt and hash in the database
- *   Verify passwords with {@link #verify(char[], String, String)}
+ *   Hash a new password with {@link #encode(char[])} and store the returned string
+ *   Verify passwords with {@link #matches(char[], String, String)}
+ *   After a successful verification, re-encode when {@link #needsRehash(String)} is true
  * </ol>
- * 
+ *
  * @author User Management System
  * @version 1.0
  */
 public final class Pbkdf2Password {
-    /** PBKDF2 algorithm identifier */
-    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
-    
-    /** Number of iterations for key derivation (OWASP recommended minimum) */
-    private static final int ITERATIONS = 310000;
-    
-    /** Output key length in bits */
-    private static final int KEY_LENGTH = 256;
-    
+    /** HMAC used as the PBKDF2 pseudo-random function */
+    private static final String PRF = "HmacSHA256";
+
+    /** Algorithm identifier used in the encoded hash */
+    public static final String ID = "pbkdf2-sha256";
+
+    /** Version of the encoded format */
+    public static final int VERSION = 1;
+
+    /** Default number of iterations (OWASP recommended minimum), also used by legacy hashes */
+    public static final int DEFAULT_ITERATIONS = 310000;
+
+    /** Output key length in bytes (one HMAC-SHA256 block) */
+    private static final int KEY_BYTES = 32;
+
+    /** Salt length in bytes */
+    private static final int SALT_LENGTH = 16;
+
+    /** Iteration count used for newly encoded hashes */
+    private static volatile int iterations = DEFAULT_ITERATIONS;
+
     /** Cryptographically secure random number generator for salt generation */
     private static final SecureRandom RAND = new SecureRandom();
 
+    private static final Base64.Encoder B64 = Base64.getEncoder().withoutPadding();
+    private static final Base64.Decoder B64_DECODER = Base64.getDecoder();
+
+    /** Big-endian block index 1; PBKDF2 needs a single block for a 32-byte key */
+    private static final byte[] BLOCK_ONE = {0, 0, 0, 1};
+
+    /** Per-thread HMAC instance, reused across derivations (hashing runs on a fixed pool) */
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(PRF);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    });
+
+    /** Per-thread scratch buffers: [0] = U_i, [1] = accumulated T */
+    private static final ThreadLocal<byte[][]> BUFFERS = ThreadLocal.withInitial(() -> new byte[][] { new byte[KEY_BYTES], new byte[KEY_BYTES] });
+
+    private Pbkdf2Password() { }
+
     /**
-     * Generates a cryptographically secure random salt for password hashing.
-     * 
-     * The salt is 16 bytes (128 bits) of random data, Base64 encoded for storage.
-     * Each user should have a unique salt to prevent rainbow table attacks.
-     * 
-     * @return A Base64-encoded salt string
+     * Returns the iteration count used for newly encoded hashes.
+     *
+     * @return The current target iteration count
      */
-    public static String generateSalt() {
-        byte[] salt = new byte[16];
-        RAND.nextBytes(salt);
-        return Base64.getEncoder().encodeToString(salt);
+    public static int getIterations() { return iterations; }
+
+    /**
+     * Sets the iteration count used for newly encoded hashes.
+     *
+     * Existing hashes with fewer iterations will be reported by {@link #needsRehash(String)}.
+     *
+     * @param value The new iteration count (must be positive)
+     */
+    public static void setIterations(int value) {
+        if (value < 1) throw new IllegalArgumentException("iterations must be positive");
+        iterations = value;
     }
 
     /**
-     * Hashes a password using PBKDF2 with the provided salt.
-     * 
-     * The password is hashed using 310,000 iterations of PBKDF2 with HMAC-SHA256,
-     * producing a 256-bit (32-byte) hash that is Base64 encoded for storage.
-     * 
+     * Hashes a password with a fresh random salt and the current iteration count.
+     *
      * @param password The password to hash (as a char array to allow clearing from memory)
-     * @param salt The Base64-encoded salt to use for hashing
-     * @return A Base64-encoded hash string
-     * @throws RuntimeException If the hashing algorithm is unavailable or the salt is invalid
+     * @return The encoded hash, e.g. {@code $pbkdf2-sha256$v=1$i=310000$salt$hash}
+     */
+    public static String encode(char[] password) {
+        return encode(password, iterations);
+    }
+
+    /**
+     * Hashes a password with a fresh random salt and an explicit iteration count.
+     *
+     * @param password The password to hash
+     * @param iterations The PBKDF2 iteration count
+     * @return The encoded hash
+     */
+    public static String encode(char[] password, int iterations) {
+        byte[] salt = new byte[SALT_LENGTH];
+        RAND.nextBytes(salt);
+        byte[] hash = BUFFERS.get()[1];
+        derive(password, salt, iterations, hash);
+        try {
+            return "$" + ID + "$v=" + VERSION + "$i=" + iterations + "$" + B64.encodeToString(salt) + "$" + B64.encodeToString(hash);
+        } finally {
+            Arrays.fill(hash, (byte) 0);
+        }
+    }
+
+    /**
+     * Verifies a password against a stored hash.
+     *
+     * Accepts both the encoded format and legacy bare Base64 hashes, in which case
+     * {@code legacySalt} must hold the Base64 salt from the separate {@code salt} column.
+     *
+     * @param password The password to verify
+     * @param stored The stored hash (encoded or legacy)
+     * @param legacySalt The Base64-encoded salt for legacy hashes; ignored for encoded hashes
+     * @return {@code true} if the password matches, {@code false} otherwise (including malformed hashes)
+     */
+    public static boolean matches(char[] password, String stored, String legacySalt) {
+        EncodedHash h = decode(stored, legacySalt);
+        return h != null && matches(password, h.salt(), h.iterations(), h.hash());
+    }
+
+    /**
+     * Decodes a stored hash once, so it can be kept and verified against without
+     * parsing the string again.
+     *
+     * Legacy hashes are returned with version 0 and {@link #DEFAULT_ITERATIONS}.
+     *
+     * @param stored The stored hash (encoded or legacy)
+     * @param legacySalt The Base64-encoded salt for legacy hashes; ignored for encoded hashes
+     * @return The decoded hash, or {@code null} if it is missing or malformed
+     */
+    public static EncodedHash decode(String stored, String legacySalt) {
+        if (stored == null) return null;
+        EncodedHash h = EncodedHash.parse(stored);
+        if (h != null || legacySalt == null || isEncoded(stored)) return h;
+        try {
+            return new EncodedHash(0, DEFAULT_ITERATIONS, B64_DECODER.decode(legacySalt), B64_DECODER.decode(stored));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Verifies a password against already-decoded hash parameters.
+     *
+     * This is the allocation-light path used when the salt and hash bytes are cached
+     * by the caller; nothing is decoded or encoded per call.
+     *
+     * @param password The password to verify
+     * @param salt The raw salt
+     * @param iterations The PBKDF2 iteration count
+     * @param expected The raw expected hash
+     * @return {@code true} if the password matches
+     */
+    public static boolean matches(char[] password, byte[] salt, int iterations, byte[] expected) {
+        byte[] actual = BUFFERS.get()[1];
+        derive(password, salt, iterations, actual);
+        try {
+            return MessageDigest.isEqual(actual, expected);
+        } finally {
+            Arrays.fill(actual, (byte) 0);
+        }
+    }
+
+    /**
+     * Tells whether a stored hash should be replaced after a successful login.
+     *
+     * @param stored The stored hash
+     * @return {@code true} for legacy hashes, older format versions, or fewer iterations than currently configured
+     */
+    public static boolean needsRehash(String stored) {
+        return needsRehash(stored == null ? null : EncodedHash.parse(stored));
+    }
+
+    /**
+     * Tells whether a decoded hash should be replaced after a successful login.
+     *
+     * @param h The decoded hash, see {@link #decode(String, String)}
+     * @return {@code true} for legacy hashes, older format versions, or fewer iterations than currently configured
+     */
+    public static boolean needsRehash(EncodedHash h) {
+        return h == null || h.version() < VERSION || h.iterations() < iterations;
+    }
+
+    /**
+     * Derives a PBKDF2-HMAC-SHA256 key into {@code out}.
+     *
+     * Computes {@code T_1 = U_1 ^ U_2 ^ ... ^ U_c} with {@code U_1 = HMAC(P, salt || INT(1))}
+     * and {@code U_i = HMAC(P, U_{i-1})}, reusing the calling thread's {@link Mac} and
+     * scratch buffer.
+     *
+     * @param password The password (encoded as UTF-8, like {@code PBKDF2WithHmacSHA256})
+     * @param salt The raw salt bytes
+     * @param iterations The iteration count
+     * @param out The 32-byte destination buffer
+     * @throws RuntimeException If HMAC-SHA256 cannot be initialised
      */
-    public static String hash(char[] password, String salt) {
+    static void derive(char[] password, byte[] salt, int iterations, byte[] out) {
+        Mac mac = MAC.get();
+        byte[] u = BUFFERS.get()[0];
+        byte[] key = utf8(password);
         try {
-            PBEKeySpec spec = new PBEKeySpec(password, Base64.getDecoder().decode(salt), ITERATIONS, KEY_LENGTH);
-            SecretKeyFactory skf = SecretKeyFactory.getInstance(ALGORITHM);
-            byte[] hash = skf.generateSecret(spec).getEncoded();
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            mac.init(new PasswordKey(key));
+            mac.update(salt);
+            mac.update(BLOCK_ONE);
+            mac.doFinal(u, 0);
+            System.arraycopy(u, 0, out, 0, KEY_BYTES);
+            for (int i = 1; i < iterations; i++) {
+                mac.update(u);
+                mac.doFinal(u, 0);
+                for (int j = 0; j < KEY_BYTES; j++) out[j] ^= u[j];
+            }
+        } catch (InvalidKeyException | ShortBufferException e) {
             throw new RuntimeException("Error while hashing a password: " + e.getMessage(), e);
+        } finally {
+            Arrays.fill(key, (byte) 0);
+            Arrays.fill(u, (byte) 0);
+        }
+    }
+
+    private static byte[] utf8(char[] password) {
+        ByteBuffer bb = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+        byte[] bytes = new byte[bb.remaining()];
+        bb.get(bytes);
+        if (bb.hasArray()) Arrays.fill(bb.array(), (byte) 0);
+        return bytes;
+    }
+
+    private static boolean isEncoded(String stored) {
+        return stored.startsWith("$");
+    }
+
+    /**
+     * Parsed form of an encoded hash.
+     *
+     * @param version The format version
+     * @param iterations The PBKDF2 iteration count
+     * @param salt The raw salt
+     * @param hash The raw derived key
+     */
+    public record EncodedHash(int version, int iterations, byte[] salt, byte[] hash) {
+        /**
+         * Parses {@code $pbkdf2-sha256$v=<v>$i=<n>$<salt>$<hash>}.
+         *
+         * @param s The encoded hash
+         * @return The parsed hash, or {@code null} if {@code s} is not a well-formed encoded hash
+         */
+        static EncodedHash parse(String s) {
+            if (!s.startsWith("$")) return null;
+            int a = s.indexOf('$', 1);
+            int b = a < 0 ? -1 : s.indexOf('$', a + 1);
+            int c = b < 0 ? -1 : s.indexOf('$', b + 1);
+            int d = c < 0 ? -1 : s.indexOf('$', c + 1);
+            if (d < 0 || s.indexOf('$', d + 1) >= 0) return null;
+            if (!s.regionMatches(1, ID, 0, ID.length()) || a != ID.length() + 1
+                    || !s.startsWith("v=", a + 1) || !s.startsWith("i=", b + 1)) return null;
+            try {
+                int version = Integer.parseInt(s, a + 3, b, 10);
+                int iterations = Integer.parseInt(s, b + 3, c, 10);
+                if (iterations < 1) return null;
+                return new EncodedHash(version, iterations, B64_DECODER.decode(s.substring(c + 1, d)), B64_DECODER.decode(s.substring(d + 1)));
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
         }
     }
 
     /**
-     * Verifies a password against a stored hash and salt.
-     * 
-     * This method hashes the provided password with the given salt and compares
-     * the result with the expected hash using a constant-time comparison to prevent
-     * timing attacks.
-     * 
-     * @param password The password to verify (as a char array)
-     * @param salt The Base64-encoded salt used when the password was originally hashed
-     * @param expectedHash The Base64-encoded hash to compare against
-     * @return {@code true} if the password matches the hash, {@code false} otherwise
+     * Raw HMAC key wrapping the password bytes.
+     *
+     * Unlike {@code SecretKeySpec} it does not copy the array and it accepts an empty
+     * password, matching {@code PBKDF2WithHmacSHA256}.
      */
-    public static boolean verify(char[] password, String salt, String expectedHash) {
-        String h = hash(password, salt);
-        return h.equals(expectedHash);
+    private static final class PasswordKey implements SecretKey {
+        private final byte[] bytes;
+
+        PasswordKey(byte[] bytes) { this.bytes = bytes; }
+
+        @Override public String getAlgorithm() { return PRF; }
+        @Override public String getFormat() { return "RAW"; }
+        @Override public byte[] getEncoded() { return bytes; }
     }
 }
@@ -17,14 +17,17 @@ public class SecurityConfig {
      * disable the H2 console.
      */
     private final JwtAuthenticationFilter jwtFilter;
+    private final GatewayKeyAuthenticationFilter gatewayKeyFilter;
 
     /**
      * Constructs a new SecurityConfig.
      * 
      * @param jwtFilter The JWT authentication filter to use for request filtering
+     * @param gatewayKeyFilter The filter authenticating API gateways on the introspection endpoint
      */
-    public SecurityConfig(JwtAuthenticationFilter jwtFilter) {
+    public SecurityConfig(JwtAuthenticationFilter jwtFilter, GatewayKeyAuthenticationFilter gatewayKeyFilter) {
         this.jwtFilter = jwtFilter;
+        this.gatewayKeyFilter = gatewayKeyFilter;
     }
 
     /**
@@ -34,9 +37,13 @@ public class SecurityConfig {
      * 
      *   CSRF protection disabled (stateless API)
      *   Stateless session management (no server-side sessions)
+     *   Token introspection (/api/auth/introspect) restricted to gateways (INTROSPECT) and ADMIN
      *   Public endpoints: /api/auth/**, /v3/api-docs/**, /swagger-ui/**, /h2-console/**
+     *   Public JWKS document: /.well-known/jwks.json
+     *   Actuator endpoints (/actuator/**) restricted to ADMIN
      *   All other endpoints require authentication
-     *   JWT authentication filter added before UsernamePasswordAuthenticationFilter
+     *   JWT authentication filter added before UsernamePasswordAuthenticationFilter,
+     *   followed by the gateway key filter
      *   H2 console frame options set to sameOrigin (development only)
      * 
      * 
@@ -53,10 +60,15 @@ public class SecurityConfig {
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 .and()
         .authorizeHttpRequests(auth -> auth
+            // before the public /api/auth/** rule: every token costs a signature verification
+            .requestMatchers("/api/auth/introspect").hasAnyAuthority(GatewayKeyAuthenticationFilter.AUTHORITY, "ADMIN")
             .requestMatchers("/api/auth/**", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/h2-console/**").permitAll()
+            .requestMatchers("/.well-known/jwks.json").permitAll()
+            .requestMatchers("/actuator/**").hasAuthority("ADMIN")
             .anyRequest().authenticated()
         )
-                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(gatewayKeyFilter, JwtAuthenticationFilter.class);
 
     // Allow H2 console frames (only for development) so the web UI works
     http.headers().frameOptions().sameOrigin();
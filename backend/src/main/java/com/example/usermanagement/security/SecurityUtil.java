@@ -1,6 +1,7 @@
 package com.example.usermanagement.security;
 
 import java.security.SecureRandom;
+import java.util.Arrays;
 
 /**
  * Utility class for security-related helper functions.
@@ -9,6 +10,7 @@ import java.security.SecureRandom;
  * 
  *   Generating secure, readable passwords (e.g., for temporary password resets)
  *   Normalizing IP addresses for consistent logging and audit trails
+ *   Converting IP addresses to and from their binary (4 or 16 byte) form
  * 
  * 
  * @author User Management System
@@ -21,6 +23,9 @@ public final class SecurityUtil {
     /** Cryptographically secure random number generator */
     private static final SecureRandom RAND = new SecureRandom();
 
+    /** The IPv6 loopback address, ::1 */
+    private static final byte[] IPV6_LOOPBACK = { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1 };
+
     /**
      * Generates a cryptographically secure, human-readable password.
      * 
@@ -41,18 +46,159 @@ public final class SecurityUtil {
 
     /**
      * Normalize an IP address string for logging/audit purposes.
+     * - Keeps only the first (client) entry of an {@code X-Forwarded-For} chain
      * - Converts IPv6 loopback (::1 or 0:0:0:0:0:0:0:1) to 127.0.0.1
      * - If the input contains an IPv4-mapped IPv6 address, returns the IPv4 portion
+     * - Writes IPv6 addresses in their canonical, compressed form (RFC 5952)
+     *
+     * @param ip An IP address, or an {@code X-Forwarded-For} header value
+     * @return The canonical address, or {@code null} if the input is not an IP address
      */
     public static String normalizeIp(String ip) {
+        byte[] address = parseIp(ip);
+        return address != null ? formatIp(address) : null;
+    }
+
+    /**
+     * Parses an IP address literal into its binary form, without any DNS lookup.
+     * Applies the same rules as {@link #normalizeIp(String)}.
+     *
+     * @param ip An IP address, or an {@code X-Forwarded-For} header value
+     * @return 4 bytes for IPv4 (including loopback and IPv4-mapped IPv6), 16 bytes
+     *         for other IPv6 addresses, or {@code null} if the input is not an IP address
+     */
+    public static byte[] parseIp(String ip) {
         if (ip == null) return null;
+        int comma = ip.indexOf(',');
+        if (comma >= 0) ip = ip.substring(0, comma);
         ip = ip.trim();
-        // common IPv6 loopback representations
-        if (ip.equals("::1") || ip.equals("0:0:0:0:0:0:0:1")) return "127.0.0.1";
-        // IPv4-mapped IPv6 ::ffff:127.0.0.1
-        if (ip.startsWith("::ffff:")) {
-            return ip.substring(7);
+        if (ip.startsWith("[") && ip.endsWith("]")) ip = ip.substring(1, ip.length() - 1);
+        int zone = ip.indexOf('%');
+        if (zone >= 0) ip = ip.substring(0, zone);
+        if (ip.isEmpty()) return null;
+        if (ip.indexOf(':') < 0) {
+            return parseIpv4(ip);
+        }
+        byte[] v6 = parseIpv6(ip);
+        if (v6 == null) return null;
+        boolean mapped = true;
+        for (int i = 0; i < 10; i++) mapped &= v6[i] == 0;
+        mapped &= v6[10] == (byte) 0xff && v6[11] == (byte) 0xff;
+        if (mapped) return Arrays.copyOfRange(v6, 12, 16);
+        if (Arrays.equals(v6, IPV6_LOOPBACK)) return new byte[] { 127, 0, 0, 1 };
+        return v6;
+    }
+
+    /**
+     * Formats a binary IP address: dotted quad for IPv4, RFC 5952 for IPv6.
+     *
+     * @param address 4 or 16 bytes
+     * @return The address as text
+     * @throws IllegalArgumentException If the address is neither 4 nor 16 bytes long
+     */
+    public static String formatIp(byte[] address) {
+        if (address.length == 4) {
+            return (address[0] & 0xff) + "." + (address[1] & 0xff) + "." + (address[2] & 0xff) + "." + (address[3] & 0xff);
+        }
+        if (address.length != 16) {
+            throw new IllegalArgumentException("Not an IP address: " + address.length + " bytes");
+        }
+        // longest run of at least two zero groups, the first one on a tie, becomes "::"
+        int bestStart = -1, bestLen = 1;
+        for (int g = 0; g < 8; ) {
+            if (group(address, g) != 0) { g++; continue; }
+            int start = g;
+            while (g < 8 && group(address, g) == 0) g++;
+            if (g - start > bestLen) { bestStart = start; bestLen = g - start; }
+        }
+        StringBuilder sb = new StringBuilder(39);
+        for (int g = 0; g < 8; g++) {
+            if (g == bestStart) {
+                sb.append("::");
+                g += bestLen - 1;
+                continue;
+            }
+            if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ':') sb.append(':');
+            sb.append(Integer.toHexString(group(address, g)));
+        }
+        return sb.toString();
+    }
+
+    private static int group(byte[] address, int g) {
+        return (address[2 * g] & 0xff) << 8 | (address[2 * g + 1] & 0xff);
+    }
+
+    /** Strict dotted quad: four decimal parts of 0 to 255 */
+    private static byte[] parseIpv4(String ip) {
+        byte[] out = new byte[4];
+        int part = 0, value = -1;
+        for (int i = 0; i <= ip.length(); i++) {
+            char c = i < ip.length() ? ip.charAt(i) : '.';
+            if (c >= '0' && c <= '9') {
+                value = value < 0 ? c - '0' : value * 10 + (c - '0');
+                if (value > 255) return null;
+            } else if (c == '.') {
+                if (value < 0 || part == 4) return null;
+                out[part++] = (byte) value;
+                value = -1;
+            } else {
+                return null;
+            }
+        }
+        return part == 4 ? out : null;
+    }
+
+    /** Hex groups separated by ':', at most one "::", optionally ending in a dotted quad */
+    private static byte[] parseIpv6(String ip) {
+        int gap = ip.indexOf("::");
+        if (gap >= 0 && (ip.indexOf("::", gap + 1) >= 0 || ip.lastIndexOf('.', gap) >= 0)) return null;
+        String head = gap >= 0 ? ip.substring(0, gap) : ip;
+        String tail = gap >= 0 ? ip.substring(gap + 2) : "";
+        int[] headGroups = groups(head);
+        int[] tailGroups = groups(tail);
+        if (headGroups == null || tailGroups == null) return null;
+        int total = headGroups.length + tailGroups.length;
+        if (gap >= 0 ? total > 7 : total != 8) return null;
+        byte[] out = new byte[16];
+        for (int i = 0; i < headGroups.length; i++) {
+            out[2 * i] = (byte) (headGroups[i] >>> 8);
+            out[2 * i + 1] = (byte) headGroups[i];
+        }
+        for (int i = 0; i < tailGroups.length; i++) {
+            int g = 8 - tailGroups.length + i;
+            out[2 * g] = (byte) (tailGroups[i] >>> 8);
+            out[2 * g + 1] = (byte) tailGroups[i];
+        }
+        return out;
+    }
+
+    /** 16-bit groups of one side of "::"; a trailing dotted quad counts as two groups */
+    private static int[] groups(String part) {
+        if (part.isEmpty()) return new int[0];
+        String[] fields = part.split(":", -1);
+        int n = fields.length;
+        byte[] v4 = null;
+        if (fields[n - 1].indexOf('.') >= 0) {
+            v4 = parseIpv4(fields[n - 1]);
+            if (v4 == null) return null;
+            n--;
+        }
+        int[] out = new int[v4 != null ? n + 2 : n];
+        for (int i = 0; i < n; i++) {
+            String f = fields[i];
+            if (f.isEmpty() || f.length() > 4) return null;
+            int v = 0;
+            for (int k = 0; k < f.length(); k++) {
+                int d = Character.digit(f.charAt(k), 16);
+                if (d < 0) return null;
+                v = v << 4 | d;
+            }
+            out[i] = v;
+        }
+        if (v4 != null) {
+            out[n] = (v4[0] & 0xff) << 8 | (v4[1] & 0xff);
+            out[n + 1] = (v4[2] & 0xff) << 8 | (v4[3] & 0xff);
         }
-        return ip;
+        return out;
     }
 }
@@ -0,0 +1,174 @@
+package com.example.usermanagement.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Bounded cache of access tokens that already passed signature verification.
+ *
+ * A browser tab sends the same short-lived access token with every API call.
+ * Verifying it each time means a signature check plus a JSON claim parse per
+ * request; this cache remembers the outcome so {@link JwtAuthenticationFilter}
+ * only pays that cost once per token.
+ *
+ * Design:
+ *
+ *   <strong>Key:</strong> SHA-256 digest of the raw token, so the cache never holds bearer credentials
+ *   <strong>Value:</strong> the principal, its authorities and the token's expiration instant
+ *   <strong>Expiry:</strong> an entry is treated as absent from the moment the token's {@code exp} is reached
+ *   <strong>Bound:</strong> {@code app.jwt.cache.max-entries}; when full, expired entries are purged first and
+ *   arbitrary live entries are evicted after that (a miss only costs one more verification)
+ *
+ *
+ * A {@code max-entries} value of 0 disables caching.
+ *
+ * Metrics exposed through Micrometer: {@code auth.jwt.cache.size},
+ * {@code auth.jwt.cache.hits} and {@code auth.jwt.cache.misses}.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Map<ByteBuffer, VerifiedToken> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs a new VerifiedTokenCache.
+     *
+     * @param maxEntries Maximum number of cached tokens; 0 disables the cache
+     */
+    public VerifiedTokenCache(@Value("${app.jwt.cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = Math.max(0, maxEntries);
+    }
+
+    /**
+     * Looks up a previously verified token.
+     *
+     * @param token The raw compact token
+     * @return The cached verification result, or {@code null} if absent or expired
+     */
+    public VerifiedToken get(String token) {
+        if (maxEntries == 0) {
+            return null;
+        }
+        ByteBuffer key = digest(token);
+        VerifiedToken cached = entries.get(key);
+        if (cached != null && cached.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, cached);
+            cached = null;
+        }
+        if (cached == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return cached;
+    }
+
+    /**
+     * Remembers a token that has just been verified.
+     *
+     * @param token The raw compact token
+     * @param verified The verification result; ignored if already expired
+     */
+    public void put(String token, VerifiedToken verified) {
+        long now = System.currentTimeMillis();
+        if (maxEntries == 0 || verified.isExpired(now)) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            makeRoom(now);
+        }
+        entries.put(digest(token), verified);
+    }
+
+    /** @return Number of cached entries, including expired ones not yet purged */
+    public int size() {
+        return entries.size();
+    }
+
+    private void makeRoom(long now) {
+        entries.values().removeIf(v -> v.isExpired(now));
+        // still full: drop roughly a tenth of the live entries rather than one per insert
+        int excess = entries.size() - maxEntries + Math.max(1, maxEntries / 10);
+        Iterator<ByteBuffer> it = entries.keySet().iterator();
+        while (excess-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static ByteBuffer digest(String token) {
+        return ByteBuffer.wrap(SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.jwt.cache.size", entries, Map::size)
+                .description("Verified access tokens currently cached")
+                .register(registry);
+        FunctionCounter.builder("auth.jwt.cache.hits", hits, LongAdder::sum)
+                .description("Requests authenticated from the verified-token cache")
+                .register(registry);
+        FunctionCounter.builder("auth.jwt.cache.misses", misses, LongAdder::sum)
+                .description("Requests that required full token verification")
+                .register(registry);
+    }
+
+    /**
+     * Outcome of verifying an access token.
+     *
+     * @param username The token subject
+     * @param authorities The granted authorities derived from the role claim
+     * @param id The {@code jti} claim, checked against the revocation list on every request
+     * @param issuedAt The {@code iat} claim in epoch seconds, checked against per-user watermarks
+     * @param expiresAtMillis The token's {@code exp} claim in epoch milliseconds
+     */
+    public record VerifiedToken(String username, List<GrantedAuthority> authorities, String id, long issuedAt, long expiresAtMillis) {
+
+        /**
+         * Creates the result for a verified token.
+         *
+         * @param token The verified claims
+         * @return The verification result
+         */
+        public static VerifiedToken of(AccessToken token) {
+            return new VerifiedToken(token.subject(), Collections.singletonList(new SimpleGrantedAuthority(token.role())),
+                    token.id(), token.issuedAt(), token.hasExpiry() ? token.expiresAtMillis() : 0L);
+        }
+
+        boolean isExpired(long nowMillis) {
+            return nowMillis >= expiresAtMillis;
+        }
+    }
+}
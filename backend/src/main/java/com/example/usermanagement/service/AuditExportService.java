@@ -0,0 +1,189 @@
+package com.example.usermanagement.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Locale;
+
+import org.springframework.stereotype.Service;
+
+import com.example.usermanagement.repository.AuditSink;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Service that streams login audit records for bulk export.
+ *
+ * Unlike the paginated audit endpoint, an export can cover months of logins
+ * of every user. Records are read one at a time from the {@link AuditSink}
+ * (a forward-only database cursor, or the mapped segments) and each is written
+ * to the output as soon as it is read. Memory use is therefore constant: one
+ * record plus the output buffer, whatever the size of the result.
+ *
+ * Supported formats:
+ *
+ *   {@link Format#NDJSON} - one JSON object per line
+ *   ({@code {"id","username","ip","timestamp"}})
+ *   {@link Format#CSV} - RFC 4180 with a header line; cells that a
+ *   spreadsheet would evaluate as formulas are prefixed with {@code '}
+ *
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Service
+public class AuditExportService {
+    /** Export formats. */
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() { return contentType; }
+        public String extension() { return extension; }
+
+        /**
+         * Parses a format name, case-insensitively.
+         *
+         * @param name {@code ndjson} or {@code csv}
+         * @return The format
+         * @throws IllegalArgumentException If the format is not supported
+         */
+        public static Format parse(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Formato de exportación no soportado: " + name);
+            }
+        }
+    }
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final AuditSink sink;
+
+    /**
+     * Constructs a new AuditExportService.
+     *
+     * @param sink The audit storage to read from
+     */
+    public AuditExportService(AuditSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Streams the matching audit records, oldest first, to an output stream.
+     *
+     * The stream is flushed but not closed.
+     *
+     * @param username Only export this user's records, or {@code null} for all users
+     * @param from Inclusive lower bound on the timestamp, or {@code null}
+     * @param to Exclusive upper bound on the timestamp, or {@code null}
+     * @param format The output format
+     * @param out The stream to write to
+     * @return The number of records written
+     * @throws IOException If writing to the stream fails (typically, the client went away)
+     */
+    public long export(String username, OffsetDateTime from, OffsetDateTime to, Format format, OutputStream out) throws IOException {
+        RowWriter writer = format == Format.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+        long[] count = { 0 };
+        sink.scan(username, from, to, (id, user, ip, timestamp) -> {
+            writer.write(id, user, ip, timestamp);
+            count[0]++;
+        });
+        writer.finish();
+        return count[0];
+    }
+
+    /** Serializes audit rows, one at a time. */
+    interface RowWriter {
+        void write(long id, String username, String ip, OffsetDateTime timestamp) throws IOException;
+
+        /** Flushes buffered output without closing the underlying stream. */
+        void finish() throws IOException;
+    }
+
+    /** One JSON object per line. */
+    static final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator json;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            this.json = JSON.createGenerator(out);
+            this.json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // lines are terminated explicitly, no separator between root values
+            this.json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(long id, String username, String ip, OffsetDateTime timestamp) throws IOException {
+            json.writeStartObject();
+            json.writeNumberField("id", id);
+            json.writeStringField("username", username);
+            json.writeStringField("ip", ip);
+            json.writeStringField("timestamp", timestamp != null ? timestamp.withOffsetSameInstant(ZoneOffset.UTC).toString() : null);
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            json.flush();
+        }
+    }
+
+    /** RFC 4180 CSV with a header line. */
+    static final class CsvRowWriter implements RowWriter {
+        private final Writer out;
+
+        CsvRowWriter(OutputStream out) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.out.write("id,username,ip,timestamp\r\n");
+        }
+
+        @Override
+        public void write(long id, String username, String ip, OffsetDateTime timestamp) throws IOException {
+            out.write(Long.toString(id));
+            out.write(',');
+            cell(username);
+            out.write(',');
+            cell(ip);
+            out.write(',');
+            cell(timestamp != null ? timestamp.withOffsetSameInstant(ZoneOffset.UTC).toString() : null);
+            out.write("\r\n");
+        }
+
+        private void cell(String value) throws IOException {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            // keep spreadsheets from evaluating user-controlled values as formulas
+            if ("=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+                value = "'" + value;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.usermanagement.service;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Applies the login audit retention policy.
+ *
+ * Audit detail ({@code login_audit}) is kept for {@code retention-days} days
+ * (UTC). Older detail is first compacted into {@code login_audit_daily}, one
+ * row per user and day (see {@link com.example.usermanagement.model.LoginAuditDaily}),
+ * and then removed. Rolling up a day and removing its detail happen in the
+ * same transaction, so a day is never counted twice nor lost. Rollups are
+ * merged into existing rows (an upsert adding the counts) rather than replacing
+ * them, so detail that reaches an already compacted day (a late write, or a
+ * record with a skewed timestamp) adds to that day's row instead of erasing it.
+ *
+ * How detail is removed depends on the storage:
+ *
+ *   <strong>PostgreSQL with a partitioned {@code login_audit}</strong>
+ *   ({@code db/postgresql/login_audit_partitioned.sql}): the table has one
+ *   range partition per month ({@code login_audit_pYYYY_MM}). Partitions for
+ *   the current month and the next {@code premake-months} months are created
+ *   ahead of time; a month whose last day is past the retention period is
+ *   rolled up and its partition dropped with a single {@code DROP TABLE},
+ *   without touching rows one by one. Retention is thus applied a whole
+ *   month at a time.
+ *   <strong>H2, or an unpartitioned table</strong>: there is no partition DDL,
+ *   so each day is a segment of the {@code timestamp} index, removed with one
+ *   range delete. At most {@code max-days-per-run} days are processed per run.
+ *
+ *
+ * Only active with the default (JDBC) audit sink; the mapped sink drops
+ * expired segment files itself.
+ *
+ * Metrics exposed through Micrometer: {@code audit.retention.rolled-up} (detail
+ * rows compacted), {@code audit.retention.deleted} (detail rows removed by range
+ * deletes) and {@code audit.retention.partitions.dropped}.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "app.audit.sink", havingValue = "jdbc", matchIfMissing = true)
+public class AuditRetentionService implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(AuditRetentionService.class);
+    private static final Pattern PARTITION_NAME = Pattern.compile("login_audit_p(\\d{4})_(\\d{2})");
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final int retentionDays;
+    private final int premakeMonths;
+    private final int maxDaysPerRun;
+
+    private volatile boolean partitioned;
+    private volatile boolean postgres;
+    private final LongAdder rolledUp = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder partitionsDropped = new LongAdder();
+
+    /**
+     * Constructs a new AuditRetentionService.
+     *
+     * @param dataSource The data source holding the audit tables
+     * @param transactionManager The transaction manager for rollup transactions
+     * @param retentionDays Days of audit detail to keep
+     * @param premakeMonths Monthly partitions created ahead of the current one (PostgreSQL)
+     * @param maxDaysPerRun Maximum days compacted per run with range deletes
+     */
+    public AuditRetentionService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                 @Value("${app.audit.retention.retention-days:90}") int retentionDays,
+                                 @Value("${app.audit.retention.premake-months:2}") int premakeMonths,
+                                 @Value("${app.audit.retention.max-days-per-run:31}") int maxDaysPerRun) {
+        if (retentionDays <= 0 || maxDaysPerRun <= 0) {
+            throw new IllegalArgumentException("Audit retention days and days per run must be positive");
+        }
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.tx = new TransactionTemplate(transactionManager);
+        this.retentionDays = retentionDays;
+        this.premakeMonths = Math.max(0, premakeMonths);
+        this.maxDaysPerRun = maxDaysPerRun;
+    }
+
+    /**
+     * Detects whether {@code login_audit} is natively partitioned and, if so,
+     * makes sure the partitions for incoming logins exist.
+     */
+    @PostConstruct
+    void init() {
+        String product = jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        postgres = "PostgreSQL".equalsIgnoreCase(product);
+        if (postgres) {
+            partitioned = Boolean.TRUE.equals(jdbc.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid"
+                            + " WHERE c.relname = 'login_audit')", Boolean.class));
+            if (!partitioned) {
+                log.warn("login_audit is not partitioned (see db/postgresql/login_audit_partitioned.sql); "
+                        + "audit retention falls back to range deletes");
+            }
+        }
+        if (partitioned) {
+            createPartitions(LocalDate.now(ZoneOffset.UTC));
+        }
+    }
+
+    /**
+     * Rolls up and removes the audit detail older than the retention period.
+     *
+     * @return The number of days (range deletes) or months (partitions) removed
+     */
+    @Scheduled(fixedDelayString = "${app.audit.retention.interval-ms:3600000}",
+               initialDelayString = "${app.audit.retention.interval-ms:3600000}")
+    public synchronized int run() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        // days before the cutoff are past retention
+        LocalDate cutoff = today.minusDays(retentionDays);
+        if (partitioned) {
+            createPartitions(today);
+            return dropExpiredPartitions(cutoff);
+        }
+        return compactExpiredDays(cutoff);
+    }
+
+    private void createPartitions(LocalDate today) {
+        LocalDate month = today.withDayOfMonth(1);
+        for (int i = 0; i <= premakeMonths; i++, month = month.plusMonths(1)) {
+            jdbc.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF login_audit"
+                    + " FOR VALUES FROM ('" + month + " 00:00:00+00') TO ('" + month.plusMonths(1) + " 00:00:00+00')");
+        }
+    }
+
+    private int dropExpiredPartitions(LocalDate cutoff) {
+        List<String> names = jdbc.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid"
+                        + " JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = 'login_audit'", String.class);
+        int dropped = 0;
+        for (String name : names) {
+            Matcher m = PARTITION_NAME.matcher(name);
+            if (!m.matches()) {
+                continue;
+            }
+            LocalDate month = LocalDate.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)), 1);
+            LocalDate end = month.plusMonths(1);
+            if (end.isAfter(cutoff)) {
+                continue;
+            }
+            tx.executeWithoutResult(status -> {
+                for (LocalDate day = month; day.isBefore(end); day = day.plusDays(1)) {
+                    rollUp(day);
+                }
+                jdbc.execute("DROP TABLE " + name);
+            });
+            partitionsDropped.increment();
+            dropped++;
+            log.info("Dropped audit partition {} after rolling it up", name);
+        }
+        return dropped;
+    }
+
+    private int compactExpiredDays(LocalDate cutoff) {
+        OffsetDateTime oldest = jdbc.queryForObject("SELECT MIN(timestamp) FROM login_audit", OffsetDateTime.class);
+        if (oldest == null) {
+            return 0;
+        }
+        int days = 0;
+        for (LocalDate day = oldest.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate();
+             day.isBefore(cutoff) && days < maxDaysPerRun; day = day.plusDays(1), days++) {
+            LocalDate d = day;
+            tx.executeWithoutResult(status -> {
+                rollUp(d);
+                deleted.add(jdbc.update("DELETE FROM login_audit WHERE timestamp >= ? AND timestamp < ?",
+                        startOf(d), startOf(d.plusDays(1))));
+            });
+        }
+        if (days > 0) {
+            log.debug("Compacted {} days of login audit detail", days);
+        }
+        return days;
+    }
+
+    /**
+     * Adds the detail of one day to its rollup rows, inserting the rows that do
+     * not exist yet. The caller removes that detail in the same transaction, so
+     * no record is added twice.
+     *
+     * Logins are summed and the first/last login widened. Distinct addresses
+     * cannot be merged exactly without the detail already removed; the larger of
+     * the two counts is kept, which is exact unless a day is rolled up in parts.
+     */
+    void rollUp(LocalDate day) {
+        Long logins = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM login_audit WHERE timestamp >= ? AND timestamp < ? AND username IS NOT NULL",
+                Long.class, startOf(day), startOf(day.plusDays(1)));
+        if (logins == null || logins == 0) {
+            return;
+        }
+        String detail = "SELECT username, COUNT(*) AS logins, COUNT(DISTINCT ip) AS distinct_ips,"
+                + " MIN(timestamp) AS first_login, MAX(timestamp) AS last_login"
+                + " FROM login_audit WHERE timestamp >= ? AND timestamp < ? AND username IS NOT NULL GROUP BY username";
+        if (postgres) {
+            jdbc.update("INSERT INTO login_audit_daily (username, login_day, logins, distinct_ips, first_login, last_login)"
+                            + " SELECT s.username, ?, s.logins, s.distinct_ips, s.first_login, s.last_login FROM (" + detail + ") s"
+                            + " ON CONFLICT (username, login_day) DO UPDATE SET"
+                            + " logins = login_audit_daily.logins + EXCLUDED.logins,"
+                            + " distinct_ips = GREATEST(login_audit_daily.distinct_ips, EXCLUDED.distinct_ips),"
+                            + " first_login = LEAST(login_audit_daily.first_login, EXCLUDED.first_login),"
+                            + " last_login = GREATEST(login_audit_daily.last_login, EXCLUDED.last_login)",
+                    day, startOf(day), startOf(day.plusDays(1)));
+        } else {
+            // H2 has no ON CONFLICT ... DO UPDATE; MERGE has the same effect
+            jdbc.update("MERGE INTO login_audit_daily d USING (" + detail + ") s"
+                            + " ON d.username = s.username AND d.login_day = ?"
+                            + " WHEN MATCHED THEN UPDATE SET logins = d.logins + s.logins,"
+                            + " distinct_ips = GREATEST(d.distinct_ips, s.distinct_ips),"
+                            + " first_login = LEAST(d.first_login, s.first_login),"
+                            + " last_login = GREATEST(d.last_login, s.last_login)"
+                            + " WHEN NOT MATCHED THEN INSERT (username, login_day, logins, distinct_ips, first_login, last_login)"
+                            + " VALUES (s.username, ?, s.logins, s.distinct_ips, s.first_login, s.last_login)",
+                    startOf(day), startOf(day.plusDays(1)), day, day);
+        }
+        rolledUp.add(logins);
+    }
+
+    private static OffsetDateTime startOf(LocalDate day) {
+        return day.atStartOfDay().atOffset(ZoneOffset.UTC);
+    }
+
+    static String partitionName(LocalDate month) {
+        return String.format("login_audit_p%04d_%02d", month.getYear(), month.getMonthValue());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("audit.retention.rolled-up", rolledUp, LongAdder::sum)
+                .description("Login audit detail rows compacted into daily rollups")
+                .register(registry);
+        FunctionCounter.builder("audit.retention.deleted", deleted, LongAdder::sum)
+                .description("Login audit detail rows removed by range deletes")
+                .register(registry);
+        FunctionCounter.builder("audit.retention.partitions.dropped", partitionsDropped, LongAdder::sum)
+                .description("Monthly login audit partitions dropped")
+                .register(registry);
+    }
+}
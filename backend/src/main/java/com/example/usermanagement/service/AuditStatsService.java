@@ -0,0 +1,311 @@
+package com.example.usermanagement.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.usermanagement.dto.AuditStats;
+import com.example.usermanagement.repository.AuditSink;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Keeps login statistics per user and per IP address in memory.
+ *
+ * Every successful login is recorded here by {@link AuthService#login}, next
+ * to its audit record, and updates the aggregate of its user and of its IP
+ * address in place. An aggregate holds, for each window:
+ *
+ *   {@code 1h} - login counts and first login per minute (60 buckets)
+ *   {@code 24h} - the same per hour (24 buckets)
+ *   {@code 30d} - the same per day (30 buckets)
+ *
+ * plus the last login and a {@link SlidingHyperLogLog} of the IP addresses
+ * (for a user) or usernames (for an IP address). A window covers its buckets
+ * up to now, so it starts on a minute, hour or day boundary. Answering a query
+ * reads at most 114 buckets and 256 registers, without touching the database.
+ *
+ * On startup the aggregates are rebuilt by scanning the last 30 days of the
+ * {@link AuditSink}. Aggregates without logins in 30 days are evicted
+ * periodically. At most {@code max-keys} users and as many IP addresses are
+ * tracked, so a flood of logins from new addresses cannot exhaust the heap:
+ * when a map is full, the tenth of its aggregates with the oldest last login
+ * is evicted (counted in {@code audit.stats.evicted}). An aggregate takes
+ * about 3.5 KB, so the default of 20000 keys bounds both maps to about 140 MB.
+ * Statistics of a key without an aggregate are reported with
+ * {@code tracked = false}: its zeros mean no login in 30 days, or an evicted
+ * aggregate.
+ *
+ * Statistics are local to this instance: logins handled by other instances
+ * only show up once a restart rebuilds them from the shared audit storage.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+public class AuditStatsService implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(AuditStatsService.class);
+
+    /** Window names and bucket layout, shortest first */
+    static final String[] WINDOWS = { "1h", "24h", "30d" };
+    private static final long[] BUCKET_MILLIS = { 60_000L, 3_600_000L, 86_400_000L };
+    private static final int[] BUCKETS = { 60, 24, 30 };
+    private static final long MAX_WINDOW_MILLIS = BUCKET_MILLIS[2] * BUCKETS[2];
+
+    private final AuditSink sink;
+    private final int maxKeys;
+    private final Map<String, Aggregate> users = new ConcurrentHashMap<>();
+    private final Map<String, Aggregate> ips = new ConcurrentHashMap<>();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * Constructs a new AuditStatsService.
+     *
+     * @param sink The audit storage scanned on startup
+     * @param maxKeys Maximum users, and maximum IP addresses, tracked
+     */
+    public AuditStatsService(AuditSink sink, @Value("${app.audit.stats.max-keys:20000}") int maxKeys) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("Audit stats max keys must be positive");
+        }
+        this.sink = sink;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Rebuilds the aggregates from the last 30 days of audit records. A failed
+     * scan is logged; statistics then start from the logins that follow.
+     */
+    @PostConstruct
+    public void rebuild() {
+        long start = System.nanoTime();
+        LongAdder scanned = new LongAdder();
+        try {
+            sink.scan(null, OffsetDateTime.now().minus(Duration.ofMillis(MAX_WINDOW_MILLIS)), null,
+                    (id, username, ip, timestamp) -> {
+                        record(username, ip, timestamp);
+                        scanned.increment();
+                    });
+            log.info("Rebuilt login statistics from {} audit records in {} ms", scanned.sum(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not rebuild login statistics from the audit records: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Records a successful login.
+     *
+     * @param username The user
+     * @param ip The IP address, or {@code null} if unknown
+     * @param timestamp When the login happened
+     */
+    public void record(String username, String ip, OffsetDateTime timestamp) {
+        if (username == null || timestamp == null) {
+            return;
+        }
+        long millis = timestamp.toInstant().toEpochMilli();
+        update(users, username, ip, millis);
+        if (ip != null) {
+            update(ips, ip, username, millis);
+        }
+    }
+
+    private void update(Map<String, Aggregate> map, String key, String other, long millis) {
+        Aggregate a = map.get(key);
+        if (a == null) {
+            if (map.size() >= maxKeys) {
+                makeRoom(map);
+            }
+            a = map.computeIfAbsent(key, k -> new Aggregate());
+        }
+        a.add(millis, other);
+    }
+
+    /**
+     * Evicts the least recently used aggregates of a full map: roughly a tenth
+     * of them at once, rather than one per new key.
+     */
+    private void makeRoom(Map<String, Aggregate> map) {
+        synchronized (map) {
+            if (map.size() < maxKeys) {
+                return; // another thread made room
+            }
+            int excess = map.size() - maxKeys + Math.max(1, maxKeys / 10);
+            map.entrySet().stream()
+                    .map(e -> Map.entry(e, e.getValue().last()))
+                    .sorted(Map.Entry.comparingByValue(Comparator.naturalOrder()))
+                    .limit(excess)
+                    .forEach(e -> {
+                        if (map.remove(e.getKey().getKey(), e.getKey().getValue())) {
+                            evicted.increment();
+                        }
+                    });
+        }
+    }
+
+    /**
+     * @param username The user
+     * @return The user's statistics; all zero, and not tracked, if the user has no aggregate
+     */
+    public AuditStats userStats(String username) {
+        return userStats(username, System.currentTimeMillis());
+    }
+
+    AuditStats userStats(String username, long now) {
+        Aggregate a = users.get(username);
+        return new AuditStats(username, null, a != null, windows(a, now));
+    }
+
+    /**
+     * @param ip The IP address, as recorded in the audit
+     * @return The address's statistics; all zero, and not tracked, if it has no aggregate
+     */
+    public AuditStats ipStats(String ip) {
+        return ipStats(ip, System.currentTimeMillis());
+    }
+
+    AuditStats ipStats(String ip, long now) {
+        Aggregate a = ips.get(ip);
+        return new AuditStats(null, ip, a != null, windows(a, now));
+    }
+
+    private static Map<String, AuditStats.Window> windows(Aggregate a, long now) {
+        Map<String, AuditStats.Window> result = new LinkedHashMap<>();
+        for (int w = 0; w < WINDOWS.length; w++) {
+            result.put(WINDOWS[w], a != null ? a.window(w, now) : new AuditStats.Window(0, 0, null, null));
+        }
+        return result;
+    }
+
+    /**
+     * Evicts the aggregates without logins in the longest window and drops
+     * expired sketch entries from the others.
+     */
+    @Scheduled(fixedDelayString = "${app.audit.stats.evict-interval-ms:3600000}",
+               initialDelayString = "${app.audit.stats.evict-interval-ms:3600000}")
+    public void evictExpired() {
+        evictExpired(System.currentTimeMillis());
+    }
+
+    void evictExpired(long now) {
+        long cutoff = now - MAX_WINDOW_MILLIS;
+        users.values().removeIf(a -> a.expire(cutoff));
+        ips.values().removeIf(a -> a.expire(cutoff));
+    }
+
+    int trackedUsers() {
+        return users.size();
+    }
+
+    int trackedIps() {
+        return ips.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("audit.stats.users", users, Map::size)
+                .description("Users with login statistics in memory")
+                .register(registry);
+        Gauge.builder("audit.stats.ips", ips, Map::size)
+                .description("IP addresses with login statistics in memory")
+                .register(registry);
+        FunctionCounter.builder("audit.stats.evicted", evicted, LongAdder::sum)
+                .description("Least recently used aggregates evicted because the user or address limit was reached")
+                .register(registry);
+    }
+
+    /**
+     * Sliding-window counters and distinct-count sketch of one user or address.
+     */
+    static final class Aggregate {
+        private final long[][] bucketIds = new long[WINDOWS.length][];
+        private final int[][] counts = new int[WINDOWS.length][];
+        private final long[][] firsts = new long[WINDOWS.length][];
+        private final SlidingHyperLogLog distinct = new SlidingHyperLogLog();
+        private long last = Long.MIN_VALUE;
+
+        Aggregate() {
+            for (int w = 0; w < WINDOWS.length; w++) {
+                bucketIds[w] = new long[BUCKETS[w]];
+                counts[w] = new int[BUCKETS[w]];
+                firsts[w] = new long[BUCKETS[w]];
+                Arrays.fill(bucketIds[w], Long.MIN_VALUE);
+            }
+        }
+
+        synchronized void add(long millis, String other) {
+            for (int w = 0; w < WINDOWS.length; w++) {
+                long bucket = Math.floorDiv(millis, BUCKET_MILLIS[w]);
+                int i = (int) Math.floorMod(bucket, (long) BUCKETS[w]);
+                if (bucketIds[w][i] == bucket) {
+                    counts[w][i]++;
+                    firsts[w][i] = Math.min(firsts[w][i], millis);
+                } else if (bucketIds[w][i] < bucket) {
+                    // the slot held a bucket that has left the window
+                    bucketIds[w][i] = bucket;
+                    counts[w][i] = 1;
+                    firsts[w][i] = millis;
+                }
+                // else: older than the whole window, nothing to count
+            }
+            last = Math.max(last, millis);
+            if (other != null) {
+                distinct.add(SlidingHyperLogLog.hash(other), Math.floorDiv(millis, 1000L));
+            }
+        }
+
+        synchronized AuditStats.Window window(int w, long now) {
+            long current = Math.floorDiv(now, BUCKET_MILLIS[w]);
+            long oldest = current - BUCKETS[w] + 1;
+            long logins = 0;
+            long first = Long.MAX_VALUE;
+            for (int i = 0; i < BUCKETS[w]; i++) {
+                long b = bucketIds[w][i];
+                if (b >= oldest && b <= current) {
+                    logins += counts[w][i];
+                    first = Math.min(first, firsts[w][i]);
+                }
+            }
+            if (logins == 0) {
+                return new AuditStats.Window(0, 0, null, null);
+            }
+            long start = oldest * BUCKET_MILLIS[w];
+            return new AuditStats.Window(logins, distinct.estimate(Math.floorDiv(start, 1000L)),
+                    time(first), last >= start ? time(last) : null);
+        }
+
+        /** @return The last login, epoch milliseconds */
+        synchronized long last() {
+            return last;
+        }
+
+        /** @return {@code true} if nothing happened since {@code cutoff} and the aggregate can go */
+        synchronized boolean expire(long cutoff) {
+            boolean empty = distinct.expire(Math.floorDiv(cutoff, 1000L));
+            return last < cutoff && empty;
+        }
+
+        private static OffsetDateTime time(long millis) {
+            return OffsetDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+        }
+    }
+}
@@ -7,10 +7,13 @@ import org.springframework.stereotype.Service;
 import com.example.usermanagement.dto.AuthRequest;
 import com.example.usermanagement.dto.AuthResponse;
 import com.example.usermanagement.dto.RegisterRequest;
+import com.example.usermanagement.model.LoginAudit;
 import com.example.usermanagement.model.User;
-import com.example.usermanagement.repository.LoginAuditRepository;
 import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.security.AccessTokenRevocationList;
 import com.example.usermanagement.security.JwtUtil;
+import com.example.usermanagement.security.LoginThrottle;
+import com.example.usermanagement.security.PasswordHashingExecutor;
 import com.example.usermanagement.security.Pbkdf2Password;
 
 /**
@@ -21,6 +24,7 @@ import com.example.usermanagement.security.Pbkdf2Password;
  *   User login with credential validation
  *   User registration with password hashing
  *   JWT token generation for authenticated users
+ *   Access token revocation at logout
  *   Login audit logging
  * 
  * 
@@ -44,20 +48,40 @@ import com.example.usermanagement.security.Pbkdf2Password;
 @Service
 public class AuthService {
     private final UserRepository userRepository;
+    private final UserCredentialCache credentials;
     private final JwtUtil jwtUtil;
-    private final LoginAuditRepository auditRepo;
+    private final LoginAuditWriter auditWriter;
+    private final AuditStatsService auditStats;
+    private final LastLoginRecorder lastLogins;
+    private final PasswordHashingExecutor hashingExecutor;
+    private final AccessTokenRevocationList revocationList;
+    private final LoginThrottle throttle;
 
     /**
      * Constructs a new AuthService.
      * 
      * @param userRepository The repository for user data access
+     * @param credentials The cache of credential projections used by login and refresh
      * @param jwtUtil The utility for JWT token generation
-     * @param auditRepo The repository for login audit records
+     * @param auditWriter The asynchronous writer for login audit records
+     * @param auditStats The in-memory login statistics
+     * @param lastLogins The recorder of last login timestamps
+     * @param hashingExecutor The bounded executor that runs PBKDF2 off the request threads
+     * @param revocationList The list of access tokens revoked before their expiry
+     * @param throttle The per-username and per-IP limiter of login attempts
      */
-    public AuthService(UserRepository userRepository, JwtUtil jwtUtil, LoginAuditRepository auditRepo) {
+    public AuthService(UserRepository userRepository, UserCredentialCache credentials, JwtUtil jwtUtil, LoginAuditWriter auditWriter, AuditStatsService auditStats,
+                       LastLoginRecorder lastLogins, PasswordHashingExecutor hashingExecutor, AccessTokenRevocationList revocationList,
+                       LoginThrottle throttle) {
         this.userRepository = userRepository;
+        this.credentials = credentials;
         this.jwtUtil = jwtUtil;
-        this.auditRepo = auditRepo;
+        this.auditWriter = auditWriter;
+        this.auditStats = auditStats;
+        this.lastLogins = lastLogins;
+        this.hashingExecutor = hashingExecutor;
+        this.revocationList = revocationList;
+        this.throttle = throttle;
     }
 
     /**
@@ -65,10 +89,13 @@ public class AuthService {
      * 
      * This method:
      * <ol>
-     *   Retrieves the user by username
-     *   Verifies the password using PBKDF2 with the user's salt
-     *   Updates the user's last login timestamp
-     *   Creates a login audit record with IP address
+     *   Rejects the attempt if the username or the IP address is over its login rate, before any hashing
+     *   Retrieves the user's credentials by username (cached, see {@link UserCredentialCache})
+     *   Verifies the password using PBKDF2 with the parameters recorded in the stored hash
+     *   Rehashes the password if the stored hash is legacy or uses fewer iterations than configured
+     *   Records the user's last login timestamp (single-column update, possibly coalesced)
+     *   Queues a login audit record with IP address (written asynchronously, in batches)
+     *   Updates the in-memory login statistics of the user and the IP address
      *   Generates a JWT access token with username and role
      *   Returns the token along with forcePasswordReset flag
      * </ol>
@@ -80,37 +107,62 @@ public class AuthService {
      * @param ip The IP address from which the login originated (for audit logging)
      * @return AuthResponse containing the JWT token and forcePasswordReset flag
      * @throws IllegalArgumentException If the user doesn't exist or password is incorrect
+     * @throws com.example.usermanagement.security.LoginThrottledException If the username or IP address made too many attempts
+     * @throws com.example.usermanagement.security.HashingCapacityExceededException If the hashing pool is saturated
      */
     public AuthResponse login(AuthRequest req, String ip) {
+        // cheap rejection first: over-limit attempts never reach PBKDF2
+        throttle.acquire(req.getUsername(), ip);
         // Find user and validate credentials. Throws with a user-facing message in Spanish when invalid.
-        User user = userRepository.findByUsername(req.getUsername()).orElseThrow(() -> new IllegalArgumentException("Credenciales inválidas"));
-        if (user.getPasswordHash() == null || user.getSalt() == null || !Pbkdf2Password.verify(req.getPassword().toCharArray(), user.getSalt(), user.getPasswordHash())) {
+        UserCredentialCache.Credentials user = credentials.getForLogin(req.getUsername());
+        if (user == null || user.hash() == null) {
             throw new IllegalArgumentException("Credenciales inválidas");
         }
-        user.setLastLogin(OffsetDateTime.now());
-        userRepository.save(user);
+        char[] password = req.getPassword().toCharArray();
+        if (!hashingExecutor.matches(password, user.hash())) {
+            throw new IllegalArgumentException("Credenciales inválidas");
+        }
+        // Transparently upgrade legacy hashes and hashes created with a lower cost
+        if (Pbkdf2Password.needsRehash(user.hash())) {
+            rehash(user.username(), password);
+        }
+        throttle.succeeded(req.getUsername(), ip);
+        // only last_login changes on a regular login: no full-row save
+        lastLogins.record(user.id(), OffsetDateTime.now());
 
-        // audit
-        com.example.usermanagement.model.LoginAudit la = new com.example.usermanagement.model.LoginAudit();
-        la.setUsername(user.getUsername());
+        // audit: queued, the insert happens off the login path
+        LoginAudit la = new LoginAudit();
+        la.setUsername(user.username());
         la.setIp(ip);
         la.setTimestamp(OffsetDateTime.now());
-        auditRepo.save(la);
+        auditWriter.submit(la);
+        auditStats.record(la.getUsername(), la.getIp(), la.getTimestamp());
 
-        String token = jwtUtil.generateToken(user.getUsername(), user.getRole().name());
+        String token = jwtUtil.generateToken(user.username(), user.role().name());
         AuthResponse resp = new AuthResponse(token);
-        resp.setForcePasswordReset(user.isForcePasswordReset());
+        resp.setForcePasswordReset(user.forcePasswordReset());
         return resp;
     }
 
+    private void rehash(String username, char[] password) {
+        // rare: the full entity is only read when the hash is replaced
+        User user = userRepository.findByUsername(username).orElse(null);
+        if (user == null) {
+            return;
+        }
+        user.setPasswordHash(hashingExecutor.encode(password));
+        user.setSalt(null);
+        userRepository.save(user);
+        credentials.invalidate(username);
+    }
+
     /**
      * Registers a new user in the system.
      * 
      * This method:
      * <ol>
      *   Checks if the username is already taken
-     *   Generates a unique salt for the password
-     *   Hashes the password using PBKDF2 with the generated salt
+     *   Hashes the password using PBKDF2 with a fresh salt, in the encoded format
      *   Creates a new user with the USER role
      *   Saves the user to the database
      * </ol>
@@ -125,9 +177,7 @@ public class AuthService {
     if (userRepository.existsByUsername(req.getUsername())) throw new IllegalArgumentException("Nombre de usuario en uso");
         User u = new User();
         u.setUsername(req.getUsername());
-        String salt = Pbkdf2Password.generateSalt();
-        u.setSalt(salt);
-        u.setPasswordHash(Pbkdf2Password.hash(req.getPassword().toCharArray(), salt));
+        u.setPasswordHash(hashingExecutor.encode(req.getPassword().toCharArray()));
         u.setRole(User.Role.USER);
         userRepository.save(u);
     }
@@ -138,15 +188,18 @@ public class AuthService {
      * 
      * This helper method is used by the token refresh flow to generate a new
      * access token after validating a refresh token. The token includes the
-     * user's current role from the database.
+     * user's role, read through the credentials cache.
      * 
      * @param username The username for which to generate the token
      * @return A new JWT access token string
      * @throws IllegalArgumentException If the user does not exist
      */
     public String createAccessTokenForUser(String username) {
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
-        return jwtUtil.generateToken(user.getUsername(), user.getRole().name());
+        UserCredentialCache.Credentials user = credentials.get(username);
+        if (user == null) {
+            throw new IllegalArgumentException("Usuario no encontrado");
+        }
+        return jwtUtil.generateToken(user.username(), user.role().name());
     }
 
     /**
@@ -164,4 +217,20 @@ public class AuthService {
             return jwtUtil.extractUsername(token);
         } catch (Exception ex) { return null; }
     }
+
+    /**
+     * Revokes an access token so it stops working before it expires.
+     * 
+     * Tokens that are invalid or already expired are ignored: there is nothing
+     * left to revoke.
+     * 
+     * @param token The JWT access token presented at logout
+     */
+    public void revokeAccessToken(String token) {
+        try {
+            revocationList.revoke(jwtUtil.parse(token));
+        } catch (Exception ex) {
+            // invalid token: nothing to revoke
+        }
+    }
 }
@@ -0,0 +1,194 @@
+package com.example.usermanagement.service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.usermanagement.repository.UserRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Records users' last login timestamps.
+ *
+ * Logins only change {@code users.last_login}, so they use
+ * {@link UserRepository#updateLastLogin}, a single-column update, rather than
+ * {@code save}, which merges and rewrites the whole row (hash and salt
+ * included). {@code mode} decides when the update happens:
+ *
+ *   {@code direct} - on the login itself, one update per login
+ *   {@code coalesce} - the login only puts its timestamp in an in-memory map
+ *   keyed by user; {@link #flush()} runs every {@code flush-interval-ms} and
+ *   writes the latest timestamp of each user, {@code flush-batch-size} users
+ *   per transaction. Repeated logins of a user between two flushes cost one
+ *   update.
+ *
+ *
+ * {@link #lastLogin(Long)} reads through the pending timestamps, so the
+ * user's own {@code /api/auth/me/last-login} is correct in both modes. Other
+ * readers of {@code users.last_login} (e.g. the admin user list) may lag by
+ * up to one flush interval with {@code coalesce}; pending timestamps are
+ * written at shutdown, and lost only if the process dies.
+ *
+ * Metrics exposed through Micrometer: {@code users.last-login.pending},
+ * {@code users.last-login.updates} (updates executed) and
+ * {@code users.last-login.coalesced} (logins absorbed by a pending timestamp).
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+public class LastLoginRecorder implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(LastLoginRecorder.class);
+
+    /** When last login updates are written. */
+    public enum Mode { DIRECT, COALESCE }
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate tx;
+    private final Mode mode;
+    private final int flushBatchSize;
+
+    private final Map<Long, OffsetDateTime> pending = new ConcurrentHashMap<>();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Constructs a new LastLoginRecorder.
+     *
+     * @param userRepository The repository that runs the updates
+     * @param transactionManager The transaction manager for flush batches
+     * @param mode {@code direct} or {@code coalesce}, see the class documentation
+     * @param flushBatchSize Maximum users updated per flush transaction
+     */
+    public LastLoginRecorder(UserRepository userRepository, PlatformTransactionManager transactionManager,
+                             @Value("${app.last-login.mode:direct}") String mode,
+                             @Value("${app.last-login.flush-batch-size:500}") int flushBatchSize) {
+        if (flushBatchSize <= 0) {
+            throw new IllegalArgumentException("Last login flush batch size must be positive");
+        }
+        this.userRepository = userRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    /**
+     * Records a login.
+     *
+     * @param userId The user's id
+     * @param at The login time
+     */
+    public void record(Long userId, OffsetDateTime at) {
+        if (userId == null) {
+            return;
+        }
+        if (mode == Mode.DIRECT) {
+            userRepository.updateLastLogin(userId, at);
+            updates.increment();
+            return;
+        }
+        pending.merge(userId, at, (old, now) -> {
+            coalesced.increment();
+            return now.isAfter(old) ? now : old;
+        });
+    }
+
+    /**
+     * Reads a user's last login timestamp column, not the whole row.
+     *
+     * @param userId The user's id
+     * @return The user's last login, including a pending one not yet written
+     */
+    public OffsetDateTime lastLogin(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        OffsetDateTime stored = userRepository.findLastLoginById(userId).orElse(null);
+        OffsetDateTime buffered = pending.get(userId);
+        if (buffered == null) {
+            return stored;
+        }
+        return stored == null || buffered.isAfter(stored) ? buffered : stored;
+    }
+
+    /**
+     * Writes the pending timestamps, a batch per transaction. A failed batch
+     * stays pending and is retried by the next flush.
+     */
+    @Scheduled(fixedDelayString = "${app.last-login.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            List<Map.Entry<Long, OffsetDateTime>> batch = new ArrayList<>(flushBatchSize);
+            for (Map.Entry<Long, OffsetDateTime> e : pending.entrySet()) {
+                batch.add(Map.entry(e.getKey(), e.getValue()));
+                if (batch.size() == flushBatchSize) {
+                    write(batch);
+                    batch.clear();
+                }
+            }
+            write(batch);
+        } catch (RuntimeException ex) {
+            log.warn("Last login flush failed, {} users pending: {}", pending.size(), ex.getMessage());
+        }
+    }
+
+    private void write(List<Map.Entry<Long, OffsetDateTime>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        tx.executeWithoutResult(status -> {
+            for (Map.Entry<Long, OffsetDateTime> e : batch) {
+                userRepository.updateLastLogin(e.getKey(), e.getValue());
+            }
+        });
+        updates.add(batch.size());
+        for (Map.Entry<Long, OffsetDateTime> e : batch) {
+            // a login recorded meanwhile replaced the value and stays pending
+            pending.remove(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Writes the pending timestamps before the application context closes.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            log.warn("{} last login timestamps could not be written before shutdown", pending.size());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("users.last-login.pending", pending, Map::size)
+                .description("Users whose last login is waiting to be written")
+                .register(registry);
+        FunctionCounter.builder("users.last-login.updates", updates, LongAdder::sum)
+                .description("Single-column last login updates executed")
+                .register(registry);
+        FunctionCounter.builder("users.last-login.coalesced", coalesced, LongAdder::sum)
+                .description("Logins whose last login update was absorbed by a pending one")
+                .register(registry);
+    }
+}
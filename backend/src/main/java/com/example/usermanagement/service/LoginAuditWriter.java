@@ -0,0 +1,295 @@
+package com.example.usermanagement.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.usermanagement.model.LoginAudit;
+import com.example.usermanagement.repository.AuditSink;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Writes login audit records asynchronously, in batches.
+ *
+ * Logins hand their audit record to {@link #submit(LoginAudit)}, which only
+ * puts it in a bounded in-memory queue, so login latency no longer includes
+ * audit I/O. A single writer thread drains the queue and passes the records to
+ * the {@link AuditSink} one batch at a time (with the default sink, one JDBC
+ * batch insert). A batch is written when it reaches {@code batch-size} records
+ * or when its first record has waited {@code flush-interval-ms}, whichever
+ * comes first.
+ *
+ * When the queue is full ({@code queue-capacity}), {@code overflow} decides:
+ *
+ *   {@code block} - the login waits up to {@code block-timeout-ms} for room
+ *   (backpressure), then the record is dropped
+ *   {@code drop} - the record is dropped immediately
+ *
+ *
+ * A batch the sink rejects is retried up to {@code max-attempts} times, waiting
+ * {@code retry-backoff-ms} before the first retry and twice as long before each
+ * further one (at most {@value #MAX_BACKOFF_MS} ms), so a short storage outage
+ * loses nothing. While the writer waits the queue keeps absorbing logins; a batch
+ * that still fails is dropped and the number of records lost is logged.
+ *
+ * Records still queued at shutdown are written before the application context
+ * closes. Records are visible to the audit endpoint after at most about one
+ * flush interval.
+ *
+ * Metrics exposed through Micrometer:
+ *
+ *   {@code audit.writer.lag} - age of the oldest record still queued
+ *   {@code audit.writer.pending} - records queued
+ *   {@code audit.writer.written} - records written
+ *   {@code audit.writer.dropped} - records dropped because the queue was full
+ *   {@code audit.writer.failed} - records lost because their batch failed every attempt
+ *   {@code audit.writer.retries} - batch writes retried after a failure
+ *
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+public class LoginAuditWriter implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(LoginAuditWriter.class);
+    /** Upper bound of the wait between two attempts at the same batch */
+    static final long MAX_BACKOFF_MS = 5000;
+
+    /** What {@link #submit(LoginAudit)} does when the queue is full. */
+    public enum OverflowPolicy { BLOCK, DROP }
+
+    private final AuditSink sink;
+    private final BlockingQueue<LoginAudit> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflow;
+    private final long blockTimeoutMs;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    /**
+     * Constructs a new LoginAuditWriter.
+     *
+     * @param sink The storage the records are written to
+     * @param queueCapacity Maximum records waiting to be written
+     * @param batchSize Maximum records per batch
+     * @param flushIntervalMs Maximum time a record waits for its batch to fill up
+     * @param overflow {@code block} or {@code drop}, see the class documentation
+     * @param blockTimeoutMs Maximum time a login waits for room in a full queue with {@code block}
+     * @param maxAttempts Attempts at writing a batch before its records are dropped
+     * @param retryBackoffMs Wait before the first retry of a failed batch; doubled for each further retry
+     */
+    public LoginAuditWriter(AuditSink sink,
+                            @Value("${app.audit.writer.queue-capacity:10000}") int queueCapacity,
+                            @Value("${app.audit.writer.batch-size:500}") int batchSize,
+                            @Value("${app.audit.writer.flush-interval-ms:200}") long flushIntervalMs,
+                            @Value("${app.audit.writer.overflow:block}") String overflow,
+                            @Value("${app.audit.writer.block-timeout-ms:50}") long blockTimeoutMs,
+                            @Value("${app.audit.writer.max-attempts:5}") int maxAttempts,
+                            @Value("${app.audit.writer.retry-backoff-ms:100}") long retryBackoffMs) {
+        if (queueCapacity <= 0 || batchSize <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("Audit writer queue capacity, batch size and attempts must be positive");
+        }
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+        this.overflow = OverflowPolicy.valueOf(overflow.trim().toUpperCase(Locale.ROOT));
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = Math.max(0, retryBackoffMs);
+    }
+
+    /**
+     * Queues an audit record for writing.
+     *
+     * @param record The record to write
+     * @return {@code true} if the record was queued, {@code false} if it was dropped
+     */
+    public boolean submit(LoginAudit record) {
+        boolean queued;
+        if (overflow == OverflowPolicy.BLOCK) {
+            try {
+                queued = queue.offer(record, blockTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+        } else {
+            queued = queue.offer(record);
+        }
+        if (!queued) {
+            dropped.increment();
+        }
+        return queued;
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "audit-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void run() {
+        List<LoginAudit> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                LoginAudit first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long left = deadline - System.nanoTime();
+                    LoginAudit next = left > 0 ? queue.poll(left, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes everything still queued, in full batches, on the calling thread.
+     */
+    public void flush() {
+        List<LoginAudit> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes one batch, retrying with exponential backoff. A batch that fails
+     * every attempt is logged and counted, so a long storage outage stalls the
+     * writer for a bounded time only.
+     */
+    private synchronized void write(List<LoginAudit> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long backoff = retryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                sink.append(batch);
+                written.add(batch.size());
+                return;
+            } catch (RuntimeException ex) {
+                if (attempt >= maxAttempts || !pause(backoff)) {
+                    failed.add(batch.size());
+                    log.error("Dropping {} login audit records after {} failed attempts: {}",
+                            batch.size(), attempt, ex.getMessage());
+                    return;
+                }
+                retries.increment();
+                log.warn("Could not write {} login audit records (attempt {} of {}), retrying in {} ms: {}",
+                        batch.size(), attempt, maxAttempts, backoff, ex.getMessage());
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    /** @return {@code false} if interrupted, i.e. the application is shutting down */
+    private static boolean pause(long millis) {
+        if (millis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Stops the writer thread and writes the records still queued.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (worker != null) {
+            try {
+                worker.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) * 2 + 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * @return Milliseconds since the oldest queued record was created, or 0 if the queue is empty
+     */
+    long lagMillis() {
+        LoginAudit oldest = queue.peek();
+        if (oldest == null || oldest.getTimestamp() == null) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - oldest.getTimestamp().toInstant().toEpochMilli());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        TimeGauge.builder("audit.writer.lag", this, TimeUnit.MILLISECONDS, LoginAuditWriter::lagMillis)
+                .description("Age of the oldest login audit record not yet written")
+                .register(registry);
+        Gauge.builder("audit.writer.pending", queue, BlockingQueue::size)
+                .description("Login audit records waiting to be written")
+                .register(registry);
+        FunctionCounter.builder("audit.writer.written", written, LongAdder::sum)
+                .description("Login audit records written to the audit sink")
+                .register(registry);
+        FunctionCounter.builder("audit.writer.dropped", dropped, LongAdder::sum)
+                .description("Login audit records dropped because the queue was full")
+                .register(registry);
+        FunctionCounter.builder("audit.writer.failed", failed, LongAdder::sum)
+                .description("Login audit records lost because their batch failed every attempt")
+                .register(registry);
+        FunctionCounter.builder("audit.writer.retries", retries, LongAdder::sum)
+                .description("Login audit batch writes retried after a failure")
+                .register(registry);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.usermanagement.service;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.usermanagement.repository.RefreshTokenStore;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Background job that deletes expired refresh tokens.
+ *
+ * Rotation only removes an expired token when a client presents it; tokens of
+ * abandoned sessions would otherwise stay in {@code refresh_tokens} forever.
+ * Every run deletes the rows whose {@code expires_at} has passed, oldest first,
+ * in batches of {@code batch-size} rows ({@link RefreshTokenStore#deleteExpired}):
+ *
+ *   With the JPA store each batch is one statement over the {@code expires_at}
+ *   index in its own short transaction, so row locks are held briefly and
+ *   concurrent rotations are never blocked for long
+ *   With the off-heap store each batch first removes expired tokens from memory,
+ *   whose deletion is journaled, then deletes expired rows that were never loaded
+ *   Runs pause {@code pause-ms} between full batches to leave I/O to request traffic
+ *   A run stops after {@code max-batches-per-run} batches; the remaining backlog
+ *   is picked up by the next run, so the shared scheduler thread is not monopolized
+ *
+ *
+ * Metrics exposed through Micrometer: {@code auth.refresh.reaper.deleted}
+ * (its rate is the purge rate), {@code auth.refresh.reaper.backlog} (expired
+ * rows still waiting, as of the last run) and {@code auth.refresh.reaper.runs}.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+public class RefreshTokenReaper implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenReaper.class);
+
+    private final RefreshTokenStore store;
+    private final int batchSize;
+    private final long pauseMs;
+    private final int maxBatchesPerRun;
+
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder runs = new LongAdder();
+    private final AtomicLong backlog = new AtomicLong();
+
+    /**
+     * Constructs a new RefreshTokenReaper.
+     *
+     * @param store The store that holds refresh tokens
+     * @param batchSize Maximum rows deleted per statement
+     * @param pauseMs Pause between two full batches of the same run
+     * @param maxBatchesPerRun Maximum batches per run; the rest waits for the next run
+     */
+    public RefreshTokenReaper(RefreshTokenStore store,
+                              @Value("${app.refresh-tokens.reaper.batch-size:1000}") int batchSize,
+                              @Value("${app.refresh-tokens.reaper.pause-ms:50}") long pauseMs,
+                              @Value("${app.refresh-tokens.reaper.max-batches-per-run:100}") int maxBatchesPerRun) {
+        if (batchSize <= 0 || maxBatchesPerRun <= 0) {
+            throw new IllegalArgumentException("Reaper batch size and batches per run must be positive");
+        }
+        this.store = store;
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    /**
+     * Deletes expired refresh tokens in bounded batches.
+     *
+     * @return The number of tokens deleted by this run
+     */
+    @Scheduled(fixedDelayString = "${app.refresh-tokens.reaper.interval-ms:60000}",
+               initialDelayString = "${app.refresh-tokens.reaper.interval-ms:60000}")
+    public synchronized int reap() {
+        OffsetDateTime now = OffsetDateTime.now();
+        runs.increment();
+        backlog.set(store.countExpired(now));
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int n = store.deleteExpired(now, batchSize);
+            total += n;
+            deleted.add(n);
+            backlog.updateAndGet(b -> Math.max(0, b - n));
+            if (n < batchSize || !pause()) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.debug("Deleted {} expired refresh tokens, {} left", total, backlog.get());
+        }
+        return total;
+    }
+
+    private boolean pause() {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            // shutting down: leave the rest for the next start
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.refresh.reaper.deleted", deleted, LongAdder::sum)
+                .description("Expired refresh tokens deleted by the background reaper")
+                .register(registry);
+        Gauge.builder("auth.refresh.reaper.backlog", backlog, AtomicLong::get)
+                .description("Expired refresh tokens still waiting to be deleted")
+                .register(registry);
+        FunctionCounter.builder("auth.refresh.reaper.runs", runs, LongAdder::sum)
+                .description("Runs of the expired refresh token reaper")
+                .register(registry);
+    }
+}
@@ -1,102 +1,218 @@
 package com.example.usermanagement.service;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.Base64;
 import java.util.Optional;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.example.usermanagement.model.RefreshToken;
-import com.example.usermanagement.repository.RefreshTokenRepository;
+import com.example.usermanagement.repository.RefreshTokenStore;
+import com.example.usermanagement.security.AccessTokenRevocationList;
 
 @Service
 /**
  * Service that manages persistent refresh tokens. Responsibilities:
- * - create refresh tokens persisted in the database
+ * - create refresh tokens persisted in the {@link RefreshTokenStore}
  * - validate token existence and expiry
- * - rotate tokens (delete old, create new)
- * - revoke tokens for a single token or for a user
+ * - rotate tokens (mark old as rotated, create new in the same family) and
+ *   detect reuse of rotated tokens
+ * - revoke tokens for a single token or for a user (revoking for a user also
+ *   invalidates the user's outstanding access tokens)
+ *
+ * Tokens have the form {@code selector.verifier}. The selector is a short
+ * random id stored in clear under a unique index; the verifier is a 256-bit
+ * secret of which only the SHA-256 hash is stored. A lookup is one index probe
+ * on the selector followed by a constant-time comparison of the verifier hash,
+ * so its cost does not grow with the table and a database leak exposes no
+ * usable tokens.
+ *
+ * Every login starts a token family. Rotation is a single compare-and-set
+ * in the store ({@link RefreshTokenStore#rotate}) that marks the presented
+ * token as rotated and stores its successor: of two concurrent rotations of
+ * the same token exactly one succeeds. A rotated token stays in the table for
+ * the reuse detection window ({@code app.refresh-tokens.reuse-detection-window-seconds}),
+ * so a token presented again within it is recognized as stolen or replayed and
+ * the whole family is revoked. Rotation brings the token's expiry forward to the
+ * end of that window, and the reaper then deletes it: a session keeps at most a
+ * window's worth of rotated rows rather than a full validity period's. Later
+ * than that, a rotated token is rejected as unknown without revoking its family.
  *
  * Errors use IllegalArgumentException with user-facing messages (Spanish).
  */
 public class RefreshTokenService {
-    private final RefreshTokenRepository repo;
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    /** 12 random bytes, 16 Base64 URL characters */
+    private static final int SELECTOR_BYTES = 12;
+    private static final int SELECTOR_LENGTH = 16;
+    /** 32 random bytes, 43 Base64 URL characters */
+    private static final int VERIFIER_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final RefreshTokenStore store;
+    private final AccessTokenRevocationList accessTokenRevocations;
     private final SecureRandom random = new SecureRandom();
     private final Duration validity = Duration.ofDays(30);
+    private final Duration reuseDetectionWindow;
 
     /**
      * Constructs a new RefreshTokenService.
      * 
-     * @param repo The repository for refresh token data access
+     * @param store The store that holds refresh tokens
+     * @param accessTokenRevocations The list used to revoke outstanding access tokens
+     * @param reuseDetectionWindowSeconds How long a rotated token is kept to detect its reuse
      */
-    public RefreshTokenService(RefreshTokenRepository repo) {
-        this.repo = repo;
+    public RefreshTokenService(RefreshTokenStore store, AccessTokenRevocationList accessTokenRevocations,
+                               @Value("${app.refresh-tokens.reuse-detection-window-seconds:86400}") long reuseDetectionWindowSeconds) {
+        if (reuseDetectionWindowSeconds <= 0) {
+            throw new IllegalArgumentException("Refresh token reuse detection window must be positive");
+        }
+        this.store = store;
+        this.accessTokenRevocations = accessTokenRevocations;
+        this.reuseDetectionWindow = Duration.ofSeconds(reuseDetectionWindowSeconds);
     }
 
     /**
-     * Generates a cryptographically secure random token string.
-     * 
-     * The token is 64 bytes of random data, Base64 URL-encoded without padding.
-     * This produces a URL-safe token string suitable for use in cookies and URLs.
+     * Generates cryptographically secure random bytes, Base64 URL-encoded without padding.
      * 
-     * @return A Base64 URL-encoded token string (86 characters)
+     * @param length The number of random bytes
+     * @return A URL-safe string suitable for use in cookies and URLs
      */
-    private String generateTokenString() {
-        byte[] b = new byte[64];
+    private String randomString(int length) {
+        byte[] b = new byte[length];
         random.nextBytes(b);
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(b);
+        return ENCODER.encodeToString(b);
+    }
+
+    /**
+     * Computes the SHA-256 hash stored in place of a verifier.
+     * 
+     * @param verifier The verifier part of a token
+     * @return The 32-byte hash
+     */
+    private static byte[] hashVerifier(String verifier) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(DECODER.decode(verifier));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Finds the stored refresh token matching a token string.
+     * 
+     * Malformed tokens are rejected without a database query. Otherwise the
+     * row is fetched by selector and the verifier hash is compared in constant
+     * time, so response timing reveals nothing about the stored hash.
+     * 
+     * @param token The refresh token string presented by the client
+     * @return The matching refresh token, or empty if none matches
+     */
+    private Optional<RefreshToken> lookup(String token) {
+        if (token == null || token.length() <= SELECTOR_LENGTH + 1 || token.charAt(SELECTOR_LENGTH) != '.') {
+            return Optional.empty();
+        }
+        byte[] presented;
+        try {
+            presented = hashVerifier(token.substring(SELECTOR_LENGTH + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        return store.findBySelector(token.substring(0, SELECTOR_LENGTH))
+                .filter(r -> MessageDigest.isEqual(presented, r.getVerifierHash()));
     }
 
     /**
-     * Creates a new refresh token for a user and stores it in the database.
+     * Creates a new refresh token for a user and stores it.
      * 
      * This method:
      * <ol>
-     *   Generates a cryptographically secure random token string
-     *   Creates a RefreshToken entity with the token, username, and expiration (30 days)
-     *   Saves the token to the database
+     *   Generates a random selector and verifier
+     *   Creates a RefreshToken entity with the selector, verifier hash, username, and expiration (30 days)
+     *   Saves the token in the store, as the first token of a new family
      * </ol>
      * 
      * @param username The username for which to create the refresh token
-     * @return The generated refresh token string
+     * @return The generated refresh token string ({@code selector.verifier})
      */
     public String createRefreshToken(String username) {
-        String token = generateTokenString();
+        String verifier = randomString(VERIFIER_BYTES);
+        RefreshToken rt = newToken(username, randomString(SELECTOR_BYTES), verifier);
+        store.insert(rt);
+        return rt.getSelector() + "." + verifier;
+    }
+
+    /**
+     * Builds a refresh token entity with a fresh selector.
+     * 
+     * @param username The owner of the token
+     * @param familyId The family of the new token
+     * @param verifier The verifier, of which only the hash is kept
+     * @return The entity, not yet stored
+     */
+    private RefreshToken newToken(String username, String familyId, String verifier) {
         RefreshToken rt = new RefreshToken();
-        rt.setToken(token);
+        rt.setSelector(randomString(SELECTOR_BYTES));
+        rt.setVerifierHash(hashVerifier(verifier));
         rt.setUsername(username);
+        rt.setFamilyId(familyId);
         rt.setExpiresAt(OffsetDateTime.now().plus(validity));
-        repo.save(rt);
-        return token;
+        return rt;
     }
 
     /**
-     * Rotates a refresh token by deleting the old one and creating a new one for the same user.
+     * Rotates a refresh token: marks the old one as rotated and creates its successor.
      * 
      * Token rotation is a security best practice that prevents token reuse. This method:
      * <ol>
-     *   Validates that the old token exists and is not expired
-     *   Deletes the old token from the database
-     *   Creates a new refresh token for the same user
+     *   Looks up the old token (one index probe)
+     *   Revokes the whole family if the token was already rotated (reuse detection)
+     *   Marks the token as rotated, shortening its expiry to the reuse detection
+     *   window, and stores its successor in the same family, as one compare-and-set
+     *   in the store
      * </ol>
      * 
-     * If the token is invalid or expired, throws IllegalArgumentException.
+     * The compare-and-set only matches a live, not yet rotated token: if a
+     * concurrent rotation or {@link #revokeAllForUser(String)} got there first,
+     * no new token is issued. The store serializes rotation with
+     * {@link #revokeAllForUser(String)} for the same user, so a revocation that
+     * comes second also deletes the successor.
+     * 
+     * The result carries the username, so callers need no separate validation query.
+     * 
+     * If the token is invalid, reused or expired, throws IllegalArgumentException.
      * 
      * @param oldToken The refresh token to rotate
-     * @return The newly created refresh token string
-     * @throws IllegalArgumentException If the token is invalid or expired
+     * @return The owner of the token and the newly created refresh token string
+     * @throws IllegalArgumentException If the token is invalid, reused or expired
      */
-    public String rotateRefreshToken(String oldToken) {
-        RefreshToken existing = repo.findByToken(oldToken).orElseThrow(() -> new IllegalArgumentException("Token de refresco inválido"));
-        if (existing.getExpiresAt() == null || existing.getExpiresAt().isBefore(OffsetDateTime.now())) {
-            repo.delete(existing);
+    public Rotation rotateRefreshToken(String oldToken) {
+        RefreshToken existing = lookup(oldToken).orElseThrow(() -> new IllegalArgumentException("Token de refresco inválido"));
+        if (existing.getRotatedAt() != null) {
+            store.deleteFamily(existing);
+            log.warn("Rotated refresh token presented again for user {}; token family revoked", existing.getUsername());
+            throw new IllegalArgumentException("Token de refresco inválido");
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        if (existing.getExpiresAt() == null || !existing.getExpiresAt().isAfter(now)) {
+            store.delete(existing);
             throw new IllegalArgumentException("Token de refresco caducado");
         }
-        String username = existing.getUsername();
-        repo.delete(existing);
-        return createRefreshToken(username);
+        String verifier = randomString(VERIFIER_BYTES);
+        RefreshToken successor = newToken(existing.getUsername(), existing.getFamilyId(), verifier);
+        if (!store.rotate(existing, successor, now, now.plus(reuseDetectionWindow))) {
+            throw new IllegalArgumentException("Token de refresco inválido");
+        }
+        return new Rotation(existing.getUsername(), successor.getSelector() + "." + verifier);
     }
 
     /**
@@ -104,7 +220,8 @@ public class RefreshTokenService {
      * 
      * This method checks:
      * 
-     *   That the token exists in the database
+     *   That the token exists in the store
+     *   That the token has not been rotated yet
      *   That the token has not expired (expiration date is in the future)
      * 
      * 
@@ -114,34 +231,48 @@ public class RefreshTokenService {
      * @return An Optional containing the username if the token is valid, empty otherwise
      */
     public Optional<String> validate(String token) {
-        return repo.findByToken(token).filter(r -> r.getExpiresAt() != null && r.getExpiresAt().isAfter(OffsetDateTime.now())).map(RefreshToken::getUsername);
+        return lookup(token).filter(r -> r.getRotatedAt() == null && r.getExpiresAt() != null && r.getExpiresAt().isAfter(OffsetDateTime.now())).map(RefreshToken::getUsername);
     }
 
     /**
-     * Revokes a single refresh token by deleting it from the database.
+     * Revokes a refresh token by deleting its family from the store.
      * 
      * This method is typically called during logout to invalidate the user's
-     * refresh token. If the token doesn't exist, the operation is a no-op.
+     * refresh token together with the rotated tokens of the same session.
+     * If the token doesn't exist, the operation is a no-op.
      * 
      * @param token The refresh token string to revoke
      */
     public void revokeToken(String token) {
-        repo.findByToken(token).ifPresent(repo::delete);
+        lookup(token).ifPresent(store::deleteFamily);
     }
 
     /**
      * Revokes all refresh tokens for a specific user.
      * 
-     * This method finds all refresh tokens associated with the given username
-     * and deletes them from the database. This is useful for:
+     * This method deletes all refresh tokens associated with the given username
+     * (with the JPA store, a single statement over the {@code refresh_tokens(username)}
+     * index, so its cost depends only on the user's own tokens). Access tokens already issued to the
+     * user are revoked as well, through a per-user watermark in the
+     * {@link AccessTokenRevocationList}. This is useful for:
      * 
      *   Forcing a user to re-authenticate on all devices
      *   Security measures when a user's account is compromised
      * 
      * 
      * @param username The username whose refresh tokens should be revoked
+     * @return The number of refresh tokens revoked
      */
-    public void revokeAllForUser(String username) {
-        repo.findAll().stream().filter(r -> username.equals(r.getUsername())).forEach(repo::delete);
+    public int revokeAllForUser(String username) {
+        accessTokenRevocations.revokeAllForUser(username);
+        return store.deleteByUsername(username);
     }
+
+    /**
+     * Result of a successful rotation.
+     *
+     * @param username The owner of the rotated token
+     * @param token The new refresh token string
+     */
+    public record Rotation(String username, String token) { }
 }
@@ -0,0 +1,223 @@
+package com.example.usermanagement.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.usermanagement.dto.IntrospectionResponse.TokenStatus;
+import com.example.usermanagement.security.AccessToken;
+import com.example.usermanagement.security.AccessTokenRevocationList;
+import com.example.usermanagement.security.IntrospectionCapacityExceededException;
+import com.example.usermanagement.security.JwtUtil;
+import com.example.usermanagement.security.VerifiedTokenCache;
+import com.example.usermanagement.security.VerifiedTokenCache.VerifiedToken;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Service that validates batches of access tokens on behalf of API gateways.
+ *
+ * Each token goes through the same verification as an authenticated request:
+ * the {@link VerifiedTokenCache} is consulted first, so tokens this instance
+ * already verified cost no signature check; otherwise {@link JwtUtil#parse(String)}
+ * checks signature, key id and expiry and the result is cached. Either way the
+ * {@link AccessTokenRevocationList} rejects tokens revoked at logout or by a
+ * per-user watermark.
+ *
+ * Signature verification is CPU-bound, so batches run on a dedicated, bounded
+ * pool rather than on request threads or the shared fork/join pool:
+ *
+ *   <strong>Concurrency:</strong> {@code app.security.introspection.threads}; a batch is split into at
+ *   most that many chunks of at least {@value #PARALLEL_THRESHOLD} tokens
+ *   <strong>Queue capacity:</strong> {@code app.security.introspection.queue-capacity} chunks
+ *   <strong>Max wait:</strong> {@code app.security.introspection.max-wait-ms} per batch
+ *
+ *
+ * When the queue is full or a batch takes too long an
+ * {@link IntrospectionCapacityExceededException} is thrown (503 with
+ * {@code Retry-After}); chunks of the batch that have not started are dropped.
+ * Results keep the order of the request.
+ *
+ * Metrics exposed through Micrometer: {@code auth.introspection.queue.depth}
+ * and {@code auth.introspection.rejected}.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Service
+public class TokenIntrospectionService implements MeterBinder {
+    /** Smallest chunk handed to a worker; below it the hand-off outweighs the parallel speed-up */
+    static final int PARALLEL_THRESHOLD = 16;
+
+    private final JwtUtil jwtUtil;
+    private final AccessTokenRevocationList revocationList;
+    private final VerifiedTokenCache tokenCache;
+    private final ThreadPoolExecutor pool;
+    private final int threads;
+    private final long maxWaitMs;
+    private final long retryAfterSeconds;
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructs a new TokenIntrospectionService.
+     *
+     * @param jwtUtil The utility used to verify access tokens
+     * @param revocationList The list of access tokens revoked before their expiry
+     * @param tokenCache Cache of tokens that already passed verification
+     * @param threads Number of verification threads
+     * @param queueCapacity Maximum number of chunks waiting for a thread
+     * @param maxWaitMs Maximum time a caller waits for its batch before the request is shed
+     * @param retryAfterSeconds Value of the {@code Retry-After} header sent when shedding load
+     */
+    public TokenIntrospectionService(JwtUtil jwtUtil, AccessTokenRevocationList revocationList, VerifiedTokenCache tokenCache,
+                                     @Value("${app.security.introspection.threads:2}") int threads,
+                                     @Value("${app.security.introspection.queue-capacity:32}") int queueCapacity,
+                                     @Value("${app.security.introspection.max-wait-ms:5000}") long maxWaitMs,
+                                     @Value("${app.security.introspection.retry-after-seconds:2}") long retryAfterSeconds) {
+        if (threads <= 0 || queueCapacity <= 0 || maxWaitMs <= 0) {
+            throw new IllegalArgumentException("Introspection executor settings must be positive");
+        }
+        this.jwtUtil = jwtUtil;
+        this.revocationList = revocationList;
+        this.tokenCache = tokenCache;
+        this.threads = threads;
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new IntrospectionThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxWaitMs = maxWaitMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Introspects a batch of access tokens on the introspection pool.
+     *
+     * @param tokens The access tokens to check
+     * @return One status per token, in the same order
+     * @throws IntrospectionCapacityExceededException If the pool is saturated
+     */
+    public List<TokenStatus> introspect(List<String> tokens) {
+        int n = tokens.size();
+        if (n == 0) {
+            return List.of();
+        }
+        int chunks = Math.min(threads, (n + PARALLEL_THRESHOLD - 1) / PARALLEL_THRESHOLD);
+        int chunkSize = (n + chunks - 1) / chunks;
+        TokenStatus[] results = new TokenStatus[n];
+        List<Future<?>> futures = new ArrayList<>(chunks);
+        try {
+            for (int from = 0; from < n; from += chunkSize) {
+                int start = from;
+                int end = Math.min(n, from + chunkSize);
+                futures.add(pool.submit(() -> {
+                    for (int i = start; i < end; i++) {
+                        results[i] = introspect(tokens.get(i));
+                    }
+                }));
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+            for (Future<?> future : futures) {
+                future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+        } catch (RejectedExecutionException | TimeoutException ex) {
+            cancel(futures);
+            rejected.increment();
+            throw new IntrospectionCapacityExceededException(retryAfterSeconds);
+        } catch (InterruptedException ex) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new IntrospectionCapacityExceededException(retryAfterSeconds);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(cause);
+        }
+        // Future.get() makes the workers' writes to the array visible here
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Introspects a single access token on the calling thread.
+     *
+     * @param token The access token
+     * @return The token's claims if it is active, {@link TokenStatus#INACTIVE} otherwise
+     */
+    public TokenStatus introspect(String token) {
+        if (token == null || token.isEmpty()) {
+            return TokenStatus.INACTIVE;
+        }
+        try {
+            VerifiedToken verified = tokenCache.get(token);
+            if (verified == null) {
+                AccessToken claims = jwtUtil.parse(token);
+                if (claims.subject() == null || claims.role() == null) {
+                    return TokenStatus.INACTIVE;
+                }
+                verified = VerifiedToken.of(claims);
+                if (claims.hasExpiry()) {
+                    tokenCache.put(token, verified);
+                }
+            }
+            if (revocationList.isRevoked(verified.id(), verified.username(), verified.issuedAt())) {
+                return TokenStatus.INACTIVE;
+            }
+            return new TokenStatus(true, verified.username(), verified.authorities().get(0).getAuthority(),
+                    verified.expiresAtMillis() > 0 ? verified.expiresAtMillis() / 1000 : null);
+        } catch (Exception ex) {
+            return TokenStatus.INACTIVE;
+        }
+    }
+
+    private static void cancel(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.introspection.queue.depth", pool, p -> p.getQueue().size())
+                .description("Introspection chunks waiting for a worker")
+                .register(registry);
+        FunctionCounter.builder("auth.introspection.rejected", rejected, LongAdder::sum)
+                .description("Introspection batches shed because the executor was saturated")
+                .register(registry);
+    }
+
+    /**
+     * Stops the introspection workers when the application context shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** Creates named daemon threads so introspection workers are easy to spot in thread dumps. */
+    private static final class IntrospectionThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "introspect-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.usermanagement.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Service behind {@code /api/auth/refresh} that coalesces concurrent refreshes
+ * of the same refresh token.
+ *
+ * A browser with several tabs open refreshes from every tab at once when the
+ * access token expires, all with the same {@code REFRESH} cookie. Only one
+ * rotation can win, so without coordination every other tab gets 401 and the
+ * user has to log in again. This service runs one rotation per token
+ * (single-flight): callers arriving while it is in progress wait for it, and
+ * all of them receive the same new refresh token and access token.
+ *
+ * The result stays available for a short grace period after the rotation
+ * ({@code app.refresh-tokens.grace-period-ms}), for tabs whose request arrives
+ * just after the first one completed. Failed rotations are not kept. The
+ * coordination is local to this instance; requests of one browser normally
+ * reach the same instance within such a short window.
+ *
+ * Metrics exposed through Micrometer: {@code auth.refresh.rotations} and
+ * {@code auth.refresh.coalesced}.
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Service
+public class TokenRefreshService implements MeterBinder {
+    private final RefreshTokenService refreshTokenService;
+    private final AuthService authService;
+    private final long gracePeriodMs;
+
+    /** In-progress and recently completed refreshes, keyed by the presented refresh token */
+    private final ConcurrentHashMap<String, CompletableFuture<TokenRefresh>> flights = new ConcurrentHashMap<>();
+    private final LongAdder rotations = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Constructs a new TokenRefreshService.
+     *
+     * @param refreshTokenService The service that rotates refresh tokens
+     * @param authService The service that issues access tokens
+     * @param gracePeriodMs How long a completed refresh is shared with late callers (0 disables it)
+     */
+    public TokenRefreshService(RefreshTokenService refreshTokenService, AuthService authService,
+                               @Value("${app.refresh-tokens.grace-period-ms:5000}") long gracePeriodMs) {
+        this.refreshTokenService = refreshTokenService;
+        this.authService = authService;
+        this.gracePeriodMs = gracePeriodMs;
+    }
+
+    /**
+     * Rotates a refresh token and issues a new access token for its owner,
+     * sharing the result with concurrent callers presenting the same token.
+     *
+     * @param refreshToken The refresh token presented by the client
+     * @return The new refresh token and access token
+     * @throws IllegalArgumentException If the token is invalid, reused or expired
+     */
+    public TokenRefresh refresh(String refreshToken) {
+        CompletableFuture<TokenRefresh> flight = new CompletableFuture<>();
+        CompletableFuture<TokenRefresh> leader = flights.putIfAbsent(refreshToken, flight);
+        if (leader != null) {
+            coalesced.increment();
+            return await(leader);
+        }
+        try {
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotateRefreshToken(refreshToken);
+            TokenRefresh result = new TokenRefresh(rotation.username(), rotation.token(),
+                    authService.createAccessTokenForUser(rotation.username()));
+            rotations.increment();
+            flight.complete(result);
+            expireLater(refreshToken, flight);
+            return result;
+        } catch (RuntimeException ex) {
+            // later callers must run their own rotation, waiting ones share the failure
+            flights.remove(refreshToken, flight);
+            flight.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private static TokenRefresh await(CompletableFuture<TokenRefresh> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void expireLater(String refreshToken, CompletableFuture<TokenRefresh> flight) {
+        if (gracePeriodMs <= 0) {
+            flights.remove(refreshToken, flight);
+            return;
+        }
+        CompletableFuture.runAsync(() -> flights.remove(refreshToken, flight),
+                CompletableFuture.delayedExecutor(gracePeriodMs, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Number of refreshes in progress or within their grace period.
+     *
+     * @return The number of tracked refresh tokens
+     */
+    int trackedCount() {
+        return flights.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.refresh.rotations", rotations, LongAdder::sum)
+                .description("Refresh token rotations performed")
+                .register(registry);
+        FunctionCounter.builder("auth.refresh.coalesced", coalesced, LongAdder::sum)
+                .description("Refresh requests served by a concurrent or recent rotation of the same token")
+                .register(registry);
+    }
+
+    /**
+     * Result of a refresh.
+     *
+     * @param username The owner of the refresh token
+     * @param refreshToken The new refresh token string
+     * @param accessToken The new access token
+     */
+    public record TokenRefresh(String username, String refreshToken, String accessToken) { }
+}
@@ -0,0 +1,291 @@
+package com.example.usermanagement.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.usermanagement.model.User;
+import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.security.Pbkdf2Password;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Bounded cache of the credential data that login and token refresh need.
+ *
+ * Both paths used to load the whole {@link User} entity per request. This
+ * cache keeps a compact projection per username instead, so a repeated login
+ * or refresh does not read the database:
+ *
+ *   <strong>Value:</strong> id, role, decoded hash and salt bytes, iteration count, the
+ *   force-reset flag and the credentials version (see {@link Credentials}); the hash is
+ *   decoded once, not per login
+ *   <strong>Bound:</strong> {@code app.security.credentials-cache.max-entries}; when full,
+ *   arbitrary entries are evicted (a miss only costs one more query)
+ *   <strong>Expiry:</strong> {@code app.security.credentials-cache.ttl-seconds}, so changes made
+ *   outside the application (e.g. a role assigned by a database script) are picked up
+ *
+ *
+ * Unknown usernames are not cached. Code that changes a user's password,
+ * force-reset flag or role, or deletes the user, must call
+ * {@link #invalidate(String)} after the change is committed. Invalidation also
+ * discards projections loaded concurrently with the change, so a load that
+ * read the old row cannot put it back afterwards.
+ *
+ * Invalidation only reaches this instance's cache; on other instances a change
+ * applies within {@code ttl-seconds}, so keep it short when running several.
+ * Deployments that need a password changed, or a user deleted, through another
+ * instance to stop logging in here at once can set
+ * {@code app.security.credentials-cache.verify-on-login=true}:
+ * {@link #getForLogin(String)} then reads the row's credentials version
+ * ({@link UserRepository#findCredentialsVersion}, one column by the username
+ * index) and reloads the projection if it changed. {@link User} bumps the
+ * version whenever its hash, salt, role or reset flag is set, so changes made
+ * outside the application still wait for the TTL. Such verified lookups are
+ * counted apart from hits, since they read the database. Token refresh never
+ * verifies.
+ *
+ * A {@code max-entries} value of 0 disables caching.
+ *
+ * Metrics exposed through Micrometer: {@code auth.credentials.cache.size},
+ * {@code auth.credentials.cache.hits}, {@code auth.credentials.cache.misses},
+ * {@code auth.credentials.cache.verified}, {@code auth.credentials.cache.stale},
+ * {@code auth.credentials.cache.hit.ratio} and
+ * {@code auth.credentials.cache.entry.bytes} (estimated heap per entry).
+ *
+ * @author User Management System
+ * @version 1.0
+ */
+@Component
+public class UserCredentialCache implements MeterBinder {
+    private final UserRepository userRepository;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final boolean verifyOnLogin;
+
+    private final Map<String, Credentials> entries = new ConcurrentHashMap<>();
+    /** Bumped by every invalidation; loads that started before it are not cached */
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+
+    /**
+     * Constructs a new UserCredentialCache.
+     *
+     * @param userRepository The repository projections are loaded from
+     * @param maxEntries Maximum number of cached users; 0 disables the cache
+     * @param ttlSeconds Seconds a projection is served before it is reloaded
+     * @param verifyOnLogin Whether logins check a cached projection against the row's credentials version
+     */
+    public UserCredentialCache(UserRepository userRepository,
+                               @Value("${app.security.credentials-cache.max-entries:10000}") int maxEntries,
+                               @Value("${app.security.credentials-cache.ttl-seconds:600}") long ttlSeconds,
+                               @Value("${app.security.credentials-cache.verify-on-login:false}") boolean verifyOnLogin) {
+        if (ttlSeconds <= 0) {
+            throw new IllegalArgumentException("Credentials cache TTL must be positive");
+        }
+        this.userRepository = userRepository;
+        this.maxEntries = Math.max(0, maxEntries);
+        this.ttlMillis = ttlSeconds * 1000;
+        this.verifyOnLogin = verifyOnLogin;
+    }
+
+    /**
+     * Returns the credentials of a user for a login: like {@link #get(String)},
+     * but with {@code verify-on-login} a cached projection is first checked
+     * against the row's credentials version, so changes made through another
+     * instance are seen at once.
+     *
+     * @param username The username
+     * @return The user's current credentials, or {@code null} if there is no such user
+     */
+    public Credentials getForLogin(String username) {
+        return getForLogin(username, System.currentTimeMillis());
+    }
+
+    Credentials getForLogin(String username, long now) {
+        Credentials cached = username != null ? entries.get(username) : null;
+        if (!verifyOnLogin || cached == null || now - cached.loadedAtMillis() >= ttlMillis) {
+            return get(username, now); // a miss reads the row anyway
+        }
+        if (userRepository.findCredentialsVersion(username).map(v -> v == cached.version()).orElse(false)) {
+            verified.increment();
+            return cached;
+        }
+        stale.increment();
+        invalidate(username);
+        return get(username, now);
+    }
+
+    /**
+     * Returns the credentials of a user, loading them on a miss.
+     *
+     * @param username The username
+     * @return The user's credentials, or {@code null} if there is no such user
+     */
+    public Credentials get(String username) {
+        return get(username, System.currentTimeMillis());
+    }
+
+    Credentials get(String username, long now) {
+        if (username == null) {
+            return null;
+        }
+        Credentials cached = entries.get(username);
+        if (cached != null && now - cached.loadedAtMillis() < ttlMillis) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        long generation = invalidations.get();
+        Credentials loaded = userRepository.findByUsername(username).map(u -> Credentials.of(u, now)).orElse(null);
+        if (loaded == null) {
+            remove(username);
+        } else if (maxEntries > 0) {
+            put(username, loaded, generation);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops a user's cached credentials. Call it once the change to the user is
+     * committed.
+     *
+     * @param username The username
+     */
+    public void invalidate(String username) {
+        invalidations.incrementAndGet();
+        if (username != null) {
+            remove(username);
+        }
+    }
+
+    /** @return Number of cached users, including expired entries not yet reloaded */
+    public int size() {
+        return entries.size();
+    }
+
+    /** @return Estimated heap used per cached user, in bytes; 0 when empty */
+    public long entryBytes() {
+        int size = entries.size();
+        return size == 0 ? 0 : bytes.get() / size;
+    }
+
+    private void put(String username, Credentials loaded, long generation) {
+        if (entries.size() >= maxEntries && !entries.containsKey(username)) {
+            makeRoom();
+        }
+        Credentials previous = entries.put(username, loaded);
+        bytes.addAndGet(loaded.estimatedBytes() - (previous != null ? previous.estimatedBytes() : 0));
+        if (invalidations.get() != generation) {
+            // the row may have changed while it was being read
+            if (entries.remove(username, loaded)) {
+                bytes.addAndGet(-loaded.estimatedBytes());
+            }
+        }
+    }
+
+    private void remove(String username) {
+        Credentials previous = entries.remove(username);
+        if (previous != null) {
+            bytes.addAndGet(-previous.estimatedBytes());
+        }
+    }
+
+    private void makeRoom() {
+        // drop roughly a tenth of the entries rather than one per insert
+        int excess = entries.size() - maxEntries + Math.max(1, maxEntries / 10);
+        Iterator<String> it = entries.keySet().iterator();
+        while (excess-- > 0 && it.hasNext()) {
+            remove(it.next());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.credentials.cache.size", entries, Map::size)
+                .description("Users whose credentials are currently cached")
+                .register(registry);
+        FunctionCounter.builder("auth.credentials.cache.hits", hits, LongAdder::sum)
+                .description("Credential lookups served from the cache")
+                .register(registry);
+        FunctionCounter.builder("auth.credentials.cache.misses", misses, LongAdder::sum)
+                .description("Credential lookups that read the users table")
+                .register(registry);
+        FunctionCounter.builder("auth.credentials.cache.verified", verified, LongAdder::sum)
+                .description("Cached credentials served at login after checking the row's credentials version")
+                .register(registry);
+        FunctionCounter.builder("auth.credentials.cache.stale", stale, LongAdder::sum)
+                .description("Cached credentials found changed or deleted at login, e.g. through another instance")
+                .register(registry);
+        Gauge.builder("auth.credentials.cache.hit.ratio", this, c -> {
+                    double total = c.hits.sum() + c.misses.sum();
+                    return total == 0 ? 0 : c.hits.sum() / total;
+                })
+                .description("Share of credential lookups served from the cache")
+                .register(registry);
+        Gauge.builder("auth.credentials.cache.entry.bytes", this, UserCredentialCache::entryBytes)
+                .description("Estimated heap used per cached user")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Credential projection of a user.
+     *
+     * @param id The user's id
+     * @param username The username
+     * @param role The user's role
+     * @param hash The decoded password hash; {@code null} if the stored hash is malformed
+     * @param forcePasswordReset Whether the user must change their password
+     * @param version The user's credentials version when the projection was read
+     * @param loadedAtMillis When the projection was read from the database
+     */
+    public record Credentials(Long id, String username, User.Role role, Pbkdf2Password.EncodedHash hash,
+                              boolean forcePasswordReset, long version, long loadedAtMillis) {
+
+        /**
+         * Projects a user as loaded from the database.
+         *
+         * @param user The user
+         * @param now The current time in epoch milliseconds
+         * @return The user's credentials
+         */
+        static Credentials of(User user, long now) {
+            return new Credentials(user.getId(), user.getUsername(), user.getRole(),
+                    Pbkdf2Password.decode(user.getPasswordHash(), user.getSalt()), user.isForcePasswordReset(),
+                    user.getCredentialsVersion(), now);
+        }
+
+        /**
+         * Rough heap footprint, with compressed references: the map node, this
+         * record, the username (shared with the key) and the decoded hash with
+         * its two arrays.
+         *
+         * @return Estimated size in bytes
+         */
+        long estimatedBytes() {
+            long size = 32 + 48 + 24 + align(16 + username.length());
+            if (hash != null) {
+                size += 32 + align(16 + hash.salt().length) + align(16 + hash.hash().length);
+            }
+            return size;
+        }
+
+        private static long align(long size) {
+            return (size + 7) & ~7L;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+-- Migrates login_audit.ip from text to BYTEA for existing PostgreSQL deployments.
+--
+-- Run once, with the application stopped, on databases created before IP
+-- addresses were stored in binary (see IpAddressConverter); Hibernate's
+-- ddl-auto does not change the type of an existing column. Works on the plain
+-- and on the partitioned table (login_audit_partitioned.sql); the
+-- (ip, timestamp) index is rebuilt by the ALTER.
+--
+-- Values are converted with the same rules as SecurityUtil.parseIp: the first
+-- entry of an X-Forwarded-For chain, without brackets or zone id; IPv4 as
+-- 4 bytes, including IPv4-mapped IPv6 and ::1 (127.0.0.1); other IPv6 as
+-- 16 bytes. Anything that is not an address becomes NULL.
+CREATE FUNCTION pg_temp.login_audit_ip_to_bytea(value TEXT) RETURNS BYTEA
+LANGUAGE plpgsql IMMUTABLE AS $$
+DECLARE
+    address INET;
+    text_form TEXT;
+    dotted TEXT;
+    head TEXT[];
+    tail TEXT[];
+    groups TEXT[];
+    hex TEXT := '';
+    g TEXT;
+BEGIN
+    text_form := btrim(split_part(value, ',', 1));
+    IF text_form LIKE '[%]' THEN
+        text_form := substr(text_form, 2, length(text_form) - 2);
+    END IF;
+    text_form := split_part(text_form, '%', 1);
+    IF text_form = '' OR position('/' IN text_form) > 0 THEN
+        RETURN NULL;
+    END IF;
+    address := text_form::INET;
+
+    IF family(address) = 6 AND address <<= '::ffff:0:0/96'::INET THEN
+        address := '0.0.0.0'::INET + ((address & '::ffff:ffff'::INET) - '::'::INET);
+    ELSIF address = '::1'::INET THEN
+        address := '127.0.0.1'::INET;
+    END IF;
+    IF family(address) = 4 THEN
+        RETURN decode(lpad(to_hex(address - '0.0.0.0'::INET), 8, '0'), 'hex');
+    END IF;
+
+    -- expand the compressed text form into eight 16-bit groups
+    text_form := host(address);
+    IF position('.' IN text_form) > 0 THEN
+        dotted := substring(text_form FROM '[^:]*$');
+        text_form := left(text_form, length(text_form) - length(dotted))
+                || to_hex(((dotted::INET - '0.0.0.0'::INET) >> 16)::INT) || ':'
+                || to_hex(((dotted::INET - '0.0.0.0'::INET) & 65535)::INT);
+    END IF;
+    IF position('::' IN text_form) > 0 THEN
+        head := coalesce(string_to_array(nullif(split_part(text_form, '::', 1), ''), ':'), '{}');
+        tail := coalesce(string_to_array(nullif(split_part(text_form, '::', 2), ''), ':'), '{}');
+        groups := head || array_fill('0'::TEXT, ARRAY[8 - cardinality(head) - cardinality(tail)]) || tail;
+    ELSE
+        groups := string_to_array(text_form, ':');
+    END IF;
+    FOREACH g IN ARRAY groups LOOP
+        hex := hex || lpad(g, 4, '0');
+    END LOOP;
+    RETURN decode(hex, 'hex');
+EXCEPTION
+    WHEN data_exception THEN
+        RETURN NULL;
+END
+$$;
+
+ALTER TABLE login_audit ALTER COLUMN ip TYPE BYTEA USING pg_temp.login_audit_ip_to_bytea(ip);
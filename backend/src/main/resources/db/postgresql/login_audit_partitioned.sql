@@ -0,0 +1,18 @@
+-- Partitioned login_audit for PostgreSQL deployments.
+--
+-- Run once, before the first start, instead of letting Hibernate create the table.
+-- AuditRetentionService detects the partitioned table, creates the monthly
+-- partitions (login_audit_pYYYY_MM) ahead of time and drops them once they are
+-- past the retention period. PostgreSQL requires the partition key in the
+-- primary key, hence (id, timestamp).
+CREATE TABLE login_audit (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    username VARCHAR(255),
+    ip BYTEA, -- 4 bytes (IPv4) or 16 bytes (IPv6), see IpAddressConverter
+    timestamp TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE INDEX ix_login_audit_username_timestamp ON login_audit (username, timestamp, id);
+CREATE INDEX ix_login_audit_timestamp ON login_audit (timestamp);
+CREATE INDEX ix_login_audit_ip_timestamp ON login_audit (ip, timestamp);
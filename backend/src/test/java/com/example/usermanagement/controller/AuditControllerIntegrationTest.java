@@ -0,0 +1,123 @@
+package com.example.usermanagement.controller;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.usermanagement.dto.AuditPage;
+import com.example.usermanagement.dto.AuditStats;
+import com.example.usermanagement.model.LoginAudit;
+import com.example.usermanagement.repository.JdbcAuditSink;
+import com.example.usermanagement.repository.LoginAuditRepository;
+import com.example.usermanagement.service.AuditStatsService;
+
+@DataJpaTest
+class AuditControllerIntegrationTest {
+    private static final OffsetDateTime T = OffsetDateTime.of(2024, 5, 1, 12, 0, 0, 123_456_000, ZoneOffset.UTC);
+
+    @Autowired LoginAuditRepository auditRepo;
+    @Autowired DataSource dataSource;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    private JdbcAuditSink sink;
+    private AuditController controller;
+
+    @BeforeEach
+    void setUp() {
+        sink = new JdbcAuditSink(auditRepo, dataSource, transactionManager, 100);
+        controller = new AuditController(sink, null, null, null);
+    }
+
+    @Test
+    void cursorRoundTripsTimestampAndId() {
+        LoginAudit last = audit("alice", "10.0.0.1", T);
+        last.setId(42L);
+
+        AuditController.Cursor decoded = AuditController.Cursor.decode(AuditController.Cursor.of(last).encode());
+        assertEquals(T.toInstant(), decoded.timestamp().toInstant());
+        assertEquals(42L, decoded.id());
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        String notThreeParts = Base64.getUrlEncoder().encodeToString("1:2".getBytes());
+        String notNumbers = Base64.getUrlEncoder().encodeToString("a:b:c".getBytes());
+        assertThrows(IllegalArgumentException.class, () -> AuditController.Cursor.decode("%%%"));
+        assertThrows(IllegalArgumentException.class, () -> AuditController.Cursor.decode(notThreeParts));
+        assertThrows(IllegalArgumentException.class, () -> AuditController.Cursor.decode(notNumbers));
+
+        ResponseEntity<?> response = controller.getAudit("alice", null, null, notNumbers, 10);
+        assertEquals(400, response.getStatusCode().value());
+    }
+
+    @Test
+    void pagesThroughTimestampTiesWithoutSkippingOrRepeating() {
+        List<LoginAudit> batch = new ArrayList<>();
+        batch.add(audit("alice", "10.0.0.1", T.plusSeconds(1)));
+        for (int i = 0; i < 7; i++) {
+            batch.add(audit("alice", "10.0.0." + (i + 2), T)); // seven logins in the same instant
+        }
+        batch.add(audit("alice", "10.0.0.9", T.minusSeconds(1)));
+        batch.add(audit("bob", "10.0.0.10", T));
+        sink.append(batch);
+
+        List<LoginAudit> expected = auditRepo.findAll().stream()
+                .filter(a -> a.getUsername().equals("alice"))
+                .sorted(Comparator.comparing(LoginAudit::getTimestamp).thenComparing(LoginAudit::getId).reversed())
+                .toList();
+        assertEquals(9, expected.size());
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ResponseEntity<?> response = controller.getAudit("alice", null, null, cursor, 3);
+            AuditPage page = (AuditPage) response.getBody();
+            assertTrue(page.getEntries().size() <= 3);
+            page.getEntries().forEach(a -> seen.add(a.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertEquals(expected.stream().map(LoginAudit::getId).toList(), seen);
+        assertNull(cursor);
+    }
+
+    @Test
+    void looksUpStatsByTheCanonicalAddress() {
+        AuditStatsService stats = new AuditStatsService(sink, 100);
+        stats.record("alice", "10.0.0.1", OffsetDateTime.now(ZoneOffset.UTC));
+        AuditController statsController = new AuditController(sink, null, null, stats);
+
+        ResponseEntity<?> response = statsController.getStats(null, " ::ffff:10.0.0.1 ");
+        AuditStats body = (AuditStats) response.getBody();
+        assertEquals("10.0.0.1", body.getIp());
+        assertTrue(body.isTracked());
+        assertEquals(1, body.getWindows().get("1h").getLogins());
+        assertEquals(400, statsController.getStats(null, "not-an-ip").getStatusCode().value());
+    }
+
+    private static LoginAudit audit(String username, String ip, OffsetDateTime timestamp) {
+        LoginAudit a = new LoginAudit();
+        a.setUsername(username);
+        a.setIp(ip);
+        a.setTimestamp(timestamp);
+        return a;
+    }
+}
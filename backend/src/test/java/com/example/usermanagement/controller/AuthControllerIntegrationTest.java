@@ -2,10 +2,16 @@ package com.example.usermanagement.controller;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import org.springframework.test.web.servlet.MockMvc;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -17,13 +23,23 @@ import com.example.usermanagement.service.RefreshTokenService;
 class AuthControllerIntegrationTest {
     @Autowired MockMvc mvc;
     @MockBean RefreshTokenService refreshTokenService;
+    @MockBean com.example.usermanagement.service.TokenRefreshService tokenRefreshService;
     @MockBean com.example.usermanagement.service.AuthService authService;
     @MockBean com.example.usermanagement.repository.UserRepository userRepository;
     @MockBean com.example.usermanagement.security.JwtUtil jwtUtil;
     @MockBean com.example.usermanagement.security.JwtAuthenticationFilter jwtAuthenticationFilter;
+    @MockBean com.example.usermanagement.security.PasswordHashingExecutor hashingExecutor;
+    @MockBean com.example.usermanagement.service.LastLoginRecorder lastLoginRecorder;
+    @MockBean com.example.usermanagement.service.UserCredentialCache userCredentialCache;
 
     @BeforeEach
-    void setUp() { }
+    void setUp() throws Exception {
+        // a mocked filter would end the chain before the controller
+        doAnswer(inv -> {
+            inv.getArgument(2, jakarta.servlet.FilterChain.class).doFilter(inv.getArgument(0), inv.getArgument(1));
+            return null;
+        }).when(jwtAuthenticationFilter).doFilter(any(), any(), any());
+    }
 
     @Test
     void logoutCallsRevoke() throws Exception {
@@ -35,4 +51,22 @@ class AuthControllerIntegrationTest {
         // No refresh token cookie present; ensure no interactions fail
         verifyNoInteractions(refreshTokenService);
     }
+
+    @Test
+    void loginIgnoresClientSuppliedForwardedFor() throws Exception {
+        when(authService.login(any(), any())).thenReturn(new com.example.usermanagement.dto.AuthResponse("token"));
+        when(authService.getUsernameFromToken("token")).thenReturn("alice");
+        when(refreshTokenService.createRefreshToken("alice")).thenReturn("refresh");
+
+        mvc.perform(post("/api/auth/login")
+                .with(csrf())
+                .with(request -> { request.setRemoteAddr("198.51.100.7"); return request; })
+                .with(org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user("anyone"))
+                .header("X-Forwarded-For", "203.0.113.66")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"alice\",\"password\":\"secret123\"}")
+        ).andExpect(status().isOk());
+        // throttled and audited under the connection's address, not the one the client claimed
+        verify(authService).login(any(), eq("198.51.100.7"));
+    }
 }
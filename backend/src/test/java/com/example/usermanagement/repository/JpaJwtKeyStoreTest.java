@@ -0,0 +1,59 @@
+package com.example.usermanagement.repository;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import com.example.usermanagement.security.JwtKeyStore.StoredKey;
+
+@DataJpaTest
+class JpaJwtKeyStoreTest {
+    @Autowired JwtSigningKeyRepository repository;
+
+    @Test
+    void storesKeysAndRejectsASecondKeyForTheSameInstant() throws Exception {
+        JpaJwtKeyStore store = new JpaJwtKeyStore(repository, "");
+        KeyPair pair = generate();
+
+        assertTrue(store.insert(new StoredKey("kid-1", 1000, pair)));
+        assertFalse(store.insert(new StoredKey("kid-2", 1000, generate())));
+
+        List<StoredKey> keys = store.load();
+        assertEquals(1, keys.size());
+        assertEquals("kid-1", keys.get(0).kid());
+        assertArrayEquals(pair.getPrivate().getEncoded(), keys.get(0).keyPair().getPrivate().getEncoded());
+
+        store.delete("kid-1");
+        assertTrue(store.load().isEmpty());
+    }
+
+    @Test
+    void encryptsPrivateKeysWhenAKeyIsConfigured() throws Exception {
+        String aesKey = Base64.getEncoder().encodeToString(new byte[32]);
+        JpaJwtKeyStore store = new JpaJwtKeyStore(repository, aesKey);
+        KeyPair pair = generate();
+
+        store.insert(new StoredKey("kid-1", 1000, pair));
+        byte[] stored = repository.findById("kid-1").orElseThrow().getPrivateKey();
+        assertEquals(0x01, stored[0]);
+        assertNotEquals(pair.getPrivate().getEncoded().length, stored.length);
+        assertArrayEquals(pair.getPrivate().getEncoded(), store.load().get(0).keyPair().getPrivate().getEncoded());
+    }
+
+    private static KeyPair generate() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+}
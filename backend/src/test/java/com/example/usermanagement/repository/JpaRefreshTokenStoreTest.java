@@ -0,0 +1,121 @@
+package com.example.usermanagement.repository;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.usermanagement.model.RefreshToken;
+import com.example.usermanagement.model.User;
+
+@DataJpaTest
+@Import(JpaRefreshTokenStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaRefreshTokenStoreTest {
+    private static final OffsetDateTime NOW = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+
+    @Autowired JpaRefreshTokenStore store;
+    @Autowired RefreshTokenRepository tokens;
+    @Autowired UserRepository users;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void createUser() {
+        User user = new User();
+        user.setUsername("alice");
+        user.setRole(User.Role.USER);
+        users.save(user);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        tokens.deleteAll();
+        users.deleteAll();
+    }
+
+    @Test
+    void revocationDuringARotationAlsoDeletesTheSuccessor() throws Exception {
+        RefreshToken current = tokens.save(token("sel-1", "fam-1"));
+        CountDownLatch rotated = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> rotation = CompletableFuture.supplyAsync(() ->
+                new TransactionTemplate(transactionManager).execute(status -> {
+                    boolean ok = store.rotate(current, token("sel-2", "fam-1"), NOW, NOW.plusDays(1));
+                    rotated.countDown();
+                    await(commit);
+                    return ok;
+                }));
+        assertTrue(rotated.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Integer> revocation = CompletableFuture.supplyAsync(() -> store.deleteByUsername("alice"));
+        Thread.sleep(200);
+        assertFalse(revocation.isDone(), "revocation must wait for the rotation to commit");
+
+        commit.countDown();
+        assertTrue(rotation.get(5, TimeUnit.SECONDS));
+        assertEquals(2, revocation.get(5, TimeUnit.SECONDS));
+        assertEquals(0, tokens.count());
+    }
+
+    @Test
+    void rotationKeepsTheRotatedTokenOnlyForTheReuseWindow() {
+        RefreshToken current = tokens.save(token("sel-1", "fam-1"));
+
+        assertTrue(store.rotate(current, token("sel-2", "fam-1"), NOW, NOW.plusDays(1)));
+
+        assertEquals(NOW.plusDays(1).toInstant(), tokens.findBySelector("sel-1").orElseThrow().getExpiresAt().toInstant());
+        assertEquals(NOW.plusDays(30).toInstant(), tokens.findBySelector("sel-2").orElseThrow().getExpiresAt().toInstant());
+    }
+
+    @Test
+    void rotationAfterRevocationIssuesNothing() {
+        RefreshToken current = tokens.save(token("sel-1", "fam-1"));
+
+        assertEquals(1, store.deleteByUsername("alice"));
+
+        assertFalse(store.rotate(current, token("sel-2", "fam-1"), NOW, NOW.plusDays(1)));
+        assertEquals(0, tokens.count());
+    }
+
+    @Test
+    void doesNotRotateTokensOfADeletedUser() {
+        RefreshToken current = tokens.save(token("sel-1", "fam-1"));
+        users.deleteAll();
+
+        assertFalse(store.rotate(current, token("sel-2", "fam-1"), NOW, NOW.plusDays(1)));
+        assertTrue(tokens.findBySelector("sel-2").isEmpty());
+    }
+
+    private static RefreshToken token(String selector, String familyId) {
+        RefreshToken token = new RefreshToken();
+        token.setSelector(selector);
+        token.setVerifierHash(new byte[32]);
+        token.setUsername("alice");
+        token.setFamilyId(familyId);
+        token.setExpiresAt(NOW.plusDays(30));
+        return token;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.usermanagement.repository;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.usermanagement.dto.AuditIpUser;
+import com.example.usermanagement.model.LoginAudit;
+import com.example.usermanagement.security.IpRange;
+
+class MappedAuditSinkTest {
+    private static final OffsetDateTime BASE = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS).minusHours(1);
+    private static final OffsetDateTime FAR = OffsetDateTime.of(9999, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime EPOCH = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void pagesNewestFirstWithKeysetCursor() throws IOException {
+        MappedAuditSink sink = open(1000, 8);
+        List<LoginAudit> batch = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            batch.add(record(i % 3 == 0 ? "alice" : "bob", i));
+        }
+        sink.append(batch);
+
+        List<LoginAudit> first = sink.findPage("alice", EPOCH, FAR, Long.MAX_VALUE, 4);
+        assertEquals(List.of(28L, 25L, 22L, 19L), ids(first));
+        assertEquals("alice", first.get(0).getUsername());
+        assertEquals("10.0.0.27", first.get(0).getIp());
+        assertEquals(BASE.plusSeconds(27), first.get(0).getTimestamp());
+
+        LoginAudit last = first.get(3);
+        List<LoginAudit> second = sink.findPage("alice", EPOCH, last.getTimestamp(), last.getId(), 4);
+        assertEquals(List.of(16L, 13L, 10L, 7L), ids(second));
+
+        List<LoginAudit> bounded = sink.findPage("alice", BASE.plusSeconds(20), FAR, Long.MAX_VALUE, 10);
+        assertEquals(List.of(28L, 25L, 22L), ids(bounded));
+    }
+
+    @Test
+    void distinguishesLongUsernamesSharingTheStoredPrefix() throws IOException {
+        MappedAuditSink sink = open(1000, 8);
+        String prefix = "x".repeat(AuditSegment.USER_BYTES);
+        sink.append(List.of(record(prefix + "-one", 0), record(prefix + "-two", 1), record(prefix + "-one", 2)));
+
+        assertEquals(List.of(3L, 1L), ids(sink.findPage(prefix + "-one", EPOCH, FAR, Long.MAX_VALUE, 10)));
+        assertEquals(List.of(2L), ids(sink.findPage(prefix + "-two", EPOCH, FAR, Long.MAX_VALUE, 10)));
+        assertTrue(sink.findPage(prefix, EPOCH, FAR, Long.MAX_VALUE, 10).isEmpty());
+    }
+
+    @Test
+    void scansTimeRangeInAppendOrder() throws IOException {
+        MappedAuditSink sink = open(1000, 4);
+        List<LoginAudit> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batch.add(record("user" + (i % 2), i));
+        }
+        sink.append(batch);
+
+        List<String> seen = new ArrayList<>();
+        sink.scan(null, BASE.plusSeconds(5), BASE.plusSeconds(9), (id, user, ip, ts) -> seen.add(id + ":" + user));
+        assertEquals(List.of("6:user1", "7:user0", "8:user1", "9:user0"), seen);
+
+        seen.clear();
+        sink.scan("user0", BASE.plusSeconds(14), null, (id, user, ip, ts) -> seen.add(id + ":" + user));
+        assertEquals(List.of("15:user0", "17:user0", "19:user0"), seen);
+    }
+
+    @Test
+    void findsUsersByAddressRange() throws IOException {
+        MappedAuditSink sink = open(1000, 4);
+        List<LoginAudit> batch = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            batch.add(record("user" + (i % 3), i));
+        }
+        LoginAudit v6 = record("carol", 12);
+        v6.setIp("2001:db8::5");
+        batch.add(v6);
+        sink.append(batch);
+
+        List<AuditIpUser> rows = sink.findByAddress(IpRange.parse("10.0.0.8/30"), EPOCH, FAR, 10);
+        assertEquals(List.of("user2@10.0.0.11", "user1@10.0.0.10", "user0@10.0.0.9", "user2@10.0.0.8"),
+                rows.stream().map(r -> r.getUsername() + "@" + r.getIp()).toList());
+        assertEquals(1, rows.get(0).getLogins());
+        assertEquals(BASE.plusSeconds(11), rows.get(0).getLastLogin());
+
+        List<AuditIpUser> v6rows = sink.findByAddress(IpRange.parse("2001:db8::/32"), EPOCH, FAR, 10);
+        assertEquals(1, v6rows.size());
+        assertEquals("2001:db8::5", v6rows.get(0).getIp());
+        assertTrue(sink.findByAddress(IpRange.parse("10.0.0.0/8"), EPOCH, BASE, 10).isEmpty());
+    }
+
+    @Test
+    void rollsIntoNewSegmentsAndReopensThem() throws IOException {
+        MappedAuditSink sink = open(10, 4);
+        List<LoginAudit> batch = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            batch.add(record("alice", i));
+        }
+        sink.append(batch);
+        sink.close();
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(3, files.count());
+        }
+
+        MappedAuditSink reopened = open(10, 4);
+        reopened.append(List.of(record("alice", 25)));
+
+        assertEquals(List.of(26L, 25L, 24L, 23L, 22L, 21L, 20L, 19L, 18L, 17L, 16L, 15L),
+                ids(reopened.findPage("alice", EPOCH, FAR, Long.MAX_VALUE, 12)));
+        List<Long> scanned = new ArrayList<>();
+        reopened.scan("alice", null, null, (id, user, ip, ts) -> scanned.add(id));
+        assertEquals(LongStream.rangeClosed(1, 26).boxed().toList(), scanned);
+    }
+
+    @Test
+    void skipsBlocksWithoutTheUser() throws IOException {
+        int blocks = 32;
+        AuditSegment segment = AuditSegment.create(dir.resolve("filter.seg"), 1, blocks * 256, 256);
+        assertEquals(4096, segment.filterBits());
+        byte[] ip = {10, 0, 0, 1};
+        for (int i = 0; i < blocks * 256; i++) {
+            byte[] user = (i == 7 * 256 + 100 ? "needle" : "user" + i).getBytes(StandardCharsets.UTF_8);
+            segment.append(AuditSegment.hash(user), user, ip, i);
+        }
+
+        long needle = AuditSegment.hash("needle".getBytes(StandardCharsets.UTF_8));
+        assertTrue(segment.blockMayContain(7, needle));
+        int falsePositives = 0;
+        for (int u = 0; u < 200; u++) {
+            long absent = AuditSegment.hash(("absent" + u).getBytes(StandardCharsets.UTF_8));
+            for (int block = 0; block < blocks; block++) {
+                if (segment.blockMayContain(block, absent)) {
+                    falsePositives++;
+                }
+            }
+        }
+        // about 0.05% expected with 16 bits and 11 hashes per record
+        assertTrue(falsePositives < blocks * 200 / 100, "blocks read without a match: " + falsePositives);
+    }
+
+    private MappedAuditSink open(int segmentRecords, int blockRecords) throws IOException {
+        MappedAuditSink sink = new MappedAuditSink(dir.toString(), segmentRecords, blockRecords, 90);
+        sink.open();
+        return sink;
+    }
+
+    private static LoginAudit record(String username, int second) {
+        LoginAudit a = new LoginAudit();
+        a.setUsername(username);
+        a.setIp("10.0.0." + second);
+        a.setTimestamp(BASE.plusSeconds(second));
+        return a;
+    }
+
+    private static List<Long> ids(List<LoginAudit> page) {
+        return page.stream().map(LoginAudit::getId).toList();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.usermanagement.repository;
+
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.usermanagement.model.RefreshToken;
+
+class OffHeapRefreshTokenStoreTest {
+    private static final String SELECTOR_A = "selectorAAAAAAAA";
+    private static final String SELECTOR_B = "selectorBBBBBBBB";
+
+    private final OffsetDateTime now = OffsetDateTime.now();
+    private final RefreshTokenRepository repo = mock(RefreshTokenRepository.class);
+    private final OffHeapRefreshTokenStore store =
+            new OffHeapRefreshTokenStore(repo, mock(PlatformTransactionManager.class), 1, 16, 100, 1000, 1);
+
+    @Test
+    void droppedBatchRequeuesRotationsAndDeletions() {
+        RefreshToken current = token(SELECTOR_A);
+        store.insert(current);
+        store.flushJournal();
+
+        when(repo.markRotated(any(), any(), any())).thenThrow(new IllegalStateException("db down")).thenReturn(1);
+        assertTrue(store.rotate(current, token(SELECTOR_B), now, now.plusDays(1)));
+        store.delete(token(SELECTOR_B));
+        assertThrows(IllegalStateException.class, store::flushBatch);
+
+        // the successor's insert is lost; the rotation and the deletion are applied on the next flush
+        assertEquals(2, store.flushBatch());
+        verify(repo, times(2)).markRotated(eq(SELECTOR_A), any(), any());
+        verify(repo).deleteBySelectorIn(anyCollection());
+    }
+
+    private RefreshToken token(String selector) {
+        RefreshToken token = new RefreshToken();
+        token.setSelector(selector);
+        token.setVerifierHash(new byte[32]);
+        token.setUsername("alice");
+        token.setFamilyId("familyAAAAAAAAAA");
+        token.setExpiresAt(now.plusDays(30));
+        return token;
+    }
+}
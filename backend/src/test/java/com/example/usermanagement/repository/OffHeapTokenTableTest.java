@@ -0,0 +1,188 @@
+package com.example.usermanagement.repository;
+
+import java.security.SecureRandom;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.usermanagement.model.RefreshToken;
+
+class OffHeapTokenTableTest {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final List<String> journal = new ArrayList<>();
+    private OffHeapTokenTable table;
+
+    @BeforeEach
+    void setUp() {
+        table = new OffHeapTokenTable(4, 16, new OffHeapTokenTable.Journal() {
+            @Override
+            public void inserted(RefreshToken token) {
+                journal.add("insert " + token.getSelector());
+            }
+
+            @Override
+            public void rotated(String selector, long atMillis, long expiresAtMillis) {
+                journal.add("rotate " + selector);
+            }
+
+            @Override
+            public void removed(String selector) {
+                journal.add("delete " + selector);
+            }
+        });
+    }
+
+    @Test
+    void storesAndReadsBackTokens() {
+        RefreshToken t = token("alice", id(), 60);
+        table.insert(t, null);
+
+        RefreshToken read = table.find(t.getSelector());
+        assertNotNull(read);
+        assertEquals("alice", read.getUsername());
+        assertEquals(t.getFamilyId(), read.getFamilyId());
+        assertArrayEquals(t.getVerifierHash(), read.getVerifierHash());
+        assertEquals(t.getExpiresAt().toInstant().toEpochMilli(), read.getExpiresAt().toInstant().toEpochMilli());
+        assertNull(read.getRotatedAt());
+        assertNull(table.find(id()));
+        assertNull(table.find("not base64 !!!!!"));
+    }
+
+    @Test
+    void growsAndStaysConsistentUnderManyInsertsAndDeletes() {
+        List<String> selectors = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            RefreshToken t = token("user" + (i % 50), id(), 60);
+            table.insert(t, null);
+            selectors.add(t.getSelector());
+        }
+        for (int i = 0; i < selectors.size(); i += 2) {
+            assertTrue(table.remove(selectors.get(i)));
+        }
+        assertEquals(2500, table.size());
+        for (int i = 0; i < selectors.size(); i++) {
+            assertEquals(i % 2 == 1, table.find(selectors.get(i)) != null);
+        }
+    }
+
+    @Test
+    void rotationIsCompareAndSet() {
+        RefreshToken t = token("alice", id(), 60);
+        table.insert(t, null);
+        long now = System.currentTimeMillis();
+
+        assertTrue(table.markRotated(t.getSelector(), now, now + 60_000) > 0);
+        assertEquals(-1, table.markRotated(t.getSelector(), now, now + 60_000));
+        assertNotNull(table.find(t.getSelector()).getRotatedAt());
+    }
+
+    @Test
+    void rotationShortensTheExpiryToTheRetentionWindow() {
+        RefreshToken t = token("alice", id(), 3600);
+        table.insert(t, null);
+        long now = System.currentTimeMillis();
+
+        table.markRotated(t.getSelector(), now, now + 1000);
+        assertEquals(now + 1000, table.find(t.getSelector()).getExpiresAt().toInstant().toEpochMilli());
+        assertEquals(1, table.removeExpired(now + 1001, 10));
+        assertNull(table.find(t.getSelector()));
+    }
+
+    @Test
+    void expiredTokensCannotBeRotatedAndAreReaped() {
+        RefreshToken expired = token("alice", id(), -60);
+        RefreshToken live = token("alice", id(), 60);
+        table.insert(expired, null);
+        table.insert(live, null);
+        long now = System.currentTimeMillis();
+
+        assertEquals(-1, table.markRotated(expired.getSelector(), now, now + 60_000));
+        assertEquals(1, table.countExpired(now));
+        assertEquals(1, table.removeExpired(now, 10));
+        assertEquals(1, table.size());
+        assertNotNull(table.find(live.getSelector()));
+    }
+
+    @Test
+    void removingAnyMemberRemovesTheWholeFamily() {
+        String family = id();
+        RefreshToken first = token("alice", family, 60);
+        RefreshToken second = token("alice", family, 60);
+        RefreshToken third = token("alice", family, 60);
+        RefreshToken other = token("alice", id(), 60);
+        table.insert(first, null);
+        table.insert(second, first.getSelector());
+        table.insert(third, second.getSelector());
+        table.insert(other, null);
+
+        assertEquals(3, table.removeFamily(second.getSelector()));
+        assertNull(table.find(first.getSelector()));
+        assertNull(table.find(third.getSelector()));
+        assertNotNull(table.find(other.getSelector()));
+    }
+
+    @Test
+    void removingUserHidesAndDeletesOnlyTheirTokens() {
+        RefreshToken alice = token("alice", id(), 60);
+        RefreshToken bob = token("bob", id(), 60);
+        table.insert(alice, null);
+        table.insert(bob, null);
+
+        assertEquals(1, table.removeUser("alice"));
+        assertNull(table.find(alice.getSelector()));
+        assertNotNull(table.find(bob.getSelector()));
+
+        // tokens issued after the revocation are valid
+        RefreshToken again = token("alice", id(), 60);
+        table.insert(again, null);
+        assertNotNull(table.find(again.getSelector()));
+    }
+
+    @Test
+    void journalSeesMutationsInOrder() {
+        RefreshToken t = token("alice", id(), 60);
+        table.insert(t, null);
+        long now = System.currentTimeMillis();
+        table.markRotated(t.getSelector(), now, now + 60_000);
+        table.remove(t.getSelector());
+
+        assertEquals(List.of("insert " + t.getSelector(), "rotate " + t.getSelector(), "delete " + t.getSelector()), journal);
+    }
+
+    @Test
+    void restoredTokensAreNotJournaled() {
+        table.restore(token("alice", id(), 60), null);
+        assertEquals(1, table.size());
+        assertTrue(journal.isEmpty());
+        assertFalse(table.contains(id()));
+    }
+
+    private static RefreshToken token(String username, String familyId, long expiresInSeconds) {
+        RefreshToken t = new RefreshToken();
+        t.setSelector(id());
+        byte[] hash = new byte[OffHeapTokenTable.HASH_BYTES];
+        RANDOM.nextBytes(hash);
+        t.setVerifierHash(hash);
+        t.setUsername(username);
+        t.setFamilyId(familyId);
+        t.setExpiresAt(OffsetDateTime.now().plusSeconds(expiresInSeconds));
+        return t;
+    }
+
+    private static String id() {
+        byte[] b = new byte[OffHeapTokenTable.ID_BYTES];
+        RANDOM.nextBytes(b);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(b);
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.usermanagement.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+/**
+ * Conformance of {@link AccessTokenCodec} with jjwt: every token must get the
+ * same verdict from both, and accepted tokens must yield the same claims.
+ */
+class AccessTokenCodecTest {
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+
+    private JwtKeyRing keyRing;
+    private AccessTokenCodec codec;
+    private JwtParser jjwt;
+    private JwtKeyRing.SigningKey key;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        keyRing = new JwtKeyRing(new InMemoryJwtKeyStore(), 86_400_000, 300_000, 60_000);
+        codec = new AccessTokenCodec(keyRing);
+        key = keyRing.signingKey();
+        now = System.currentTimeMillis() / 1000;
+        jjwt = Jwts.parserBuilder().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                if (!"ES256".equals(header.getAlgorithm())) {
+                    throw new UnsupportedJwtException("alg");
+                }
+                Key k = keyRing.verificationKey(header.getKeyId());
+                if (k == null) {
+                    throw new UnsupportedJwtException("kid");
+                }
+                return k;
+            }
+        }).build();
+    }
+
+    @Test
+    void tokensIssuedByTheCodecAreAcceptedByBoth() {
+        String token = codec.encode("alice", "USER", "id-1", now, now + 300);
+        assertVerdict(true, token);
+        AccessToken parsed = codec.decode(token);
+        assertEquals(new AccessToken("alice", "USER", "id-1", now, now + 300), parsed);
+    }
+
+    @Test
+    void tokensIssuedByJjwtAreAcceptedByBoth() {
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, key.kid())
+                .setSubject("bob")
+                .claim("role", "ADMIN")
+                .setIssuedAt(new Date(now * 1000))
+                .setExpiration(new Date((now + 300) * 1000))
+                .signWith(key.keyPair().getPrivate(), SignatureAlgorithm.ES256)
+                .compact();
+        assertVerdict(true, token);
+    }
+
+    @Test
+    void nonAsciiAndEscapedValuesRoundTrip() {
+        String username = "josé \"q\" \\ € 😀";
+        String token = codec.encode(username, "USER", "id-2", now, now + 300);
+        assertVerdict(true, token);
+        assertEquals(username, codec.decode(token).subject());
+    }
+
+    @Test
+    void acceptsAnyValidJsonLayout() {
+        String header = "{ \"alg\" : \"ES256\" ,\n \"typ\":\"JWT\", \"kid\":\"" + key.kid() + "\"}";
+        String payload = "{\"exp\": " + (now + 300) + ", \"custom\":{\"a\":[1,-2.5e3,true,null,\"x\"]},"
+                + " \"role\":\"USER\",\"sub\":\"al\\u0069ce\",\"sub\":\"alice2\"}";
+        assertVerdict(true, sign(header, payload));
+    }
+
+    @Test
+    void rejectsDerEncodedSignaturesLikeJjwt() throws Exception {
+        String signingInput = B64.encodeToString(header(key.kid()).getBytes(StandardCharsets.UTF_8)) + "."
+                + B64.encodeToString(payload(now + 300).getBytes(StandardCharsets.UTF_8));
+        Signature der = Signature.getInstance("SHA256withECDSA");
+        der.initSign(key.keyPair().getPrivate());
+        der.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        // ES256 signatures must be the 64-byte R||S form; DER is not a JOSE encoding
+        assertVerdict(false, signingInput + "." + B64.encodeToString(der.sign()));
+    }
+
+    @Test
+    void tokensOfRetiredKeysStayValid() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        JwtKeyRing rotating = new JwtKeyRing(new InMemoryJwtKeyStore(), 60_000, 300_000, 60_000, clock::get);
+        AccessTokenCodec rotatingCodec = new AccessTokenCodec(rotating);
+        String token = rotatingCodec.encode("alice", "USER", "id-3", now, now + 300);
+        clock.addAndGet(60_000);
+        assertNotEquals(token.split("\\.")[0], rotatingCodec.encode("alice", "USER", "id-4", now, now + 300).split("\\.")[0]);
+        assertEquals("alice", rotatingCodec.decode(token).subject());
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        String token = codec.encode("alice", "USER", "id-1", now, now + 300);
+        String forged = B64.encodeToString(payload(now + 300).replace("USER", "ADMIN").getBytes(StandardCharsets.UTF_8));
+        String[] parts = token.split("\\.");
+        assertVerdict(false, parts[0] + "." + forged + "." + parts[2]);
+    }
+
+    @Test
+    void rejectsTamperedSignature() {
+        String token = codec.encode("alice", "USER", "id-1", now, now + 300);
+        char last = token.charAt(token.length() - 2);
+        assertVerdict(false, token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A') + token.charAt(token.length() - 1));
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        String token = codec.encode("alice", "USER", "id-1", now - 600, now - 10);
+        assertVerdict(false, token);
+        assertThrows(ExpiredJwtException.class, () -> codec.decode(token));
+    }
+
+    @Test
+    void rejectsTokensBeforeNotBefore() {
+        assertVerdict(false, sign(header(key.kid()), "{\"sub\":\"alice\",\"role\":\"USER\",\"nbf\":" + (now + 120) + "}"));
+    }
+
+    @Test
+    void rejectsUnknownKeyIds() {
+        assertVerdict(false, sign(header("not-a-key"), payload(now + 300)));
+        assertVerdict(false, sign("{\"alg\":\"ES256\"}", payload(now + 300)));
+    }
+
+    @Test
+    void rejectsOtherAlgorithms() {
+        Key hmac = new SecretKeySpec(new byte[32], "HmacSHA256");
+        String hs256 = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, key.kid())
+                .setSubject("alice")
+                .claim("role", "ADMIN")
+                .signWith(hmac, SignatureAlgorithm.HS256)
+                .compact();
+        assertVerdict(false, hs256);
+
+        String unsigned = Jwts.builder().setSubject("alice").claim("role", "ADMIN").compact();
+        assertVerdict(false, unsigned);
+    }
+
+    @Test
+    void rejectsMalformedJson() {
+        assertVerdict(false, sign(header(key.kid()), "{\"sub\":\"alice\",\"role\":\"USER\",}"));
+        assertVerdict(false, sign(header(key.kid()), "{\"sub\":\"alice\",\"role\":\"USER\",\"x\":01}"));
+        assertVerdict(false, sign(header(key.kid()), "{\"sub\":\"alice\",\"role\":\"USER\"}\n"));
+        assertVerdict(false, sign(header(key.kid()), "[\"sub\",\"alice\"]"));
+    }
+
+    @Test
+    void rejectsMalformedStructure() {
+        String token = codec.encode("alice", "USER", "id-1", now, now + 300);
+        assertVerdict(false, token + ".extra");
+        assertVerdict(false, token.substring(0, token.lastIndexOf('.')));
+        assertVerdict(false, token.substring(token.indexOf('.')));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(""));
+    }
+
+    private void assertVerdict(boolean expected, String token) {
+        AccessToken ours = codecResult(token);
+        Claims theirs = jjwtResult(token);
+        assertEquals(expected, ours != null, "codec verdict");
+        assertEquals(expected, theirs != null, "jjwt verdict");
+        if (expected) {
+            assertEquals(theirs.getSubject(), ours.subject());
+            assertEquals(theirs.get("role"), ours.role());
+            assertEquals(theirs.getId(), ours.id());
+        }
+    }
+
+    private AccessToken codecResult(String token) {
+        try {
+            AccessToken t = codec.decode(token);
+            return t.subject() != null && t.role() != null ? t : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private Claims jjwtResult(String token) {
+        try {
+            Claims c = jjwt.parseClaimsJws(token).getBody();
+            return c.get("sub") instanceof String && c.get("role") instanceof String ? c : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String header(String kid) {
+        return "{\"kid\":\"" + kid + "\",\"alg\":\"ES256\"}";
+    }
+
+    private static String payload(long exp) {
+        return "{\"sub\":\"alice\",\"role\":\"USER\",\"exp\":" + exp + "}";
+    }
+
+    private String sign(String headerJson, String payloadJson) {
+        try {
+            String signingInput = B64.encodeToString(headerJson.getBytes(StandardCharsets.UTF_8)) + "."
+                    + B64.encodeToString(payloadJson.getBytes(StandardCharsets.UTF_8));
+            Signature signer = Signature.getInstance("SHA256withECDSAinP1363Format");
+            signer.initSign(key.keyPair().getPrivate());
+            signer.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + B64.encodeToString(signer.sign());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.usermanagement.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class AccessTokenRevocationListTest {
+    private final long now = System.currentTimeMillis() / 1000;
+
+    @Test
+    void revokedTokenIsRejectedUntilItExpires() {
+        AccessTokenRevocationList list = new AccessTokenRevocationList(300_000);
+        list.revoke(new AccessToken("alice", "USER", "jti-1", now, now + 300));
+
+        assertTrue(list.isRevoked("jti-1", "alice", now));
+        assertFalse(list.isRevoked("jti-2", "alice", now));
+        list.purgeExpired();
+        assertEquals(1, list.revokedTokenCount());
+    }
+
+    @Test
+    void expiredEntriesArePurged() {
+        AccessTokenRevocationList list = new AccessTokenRevocationList(0);
+        list.revoke(new AccessToken("alice", "USER", "jti-1", now, now));
+        list.revokeAllForUser("bob");
+        list.purgeExpired();
+
+        assertEquals(0, list.revokedTokenCount());
+        assertEquals(0, list.watermarkCount());
+    }
+
+    @Test
+    void alreadyExpiredTokensAreNotTracked() {
+        AccessTokenRevocationList list = new AccessTokenRevocationList(300_000);
+        list.revoke(new AccessToken("alice", "USER", "jti-1", now - 600, now - 300));
+        assertEquals(0, list.revokedTokenCount());
+    }
+
+    @Test
+    void watermarkRevokesEverythingIssuedBefore() {
+        AccessTokenRevocationList list = new AccessTokenRevocationList(300_000);
+        list.revokeAllForUser("alice");
+
+        assertTrue(list.isRevoked("any", "alice", now - 10));
+        assertTrue(list.isRevoked(null, "alice", AccessToken.ABSENT));
+        assertFalse(list.isRevoked("any", "alice", now + 5));
+        assertFalse(list.isRevoked("any", "bob", now - 10));
+    }
+}
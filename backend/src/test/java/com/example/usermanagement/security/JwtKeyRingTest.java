@@ -0,0 +1,134 @@
+package com.example.usermanagement.security;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class JwtKeyRingTest {
+    private static final long ROTATION = 60_000;
+    private static final long LIFETIME = 300_000;
+
+    /** On a multiple of the rotation interval, where the first key's slot starts */
+    private final AtomicLong clock = new AtomicLong(1_699_999_980_000L);
+    private final InMemoryJwtKeyStore store = new InMemoryJwtKeyStore();
+
+    @Test
+    void keepsSigningWithTheSameKeyUntilRotationIsDue() {
+        JwtKeyRing ring = ring();
+        JwtKeyRing.SigningKey first = ring.signingKey();
+        clock.addAndGet(ROTATION - 1);
+        assertEquals(first.kid(), ring.signingKey().kid());
+    }
+
+    @Test
+    void publishesTheNextKeyBeforeItSigns() {
+        JwtKeyRing ring = ring();
+        List<JwtKeyRing.SigningKey> published = ring.publishedKeys();
+        assertEquals(2, published.size());
+        String nextKid = published.get(0).kid();
+        assertNotEquals(nextKid, ring.signingKey().kid());
+
+        clock.addAndGet(ROTATION);
+        assertEquals(nextKid, ring.signingKey().kid());
+    }
+
+    @Test
+    void retiredKeysKeepVerifyingUntilTheirTokensExpire() {
+        JwtKeyRing ring = ring();
+        JwtKeyRing.SigningKey first = ring.signingKey();
+        clock.addAndGet(ROTATION);
+        JwtKeyRing.SigningKey second = ring.signingKey();
+
+        assertNotEquals(first.kid(), second.kid());
+        assertNotNull(ring.verificationKey(first.kid()));
+        assertTrue(ring.publishedKeys().stream().anyMatch(k -> k.kid().equals(first.kid())));
+
+        clock.addAndGet(LIFETIME + 60_000);
+        assertNull(ring.verificationKey(first.kid()));
+        assertTrue(store.load().stream().noneMatch(k -> k.kid().equals(first.kid())));
+    }
+
+    @Test
+    void instancesSharingAStoreUseTheSameKeys() {
+        JwtKeyRing a = ring();
+        JwtKeyRing b = ring();
+        assertEquals(a.signingKey().kid(), b.signingKey().kid());
+        assertEquals(a.publishedKeys().stream().map(JwtKeyRing.SigningKey::kid).toList(),
+                b.publishedKeys().stream().map(JwtKeyRing.SigningKey::kid).toList());
+
+        // a rotates and creates the key after next; b learns it when a token names it
+        clock.addAndGet(ROTATION);
+        String newest = a.publishedKeys().get(0).kid();
+        assertNotNull(b.verificationKey(newest));
+        assertEquals(a.signingKey().kid(), b.signingKey().kid());
+    }
+
+    @Test
+    void instancesStartingTogetherCreateOneKeyPerSlot() {
+        // both instances read the empty store before either inserts
+        clock.addAndGet(1_234);
+        JwtKeyRing a = new JwtKeyRing(readingEmptyFirst(), ROTATION, LIFETIME, ROTATION / 2, clock::get);
+        clock.addAndGet(2_345);
+        JwtKeyRing b = new JwtKeyRing(readingEmptyFirst(), ROTATION, LIFETIME, ROTATION / 2, clock::get);
+
+        assertEquals(2, store.load().size());
+        assertEquals(a.signingKey().kid(), b.signingKey().kid());
+    }
+
+    @Test
+    void overdueRotationStaysOnTheSchedule() {
+        JwtKeyRing ring = ring();
+        long first = ring.signingKey().activatedAt();
+        clock.addAndGet(5 * ROTATION + 7_000);
+        assertEquals(first + 5 * ROTATION, ring.signingKey().activatedAt());
+    }
+
+    @Test
+    void aRestartedInstanceKeepsVerifyingOutstandingTokens() {
+        String kid = ring().signingKey().kid();
+        JwtKeyRing restarted = ring();
+        assertEquals(kid, restarted.signingKey().kid());
+        assertNotNull(restarted.verificationKey(kid));
+    }
+
+    @Test
+    void rejectsUnknownKeyIds() {
+        JwtKeyRing ring = ring();
+        assertNull(ring.verificationKey("unknown"));
+        assertNull(ring.verificationKey(null));
+    }
+
+    /** The shared store, except that the first load returns nothing */
+    private JwtKeyStore readingEmptyFirst() {
+        return new JwtKeyStore() {
+            private boolean first = true;
+
+            @Override
+            public List<StoredKey> load() {
+                boolean empty = first;
+                first = false;
+                return empty ? List.of() : store.load();
+            }
+
+            @Override
+            public boolean insert(StoredKey key) {
+                return store.insert(key);
+            }
+
+            @Override
+            public void delete(String kid) {
+                store.delete(kid);
+            }
+        };
+    }
+
+    private JwtKeyRing ring() {
+        return new JwtKeyRing(store, ROTATION, LIFETIME, ROTATION / 2, clock::get);
+    }
+}
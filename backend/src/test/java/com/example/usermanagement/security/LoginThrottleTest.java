@@ -0,0 +1,99 @@
+package com.example.usermanagement.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class LoginThrottleTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void rejectsUsernameOverItsBurstAndRefills() {
+        // 3 attempts in a row, one more every 20 seconds
+        LoginThrottle throttle = new LoginThrottle(true, 4, 100, 3, 3, 100, 100, 900);
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("alice", "10.0.0.1", 0);
+        }
+        LoginThrottledException ex = assertThrows(LoginThrottledException.class, () -> throttle.acquire("ALICE", "10.0.0.1", 0));
+        assertEquals(20, ex.getRetryAfterSeconds());
+
+        throttle.acquire("alice", "10.0.0.1", 20 * SECOND);
+    }
+
+    @Test
+    void failedAttemptsFromOneAddressDoNotLockTheUserOutElsewhere() {
+        LoginThrottle throttle = new LoginThrottle(true, 4, 100, 3, 3, 100, 100, 900);
+        // someone else keeps failing with alice's username until blocked, then keeps trying
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("alice", "203.0.113.66", 0);
+        }
+        for (int i = 0; i < 5; i++) {
+            long now = i * SECOND;
+            assertThrows(LoginThrottledException.class, () -> throttle.acquire("alice", "203.0.113.66", now));
+        }
+
+        // alice herself, from her own address, is not affected
+        throttle.acquire("alice", "198.51.100.7", 5 * SECOND);
+        throttle.succeeded("alice", "198.51.100.7");
+        throttle.acquire("alice", "198.51.100.7", 5 * SECOND);
+        // and her success does not lift the other address's block
+        assertThrows(LoginThrottledException.class, () -> throttle.acquire("alice", "203.0.113.66", 6 * SECOND));
+    }
+
+    @Test
+    void backsOffProgressivelyUntilTheBucketRefills() {
+        LoginThrottle throttle = new LoginThrottle(true, 4, 100, 1, 6, 100, 100, 25);
+        throttle.acquire("alice", null, 0);
+        assertEquals(10, retryAfter(throttle, "alice", 0));
+        // still blocked: the block is not extended
+        assertEquals(5, retryAfter(throttle, "alice", 5 * SECOND));
+        throttle.acquire("alice", null, 10 * SECOND);
+        assertEquals(20, retryAfter(throttle, "alice", 10 * SECOND));
+        throttle.acquire("alice", null, 30 * SECOND);
+        // capped at max-backoff-seconds
+        assertEquals(25, retryAfter(throttle, "alice", 30 * SECOND));
+
+        // long enough after the last block to refill the bucket: the doubling starts over
+        throttle.acquire("alice", null, 200 * SECOND);
+        assertEquals(10, retryAfter(throttle, "alice", 200 * SECOND));
+    }
+
+    @Test
+    void limitsAnAddressAcrossUsernames() {
+        LoginThrottle throttle = new LoginThrottle(true, 4, 100, 100, 100, 2, 1, 900);
+        throttle.acquire("a", "10.0.0.1", 0);
+        throttle.acquire("b", "10.0.0.1", 0);
+        assertThrows(LoginThrottledException.class, () -> throttle.acquire("c", "10.0.0.1", 0));
+        throttle.acquire("c", "10.0.0.2", 0);
+        // the rejected attempt did not use up the username's bucket
+        assertEquals(3, throttle.trackedUsers());
+    }
+
+    @Test
+    void successClearsTheUsernameBucket() {
+        LoginThrottle throttle = new LoginThrottle(true, 4, 100, 1, 1, 100, 100, 900);
+        throttle.acquire("alice", "10.0.0.1", 0);
+        throttle.succeeded("Alice", "10.0.0.1");
+        throttle.acquire("alice", "10.0.0.1", 0);
+    }
+
+    @Test
+    void staysWithinBoundAndCanBeDisabled() {
+        LoginThrottle throttle = new LoginThrottle(true, 4, 20, 5, 5, 5, 5, 900);
+        for (int i = 0; i < 1000; i++) {
+            throttle.acquire("user" + i, "10.1." + (i >> 8) + "." + (i & 255), 0);
+        }
+        assertTrue(throttle.trackedUsers() <= 20);
+        assertTrue(throttle.trackedIps() <= 20);
+
+        LoginThrottle disabled = new LoginThrottle(false, 4, 20, 1, 1, 1, 1, 900);
+        for (int i = 0; i < 10; i++) {
+            disabled.acquire("alice", "10.0.0.1", 0);
+        }
+    }
+
+    private static long retryAfter(LoginThrottle throttle, String username, long now) {
+        return assertThrows(LoginThrottledException.class, () -> throttle.acquire(username, null, now)).getRetryAfterSeconds();
+    }
+}
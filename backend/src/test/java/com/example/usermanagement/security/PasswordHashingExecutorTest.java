@@ -0,0 +1,85 @@
+package com.example.usermanagement.security;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PasswordHashingExecutorTest {
+    private PasswordHashingExecutor executor;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        executor = new PasswordHashingExecutor(1, 1, 2000, 3);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void hashAndVerifyRoundTrip() {
+        String hash = executor.encode("secret".toCharArray());
+        assertTrue(executor.matches("secret".toCharArray(), hash, null));
+    }
+
+    @Test
+    void shedsLoadWhenQueueIsFull() throws Exception {
+        occupyWorker();
+        // fill the single queue slot
+        new Thread(() -> submitQuietly(() -> true)).start();
+        Thread.sleep(50);
+
+        HashingCapacityExceededException ex = assertThrows(HashingCapacityExceededException.class, () -> executor.submit(() -> true));
+        assertEquals(3L, ex.getRetryAfterSeconds());
+    }
+
+    @Test
+    void shedsTasksThatWaitTooLong() throws Exception {
+        occupyWorker();
+        assertThrows(HashingCapacityExceededException.class, () -> executor.submit(() -> true));
+    }
+
+    @Test
+    void shedTasksStillQueuedNeverRun() throws Exception {
+        occupyWorker();
+        AtomicBoolean ran = new AtomicBoolean();
+        assertThrows(HashingCapacityExceededException.class, () -> executor.submit(() -> ran.getAndSet(true)));
+        // the shed task gave its queue slot back while the worker is still busy
+        assertEquals(0, executor.queueDepth());
+        release.countDown();
+        assertTrue(executor.submit(() -> true));
+        assertFalse(ran.get());
+    }
+
+    private void occupyWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        new Thread(() -> submitQuietly(() -> { started.countDown(); return awaitRelease(); })).start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    // keeps the worker busy even when the abandoned caller cancels (interrupts) the task
+    private boolean awaitRelease() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (release.getCount() > 0 && System.nanoTime() < deadline) {
+            try { release.await(10, TimeUnit.MILLISECONDS); } catch (InterruptedException ignored) { }
+        }
+        return true;
+    }
+
+    private void submitQuietly(Callable<Boolean> task) {
+        try { executor.submit(task); } catch (HashingCapacityExceededException ignored) { }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.usermanagement.security;
+
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class Pbkdf2PasswordTest {
+
+    @AfterEach
+    void resetIterations() {
+        Pbkdf2Password.setIterations(Pbkdf2Password.DEFAULT_ITERATIONS);
+    }
+
+    @Test
+    void encodedHashRecordsParameters() {
+        String encoded = Pbkdf2Password.encode("secret".toCharArray(), 1000);
+        assertTrue(encoded.startsWith("$pbkdf2-sha256$v=1$i=1000$"));
+        assertTrue(Pbkdf2Password.matches("secret".toCharArray(), encoded, null));
+        assertFalse(Pbkdf2Password.matches("wrong".toCharArray(), encoded, null));
+    }
+
+    @Test
+    void samePasswordGetsDifferentSalts() {
+        assertNotEquals(Pbkdf2Password.encode("secret".toCharArray(), 1000), Pbkdf2Password.encode("secret".toCharArray(), 1000));
+    }
+
+    @Test
+    void legacyHashesStillVerifyAndNeedRehash() throws Exception {
+        byte[] salt = new byte[16];
+        PBEKeySpec spec = new PBEKeySpec("secret".toCharArray(), salt, Pbkdf2Password.DEFAULT_ITERATIONS, 256);
+        String legacyHash = Base64.getEncoder().encodeToString(SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded());
+        String legacySalt = Base64.getEncoder().encodeToString(salt);
+
+        assertTrue(Pbkdf2Password.matches("secret".toCharArray(), legacyHash, legacySalt));
+        assertFalse(Pbkdf2Password.matches("secret".toCharArray(), legacyHash, null));
+        assertTrue(Pbkdf2Password.needsRehash(legacyHash));
+    }
+
+    @Test
+    void needsRehashWhenCostIsRaised() {
+        String encoded = Pbkdf2Password.encode("secret".toCharArray(), 1000);
+        Pbkdf2Password.setIterations(1000);
+        assertFalse(Pbkdf2Password.needsRehash(encoded));
+        Pbkdf2Password.setIterations(2000);
+        assertTrue(Pbkdf2Password.needsRehash(encoded));
+    }
+
+    @Test
+    void derivationMatchesJcaImplementation() throws Exception {
+        SecretKeyFactory skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+        String longPassword = "x".repeat(100); // longer than the HMAC block size
+        for (String pwd : new String[] { "secret", "contraseña-ñandú-€", longPassword }) {
+            byte[] salt = ("salt-for-" + pwd.length()).getBytes();
+            byte[] expected = skf.generateSecret(new PBEKeySpec(pwd.toCharArray(), salt, 1000, 256)).getEncoded();
+            byte[] actual = new byte[32];
+            Pbkdf2Password.derive(pwd.toCharArray(), salt, 1000, actual);
+            assertArrayEquals(expected, actual);
+            assertTrue(Pbkdf2Password.matches(pwd.toCharArray(), salt, 1000, expected));
+        }
+    }
+
+    @Test
+    void malformedHashesNeverMatch() {
+        assertFalse(Pbkdf2Password.matches("secret".toCharArray(), "$pbkdf2-sha256$v=1$i=abc$x$y", null));
+        assertFalse(Pbkdf2Password.matches("secret".toCharArray(), "$bcrypt$whatever", "c2FsdA=="));
+        assertFalse(Pbkdf2Password.matches("secret".toCharArray(), null, null));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.usermanagement.security;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class SecurityUtilTest {
+
+    @Test
+    void normalizesLoopbackMappedAndForwardedAddresses() {
+        assertEquals("127.0.0.1", SecurityUtil.normalizeIp("::1"));
+        assertEquals("127.0.0.1", SecurityUtil.normalizeIp("0:0:0:0:0:0:0:1"));
+        assertEquals("192.168.1.5", SecurityUtil.normalizeIp("::ffff:192.168.1.5"));
+        assertEquals("203.0.113.7", SecurityUtil.normalizeIp(" 203.0.113.7 , 10.0.0.1, 10.0.0.2"));
+        assertEquals("2001:db8::1", SecurityUtil.normalizeIp("2001:0DB8:0:0:0:0:0:1"));
+        assertEquals("2001:db8::1:0:0:1", SecurityUtil.normalizeIp("2001:db8:0:0:1:0:0:1"));
+        assertEquals("fe80::1", SecurityUtil.normalizeIp("[fe80::1%eth0]"));
+    }
+
+    @Test
+    void parsesToFourOrSixteenBytes() {
+        assertArrayEquals(new byte[] { 10, 0, 0, (byte) 255 }, SecurityUtil.parseIp("10.0.0.255"));
+        assertEquals(16, SecurityUtil.parseIp("2001:db8::").length);
+        assertEquals("::", SecurityUtil.formatIp(new byte[16]));
+    }
+
+    @Test
+    void rejectsWhatIsNotAnAddressLiteral() {
+        assertNull(SecurityUtil.parseIp(null));
+        assertNull(SecurityUtil.parseIp(""));
+        assertNull(SecurityUtil.parseIp("example.com"));
+        assertNull(SecurityUtil.parseIp("10.0.0.256"));
+        assertNull(SecurityUtil.parseIp("10.0.0"));
+        assertNull(SecurityUtil.parseIp("1::2::3"));
+        assertNull(SecurityUtil.parseIp("1:2:3:4:5:6:7:8:9"));
+        assertNull(SecurityUtil.normalizeIp("unknown, 10.0.0.1"));
+    }
+
+    @Test
+    void cidrBlocksAreInclusiveRanges() {
+        IpRange v4 = IpRange.parse("10.1.2.3/8");
+        assertEquals("10.0.0.0-10.255.255.255", v4.toString());
+        assertTrue(v4.contains(SecurityUtil.parseIp("10.200.0.1")));
+        assertFalse(v4.contains(SecurityUtil.parseIp("11.0.0.0")));
+        assertFalse(v4.contains(SecurityUtil.parseIp("a00::1")));
+
+        IpRange v6 = IpRange.parse("2001:db8::/32");
+        assertEquals("2001:db8::-2001:db8:ffff:ffff:ffff:ffff:ffff:ffff", v6.toString());
+        assertEquals(IpRange.parse("192.168.0.0/16"), IpRange.parse("::ffff:192.168.0.0/112"));
+        assertEquals("203.0.113.7-203.0.113.7", IpRange.parse("203.0.113.7").toString());
+        assertEquals("0.0.0.0-255.255.255.255", IpRange.parse("0.0.0.0/0").toString());
+
+        assertThrows(IllegalArgumentException.class, () -> IpRange.parse("10.0.0.0/33"));
+        assertThrows(IllegalArgumentException.class, () -> IpRange.parse("10.0.0.0/x"));
+        assertThrows(IllegalArgumentException.class, () -> IpRange.parse("10.0.0.1, 10.0.0.2"));
+    }
+}
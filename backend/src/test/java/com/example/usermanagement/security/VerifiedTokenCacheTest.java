@@ -0,0 +1,55 @@
+package com.example.usermanagement.security;
+
+import java.util.List;
+
+import com.example.usermanagement.security.VerifiedTokenCache.VerifiedToken;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class VerifiedTokenCacheTest {
+
+    @Test
+    void returnsCachedTokenUntilExpiry() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        VerifiedToken alice = verified("alice", System.currentTimeMillis() + 60_000);
+        cache.put("token-a", alice);
+
+        assertSame(alice, cache.get("token-a"));
+        assertNull(cache.get("token-b"));
+    }
+
+    @Test
+    void neverServesExpiredEntries() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("expired", verified("alice", System.currentTimeMillis() - 1));
+        assertNull(cache.get("expired"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void staysWithinBound() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(20);
+        long exp = System.currentTimeMillis() + 60_000;
+        for (int i = 0; i < 100; i++) {
+            cache.put("token-" + i, verified("user" + i, exp));
+        }
+        assertTrue(cache.size() <= 20);
+        // the most recent insert is always present
+        assertEquals("user99", cache.get("token-99").username());
+    }
+
+    @Test
+    void zeroCapacityDisablesCaching() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(0);
+        cache.put("token", verified("alice", System.currentTimeMillis() + 60_000));
+        assertNull(cache.get("token"));
+    }
+
+    private static VerifiedToken verified(String username, long expiresAtMillis) {
+        return new VerifiedToken(username, List.of(), null, 0L, expiresAtMillis);
+    }
+}
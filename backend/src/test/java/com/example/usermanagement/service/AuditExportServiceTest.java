@@ -0,0 +1,51 @@
+package com.example.usermanagement.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+class AuditExportServiceTest {
+    private static final OffsetDateTime AT = OffsetDateTime.of(2024, 3, 1, 12, 30, 0, 0, ZoneOffset.ofHours(2));
+
+    @Test
+    void writesOneJsonObjectPerLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AuditExportService.RowWriter writer = new AuditExportService.NdjsonRowWriter(out);
+        writer.write(1, "alice", "10.0.0.1", AT);
+        writer.write(2, "bo\"b", null, AT);
+        writer.finish();
+
+        assertEquals("{\"id\":1,\"username\":\"alice\",\"ip\":\"10.0.0.1\",\"timestamp\":\"2024-03-01T10:30Z\"}\n"
+                + "{\"id\":2,\"username\":\"bo\\\"b\",\"ip\":null,\"timestamp\":\"2024-03-01T10:30Z\"}\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writesCsvWithHeaderQuotingAndFormulaGuard() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AuditExportService.RowWriter writer = new AuditExportService.CsvRowWriter(out);
+        writer.write(1, "alice", "10.0.0.1", AT);
+        writer.write(2, "a,\"b\"", "", null);
+        writer.write(3, "=cmd()", "::1", AT);
+        writer.finish();
+
+        assertEquals("id,username,ip,timestamp\r\n"
+                + "1,alice,10.0.0.1,2024-03-01T10:30Z\r\n"
+                + "2,\"a,\"\"b\"\"\",,\r\n"
+                + "3,'=cmd(),::1,2024-03-01T10:30Z\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void parsesFormatsCaseInsensitively() {
+        assertEquals(AuditExportService.Format.CSV, AuditExportService.Format.parse("CSV"));
+        assertEquals(AuditExportService.Format.NDJSON, AuditExportService.Format.parse("ndjson"));
+        assertThrows(IllegalArgumentException.class, () -> AuditExportService.Format.parse("xml"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.usermanagement.service;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.usermanagement.model.LoginAudit;
+import com.example.usermanagement.model.LoginAuditDaily;
+import com.example.usermanagement.repository.JdbcAuditSink;
+import com.example.usermanagement.repository.LoginAuditDailyRepository;
+import com.example.usermanagement.repository.LoginAuditRepository;
+
+@DataJpaTest
+class AuditRetentionServiceIntegrationTest {
+    private static final LocalDate OLD_DAY = LocalDate.now(ZoneOffset.UTC).minusDays(100);
+
+    @Autowired LoginAuditRepository auditRepo;
+    @Autowired LoginAuditDailyRepository dailyRepo;
+    @Autowired DataSource dataSource;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    private JdbcAuditSink sink;
+    private AuditRetentionService retention;
+
+    @BeforeEach
+    void setUp() {
+        sink = new JdbcAuditSink(auditRepo, dataSource, transactionManager, 100);
+        retention = new AuditRetentionService(dataSource, transactionManager, 90, 2, 31);
+        retention.init();
+    }
+
+    @Test
+    void compactsExpiredDaysIntoDailyRowsAndKeepsRecentDetail() {
+        sink.append(List.of(
+                audit("alice", "10.0.0.1", OLD_DAY, 8),
+                audit("alice", "10.0.0.2", OLD_DAY, 9),
+                audit("alice", "10.0.0.1", OLD_DAY, 17),
+                audit("bob", "10.0.0.3", OLD_DAY, 12),
+                audit("alice", "10.0.0.1", OLD_DAY.plusDays(3), 10),
+                audit("alice", "10.0.0.1", LocalDate.now(ZoneOffset.UTC).minusDays(1), 10)));
+
+        // every day from the oldest record up to the cutoff, empty ones included
+        assertEquals(10, retention.run());
+
+        LoginAuditDaily alice = day("alice", OLD_DAY);
+        assertEquals(3, alice.getLogins());
+        assertEquals(2, alice.getDistinctIps());
+        assertEquals(at(OLD_DAY, 8).toInstant(), alice.getFirstLogin().toInstant());
+        assertEquals(at(OLD_DAY, 17).toInstant(), alice.getLastLogin().toInstant());
+        assertEquals(1, day("bob", OLD_DAY).getLogins());
+        assertEquals(1, day("alice", OLD_DAY.plusDays(3)).getLogins());
+        assertEquals(3, dailyRepo.count());
+        assertEquals(1, auditRepo.count());
+    }
+
+    @Test
+    void rollingUpADayAgainAddsToItsRowsInsteadOfReplacingThem() {
+        sink.append(List.of(audit("alice", "10.0.0.1", OLD_DAY, 9), audit("alice", "10.0.0.1", OLD_DAY, 10)));
+        retention.run();
+        assertEquals(0, auditRepo.count());
+
+        // a late record for the day that was already compacted
+        sink.append(List.of(audit("alice", "10.0.0.1", OLD_DAY, 7)));
+        retention.run();
+
+        LoginAuditDaily alice = day("alice", OLD_DAY);
+        assertEquals(3, alice.getLogins());
+        assertEquals(1, alice.getDistinctIps());
+        assertEquals(at(OLD_DAY, 7).toInstant(), alice.getFirstLogin().toInstant());
+        assertEquals(at(OLD_DAY, 10).toInstant(), alice.getLastLogin().toInstant());
+        assertEquals(1, dailyRepo.count());
+    }
+
+    private LoginAuditDaily day(String username, LocalDate day) {
+        List<LoginAuditDaily> rows = new ArrayList<>(
+                dailyRepo.findByUsernameAndLoginDayBetweenOrderByLoginDayAsc(username, day, day));
+        assertEquals(1, rows.size());
+        return rows.get(0);
+    }
+
+    private static OffsetDateTime at(LocalDate day, int hour) {
+        return day.atTime(hour, 0).atOffset(ZoneOffset.UTC);
+    }
+
+    private static LoginAudit audit(String username, String ip, LocalDate day, int hour) {
+        LoginAudit a = new LoginAudit();
+        a.setUsername(username);
+        a.setIp(ip);
+        a.setTimestamp(at(day, hour));
+        return a;
+    }
+}
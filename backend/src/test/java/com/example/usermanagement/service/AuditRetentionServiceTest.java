@@ -0,0 +1,22 @@
+package com.example.usermanagement.service;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+class AuditRetentionServiceTest {
+
+    @Test
+    void namesMonthlyPartitions() {
+        assertEquals("login_audit_p2024_03", AuditRetentionService.partitionName(LocalDate.of(2024, 3, 17)));
+        assertEquals("login_audit_p2025_12", AuditRetentionService.partitionName(LocalDate.of(2025, 12, 1)));
+    }
+
+    @Test
+    void rejectsNonPositiveRetention() {
+        assertThrows(IllegalArgumentException.class, () -> new AuditRetentionService(null, null, 0, 2, 31));
+        assertThrows(IllegalArgumentException.class, () -> new AuditRetentionService(null, null, 90, 2, 0));
+    }
+}
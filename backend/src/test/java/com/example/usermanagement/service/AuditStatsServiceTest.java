@@ -0,0 +1,169 @@
+package com.example.usermanagement.service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.example.usermanagement.dto.AuditStats;
+import com.example.usermanagement.dto.AuditIpUser;
+import com.example.usermanagement.model.LoginAudit;
+import com.example.usermanagement.repository.AuditSink;
+import com.example.usermanagement.security.IpRange;
+
+class AuditStatsServiceTest {
+    private static final long HOUR = 3_600_000L;
+    private static final long DAY = 24 * HOUR;
+    /** 2024-03-10T12:30:00Z, half past an hour so hour buckets are easy to reason about */
+    private static final long NOW = 1_710_073_800_000L;
+
+    private final List<LoginAudit> stored = new ArrayList<>();
+
+    @Test
+    void countsLoginsPerWindow() {
+        AuditStatsService stats = new AuditStatsService(sink(), 100);
+        stats.record("alice", "10.0.0.1", at(NOW - 10 * 60_000L));
+        stats.record("alice", "10.0.0.2", at(NOW - 5 * HOUR));
+        stats.record("alice", "10.0.0.1", at(NOW - 10 * DAY));
+        stats.record("alice", "10.0.0.3", at(NOW - 40 * DAY));
+
+        AuditStats.Window hour = stats.userStats("alice", NOW).getWindows().get("1h");
+        AuditStats.Window day = stats.userStats("alice", NOW).getWindows().get("24h");
+        AuditStats.Window month = stats.userStats("alice", NOW).getWindows().get("30d");
+        assertEquals(1, hour.getLogins());
+        assertEquals(1, hour.getDistinct());
+        assertEquals(at(NOW - 10 * 60_000L), hour.getFirstSeen());
+        assertEquals(at(NOW - 10 * 60_000L), hour.getLastSeen());
+        assertEquals(2, day.getLogins());
+        assertEquals(2, day.getDistinct());
+        assertEquals(at(NOW - 5 * HOUR), day.getFirstSeen());
+        assertEquals(3, month.getLogins());
+        assertEquals(2, month.getDistinct());
+        assertEquals(at(NOW - 10 * DAY), month.getFirstSeen());
+    }
+
+    @Test
+    void keepsPerIpAggregatesWithDistinctUsers() {
+        AuditStatsService stats = new AuditStatsService(sink(), 100);
+        stats.record("alice", "10.0.0.1", at(NOW - 1000));
+        stats.record("bob", "10.0.0.1", at(NOW - 2000));
+        stats.record("bob", "10.0.0.1", at(NOW - 3000));
+
+        AuditStats.Window hour = stats.ipStats("10.0.0.1", NOW).getWindows().get("1h");
+        assertEquals(3, hour.getLogins());
+        assertEquals(2, hour.getDistinct());
+        assertEquals(0, stats.ipStats("10.0.0.9", NOW).getWindows().get("30d").getLogins());
+        assertNull(stats.ipStats("10.0.0.9", NOW).getWindows().get("30d").getLastSeen());
+    }
+
+    @Test
+    void estimatesManyDistinctAddressesWithinTheSketchError() {
+        AuditStatsService stats = new AuditStatsService(sink(), 100_000);
+        for (int i = 0; i < 5000; i++) {
+            stats.record("alice", "10." + (i >> 16) + "." + ((i >> 8) & 255) + "." + (i & 255), at(NOW - 1000 - i));
+        }
+        long estimate = stats.userStats("alice", NOW).getWindows().get("1h").getDistinct();
+        assertTrue(Math.abs(estimate - 5000) < 5000 * 0.2, "estimate " + estimate);
+    }
+
+    @Test
+    void distinctCountSlidesWithTheWindow() {
+        SlidingHyperLogLog hll = new SlidingHyperLogLog();
+        for (int i = 0; i < 1000; i++) {
+            hll.add(SlidingHyperLogLog.hash("old" + i), 1000);
+        }
+        for (int i = 0; i < 10; i++) {
+            hll.add(SlidingHyperLogLog.hash("new" + i), 2000);
+        }
+        // small counts are linear counting over the registers: off by at most a collision or two
+        assertTrue(Math.abs(hll.estimate(1500) - 10) <= 1);
+        assertTrue(hll.estimate(0) > 800);
+        assertTrue(hll.expire(2001));
+    }
+
+    @Test
+    void rebuildsFromTheAuditSink() {
+        long now = System.currentTimeMillis();
+        stored.add(audit("alice", "10.0.0.1", now - 1000));
+        stored.add(audit("alice", "10.0.0.2", now - 2000));
+        AuditStatsService stats = new AuditStatsService(sink(), 100);
+        stats.rebuild();
+
+        assertEquals(2, stats.userStats("alice").getWindows().get("1h").getLogins());
+        assertEquals(1, stats.trackedUsers());
+        assertEquals(2, stats.trackedIps());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedKeyAtTheLimit() {
+        AuditStatsService stats = new AuditStatsService(sink(), 2);
+        stats.record("b", null, at(NOW - 2 * DAY));
+        stats.record("a", null, at(NOW - 3 * DAY));
+        stats.record("c", null, at(NOW));
+        assertEquals(2, stats.trackedUsers());
+        assertTrue(stats.userStats("c", NOW).isTracked());
+        assertEquals(1, stats.userStats("c", NOW).getWindows().get("1h").getLogins());
+        assertTrue(stats.userStats("b", NOW).isTracked());
+        assertFalse(stats.userStats("a", NOW).isTracked());
+        assertEquals(0, stats.userStats("a", NOW).getWindows().get("30d").getLogins());
+    }
+
+    @Test
+    void evictsIdleKeys() {
+        AuditStatsService stats = new AuditStatsService(sink(), 10);
+        stats.record("a", null, at(NOW - 40 * DAY));
+        stats.record("b", null, at(NOW));
+
+        stats.evictExpired(NOW);
+        assertEquals(1, stats.trackedUsers());
+        assertFalse(stats.userStats("a", NOW).isTracked());
+    }
+
+    private AuditSink sink() {
+        return new AuditSink() {
+            @Override
+            public void append(List<LoginAudit> batch) {
+                stored.addAll(batch);
+            }
+
+            @Override
+            public List<LoginAudit> findPage(String username, OffsetDateTime from, OffsetDateTime beforeTimestamp, long beforeId, int limit) {
+                return List.of();
+            }
+
+            @Override
+            public List<AuditIpUser> findByAddress(IpRange range, OffsetDateTime from, OffsetDateTime to, int limit) {
+                return List.of();
+            }
+
+            @Override
+            public void scan(String username, OffsetDateTime from, OffsetDateTime to, RecordVisitor visitor) throws IOException {
+                for (LoginAudit a : stored) {
+                    if (!a.getTimestamp().isBefore(from)) {
+                        visitor.visit(a.getId() != null ? a.getId() : 0, a.getUsername(), a.getIp(), a.getTimestamp());
+                    }
+                }
+            }
+        };
+    }
+
+    private static LoginAudit audit(String username, String ip, long millis) {
+        LoginAudit a = new LoginAudit();
+        a.setUsername(username);
+        a.setIp(ip);
+        a.setTimestamp(at(millis));
+        return a;
+    }
+
+    private static OffsetDateTime at(long millis) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+}
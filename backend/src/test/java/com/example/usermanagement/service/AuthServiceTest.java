@@ -3,11 +3,15 @@ package com.example.usermanagement.service;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -15,21 +19,27 @@ import com.example.usermanagement.dto.AuthRequest;
 import com.example.usermanagement.dto.RegisterRequest;
 import com.example.usermanagement.model.User;
 import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.security.AccessTokenRevocationList;
 import com.example.usermanagement.security.JwtUtil;
+import com.example.usermanagement.security.LoginThrottle;
+import com.example.usermanagement.security.PasswordHashingExecutor;
 
 class AuthServiceTest {
     private UserRepository repo;
     private JwtUtil jwtUtil;
-    private com.example.usermanagement.repository.LoginAuditRepository auditRepo;
+    private LoginAuditWriter auditWriter;
+    private LastLoginRecorder lastLogins;
     private AuthService service;
 
     @BeforeEach
     void setup() {
         repo = mock(UserRepository.class);
         jwtUtil = mock(JwtUtil.class);
-        auditRepo = mock(com.example.usermanagement.repository.LoginAuditRepository.class);
+        auditWriter = mock(LoginAuditWriter.class);
+        lastLogins = mock(LastLoginRecorder.class);
         when(jwtUtil.generateToken(anyString(), anyString())).thenReturn("token");
-        service = new AuthService(repo, jwtUtil, auditRepo);
+        service = new AuthService(repo, new UserCredentialCache(repo, 100, 600, true), jwtUtil, auditWriter, mock(AuditStatsService.class), lastLogins, new PasswordHashingExecutor(1, 4, 30000, 1), new AccessTokenRevocationList(300000),
+                new LoginThrottle(true, 4, 100, 5, 5, 30, 60, 900));
     }
 
     @Test
@@ -54,5 +64,30 @@ class AuthServiceTest {
         ar.setPassword("pass123");
     com.example.usermanagement.dto.AuthResponse resp = service.login(ar, "127.0.0.1");
     assertEquals("token", resp.getToken());
+        // a regular login only records the last login: the row is not saved again
+        verify(repo, times(1)).save(any(User.class));
+        verify(lastLogins).record(any(), any());
+    }
+
+    @Test
+    void loginUpgradesLegacyHash() throws Exception {
+        byte[] salt = new byte[16];
+        javax.crypto.spec.PBEKeySpec spec = new javax.crypto.spec.PBEKeySpec("pass123".toCharArray(), salt, 310000, 256);
+        User legacy = new User();
+        legacy.setUsername("bob");
+        legacy.setRole(User.Role.USER);
+        legacy.setSalt(java.util.Base64.getEncoder().encodeToString(salt));
+        legacy.setPasswordHash(java.util.Base64.getEncoder().encodeToString(
+                javax.crypto.SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded()));
+        when(repo.findByUsername("bob")).thenReturn(Optional.of(legacy));
+
+        AuthRequest ar = new AuthRequest();
+        ar.setUsername("bob");
+        ar.setPassword("pass123");
+        service.login(ar, "127.0.0.1");
+
+        assertTrue(legacy.getPasswordHash().startsWith("$pbkdf2-sha256$"));
+        assertNull(legacy.getSalt());
+        verify(repo).save(legacy);
     }
 }
@@ -0,0 +1,92 @@
+package com.example.usermanagement.service;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.usermanagement.repository.UserRepository;
+
+class LastLoginRecorderTest {
+    private static final OffsetDateTime T1 = OffsetDateTime.of(2024, 3, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime T2 = T1.plusMinutes(1);
+
+    private UserRepository repo;
+    private PlatformTransactionManager txManager;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(UserRepository.class);
+        txManager = mock(PlatformTransactionManager.class);
+    }
+
+    @Test
+    void directModeUpdatesOnEachLogin() {
+        LastLoginRecorder recorder = new LastLoginRecorder(repo, txManager, "direct", 10);
+        recorder.record(7L, T1);
+        recorder.record(7L, T2);
+
+        verify(repo).updateLastLogin(7L, T1);
+        verify(repo).updateLastLogin(7L, T2);
+    }
+
+    @Test
+    void coalesceModeWritesTheLatestLoginPerUserOnFlush() {
+        LastLoginRecorder recorder = new LastLoginRecorder(repo, txManager, "coalesce", 10);
+        recorder.record(7L, T2);
+        recorder.record(7L, T1);
+        recorder.record(8L, T1);
+        verify(repo, never()).updateLastLogin(anyLong(), any());
+
+        recorder.flush();
+        verify(repo).updateLastLogin(7L, T2);
+        verify(repo).updateLastLogin(8L, T1);
+
+        recorder.flush();
+        verify(repo, times(2)).updateLastLogin(anyLong(), any());
+    }
+
+    @Test
+    void readsThroughPendingTimestamps() {
+        LastLoginRecorder recorder = new LastLoginRecorder(repo, txManager, "coalesce", 10);
+        when(repo.findLastLoginById(7L)).thenReturn(Optional.of(T1));
+        assertEquals(T1, recorder.lastLogin(7L));
+
+        recorder.record(7L, T2);
+        assertEquals(T2, recorder.lastLogin(7L));
+
+        recorder.flush();
+        when(repo.findLastLoginById(7L)).thenReturn(Optional.of(T2));
+        assertEquals(T2, recorder.lastLogin(7L));
+        verify(repo, never()).findById(anyLong());
+    }
+
+    @Test
+    void failedFlushKeepsTimestampsPending() {
+        when(repo.updateLastLogin(anyLong(), any())).thenThrow(new IllegalStateException("down"));
+        LastLoginRecorder recorder = new LastLoginRecorder(repo, txManager, "coalesce", 10);
+        recorder.record(7L, T2);
+        recorder.flush();
+
+        when(repo.findLastLoginById(7L)).thenReturn(Optional.empty());
+        assertEquals(T2, recorder.lastLogin(7L));
+    }
+
+    @Test
+    void rejectsUnknownMode() {
+        assertThrows(IllegalArgumentException.class, () -> new LastLoginRecorder(repo, txManager, "later", 10));
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.usermanagement.service;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.usermanagement.dto.AuditIpUser;
+import com.example.usermanagement.model.LoginAudit;
+import com.example.usermanagement.repository.AuditSink;
+import com.example.usermanagement.security.IpRange;
+
+class LoginAuditWriterTest {
+    private final RecordingSink sink = new RecordingSink();
+    private LoginAuditWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void writesQueuedRecordsInBatchesOfAtMostBatchSize() {
+        writer = new LoginAuditWriter(sink, 100, 4, 60000, "drop", 0, 3, 0);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(writer.submit(record("user" + i)));
+        }
+        writer.flush();
+
+        assertEquals(List.of(4, 4, 2), sink.batchSizes);
+        assertEquals(10, sink.rows.size());
+        assertEquals("user0", sink.rows.get(0).getUsername());
+        assertEquals("10.0.0.1", sink.rows.get(0).getIp());
+    }
+
+    @Test
+    void writerThreadFlushesAfterTheInterval() throws InterruptedException {
+        writer = new LoginAuditWriter(sink, 100, 500, 20, "drop", 0, 3, 0);
+        writer.start();
+        writer.submit(record("alice"));
+        writer.submit(record("bob"));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sink.rows.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, sink.rows.size());
+    }
+
+    @Test
+    void dropsWhenTheQueueIsFull() {
+        writer = new LoginAuditWriter(sink, 2, 10, 60000, "drop", 0, 3, 0);
+        assertTrue(writer.submit(record("a")));
+        assertTrue(writer.submit(record("b")));
+        assertFalse(writer.submit(record("c")));
+
+        writer.flush();
+        assertEquals(2, sink.rows.size());
+    }
+
+    @Test
+    void blockingPolicyGivesUpAfterTheTimeout() {
+        writer = new LoginAuditWriter(sink, 1, 10, 60000, "block", 20, 3, 0);
+        assertTrue(writer.submit(record("a")));
+        long start = System.nanoTime();
+        assertFalse(writer.submit(record("b")));
+        assertTrue(System.nanoTime() - start >= 15_000_000L);
+    }
+
+    @Test
+    void shutdownWritesPendingRecords() {
+        writer = new LoginAuditWriter(sink, 100, 10, 60000, "drop", 0, 3, 0);
+        writer.submit(record("a"));
+        writer.shutdown();
+        writer = null;
+
+        assertEquals(1, sink.rows.size());
+    }
+
+    @Test
+    void retriesAFailedBatchBeforeDroppingIt() {
+        writer = new LoginAuditWriter(sink, 100, 10, 60000, "drop", 0, 3, 0);
+        sink.failuresLeft = 2;
+        writer.submit(record("alice"));
+        writer.flush();
+        assertEquals(3, sink.attempts);
+        assertEquals(1, sink.rows.size());
+
+        sink.failuresLeft = 5;
+        writer.submit(record("bob"));
+        writer.flush();
+        assertEquals(6, sink.attempts);
+        assertEquals(1, sink.rows.size());
+    }
+
+    @Test
+    void rejectsUnknownOverflowPolicy() {
+        assertThrows(IllegalArgumentException.class, () -> new LoginAuditWriter(sink, 10, 10, 10, "later", 0, 3, 0));
+    }
+
+    private static LoginAudit record(String username) {
+        LoginAudit a = new LoginAudit();
+        a.setUsername(username);
+        a.setIp("10.0.0.1");
+        a.setTimestamp(OffsetDateTime.now());
+        return a;
+    }
+
+    /** Records appended batches instead of storing them. */
+    private static final class RecordingSink implements AuditSink {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final List<LoginAudit> rows = new CopyOnWriteArrayList<>();
+        volatile int failuresLeft;
+        volatile int attempts;
+
+        @Override
+        public void append(List<LoginAudit> batch) {
+            attempts++;
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IllegalStateException("storage unavailable");
+            }
+            batchSizes.add(batch.size());
+            rows.addAll(batch);
+        }
+
+        @Override
+        public List<LoginAudit> findPage(String username, OffsetDateTime from, OffsetDateTime beforeTimestamp, long beforeId, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public List<AuditIpUser> findByAddress(IpRange range, OffsetDateTime from, OffsetDateTime to, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public void scan(String username, OffsetDateTime from, OffsetDateTime to, RecordVisitor visitor) throws IOException {
+        }
+    }
+}
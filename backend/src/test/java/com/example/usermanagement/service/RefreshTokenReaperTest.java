@@ -0,0 +1,47 @@
+package com.example.usermanagement.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.usermanagement.repository.RefreshTokenStore;
+
+class RefreshTokenReaperTest {
+    private RefreshTokenStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = mock(RefreshTokenStore.class);
+    }
+
+    @Test
+    void deletesBatchesUntilOneIsShort() {
+        when(store.countExpired(any())).thenReturn(25L);
+        when(store.deleteExpired(any(), eq(10))).thenReturn(10, 10, 5);
+        RefreshTokenReaper reaper = new RefreshTokenReaper(store, 10, 0, 100);
+
+        assertEquals(25, reaper.reap());
+        verify(store, times(3)).deleteExpired(any(), eq(10));
+    }
+
+    @Test
+    void stopsAfterMaxBatchesPerRun() {
+        when(store.deleteExpired(any(), eq(10))).thenReturn(10);
+        RefreshTokenReaper reaper = new RefreshTokenReaper(store, 10, 0, 4);
+
+        assertEquals(40, reaper.reap());
+        verify(store, times(4)).deleteExpired(any(), eq(10));
+    }
+
+    @Test
+    void rejectsNonPositiveBatchSize() {
+        assertThrows(IllegalArgumentException.class, () -> new RefreshTokenReaper(store, 0, 0, 1));
+    }
+}
@@ -1,74 +1,156 @@
 package com.example.usermanagement.service;
 
+import java.security.MessageDigest;
 import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.example.usermanagement.model.RefreshToken;
-import com.example.usermanagement.repository.RefreshTokenRepository;
+import com.example.usermanagement.repository.RefreshTokenStore;
+import com.example.usermanagement.security.AccessTokenRevocationList;
 
 class RefreshTokenServiceTest {
-    private RefreshTokenRepository repo;
+    private RefreshTokenStore store;
     private RefreshTokenService service;
+    private final Map<String, RefreshToken> rows = new HashMap<>();
 
     @BeforeEach
     void setUp() {
-        repo = mock(RefreshTokenRepository.class);
-        when(repo.save(any())).thenAnswer(i -> i.getArgument(0));
-        service = new RefreshTokenService(repo);
+        store = mock(RefreshTokenStore.class);
+        doAnswer(i -> {
+            RefreshToken rt = i.getArgument(0);
+            rows.put(rt.getSelector(), rt);
+            return null;
+        }).when(store).insert(any());
+        when(store.findBySelector(anyString())).thenAnswer(i -> Optional.ofNullable(rows.get(i.getArgument(0))));
+        when(store.rotate(any(), any(), any(), any())).thenAnswer(i -> {
+            RefreshToken current = rows.get(((RefreshToken) i.getArgument(0)).getSelector());
+            if (current == null || current.getRotatedAt() != null) {
+                return false;
+            }
+            current.setRotatedAt(i.getArgument(2));
+            current.setExpiresAt(i.getArgument(3));
+            RefreshToken successor = i.getArgument(1);
+            rows.put(successor.getSelector(), successor);
+            return true;
+        });
+        when(store.deleteFamily(any())).thenAnswer(i -> {
+            String family = ((RefreshToken) i.getArgument(0)).getFamilyId();
+            int before = rows.size();
+            rows.values().removeIf(r -> r.getFamilyId().equals(family));
+            return before - rows.size();
+        });
+        service = new RefreshTokenService(store, new AccessTokenRevocationList(300000), 86400);
     }
 
     @Test
     void createAndValidate() {
-        when(repo.save(any())).thenAnswer(i -> i.getArgument(0));
         String token = service.createRefreshToken("alice");
         assertNotNull(token);
 
-        RefreshToken saved = new RefreshToken();
-        saved.setToken(token);
-        saved.setUsername("alice");
-        saved.setExpiresAt(OffsetDateTime.now().plusDays(1));
-        when(repo.findByToken(token)).thenReturn(Optional.of(saved));
-
         Optional<String> v = service.validate(token);
         assertTrue(v.isPresent());
         assertEquals("alice", v.get());
     }
 
     @Test
-    void rotateDeletesOldAndCreatesNew() {
-        RefreshToken old = new RefreshToken();
-        old.setToken("old");
-        old.setUsername("bob");
-        old.setExpiresAt(OffsetDateTime.now().plusDays(1));
-        when(repo.findByToken("old")).thenReturn(Optional.of(old));
-        when(repo.save(any())).thenAnswer(i -> i.getArgument(0));
-
-        String nt = service.rotateRefreshToken("old");
-        assertNotNull(nt);
-        assertNotEquals("old", nt);
-        verify(repo).delete(old);
+    void storesOnlySelectorAndVerifierHash() throws Exception {
+        String token = service.createRefreshToken("alice");
+        int dot = token.indexOf('.');
+        RefreshToken saved = rows.get(token.substring(0, dot));
+
+        assertNotNull(saved);
+        byte[] verifier = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(verifier), saved.getVerifierHash());
+    }
+
+    @Test
+    void rejectsWrongVerifier() {
+        String token = service.createRefreshToken("alice");
+        String forged = token.substring(0, token.indexOf('.') + 1) + "A".repeat(43);
+
+        assertTrue(service.validate(forged).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> service.rotateRefreshToken(forged));
+    }
+
+    @Test
+    void rejectsMalformedTokensWithoutQuery() {
+        assertTrue(service.validate("not-a-token").isEmpty());
+        assertTrue(service.validate("0123456789abcdef.!!").isEmpty());
+        assertTrue(service.validate(null).isEmpty());
+        verify(store, never()).findBySelector(anyString());
+    }
+
+    @Test
+    void rotateMarksOldAndCreatesNewInSameFamily() {
+        String old = service.createRefreshToken("bob");
+        RefreshToken stored = rows.get(old.substring(0, old.indexOf('.')));
+
+        RefreshTokenService.Rotation rotation = service.rotateRefreshToken(old);
+        assertEquals("bob", rotation.username());
+        assertNotEquals(old, rotation.token());
+        assertNotNull(stored.getRotatedAt());
+        // kept for the one-day reuse detection window, not the 30-day validity
+        assertTrue(stored.getExpiresAt().isBefore(OffsetDateTime.now().plusDays(2)));
+        assertTrue(service.validate(old).isEmpty());
+        assertEquals("bob", service.validate(rotation.token()).orElseThrow());
+        assertEquals(stored.getFamilyId(), rows.get(rotation.token().substring(0, 16)).getFamilyId());
+    }
+
+    @Test
+    void replayingRotatedTokenRevokesFamily() {
+        String old = service.createRefreshToken("bob");
+        String other = service.createRefreshToken("bob");
+        String current = service.rotateRefreshToken(old).token();
+
+        assertThrows(IllegalArgumentException.class, () -> service.rotateRefreshToken(old));
+        assertTrue(service.validate(current).isEmpty());
+        // sessions started by other logins are unaffected
+        assertTrue(service.validate(other).isPresent());
+    }
+
+    @Test
+    void rotateFailsIfTokenWasRotatedConcurrently() {
+        String old = service.createRefreshToken("bob");
+        // doReturn: when(...) would call the setUp answer with null matcher arguments
+        doReturn(false).when(store).rotate(any(), any(), any(), any());
+
+        assertThrows(IllegalArgumentException.class, () -> service.rotateRefreshToken(old));
+        assertEquals(1, rows.size());
     }
 
     @Test
-    void revokeTokenDeletes() {
-        RefreshToken rt = new RefreshToken();
-        rt.setToken("x");
-        rt.setUsername("u");
-        rt.setExpiresAt(OffsetDateTime.now().plusDays(1));
-        when(repo.findByToken("x")).thenReturn(Optional.of(rt));
-
-        service.revokeToken("x");
-        verify(repo).delete(rt);
+    void revokeAllForUserDeletesInBulk() {
+        when(store.deleteByUsername("carol")).thenReturn(3);
+
+        assertEquals(3, service.revokeAllForUser("carol"));
+    }
+
+    @Test
+    void revokeTokenDeletesFamily() {
+        String token = service.createRefreshToken("u");
+        RefreshToken stored = rows.get(token.substring(0, token.indexOf('.')));
+
+        service.revokeToken(token);
+        verify(store).deleteFamily(stored);
     }
 }
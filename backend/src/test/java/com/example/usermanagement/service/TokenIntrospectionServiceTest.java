@@ -0,0 +1,96 @@
+package com.example.usermanagement.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.usermanagement.dto.IntrospectionResponse.TokenStatus;
+import com.example.usermanagement.security.AccessTokenRevocationList;
+import com.example.usermanagement.security.InMemoryJwtKeyStore;
+import com.example.usermanagement.security.JwtKeyRing;
+import com.example.usermanagement.security.JwtUtil;
+import com.example.usermanagement.security.VerifiedTokenCache;
+import com.example.usermanagement.security.VerifiedTokenCache.VerifiedToken;
+
+class TokenIntrospectionServiceTest {
+    private JwtUtil jwtUtil;
+    private AccessTokenRevocationList revocationList;
+    private VerifiedTokenCache tokenCache;
+    private TokenIntrospectionService service;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(new JwtKeyRing(new InMemoryJwtKeyStore(), 86_400_000, 300_000, 60_000), 300_000);
+        revocationList = new AccessTokenRevocationList(300_000);
+        tokenCache = new VerifiedTokenCache(100);
+        service = new TokenIntrospectionService(jwtUtil, revocationList, tokenCache, 2, 4, 5000, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void reportsClaimsOfValidTokens() {
+        TokenStatus status = service.introspect(jwtUtil.generateToken("alice", "ADMIN"));
+        assertTrue(status.isActive());
+        assertEquals("alice", status.getSub());
+        assertEquals("ADMIN", status.getRole());
+        assertTrue(status.getExp() > System.currentTimeMillis() / 1000);
+    }
+
+    @Test
+    void reportsInvalidAndRevokedTokensAsInactive() {
+        String revoked = jwtUtil.generateToken("bob", "USER");
+        revocationList.revoke(jwtUtil.parse(revoked));
+
+        assertFalse(service.introspect("not-a-token").isActive());
+        assertFalse(service.introspect("").isActive());
+        assertFalse(service.introspect(revoked).isActive());
+    }
+
+    @Test
+    void keepsRequestOrderForLargeBatches() {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            tokens.add(i % 5 == 0 ? "garbage-" + i : jwtUtil.generateToken("user" + i, "USER"));
+        }
+        List<TokenStatus> results = service.introspect(tokens);
+
+        assertEquals(50, results.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i % 5 != 0, results.get(i).isActive());
+            if (i % 5 != 0) {
+                assertEquals("user" + i, results.get(i).getSub());
+            }
+        }
+    }
+
+    @Test
+    void servesTokensAlreadyVerifiedFromTheCache() {
+        String token = jwtUtil.generateToken("carol", "USER");
+        assertTrue(service.introspect(token).isActive());
+        assertEquals(1, tokenCache.size());
+
+        // an entry the cache holds is trusted without a second signature check
+        String tampered = token.substring(0, token.length() - 4) + "AAAA";
+        tokenCache.put(tampered, VerifiedToken.of(jwtUtil.parse(token)));
+        assertTrue(service.introspect(tampered).isActive());
+    }
+
+    @Test
+    void cachedTokensAreStillCheckedForRevocation() {
+        String token = jwtUtil.generateToken("dave", "USER");
+        assertTrue(service.introspect(token).isActive());
+
+        revocationList.revoke(jwtUtil.parse(token));
+        assertFalse(service.introspect(token).isActive());
+    }
+}
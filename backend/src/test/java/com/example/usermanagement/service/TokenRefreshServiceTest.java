@@ -0,0 +1,89 @@
+package com.example.usermanagement.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRefreshServiceTest {
+    private RefreshTokenService refreshTokenService;
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = mock(RefreshTokenService.class);
+        authService = mock(AuthService.class);
+        when(authService.createAccessTokenForUser("alice")).thenReturn("access");
+    }
+
+    @Test
+    void concurrentRefreshesShareOneRotation() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(refreshTokenService.rotateRefreshToken("old")).thenAnswer(i -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new RefreshTokenService.Rotation("alice", "new");
+        });
+        TokenRefreshService service = new TokenRefreshService(refreshTokenService, authService, 5000);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<TokenRefreshService.TokenRefresh>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(pool.submit(() -> service.refresh("old")));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            TokenRefreshService.TokenRefresh first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<TokenRefreshService.TokenRefresh> r : results) {
+                assertSame(first, r.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals("new", first.refreshToken());
+            assertEquals("access", first.accessToken());
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(refreshTokenService, times(1)).rotateRefreshToken("old");
+    }
+
+    @Test
+    void lateRefreshWithinGracePeriodGetsSameResult() {
+        when(refreshTokenService.rotateRefreshToken("old")).thenReturn(new RefreshTokenService.Rotation("alice", "new"));
+        TokenRefreshService service = new TokenRefreshService(refreshTokenService, authService, 5000);
+
+        assertSame(service.refresh("old"), service.refresh("old"));
+        verify(refreshTokenService, times(1)).rotateRefreshToken("old");
+    }
+
+    @Test
+    void failuresAreNotShared() {
+        when(refreshTokenService.rotateRefreshToken("bad")).thenThrow(new IllegalArgumentException("Token de refresco inválido"));
+        TokenRefreshService service = new TokenRefreshService(refreshTokenService, authService, 5000);
+
+        assertThrows(IllegalArgumentException.class, () -> service.refresh("bad"));
+        assertThrows(IllegalArgumentException.class, () -> service.refresh("bad"));
+        verify(refreshTokenService, times(2)).rotateRefreshToken("bad");
+        assertEquals(0, service.trackedCount());
+    }
+
+    @Test
+    void zeroGracePeriodForgetsCompletedRefreshes() {
+        when(refreshTokenService.rotateRefreshToken("old")).thenReturn(new RefreshTokenService.Rotation("alice", "new"));
+        TokenRefreshService service = new TokenRefreshService(refreshTokenService, authService, 0);
+
+        service.refresh("old");
+        assertEquals(0, service.trackedCount());
+    }
+}
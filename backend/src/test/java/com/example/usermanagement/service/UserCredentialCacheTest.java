@@ -0,0 +1,133 @@
+package com.example.usermanagement.service;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.usermanagement.model.User;
+import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.security.Pbkdf2Password;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserCredentialCacheTest {
+    private UserRepository repo;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(UserRepository.class);
+    }
+
+    @Test
+    void loadsOnceAndServesDecodedCredentials() {
+        User alice = user(1L, "alice", Pbkdf2Password.encode("pass123".toCharArray(), 1000));
+        when(repo.findByUsername("alice")).thenReturn(Optional.of(alice));
+        UserCredentialCache cache = new UserCredentialCache(repo, 10, 600, true);
+
+        UserCredentialCache.Credentials first = cache.get("alice");
+        assertSame(first, cache.get("alice"));
+        verify(repo, times(1)).findByUsername("alice");
+        assertEquals(Long.valueOf(1), first.id());
+        assertEquals(User.Role.USER, first.role());
+        assertEquals(1000, first.hash().iterations());
+        assertTrue(Pbkdf2Password.matches("pass123".toCharArray(), first.hash().salt(), first.hash().iterations(), first.hash().hash()));
+        assertTrue(cache.entryBytes() > 0);
+    }
+
+    @Test
+    void invalidationReloadsTheChangedRow() {
+        User alice = user(1L, "alice", Pbkdf2Password.encode("old".toCharArray(), 1000));
+        when(repo.findByUsername("alice")).thenReturn(Optional.of(alice));
+        UserCredentialCache cache = new UserCredentialCache(repo, 10, 600, true);
+        cache.get("alice");
+
+        alice.setForcePasswordReset(true);
+        cache.invalidate("alice");
+
+        assertEquals(0, cache.size());
+        assertTrue(cache.get("alice").forcePasswordReset());
+        verify(repo, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void loginReloadsCredentialsChangedThroughAnotherInstance() {
+        User alice = user(1L, "alice", Pbkdf2Password.encode("old".toCharArray(), 1000));
+        when(repo.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(repo.findCredentialsVersion("alice")).thenAnswer(inv -> Optional.of(alice.getCredentialsVersion()));
+        UserCredentialCache cache = new UserCredentialCache(repo, 10, 600, true);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        UserCredentialCache.Credentials first = cache.getForLogin("alice");
+
+        assertSame(first, cache.getForLogin("alice"));
+        verify(repo, times(1)).findByUsername("alice");
+        assertEquals(0, registry.get("auth.credentials.cache.hits").functionCounter().count());
+        assertEquals(1, registry.get("auth.credentials.cache.verified").functionCounter().count());
+
+        // changed on another instance: no invalidation reaches this cache
+        alice.setPasswordHash(Pbkdf2Password.encode("new".toCharArray(), 1000));
+        UserCredentialCache.Credentials reloaded = cache.getForLogin("alice");
+        assertTrue(Pbkdf2Password.matches("new".toCharArray(), reloaded.hash().salt(), reloaded.hash().iterations(), reloaded.hash().hash()));
+        verify(repo, times(2)).findByUsername("alice");
+
+        doReturn(Optional.empty()).when(repo).findCredentialsVersion("alice");
+        when(repo.findByUsername("alice")).thenReturn(Optional.empty());
+        assertNull(cache.getForLogin("alice"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void loginDoesNotReadTheRowUnlessVerificationIsEnabled() {
+        when(repo.findByUsername("alice")).thenReturn(Optional.of(user(1L, "alice", null)));
+        UserCredentialCache cache = new UserCredentialCache(repo, 10, 600, false);
+
+        assertSame(cache.getForLogin("alice"), cache.getForLogin("alice"));
+        verify(repo, times(1)).findByUsername("alice");
+        verify(repo, never()).findCredentialsVersion(anyString());
+    }
+
+    @Test
+    void doesNotCacheUnknownUsersOrExpiredEntries() {
+        when(repo.findByUsername(anyString())).thenReturn(Optional.empty());
+        when(repo.findByUsername("alice")).thenReturn(Optional.of(user(1L, "alice", null)));
+        UserCredentialCache cache = new UserCredentialCache(repo, 10, 1, true);
+
+        assertNull(cache.get("nobody"));
+        assertEquals(0, cache.size());
+        assertNull(cache.get("alice", 0).hash());
+        cache.get("alice", 999);
+        cache.get("alice", 1000);
+        verify(repo, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void staysWithinBound() {
+        UserCredentialCache cache = new UserCredentialCache(repo, 20, 600, true);
+        for (long i = 0; i < 100; i++) {
+            when(repo.findByUsername("user" + i)).thenReturn(Optional.of(user(i, "user" + i, null)));
+            cache.get("user" + i);
+        }
+        assertTrue(cache.size() <= 20);
+    }
+
+    private static User user(Long id, String username, String hash) {
+        User u = new User();
+        u.setId(id);
+        u.setUsername(username);
+        u.setPasswordHash(hash);
+        u.setRole(User.Role.USER);
+        return u;
+    }
+}
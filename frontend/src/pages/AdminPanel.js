@@ -38,6 +38,8 @@ export default function AdminPanel({ token, onLogout }) {
   const [users, setUsers] = useState([]);
   const [msg, setMsg] = useState(null);
   const [audit, setAudit] = useState([]);
+  const [auditUser, setAuditUser] = useState(null);
+  const [auditCursor, setAuditCursor] = useState(null);
   const [confirmOpen, setConfirmOpen] = useState(false);
   const [deletingUser, setDeletingUser] = useState(null);
 
@@ -104,14 +106,18 @@ export default function AdminPanel({ token, onLogout }) {
     }
   }
 
-  async function fetchAudit(username) {
-    const res = await fetch(
-      "/api/admin/audit?username=" + encodeURIComponent(username),
-      { headers: { Authorization: "Bearer " + token } }
-    );
+  // audit records come newest first, one page at a time; "before" asks for the next page
+  async function fetchAudit(username, before) {
+    let url = "/api/admin/audit?username=" + encodeURIComponent(username);
+    if (before) url += "&before=" + encodeURIComponent(before);
+    const res = await fetch(url, {
+      headers: { Authorization: "Bearer " + token },
+    });
     if (res.ok) {
       const data = await res.json();
-      setAudit(data);
+      setAudit(before ? (prev) => prev.concat(data.entries) : data.entries);
+      setAuditUser(username);
+      setAuditCursor(data.nextCursor);
     } else {
       const err = await getErrorMessage(res);
       setMsg(err || "Error al obtener auditoría");
@@ -119,7 +125,11 @@ export default function AdminPanel({ token, onLogout }) {
   }
 
   async function doLogout() {
-    await fetch("/api/auth/logout", { method: "POST", credentials: "include" });
+    await fetch("/api/auth/logout", {
+      method: "POST",
+      credentials: "include",
+      headers: { Authorization: "Bearer " + token },
+    });
     onLogout();
   }
 
@@ -181,6 +191,14 @@ export default function AdminPanel({ token, onLogout }) {
               </li>
             ))}
           </ul>
+          {auditCursor && (
+            <Button
+              className="mt-2 bg-gray-600 text-white"
+              onClick={() => fetchAudit(auditUser, auditCursor)}
+            >
+              Cargar más
+            </Button>
+          )}
         </div>
       )}
       <ConfirmDialog
@@ -75,6 +75,7 @@ export default function UserPanel({ token, onLogout, requirePasswordChange = fal
             await fetch("/api/auth/logout", {
               method: "POST",
               credentials: "include",
+              headers: { Authorization: "Bearer " + token },
             });
             onLogout();
           }}